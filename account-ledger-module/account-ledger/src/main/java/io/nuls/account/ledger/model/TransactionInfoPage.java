@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.model;
+
+import java.util.List;
+
+/**
+ * 按高度从新到旧排列的一页交易记录，nextCursor为空表示已经没有更多记录
+ * One page of tx records ordered newest first by height, a null nextCursor means there are no more records.
+ */
+public class TransactionInfoPage {
+
+    private List<TransactionInfo> list;
+
+    /**
+     * 读取下一页时传入的游标
+     * The cursor to pass in when reading the next page
+     */
+    private byte[] nextCursor;
+
+    public TransactionInfoPage(List<TransactionInfo> list, byte[] nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionInfo> getList() {
+        return list;
+    }
+
+    public void setList(List<TransactionInfo> list) {
+        this.list = list;
+    }
+
+    public byte[] getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(byte[] nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -27,6 +27,7 @@ package io.nuls.account.ledger.service;
 
 import io.nuls.account.ledger.model.MultipleAddressTransferModel;
 import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.model.TransactionInfoPage;
 import io.nuls.account.model.Account;
 import io.nuls.account.model.Balance;
 import io.nuls.account.ledger.model.CoinDataResult;
@@ -215,12 +216,33 @@ public interface AccountLedgerService {
      */
     Result importLedger(String address);
 
+    /**
+     * load the local ledger of a set of accounts in one pass of the blocks,
+     * an interrupted import resumes from its checkpoint
+     *
+     * @param addresses addresses
+     * @return Result
+     */
+    Result importLedger(List<String> addresses);
+
     /**
      * @param address address
      * @return Result
      */
     Result<List<TransactionInfo>> getTxInfoList(byte[] address);
 
+    /**
+     * 按高度从新到旧分页获取地址的交易记录，只读取当前页的数据
+     * Gets one page of the tx records of an address ordered newest first by height, only the current page is read
+     *
+     * @param address  address
+     * @param cursor   上一页返回的游标，为空时读取第一页/cursor returned with the previous page, reads the first page when empty
+     * @param pageSize page size
+     * @param type     交易类型，小于等于0表示全部/tx type, all types when less than or equal to 0
+     * @return Result
+     */
+    Result<TransactionInfoPage> getTxInfoPage(byte[] address, byte[] cursor, int pageSize, int type);
+
     /**
      * @param address address
      * @return Result
@@ -26,37 +26,167 @@
 package io.nuls.account.ledger.base.manager;
 
 import io.nuls.account.model.Balance;
+import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.Na;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
+ * 单个地址的余额，按UTXO的增删增量维护可用与锁定两部分，
+ * 按高度/时间排序的解锁计划在高度或时间推进时把到期的锁定金额转为可用
+ * <p>
+ * Balance of one address, the usable and locked parts are maintained incrementally from UTXO changes,
+ * a height/time ordered unlock schedule moves matured locked amounts to usable as height and time advance
+ * <p>
+ * 非线程安全，由BalanceManager按地址加锁访问
+ * Not thread safe, BalanceManager guards every address with its lock
+ *
  * author Facjas
  * date 2018/6/12.
  */
 public class BalanceCacheEntity {
-    private Balance balance;
-    long lowestLockHeigh;
-    long earlistLockTime;
 
-    public Balance getBalance() {
-        return balance;
+    private final Map<String, Coin> coinMap = new HashMap<>();
+
+    private long usable;
+
+    private long locked;
+
+    /**
+     * 按高度锁定：解锁高度 -> 锁定金额
+     * Height locks: unlock height -> locked amount
+     */
+    private final TreeMap<Long, Long> heightUnlockMap = new TreeMap<>();
+
+    /**
+     * 按时间锁定：解锁时间 -> 锁定金额
+     * Time locks: unlock time -> locked amount
+     */
+    private final TreeMap<Long, Long> timeUnlockMap = new TreeMap<>();
+
+    /**
+     * 已应用解锁计划的高度和时间
+     * Height and time the unlock schedule was applied up to
+     */
+    private long unlockedHeight;
+
+    private long unlockedTime;
+
+    public BalanceCacheEntity(long bestHeight, long currentTime) {
+        this.unlockedHeight = bestHeight;
+        this.unlockedTime = currentTime;
     }
 
-    public void setBalance(Balance balance) {
-        this.balance = balance;
+    public void addCoin(String key, Coin coin) {
+        removeCoin(key);
+        coinMap.put(key, coin);
+        long na = coin.getNa().getValue();
+        if (isUnlocked(coin.getLockTime())) {
+            usable += na;
+            return;
+        }
+        locked += na;
+        TreeMap<Long, Long> schedule = getSchedule(coin.getLockTime());
+        if (schedule != null) {
+            schedule.merge(coin.getLockTime(), na, Long::sum);
+        }
     }
 
-    public long getLowestLockHeigh() {
-        return lowestLockHeigh;
+    public void removeCoin(String key) {
+        Coin coin = coinMap.remove(key);
+        if (coin == null) {
+            return;
+        }
+        long na = coin.getNa().getValue();
+        if (isUnlocked(coin.getLockTime())) {
+            usable -= na;
+            return;
+        }
+        locked -= na;
+        TreeMap<Long, Long> schedule = getSchedule(coin.getLockTime());
+        if (schedule != null) {
+            schedule.computeIfPresent(coin.getLockTime(), (k, v) -> v == na ? null : v - na);
+        }
     }
 
-    public void setLowestLockHeigh(long lowestLockHeigh) {
-        this.lowestLockHeigh = lowestLockHeigh;
+    /**
+     * 推进到给定的高度和时间，把到期的锁定金额转为可用；回滚到更低的高度时重新计算
+     * Advance to the given height and time, matured locked amounts become usable; going back (rollback) recalculates
+     */
+    public void unlock(long bestHeight, long currentTime) {
+        if (bestHeight < unlockedHeight || currentTime < unlockedTime) {
+            recalculate(bestHeight, currentTime);
+            return;
+        }
+        unlockedHeight = bestHeight;
+        unlockedTime = currentTime;
+        release(heightUnlockMap.headMap(bestHeight, true));
+        release(timeUnlockMap.headMap(currentTime, true));
     }
 
-    public long getEarlistLockTime() {
-        return earlistLockTime;
+    private void release(NavigableMap<Long, Long> matured) {
+        if (matured.isEmpty()) {
+            return;
+        }
+        for (Long na : matured.values()) {
+            locked -= na;
+            usable += na;
+        }
+        matured.clear();
     }
 
-    public void setEarlistLockTime(long earlistLockTime) {
-        this.earlistLockTime = earlistLockTime;
+    private void recalculate(long bestHeight, long currentTime) {
+        Map<String, Coin> coins = new HashMap<>(coinMap);
+        coinMap.clear();
+        heightUnlockMap.clear();
+        timeUnlockMap.clear();
+        usable = 0L;
+        locked = 0L;
+        unlockedHeight = bestHeight;
+        unlockedTime = currentTime;
+        for (Map.Entry<String, Coin> entry : coins.entrySet()) {
+            addCoin(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private boolean isUnlocked(long lockTime) {
+        if (lockTime == 0L) {
+            return true;
+        }
+        if (lockTime < 0L) {
+            return false;
+        }
+        if (lockTime > NulsConstant.BlOCKHEIGHT_TIME_DIVIDE) {
+            return lockTime <= unlockedTime;
+        }
+        return lockTime <= unlockedHeight;
+    }
+
+    private TreeMap<Long, Long> getSchedule(long lockTime) {
+        // the consensus lock type has no schedule
+        if (lockTime <= 0L) {
+            return null;
+        }
+        return lockTime > NulsConstant.BlOCKHEIGHT_TIME_DIVIDE ? timeUnlockMap : heightUnlockMap;
+    }
+
+    public Balance getBalance() {
+        Balance balance = new Balance();
+        balance.setUsable(Na.valueOf(usable));
+        balance.setLocked(Na.valueOf(locked));
+        balance.setBalance(Na.valueOf(usable + locked));
+        return balance;
+    }
+
+    public long getLowestLockHeigh() {
+        return heightUnlockMap.isEmpty() ? 0L : heightUnlockMap.firstKey();
+    }
+
+    public long getEarlistLockTime() {
+        return timeUnlockMap.isEmpty() ? 0L : timeUnlockMap.firstKey();
     }
 }
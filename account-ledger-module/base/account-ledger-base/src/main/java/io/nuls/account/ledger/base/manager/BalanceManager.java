@@ -25,56 +25,80 @@
 
 package io.nuls.account.ledger.base.manager;
 
-import io.nuls.account.ledger.base.util.CoinComparator;
 import io.nuls.account.ledger.constant.AccountLedgerErrorCode;
+import io.nuls.account.ledger.storage.service.LocalUtxoChangeListener;
 import io.nuls.account.ledger.storage.service.LocalUtxoStorageService;
 import io.nuls.account.model.Account;
 import io.nuls.account.model.Balance;
 import io.nuls.account.service.AccountService;
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.model.Entry;
-import io.nuls.kernel.constant.NulsConstant;
 import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.func.TimeService;
 import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
+import io.nuls.kernel.lite.core.bean.InitializingBean;
 import io.nuls.kernel.model.Address;
 import io.nuls.kernel.model.Coin;
-import io.nuls.kernel.model.Na;
+import io.nuls.kernel.model.CoinView;
 import io.nuls.kernel.model.Result;
 import io.nuls.kernel.utils.AddressTool;
+import io.nuls.ledger.util.LedgerUtil;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 管理与缓存本地账户的余额
+ * 余额按地址缓存，由本地UTXO的增删增量更新，锁定金额按解锁计划在读取时转为可用；每个地址按分段锁互斥
+ * <p>
+ * Manages the balances of local accounts. A cached balance is updated incrementally from the changes of the
+ * local UTXO set and locked amounts move to usable by their unlock schedule on read; addresses use striped locks
  */
 
 @Component
-public class BalanceManager {
+public class BalanceManager implements InitializingBean, LocalUtxoChangeListener {
+
+    private static final int LOCK_STRIPE_COUNT = 64;
 
     @Autowired
     private LocalUtxoStorageService localUtxoStorageService;
     @Autowired
     private AccountService accountService;
 
-    private Map<String, BalanceCacheEntity> balanceMap = new HashMap<>();
+    private Map<String, BalanceCacheEntity> balanceMap = new ConcurrentHashMap<>();
+
+    private final Lock[] locks = new Lock[LOCK_STRIPE_COUNT];
+
+    public BalanceManager() {
+        for (int i = 0; i < LOCK_STRIPE_COUNT; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws NulsException {
+        localUtxoStorageService.addChangeListener(this);
+    }
 
-    private Lock lock = new ReentrantLock();
+    private Lock getLock(String addressKey) {
+        return locks[(addressKey.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPE_COUNT];
+    }
 
     /**
      * 初始化缓存本地所有账户的余额信息
      */
     public void initAccountBalance() {
-        balanceMap.clear();
+        refreshBalance();
 
         Collection<Account> accounts = accountService.getAccountList().getData();
         if (accounts == null) {
             return;
         }
+        localUtxoStorageService.loadAllCoinList();
 
         for (Account account : accounts) {
             try {
@@ -96,22 +120,23 @@ public class BalanceManager {
      * 获取账户余额
      */
     public Result<Balance> getBalance(byte[] address) {
+        if (address == null || address.length != Address.ADDRESS_LENGTH) {
+            return Result.getFailed(AccountLedgerErrorCode.PARAMETER_ERROR);
+        }
+        String addressKey = AddressTool.getStringAddressByBytes(address);
+        Lock lock = getLock(addressKey);
         lock.lock();
         try {
-            if (address == null || address.length != Address.ADDRESS_LENGTH) {
-                return Result.getFailed(AccountLedgerErrorCode.PARAMETER_ERROR);
-            }
-
-            String addressKey = AddressTool.getStringAddressByBytes(address);
             BalanceCacheEntity entity = balanceMap.get(addressKey);
             Balance balance = null;
-            if (entity == null || (entity.getEarlistLockTime() > 0L && entity.getEarlistLockTime() <= TimeService.currentTimeMillis())) {
+            if (entity == null) {
                 try {
                     balance = calBalanceByAddress(address);
                 } catch (NulsException e) {
-                    Log.info("getbalance of address[" + AddressTool.getStringAddressByBytes(address) + "] error");
+                    Log.info("getbalance of address[" + addressKey + "] error");
                 }
             } else {
+                entity.unlock(NulsContext.getInstance().getBestHeight(), TimeService.currentTimeMillis());
                 balance = entity.getBalance();
             }
             return Result.getSuccess().setData(balance);
@@ -122,19 +147,35 @@ public class BalanceManager {
 
     /**
      * 刷新余额，其实就是删除缓存，下次获取时再重新计算
+     * 交易相关的余额变化已由UTXO变化增量更新，只有需要强制重算时才调用
      */
     public void refreshBalance(byte[] address) {
-            if (address != null) {
-                balanceMap.remove(AddressTool.getStringAddressByBytes(address));
+        if (address != null) {
+            String addressKey = AddressTool.getStringAddressByBytes(address);
+            Lock lock = getLock(addressKey);
+            lock.lock();
+            try {
+                balanceMap.remove(addressKey);
+            } finally {
+                lock.unlock();
             }
+        }
     }
 
+    /**
+     * 按顺序持有全部分段锁后清空缓存，避免正在计算的余额在清空后又被放回缓存
+     * Clears the cache while holding every stripe in order, so a balance being calculated is not put back after it
+     */
     public void refreshBalance() {
-        lock.lock();
+        for (Lock lock : locks) {
+            lock.lock();
+        }
         try {
             balanceMap.clear();
         } finally {
-            lock.unlock();
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
         }
     }
 
@@ -142,50 +183,22 @@ public class BalanceManager {
      * 计算账户的余额，这个方法应该和获取余额方法互斥，避免并发导致数据不准确
      */
     public Balance calBalanceByAddress(byte[] address) throws NulsException {
+        String addressKey = AddressTool.getStringAddressByBytes(address);
+        Lock lock = getLock(addressKey);
         lock.lock();
         try {
             if (accountService.getAccount(address).isFailed()) {
                 return null;
             }
-            List<Coin> coinList = getCoinListByAddress(address);
-            Collections.sort(coinList, CoinComparator.getInstance());
-
-            BalanceCacheEntity balanceCacheEntity = new BalanceCacheEntity();
-
-            Na usable = Na.ZERO;
-            Na locked = Na.ZERO;
-            for (Coin coin : coinList) {
-                if (coin.usable()) {
-                    usable = usable.add(coin.getNa());
-                } else {
-                    locked = locked.add(coin.getNa());
-                    long lockTime = coin.getLockTime();
-                    // the consensus lock type
-                    if (lockTime <= 0L) {
-                        continue;
-                    }
-                    // the height lock type
-                    if (balanceCacheEntity.getLowestLockHeigh() == 0L || (lockTime < NulsConstant.BlOCKHEIGHT_TIME_DIVIDE && lockTime < balanceCacheEntity.getLowestLockHeigh())) {
-                        balanceCacheEntity.setLowestLockHeigh(lockTime);
-                        continue;
-                    }
-                    // the time lock type
-                    if (balanceCacheEntity.getEarlistLockTime() == 0L || (lockTime > NulsConstant.BlOCKHEIGHT_TIME_DIVIDE && lockTime < balanceCacheEntity.getEarlistLockTime())) {
-                        balanceCacheEntity.setEarlistLockTime(lockTime);
-                        continue;
-                    }
+            BalanceCacheEntity balanceCacheEntity = new BalanceCacheEntity(NulsContext.getInstance().getBestHeight(), TimeService.currentTimeMillis());
+            for (Entry<byte[], byte[]> coinEntry : localUtxoStorageService.loadCoinListByAddress(address)) {
+                Coin coin = parseCoin(coinEntry.getValue());
+                if (coin != null) {
+                    balanceCacheEntity.addCoin(LedgerUtil.asString(coinEntry.getKey()), coin);
                 }
             }
-
-
-            Balance balance = new Balance();
-            balance.setUsable(usable);
-            balance.setLocked(locked);
-            balance.setBalance(usable.add(locked));
-            balanceCacheEntity.setBalance(balance);
-
-            balanceMap.put(AddressTool.getStringAddressByBytes(address), balanceCacheEntity);
-            return balance;
+            balanceMap.put(addressKey, balanceCacheEntity);
+            return balanceCacheEntity.getBalance();
         } finally {
             lock.unlock();
         }
@@ -193,44 +206,93 @@ public class BalanceManager {
 
     public List<Coin> getCoinListByAddress(byte[] address) {
         List<Coin> coinList = new ArrayList<>();
-        Collection<Entry<byte[], byte[]>> rawList = localUtxoStorageService.loadAllCoinList();
+        Collection<Entry<byte[], byte[]>> rawList = localUtxoStorageService.loadCoinListByAddress(address);
+        CoinView view = new CoinView();
+        // 按地址索引取出的utxo都属于该地址，不需要再比较地址
+        // the utxo come from the address index and all belong to the address, no need to compare it again
         for (Entry<byte[], byte[]> coinEntry : rawList) {
-            Coin coin = new Coin();
             try {
-                coin.parse(coinEntry.getValue(), 0);
+                view.wrap(coinEntry.getValue());
             } catch (NulsException e) {
                 Log.info("parse coin form db error");
                 continue;
             }
-            if (Arrays.equals(coin.getAddress(), address)) {
-                coin.setTempOwner(coin.getOwner());
-                coin.setOwner(coinEntry.getKey());
-                coinList.add(coin);
-            }
+            Coin coin = view.toCoin();
+            coin.setTempOwner(coin.getOwner());
+            coin.setOwner(coinEntry.getKey());
+            coinList.add(coin);
         }
         return coinList;
     }
 
+    private Coin parseCoin(byte[] coinBytes) {
+        Coin coin = new Coin();
+        try {
+            coin.parse(coinBytes, 0);
+        } catch (NulsException e) {
+            Log.info("parse coin form db error");
+            return null;
+        }
+        return coin;
+    }
+
+    @Override
+    public void coinSaved(byte[] key, byte[] value) {
+        applyCoinChange(key, value, true);
+    }
+
+    @Override
+    public void coinDeleted(byte[] key, byte[] value) {
+        applyCoinChange(key, value, false);
+    }
+
+    private void applyCoinChange(byte[] key, byte[] value, boolean saved) {
+        CoinView view = new CoinView();
+        try {
+            view.wrap(value);
+        } catch (NulsException e) {
+            Log.info("parse coin form db error");
+            return;
+        }
+        byte[] address = view.getAddress();
+        if (address == null) {
+            return;
+        }
+        String addressKey = AddressTool.getStringAddressByBytes(address);
+        // 只在锁内查找，否则正在计算余额的线程可能在此之后放入缺少这个变化的缓存
+        // only look up under the lock, otherwise a concurrent balance calculation could put an entity missing this change
+        Lock lock = getLock(addressKey);
+        lock.lock();
+        try {
+            BalanceCacheEntity entity = balanceMap.get(addressKey);
+            if (entity == null) {
+                return;
+            }
+            if (saved) {
+                entity.addCoin(LedgerUtil.asString(key), view.toCoin());
+            } else {
+                entity.removeCoin(LedgerUtil.asString(key));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按解锁计划把所有缓存地址中到期的锁定金额转为可用
+     * Apply the unlock schedule of every cached address
+     */
     public void refreshBalanceIfNesessary() {
-            long bestHeight = NulsContext.getInstance().getBestHeight();
-            Set<String> set = new HashSet<>(balanceMap.keySet());
-            for (String address : set) {
-                BalanceCacheEntity entity = balanceMap.get(address);
-                if (entity == null) {
-                    balanceMap.remove(address);
-                    continue;
-                }
-                if (entity.getEarlistLockTime() == 0L && entity.getLowestLockHeigh() == 0L) {
-                    continue;
-                }
-                if (entity.getLowestLockHeigh() > 0L && entity.getLowestLockHeigh() <= bestHeight) {
-                    balanceMap.remove(address);
-                    continue;
-                }
-                if (entity.getEarlistLockTime() > 0L && entity.getEarlistLockTime() <= TimeService.currentTimeMillis()) {
-                    balanceMap.remove(address);
-                    continue;
-                }
+        long bestHeight = NulsContext.getInstance().getBestHeight();
+        long currentTime = TimeService.currentTimeMillis();
+        for (Map.Entry<String, BalanceCacheEntity> entry : balanceMap.entrySet()) {
+            Lock lock = getLock(entry.getKey());
+            lock.lock();
+            try {
+                entry.getValue().unlock(bestHeight, currentTime);
+            } finally {
+                lock.unlock();
             }
+        }
     }
 }
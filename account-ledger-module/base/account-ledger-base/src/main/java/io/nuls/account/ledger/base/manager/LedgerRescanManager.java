@@ -0,0 +1,286 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.base.manager;
+
+import io.nuls.account.ledger.base.service.LocalUtxoService;
+import io.nuls.account.ledger.base.service.TransactionInfoService;
+import io.nuls.account.ledger.constant.AccountLedgerConstant;
+import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.storage.po.TransactionInfoPo;
+import io.nuls.account.ledger.storage.service.ImportLedgerStorageService;
+import io.nuls.core.tools.crypto.Hex;
+import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.exception.NulsRuntimeException;
+import io.nuls.kernel.lite.annotation.Autowired;
+import io.nuls.kernel.lite.annotation.Component;
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.thread.manager.TaskManager;
+import io.nuls.protocol.service.BlockService;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 导入账本时的区块重扫：一次扫描导入一组地址
+ * 区块按高度区间并行读取、解析并过滤出与地址相关的交易，再按高度顺序写入本地账本；定期保存断点，中断后可以继续
+ * <p>
+ * Block rescan of a ledger import: a set of addresses is imported in one pass.
+ * Height ranges are fetched, parsed and filtered for related transactions in parallel, then written to the
+ * local ledger in height order; checkpoints are saved periodically so an interrupted import resumes
+ */
+@Component
+public class LedgerRescanManager {
+
+    /**
+     * 每个任务扫描的区块数
+     * Blocks scanned by one task
+     */
+    private static final int RANGE_SIZE = 100;
+
+    /**
+     * 保存断点和打印进度的区块间隔
+     * Block interval of saving checkpoints and reporting progress
+     */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
+    private static final int MAX_THREAD_COUNT = 8;
+
+    @Autowired
+    private BlockService blockService;
+    @Autowired
+    private TransactionInfoService transactionInfoService;
+    @Autowired
+    private LocalUtxoService localUtxoService;
+    @Autowired
+    private ImportLedgerStorageService importLedgerStorageService;
+
+    /**
+     * 从各地址的断点(没有断点时从创世块)扫描到最新高度，导入与地址相关的已确认交易
+     * Scan from the checkpoints of the addresses (the genesis block if there is none) to the best height and
+     * import the confirmed transactions related to the addresses
+     *
+     * @param addresses 要导入的地址/addresses to import
+     * @return 操作结果/operating result
+     */
+    public Result rescan(List<byte[]> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            return Result.getSuccess();
+        }
+        Map<String, byte[]> addressMap = new HashMap<>();
+        Map<String, Long> checkpointMap = new HashMap<>();
+        long start = Long.MAX_VALUE;
+        for (byte[] address : addresses) {
+            String key = Hex.encode(address);
+            if (addressMap.put(key, address) != null) {
+                continue;
+            }
+            Long checkpoint = importLedgerStorageService.getImportHeight(address);
+            if (checkpoint == null) {
+                checkpoint = -1L;
+            }
+            checkpointMap.put(key, checkpoint);
+            start = Math.min(start, checkpoint + 1);
+        }
+        if (start > 0) {
+            Log.info("import ledger resumes from height {}", start);
+        }
+
+        int threadCount = Math.max(1, Math.min(MAX_THREAD_COUNT, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor pool = TaskManager.createThreadPool(threadCount, 0,
+                new NulsThreadFactory(AccountLedgerConstant.MODULE_ID_ACCOUNTLEDGER, "ledger-rescan"));
+        Deque<Future<RangeResult>> futures = new ArrayDeque<>();
+        long beginTime = System.currentTimeMillis();
+        long next = start;
+        long end = NulsContext.getInstance().getBestHeight();
+        long lastCheckpoint = start - 1;
+        try {
+            while (true) {
+                while (next <= end && futures.size() < threadCount * 2) {
+                    long rangeEnd = Math.min(end, next + RANGE_SIZE - 1);
+                    futures.add(pool.submit(new RangeScanner(next, rangeEnd, addressMap)));
+                    next = rangeEnd + 1;
+                }
+                if (futures.isEmpty()) {
+                    // 扫描期间可能产生了新区块
+                    // new blocks may have arrived during the scan
+                    long bestHeight = NulsContext.getInstance().getBestHeight();
+                    if (bestHeight <= end) {
+                        break;
+                    }
+                    end = bestHeight;
+                    continue;
+                }
+                RangeResult rangeResult;
+                try {
+                    rangeResult = futures.poll().get();
+                } catch (ExecutionException e) {
+                    saveCheckpoints(addressMap, checkpointMap, lastCheckpoint);
+                    Log.error(e.getCause());
+                    if (e.getCause() instanceof NulsRuntimeException) {
+                        return Result.getFailed(((NulsRuntimeException) e.getCause()).getErrorCode());
+                    }
+                    return Result.getFailed(KernelErrorCode.SYS_UNKOWN_EXCEPTION);
+                }
+                for (RelatedTx relatedTx : rangeResult.txs) {
+                    Result result = importTransaction(relatedTx, checkpointMap);
+                    if (result.isFailed()) {
+                        saveCheckpoints(addressMap, checkpointMap, relatedTx.height - 1);
+                        return result;
+                    }
+                }
+                if (rangeResult.end - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+                    lastCheckpoint = rangeResult.end;
+                    saveCheckpoints(addressMap, checkpointMap, lastCheckpoint);
+                    long seconds = Math.max(1, (System.currentTimeMillis() - beginTime) / 1000);
+                    Log.info("import ledger progress: {}/{}, addresses: {}, {} blocks/s", lastCheckpoint, end,
+                            addressMap.size(), (lastCheckpoint - start + 1) / seconds);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            saveCheckpoints(addressMap, checkpointMap, lastCheckpoint);
+            return Result.getFailed(KernelErrorCode.FAILED);
+        } finally {
+            pool.shutdownNow();
+        }
+        for (byte[] address : addressMap.values()) {
+            importLedgerStorageService.deleteImportHeight(address);
+        }
+        Log.info("import ledger finished, addresses: {}, height: {}, {}ms", addressMap.size(), end,
+                System.currentTimeMillis() - beginTime);
+        return Result.getSuccess();
+    }
+
+    private Result importTransaction(RelatedTx relatedTx, Map<String, Long> checkpointMap) {
+        // 断点之前的区块已经导入过
+        // blocks before the checkpoint of an address are imported already
+        List<byte[]> addresses = new ArrayList<>();
+        for (byte[] address : relatedTx.addresses) {
+            if (relatedTx.height > checkpointMap.get(Hex.encode(address))) {
+                addresses.add(address);
+            }
+        }
+        if (addresses.isEmpty()) {
+            return Result.getSuccess();
+        }
+        TransactionInfoPo txInfoPo = new TransactionInfoPo(relatedTx.tx);
+        txInfoPo.setStatus(TransactionInfo.CONFIRMED);
+        Result result = transactionInfoService.saveTransactionInfo(txInfoPo, addresses);
+        if (result.isFailed()) {
+            return result;
+        }
+        result = localUtxoService.saveUtxoForAccount(relatedTx.tx, addresses);
+        if (result.isFailed()) {
+            transactionInfoService.deleteTransactionInfo(txInfoPo);
+        }
+        return result;
+    }
+
+    private void saveCheckpoints(Map<String, byte[]> addressMap, Map<String, Long> checkpointMap, long height) {
+        for (Map.Entry<String, Long> entry : checkpointMap.entrySet()) {
+            if (height > entry.getValue()) {
+                importLedgerStorageService.saveImportHeight(addressMap.get(entry.getKey()), height);
+                entry.setValue(height);
+            }
+        }
+    }
+
+    /**
+     * 读取一个高度区间的区块，过滤出与地址相关的交易
+     * Fetch the blocks of a height range and filter out the transactions related to the addresses
+     */
+    private class RangeScanner implements Callable<RangeResult> {
+
+        private final long start;
+        private final long end;
+        private final Map<String, byte[]> addressMap;
+
+        RangeScanner(long start, long end, Map<String, byte[]> addressMap) {
+            this.start = start;
+            this.end = end;
+            this.addressMap = addressMap;
+        }
+
+        @Override
+        public RangeResult call() {
+            List<RelatedTx> txs = new ArrayList<>();
+            for (long height = start; height <= end; height++) {
+                Result<Block> blockResult = blockService.getBlock(height, true);
+                if (blockResult.isFailed() || blockResult.getData() == null) {
+                    throw new NulsRuntimeException(blockResult.getErrorCode() == null ? KernelErrorCode.DATA_NOT_FOUND : blockResult.getErrorCode());
+                }
+                for (Transaction tx : blockResult.getData().getTxs()) {
+                    List<byte[]> related = null;
+                    List<byte[]> relativeAddresses = tx.getAllRelativeAddress();
+                    for (byte[] address : relativeAddresses) {
+                        byte[] match = addressMap.get(Hex.encode(address));
+                        if (match == null) {
+                            continue;
+                        }
+                        if (related == null) {
+                            related = new ArrayList<>();
+                        }
+                        related.add(match);
+                    }
+                    if (related != null) {
+                        txs.add(new RelatedTx(height, tx, related));
+                    }
+                }
+            }
+            return new RangeResult(end, txs);
+        }
+    }
+
+    private static class RangeResult {
+        private final long end;
+        private final List<RelatedTx> txs;
+
+        RangeResult(long end, List<RelatedTx> txs) {
+            this.end = end;
+            this.txs = txs;
+        }
+    }
+
+    private static class RelatedTx {
+        private final long height;
+        private final Transaction tx;
+        private final List<byte[]> addresses;
+
+        RelatedTx(long height, Transaction tx, List<byte[]> addresses) {
+            this.height = height;
+            this.tx = tx;
+            this.addresses = addresses;
+        }
+    }
+}
@@ -26,6 +26,7 @@
 package io.nuls.account.ledger.base.service;
 
 import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.model.TransactionInfoPage;
 import io.nuls.account.ledger.storage.po.TransactionInfoPo;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.model.Result;
@@ -41,6 +42,8 @@ public interface TransactionInfoService {
 
     Result<List<TransactionInfo>> getTxInfoList(byte[] address);
 
+    Result<TransactionInfoPage> getTxInfoPage(byte[] address, byte[] cursor, int pageSize, int type);
+
     Result<Integer> saveTransactionInfo(TransactionInfoPo infoPo, List<byte[]> addresses);
 
     Result deleteTransactionInfo(TransactionInfoPo infoPo);
@@ -28,6 +28,7 @@ package io.nuls.account.ledger.base.service.impl;
 import io.nuls.account.constant.AccountConstant;
 import io.nuls.account.constant.AccountErrorCode;
 import io.nuls.account.ledger.base.manager.BalanceManager;
+import io.nuls.account.ledger.base.manager.LedgerRescanManager;
 import io.nuls.account.ledger.base.service.LocalUtxoService;
 import io.nuls.account.ledger.base.service.TransactionInfoService;
 import io.nuls.account.ledger.base.util.AccountLegerUtils;
@@ -38,12 +39,14 @@ import io.nuls.account.ledger.model.CoinDataResult;
 import io.nuls.account.ledger.model.MultipleAddressTransferModel;
 import io.nuls.account.ledger.model.TransactionDataResult;
 import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.model.TransactionInfoPage;
 import io.nuls.account.ledger.service.AccountLedgerService;
 import io.nuls.account.ledger.storage.po.TransactionInfoPo;
 import io.nuls.account.ledger.storage.service.UnconfirmedTransactionStorageService;
 import io.nuls.account.ledger.util.CoinDataTool;
 import io.nuls.account.model.Account;
 import io.nuls.account.model.Balance;
+import io.nuls.account.model.LocalAddressSet;
 import io.nuls.account.model.MultiSigAccount;
 import io.nuls.account.service.AccountService;
 import io.nuls.contract.constant.ContractErrorCode;
@@ -53,6 +56,7 @@ import io.nuls.core.tools.crypto.Hex;
 import io.nuls.core.tools.log.Log;
 import io.nuls.core.tools.param.AssertUtil;
 import io.nuls.core.tools.str.StringUtils;
+import io.nuls.db.service.DBService;
 import io.nuls.kernel.cfg.NulsConfig;
 import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.constant.NulsConstant;
@@ -109,6 +113,9 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
     @Autowired
     private BalanceManager balanceManager;
 
+    @Autowired
+    private LedgerRescanManager ledgerRescanManager;
+
     @Autowired
     private TransactionService transactionService;
 
@@ -127,6 +134,9 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
     @Autowired
     private UtxoAccountsBalanceService utxoAccountsBalanceService;
 
+    @Autowired
+    private DBService dbService;
+
     private Lock lock = new ReentrantLock();
     private Lock saveLock = new ReentrantLock();
     private Lock changeWholeLock = new ReentrantLock();
@@ -144,14 +154,14 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
             return Result.getSuccess().setData(0);
         }
 
-        List<byte[]> localAddresses = AccountLegerUtils.getLocalAddresses();
+        LocalAddressSet localAddressSet = AccountLegerUtils.getLocalAddressSet();
 
         List<Transaction> savedTxList = new ArrayList<>();
         Result result;
         for (int i = 0; i < txs.size(); i++) {
 
             Transaction tx = txs.get(i);
-            List<byte[]> addresses = AccountLegerUtils.getRelatedAddresses(tx, localAddresses);
+            List<byte[]> addresses = AccountLegerUtils.getRelatedAddresses(tx, localAddressSet);
             if (addresses == null || addresses.size() == 0) {
                 continue;
             }
@@ -167,7 +177,9 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
             }
         }
 
-        balanceManager.refreshBalanceIfNesessary();
+        // 余额缓存在写会话提交后才会更新，刷新也要等到提交之后
+        // the balance cache is only updated once the write session is committed, so is the refresh
+        dbService.afterWriteSessionCommit(balanceManager::refreshBalanceIfNesessary);
 
         return Result.getSuccess().setData(savedTxList.size());
     }
@@ -213,9 +225,6 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
             unconfirmedTransactionStorageService.deleteUnconfirmedTx(tx.getHash());
         }
 
-        for (int i = 0; i < addresses.size(); i++) {
-            balanceManager.refreshBalance(addresses.get(i));
-        }
         result.setData(1);
         return result;
     }
@@ -300,9 +309,7 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         if (tx == null) {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
-        //查询本地账户地址
-        List<byte[]> localAccountList = AccountLegerUtils.getLocalAddresses();
-        List<byte[]> addresses = AccountLegerUtils.getRelatedAddresses(tx, localAccountList);
+        List<byte[]> addresses = AccountLegerUtils.getRelatedAddresses(tx);
         if (addresses == null || addresses.size() == 0) {
             return Result.getSuccess().setData(0);
         }
@@ -326,11 +333,6 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
             unconfirmedTransactionStorageService.deleteUnconfirmedTx(tx.getHash());
             return result;
         }
-
-
-        for (int i = 0; i < addresses.size(); i++) {
-            balanceManager.refreshBalance(addresses.get(i));
-        }
         return result;
     }
 
@@ -345,7 +347,7 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
     public Result<Integer> rollbackTransactions(List<Transaction> txs) {
         Result result = rollbackTransactions(txs, true);
         if (result.isSuccess()) {
-            balanceManager.refreshBalanceIfNesessary();
+            dbService.afterWriteSessionCommit(balanceManager::refreshBalanceIfNesessary);
         }
         return result;
     }
@@ -408,10 +410,6 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         }
         result = unconfirmedTransactionStorageService.deleteUnconfirmedTx(tx.getHash());
 
-        for (int i = 0; i < addresses.size(); i++) {
-            balanceManager.refreshBalance(addresses.get(i));
-        }
-
         if (usedTxSets != null) {
             CoinData coinData = tx.getCoinData();
             if (coinData != null) {
@@ -1479,42 +1477,47 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
      */
     @Override
     public Result importLedger(String address) {
-        if (address == null || !AddressTool.validAddress(address)) {
+        List<String> addresses = new ArrayList<>();
+        addresses.add(address);
+        return importLedger(addresses);
+    }
+
+    /**
+     * 批量导入账户，所有地址共用一次区块扫描
+     * Import accounts in bulk, all addresses share one scan of the blocks
+     */
+    @Override
+    public Result importLedger(List<String> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
             return Result.getFailed(AccountErrorCode.ADDRESS_ERROR);
         }
+        List<byte[]> addressBytesList = new ArrayList<>();
+        for (String address : addresses) {
+            if (address == null || !AddressTool.validAddress(address)) {
+                return Result.getFailed(AccountErrorCode.ADDRESS_ERROR);
+            }
+            try {
+                addressBytesList.add(AddressTool.getAddress(address));
+            } catch (Exception e) {
+                return Result.getFailed(AccountErrorCode.ADDRESS_ERROR);
+            }
+        }
 
         // 初始化NRC20资产
-        contractService.initAllTokensByAccount(address);
-
-        byte[] addressBytes = null;
-        try {
-            addressBytes = AddressTool.getAddress(address);
-        } catch (Exception e) {
-            return Result.getFailed(AccountErrorCode.ADDRESS_ERROR);
+        for (String address : addresses) {
+            contractService.initAllTokensByAccount(address);
         }
 
-        long start = -1;
-        long end = NulsContext.getInstance().getBestHeight();
-//        long begin = System.currentTimeMillis();
-        while (start <= end) {
-            start += 1;
-            for (long i = start; i <= end; i++) {
-                List<Transaction> txs = blockService.getBlock(i, true).getData().getTxs();
-                for (Transaction tx : txs) {
-                    importConfirmedTransaction(tx, addressBytes);
-                }
-            }
-            start = end;
-            end = NulsContext.getInstance().getBestHeight();
-            if (start == end) {
-                break;
-            }
+        Result result = ledgerRescanManager.rescan(addressBytesList);
+        if (result.isFailed()) {
+            return result;
         }
-//        Log.info("================" + (System.currentTimeMillis() - begin));
-        try {
-            balanceManager.refreshBalance(addressBytes);
-        } catch (Exception e) {
-            Log.info(address);
+        for (byte[] addressBytes : addressBytesList) {
+            try {
+                balanceManager.refreshBalance(addressBytes);
+            } catch (Exception e) {
+                Log.info(AddressTool.getStringAddressByBytes(addressBytes));
+            }
         }
         return Result.getSuccess();
     }
@@ -1524,6 +1527,11 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         return transactionInfoService.getTxInfoList(address);
     }
 
+    @Override
+    public Result<TransactionInfoPage> getTxInfoPage(byte[] address, byte[] cursor, int pageSize, int type) {
+        return transactionInfoService.getTxInfoPage(address, cursor, pageSize, type);
+    }
+
     @Override
     public Result<List<Coin>> getLockedUtxo(byte[] address) {
         Result<List<Coin>> result = new Result<>();
@@ -1562,29 +1570,6 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         return Result.getSuccess().setData(i);
     }
 
-    protected Result<Integer> importConfirmedTransaction(Transaction tx, byte[] address) {
-
-        if (!AccountLegerUtils.isTxRelatedToAddress(tx, address)) {
-            return Result.getSuccess().setData(0);
-        }
-
-        TransactionInfoPo txInfoPo = new TransactionInfoPo(tx);
-        txInfoPo.setStatus(TransactionInfo.CONFIRMED);
-
-        List<byte[]> addresses = new ArrayList<>();
-        addresses.add(address);
-        Result result = transactionInfoService.saveTransactionInfo(txInfoPo, addresses);
-
-        if (result.isFailed()) {
-            return result;
-        }
-        result = localUtxoService.saveUtxoForAccount(tx, address);
-        if (result.isFailed()) {
-            transactionInfoService.deleteTransactionInfo(txInfoPo);
-        }
-        return result;
-    }
-
     protected List<Transaction> filterLocalTransaction(List<Transaction> txs) {
         List<Transaction> resultTxs = new ArrayList<>();
         if (txs == null || txs.size() == 0) {
@@ -1614,10 +1599,7 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         TransactionInfoPo txInfoPo = new TransactionInfoPo(tx);
         txInfoPo.setStatus(status);
 
-        List<byte[]> addresses1 = localUtxoService.unlockCoinData(tx, newLockTime).getData();
-        for (byte[] address : addresses1) {
-            balanceManager.refreshBalance(address);
-        }
+        localUtxoService.unlockCoinData(tx, newLockTime);
         return Result.getSuccess();
     }
 
@@ -1631,10 +1613,7 @@ public class AccountLedgerServiceImpl implements AccountLedgerService, Initializ
         TransactionInfoPo txInfoPo = new TransactionInfoPo(tx);
         txInfoPo.setStatus(status);
 
-        List<byte[]> addresses1 = localUtxoService.rollbackUnlockTxCoinData(tx).getData();
-        for (byte[] address : addresses1) {
-            balanceManager.refreshBalance(address);
-        }
+        localUtxoService.rollbackUnlockTxCoinData(tx);
 
         CoinData coinData = tx.getCoinData();
         if (coinData != null) {
@@ -28,9 +28,11 @@ import io.nuls.account.ledger.base.service.TransactionInfoService;
 import io.nuls.account.ledger.base.util.TxInfoComparator;
 import io.nuls.account.ledger.constant.AccountLedgerErrorCode;
 import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.model.TransactionInfoPage;
 import io.nuls.account.ledger.storage.po.TransactionInfoPo;
 import io.nuls.account.ledger.storage.service.TransactionInfoStorageService;
 import io.nuls.account.ledger.storage.service.impl.TransactionInfoStorageServiceImpl;
+import io.nuls.account.ledger.storage.util.TxInfoHeightIndexUtil;
 import io.nuls.consensus.constant.ConsensusConstant;
 import io.nuls.core.tools.array.ArraysTool;
 import io.nuls.core.tools.log.Log;
@@ -76,6 +78,39 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
         }
     }
 
+    @Override
+    public Result<TransactionInfoPage> getTxInfoPage(byte[] address, byte[] cursor, int pageSize, int type) {
+        if (address == null || pageSize <= 0) {
+            return Result.getFailed(KernelErrorCode.PARAMETER_ERROR);
+        }
+        try {
+            // 多读一条，用来判断是否还有下一页
+            // read one extra entry to tell whether there is a next page
+            List<TransactionInfoPo> infoPoList = transactionInfoStorageService.getTransactionInfoPage(address, cursor, pageSize + 1, po -> {
+                if (po.getTxType() == ConsensusConstant.TX_TYPE_RED_PUNISH || po.getTxType() == ConsensusConstant.TX_TYPE_YELLOW_PUNISH) {
+                    return false;
+                }
+                return type <= 0 || po.getTxType() == type;
+            });
+            byte[] nextCursor = null;
+            if (infoPoList.size() > pageSize) {
+                infoPoList = infoPoList.subList(0, pageSize);
+                nextCursor = TxInfoHeightIndexUtil.getCursor(TxInfoHeightIndexUtil.toIndexKey(address, infoPoList.get(pageSize - 1)));
+            }
+            List<TransactionInfo> infoList = new ArrayList<>();
+            for (TransactionInfoPo po : infoPoList) {
+                infoList.add(po.toTransactionInfo());
+            }
+            return Result.getSuccess().setData(new TransactionInfoPage(infoList, nextCursor));
+        } catch (NulsException e) {
+            Log.error(e);
+            return Result.getFailed(e.getErrorCode());
+        } catch (IOException e) {
+            Log.error(e);
+            return Result.getFailed(AccountLedgerErrorCode.IO_ERROR);
+        }
+    }
+
     @Override
     public Result<Integer> saveTransactionInfo(TransactionInfoPo infoPo, List<byte[]> addresses) {
         if (infoPo == null) {
@@ -25,6 +25,7 @@
 package io.nuls.account.ledger.base.util;
 
 import io.nuls.account.model.Account;
+import io.nuls.account.model.LocalAddressSet;
 import io.nuls.account.service.AccountService;
 import io.nuls.core.tools.crypto.Hex;
 import io.nuls.kernel.lite.annotation.Autowired;
@@ -35,7 +36,6 @@ import io.nuls.kernel.utils.VarInt;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -50,49 +50,46 @@ public class AccountLegerUtils {
 
     private final static int TX_HASH_LENGTH = NulsDigestData.HASH_LENGTH;
 
-    public static Account isLocalAccount(byte[] address) {
-        Collection<Account> localAccountList = accountService.getAccountList().getData();
-        if (localAccountList == null || localAccountList.size() == 0) {
-            return null;
-        }
+    /**
+     * 本地账户和多签地址的当前快照，批量处理交易时取一次后重复使用
+     * The current snapshot of the local account and multi-sign addresses; take it once when processing a batch of txs
+     */
+    public static LocalAddressSet getLocalAddressSet() {
+        return accountService.getLocalAddressSet();
+    }
 
-        for (Account account : localAccountList) {
-            if (Arrays.equals(account.getAddress().getAddressBytes(), address)) {
-                return account;
-            }
-        }
-        return null;
+    public static Account isLocalAccount(byte[] address) {
+        return getLocalAddressSet().getAccount(address);
     }
 
     public static List<byte[]> getLocalAddresses() {
-        List<byte[]> result = new ArrayList<>();
-        Collection<Account> localAccountList = accountService.getAccountList().getData();
-        if (localAccountList == null || localAccountList.size() == 0) {
-            return result;
-        }
-        List<byte[]> destAddresses = new ArrayList<>();
-        for (Account account : localAccountList) {
-            destAddresses.add(account.getAddress().getAddressBytes());
-        }
-
-        return destAddresses;
+        return new ArrayList<>(getLocalAddressSet().getAccountAddressList());
     }
 
     public static List<byte[]> getRelatedAddresses(Transaction tx) {
+        return getRelatedAddresses(tx, getLocalAddressSet());
+    }
+
+    /**
+     * 交易中属于本地账户的地址，按交易地址逐个查找，与本地账户数量无关
+     * The tx addresses that belong to local accounts, one lookup per tx address regardless of the wallet size
+     */
+    public static List<byte[]> getRelatedAddresses(Transaction tx, LocalAddressSet localAddressSet) {
         List<byte[]> result = new ArrayList<>();
-        if (tx == null) {
+        if (tx == null || localAddressSet.getAccountCount() == 0) {
             return result;
         }
-        Collection<Account> localAccountList = accountService.getAccountList().getData();
-        if (localAccountList == null || localAccountList.size() == 0) {
+        //获取交易中的地址
+        List<byte[]> sourceAddresses = tx.getAllRelativeAddress();
+        if (sourceAddresses == null || sourceAddresses.size() == 0) {
             return result;
         }
-        List<byte[]> destAddresses = new ArrayList<>();
-        for (Account account : localAccountList) {
-            destAddresses.add(account.getAddress().getAddressBytes());
+        for (byte[] sourceAddress : sourceAddresses) {
+            if (localAddressSet.isLocalAccount(sourceAddress)) {
+                result.add(sourceAddress);
+            }
         }
-
-        return getRelatedAddresses(tx, destAddresses);
+        return result;
     }
 
     public static List<byte[]> getRelatedAddresses(Transaction tx, List<byte[]> addresses) {
@@ -121,17 +118,16 @@ public class AccountLegerUtils {
     }
 
     public static boolean isLocalTransaction(Transaction tx) {
-
         if (tx == null) {
             return false;
         }
-        Collection<Account> localAccountList = accountService.getAccountList().getData();
-        if (localAccountList == null || localAccountList.size() == 0) {
+        LocalAddressSet localAddressSet = getLocalAddressSet();
+        if (localAddressSet.getAccountCount() == 0) {
             return false;
         }
         List<byte[]> addresses = tx.getAllRelativeAddress();
         for (int j = 0; j < addresses.size(); j++) {
-            if (AccountLegerUtils.isLocalAccount(addresses.get(j)) != null) {
+            if (localAddressSet.isLocalAccount(addresses.get(j))) {
                 return true;
             }
         }
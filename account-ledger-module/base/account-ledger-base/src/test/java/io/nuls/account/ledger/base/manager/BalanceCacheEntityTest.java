@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.base.manager;
+
+import io.nuls.account.model.Balance;
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.Na;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BalanceCacheEntityTest {
+
+    private static final long NOW = 1540000000000L;
+
+    @Test
+    public void testUnlockSchedule() {
+        BalanceCacheEntity entity = new BalanceCacheEntity(100L, NOW);
+        entity.addCoin("a", new Coin(new byte[23], Na.valueOf(10L), 0L));
+        entity.addCoin("b", new Coin(new byte[23], Na.valueOf(20L), 150L));
+        entity.addCoin("c", new Coin(new byte[23], Na.valueOf(30L), NOW + 1000L));
+        entity.addCoin("d", new Coin(new byte[23], Na.valueOf(40L), -1L));
+        entity.addCoin("e", new Coin(new byte[23], Na.valueOf(50L), 90L));
+        assertBalance(entity, 60L, 90L);
+        assertEquals(150L, entity.getLowestLockHeigh());
+        assertEquals(NOW + 1000L, entity.getEarlistLockTime());
+
+        entity.unlock(150L, NOW);
+        assertBalance(entity, 80L, 70L);
+
+        entity.unlock(150L, NOW + 1000L);
+        assertBalance(entity, 110L, 40L);
+        assertEquals(0L, entity.getLowestLockHeigh());
+
+        // rollback to a lower height locks the height coin again
+        entity.unlock(120L, NOW + 1000L);
+        assertBalance(entity, 90L, 60L);
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        BalanceCacheEntity entity = new BalanceCacheEntity(100L, NOW);
+        entity.addCoin("a", new Coin(new byte[23], Na.valueOf(10L), 200L));
+        entity.addCoin("b", new Coin(new byte[23], Na.valueOf(20L), 200L));
+        assertBalance(entity, 0L, 30L);
+
+        entity.removeCoin("a");
+        entity.removeCoin("a");
+        assertBalance(entity, 0L, 20L);
+
+        // overwrite with a new lock time, like unlockCoinData does
+        entity.addCoin("b", new Coin(new byte[23], Na.valueOf(20L), 0L));
+        assertBalance(entity, 20L, 0L);
+        assertEquals(0L, entity.getLowestLockHeigh());
+    }
+
+    private void assertBalance(BalanceCacheEntity entity, long usable, long locked) {
+        Balance balance = entity.getBalance();
+        assertEquals(usable, balance.getUsable().getValue());
+        assertEquals(locked, balance.getLocked().getValue());
+        assertEquals(usable + locked, balance.getBalance().getValue());
+    }
+}
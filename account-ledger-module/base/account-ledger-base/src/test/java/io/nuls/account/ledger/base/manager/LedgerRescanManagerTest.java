@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.base.manager;
+
+import io.nuls.account.ledger.base.service.LocalUtxoService;
+import io.nuls.account.ledger.base.service.TransactionInfoService;
+import io.nuls.account.ledger.storage.service.ImportLedgerStorageService;
+import io.nuls.core.tools.crypto.Hex;
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.model.BlockHeader;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.model.TransactionLogicData;
+import io.nuls.kernel.utils.NulsByteBuffer;
+import io.nuls.protocol.service.BlockService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LedgerRescanManagerTest {
+
+    private static final byte[] ADDRESS_A = address(1);
+    private static final byte[] ADDRESS_B = address(2);
+    private static final byte[] ADDRESS_OTHER = address(3);
+
+    private LedgerRescanManager manager;
+
+    private Map<Long, Block> blocks = new HashMap<>();
+    private List<Long> fetchedHeights = Collections.synchronizedList(new ArrayList<>());
+    private Map<String, Long> checkpoints = new HashMap<>();
+    private List<Transaction> savedTxs = new ArrayList<>();
+    private Map<Transaction, List<byte[]>> savedAddresses = new HashMap<>();
+    private int deletedTxInfoCount;
+    private long failHeight = -1L;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = new LedgerRescanManager();
+        inject("blockService", stub(BlockService.class, (proxy, method, args) -> {
+            if ("getBlock".equals(method.getName())) {
+                long height = (Long) args[0];
+                fetchedHeights.add(height);
+                Block block = blocks.get(height);
+                if (block == null) {
+                    return Result.getFailed(KernelErrorCode.DATA_NOT_FOUND);
+                }
+                return Result.getSuccess().setData(block);
+            }
+            return null;
+        }));
+        inject("transactionInfoService", stub(TransactionInfoService.class, (proxy, method, args) -> {
+            if ("saveTransactionInfo".equals(method.getName())) {
+                return Result.getSuccess().setData(1);
+            }
+            if ("deleteTransactionInfo".equals(method.getName())) {
+                deletedTxInfoCount++;
+                return Result.getSuccess();
+            }
+            return null;
+        }));
+        inject("localUtxoService", stub(LocalUtxoService.class, (proxy, method, args) -> {
+            if ("saveUtxoForAccount".equals(method.getName()) && args[1] instanceof List) {
+                Transaction tx = (Transaction) args[0];
+                if (tx.getBlockHeight() == failHeight) {
+                    return Result.getFailed(KernelErrorCode.FAILED);
+                }
+                savedTxs.add(tx);
+                savedAddresses.put(tx, (List<byte[]>) args[1]);
+                return Result.getSuccess();
+            }
+            return null;
+        }));
+        inject("importLedgerStorageService", stub(ImportLedgerStorageService.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "saveImportHeight":
+                    checkpoints.put(Hex.encode((byte[]) args[0]), (Long) args[1]);
+                    return Result.getSuccess();
+                case "getImportHeight":
+                    return checkpoints.get(Hex.encode((byte[]) args[0]));
+                case "deleteImportHeight":
+                    checkpoints.remove(Hex.encode((byte[]) args[0]));
+                    return Result.getSuccess();
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    @Test
+    public void testOnlyRelatedTxsAreImported() {
+        Transaction toA = addBlockTx(0, ADDRESS_A);
+        addBlockTx(1, ADDRESS_OTHER);
+        Transaction toBoth = addBlockTx(2, ADDRESS_A, ADDRESS_OTHER, ADDRESS_B);
+        setBestHeight(2);
+
+        Result result = manager.rescan(Arrays.asList(ADDRESS_A, ADDRESS_B));
+
+        assertTrue(result.isSuccess());
+        assertEquals(Arrays.asList(toA, toBoth), savedTxs);
+        assertAddresses(savedAddresses.get(toA), ADDRESS_A);
+        assertAddresses(savedAddresses.get(toBoth), ADDRESS_A, ADDRESS_B);
+        // 完成后删除断点
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() {
+        addBlockTx(0, ADDRESS_A);
+        Transaction toBoth = addBlockTx(1, ADDRESS_A, ADDRESS_B);
+        Transaction toA = addBlockTx(2, ADDRESS_A);
+        setBestHeight(2);
+        checkpoints.put(Hex.encode(ADDRESS_A), 1L);
+
+        // 从断点之后开始
+        assertTrue(manager.rescan(Collections.singletonList(ADDRESS_A)).isSuccess());
+        assertEquals(Collections.singletonList(2L), fetchedHeights);
+        assertEquals(Collections.singletonList(toA), savedTxs);
+
+        // B没有断点时从创世块开始，A断点之前的交易只为B导入
+        fetchedHeights.clear();
+        savedTxs.clear();
+        checkpoints.clear();
+        checkpoints.put(Hex.encode(ADDRESS_A), 1L);
+        assertTrue(manager.rescan(Arrays.asList(ADDRESS_A, ADDRESS_B)).isSuccess());
+        assertEquals(Arrays.asList(0L, 1L, 2L), fetchedHeights);
+        assertEquals(Arrays.asList(toBoth, toA), savedTxs);
+        assertAddresses(savedAddresses.get(toBoth), ADDRESS_B);
+        assertAddresses(savedAddresses.get(toA), ADDRESS_A);
+    }
+
+    @Test
+    public void testStopOnFailureAndResume() {
+        addBlockTx(0, ADDRESS_A);
+        addBlockTx(1, ADDRESS_A);
+        Transaction failing = addBlockTx(2, ADDRESS_A);
+        addBlockTx(3, ADDRESS_A);
+        setBestHeight(3);
+        failHeight = 2L;
+
+        Result result = manager.rescan(Collections.singletonList(ADDRESS_A));
+
+        assertTrue(result.isFailed());
+        assertEquals(2, savedTxs.size());
+        assertEquals(1, deletedTxInfoCount);
+        // 断点停在失败交易的前一个高度
+        assertEquals(Long.valueOf(1L), checkpoints.get(Hex.encode(ADDRESS_A)));
+
+        failHeight = -1L;
+        fetchedHeights.clear();
+        savedTxs.clear();
+        assertTrue(manager.rescan(Collections.singletonList(ADDRESS_A)).isSuccess());
+        assertEquals(Arrays.asList(2L, 3L), fetchedHeights);
+        assertEquals(failing, savedTxs.get(0));
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void testMissingBlockStops() {
+        addBlockTx(0, ADDRESS_A);
+        setBestHeight(1);
+
+        Result result = manager.rescan(Collections.singletonList(ADDRESS_A));
+
+        assertTrue(result.isFailed());
+        assertEquals(KernelErrorCode.DATA_NOT_FOUND, result.getErrorCode());
+        assertTrue(savedTxs.isEmpty());
+    }
+
+    private Transaction addBlockTx(long height, byte[]... addresses) {
+        Transaction tx = new TestTransaction(Arrays.asList(addresses));
+        tx.setBlockHeight(height);
+        Block block = new Block();
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        block.setHeader(header);
+        block.setTxs(Collections.singletonList(tx));
+        blocks.put(height, block);
+        return tx;
+    }
+
+    private void setBestHeight(long height) {
+        Block best = new Block();
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        best.setHeader(header);
+        NulsContext.getInstance().setBestBlock(best);
+    }
+
+    private void assertAddresses(List<byte[]> actual, byte[]... expected) {
+        assertNotNull(actual);
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual.get(i));
+        }
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = LedgerRescanManager.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(manager, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static byte[] address(int seed) {
+        byte[] address = new byte[23];
+        Arrays.fill(address, (byte) seed);
+        return address;
+    }
+
+    private static class TestTransaction extends Transaction<TransactionLogicData> {
+
+        private final List<byte[]> addresses;
+
+        TestTransaction(List<byte[]> addresses) {
+            super(2);
+            this.addresses = addresses;
+        }
+
+        @Override
+        protected TransactionLogicData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return null;
+        }
+
+        @Override
+        public String getInfo(byte[] address) {
+            return null;
+        }
+
+        @Override
+        public List<byte[]> getAllRelativeAddress() {
+            return addresses;
+        }
+    }
+}
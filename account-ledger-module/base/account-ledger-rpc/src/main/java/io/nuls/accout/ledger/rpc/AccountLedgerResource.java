@@ -36,6 +36,7 @@ import io.nuls.account.ledger.constant.AccountLedgerErrorCode;
 import io.nuls.account.ledger.model.CoinDataResult;
 import io.nuls.account.ledger.model.MultipleAddressTransferModel;
 import io.nuls.account.ledger.model.TransactionInfo;
+import io.nuls.account.ledger.model.TransactionInfoPage;
 import io.nuls.account.ledger.service.AccountLedgerService;
 import io.nuls.account.ledger.util.CoinDataTool;
 import io.nuls.account.model.Balance;
@@ -1147,6 +1148,67 @@ public class AccountLedgerResource {
         return dtoResult.toRpcClientResult();
     }
 
+    @GET
+    @Path("/tx/page/{address}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "按高度倒序分页查询账户的基础币交易列表", notes = "result.data: list 当前页的交易列表, nextCursor 读取下一页的游标，为空表示没有更多记录")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "success", response = TransactionInfoDto.class)
+    })
+    public RpcClientResult getTxInfoPage(@ApiParam(name = "address", value = "账户地址", required = true)
+                                         @PathParam("address") String address,
+                                         @ApiParam(name = "type", value = "类型")
+                                         @QueryParam("type") Integer type,
+                                         @ApiParam(name = "cursor", value = "上一页返回的游标，为空时查询第一页")
+                                         @QueryParam("cursor") String cursor,
+                                         @ApiParam(name = "pageSize", value = "每页条数")
+                                         @QueryParam("pageSize") Integer pageSize) {
+        if (null == pageSize || pageSize == 0) {
+            pageSize = 10;
+        }
+        if (pageSize < 0 || pageSize > 100) {
+            return Result.getFailed(KernelErrorCode.PARAMETER_ERROR).toRpcClientResult();
+        }
+        if (type == null || type <= 0) {
+            type = -1;
+        }
+        if (!AddressTool.validAddress(address)) {
+            return Result.getFailed(AccountErrorCode.ADDRESS_ERROR).toRpcClientResult();
+        }
+        byte[] addressBytes = AddressTool.getAddress(address.trim());
+        byte[] cursorBytes = null;
+        if (StringUtils.isNotBlank(cursor)) {
+            try {
+                cursorBytes = Hex.decode(cursor.trim());
+            } catch (Exception e) {
+                return Result.getFailed(KernelErrorCode.PARAMETER_ERROR).toRpcClientResult();
+            }
+        }
+
+        Result<TransactionInfoPage> pageResult = accountLedgerService.getTxInfoPage(addressBytes, cursorBytes, pageSize, type);
+        if (pageResult.isFailed()) {
+            return pageResult.toRpcClientResult();
+        }
+        TransactionInfoPage infoPage = pageResult.getData();
+        List<TransactionInfoDto> infoDtoList = new ArrayList<>();
+        for (TransactionInfo info : infoPage.getList()) {
+            Transaction tx = ledgerService.getTx(info.getTxHash());
+            if (tx == null) {
+                tx = accountLedgerService.getUnconfirmedTransaction(info.getTxHash()).getData();
+            }
+            if (tx == null) {
+                continue;
+            }
+            info.setBlockHeight(tx.getBlockHeight());
+            info.setInfo(tx.getInfo(addressBytes));
+            infoDtoList.add(new TransactionInfoDto(info));
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("list", infoDtoList);
+        map.put("nextCursor", infoPage.getNextCursor() == null ? null : Hex.encode(infoPage.getNextCursor()));
+        return Result.getSuccess().setData(map).toRpcClientResult();
+    }
+
     @GET
     @Path("/utxo/lock/{address}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -36,7 +36,23 @@ public interface AccountLedgerStorageConstant {
      * The name of the account table
      */
     String DB_NAME_ACCOUNT_LEDGER_TX_INDEX = "account_ledger_tx_index";
+    /**
+     * 按地址和高度倒序排列的交易索引表的名称
+     * The name of the tx index table ordered by address and descending height
+     */
+    String DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX = "account_ledger_tx_height_index";
     String DB_NAME_ACCOUNT_LEDGER_TX = "account_ledger_tx";
     String DB_NAME_ACCOUNT_LEDGER_COINDATA = "account_ledger_coindata";
+    /**
+     * 导入账本的断点表的名称
+     * The name of the table of the ledger import checkpoints
+     */
+    String DB_NAME_ACCOUNT_LEDGER_IMPORT = "account_ledger_import";
+
+    /**
+     * 高度索引构建完成的标记，长度小于地址长度，不会被地址前缀查询命中
+     * Marks the height index as fully built, shorter than an address so prefix lookups never hit it.
+     */
+    byte[] TX_HEIGHT_INDEX_READY_KEY = "index_ready".getBytes();
 
 }
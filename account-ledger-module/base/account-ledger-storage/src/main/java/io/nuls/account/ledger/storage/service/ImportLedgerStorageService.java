@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.storage.service;
+
+import io.nuls.kernel.model.Result;
+
+/**
+ * 导入账本的断点存储，记录每个地址已经扫描到的区块高度，重新导入时从断点继续
+ * Storage of the ledger import checkpoints, it records the block height an address has been scanned to,
+ * a restarted import resumes from the checkpoint
+ */
+public interface ImportLedgerStorageService {
+
+    /**
+     * 保存地址的导入断点
+     * Save the import checkpoint of an address
+     *
+     * @param address 地址/address
+     * @param height  已完成的区块高度/the block height that has been finished
+     * @return 操作结果/operating result
+     */
+    Result saveImportHeight(byte[] address, long height);
+
+    /**
+     * 获取地址的导入断点，没有断点时返回null
+     * Get the import checkpoint of an address, null if there is none
+     *
+     * @param address 地址/address
+     * @return 已完成的区块高度/the block height that has been finished
+     */
+    Long getImportHeight(byte[] address);
+
+    /**
+     * 导入完成后删除断点
+     * Delete the checkpoint after the import finished
+     *
+     * @param address 地址/address
+     * @return 操作结果/operating result
+     */
+    Result deleteImportHeight(byte[] address);
+}
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.storage.service;
+
+/**
+ * 本地UTXO变化监听器
+ * Listener of the changes of the local UTXO set
+ */
+public interface LocalUtxoChangeListener {
+
+    /**
+     * UTXO已写入，覆盖写入时会先通知旧值被删除
+     * A UTXO was saved, an overwrite is reported as a delete of the old value first
+     *
+     * @param key   UTXO的owner / owner of the UTXO
+     * @param value coin序列化后的数据 / serialized coin
+     */
+    void coinSaved(byte[] key, byte[] value);
+
+    /**
+     * UTXO已删除
+     * A UTXO was deleted
+     *
+     * @param key   UTXO的owner / owner of the UTXO
+     * @param value 删除前coin序列化后的数据 / serialized coin before the delete
+     */
+    void coinDeleted(byte[] key, byte[] value);
+}
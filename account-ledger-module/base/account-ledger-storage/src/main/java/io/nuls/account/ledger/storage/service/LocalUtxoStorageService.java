@@ -48,6 +48,21 @@ public interface LocalUtxoStorageService {
 
     Collection<Entry<byte[], byte[]>> loadAllCoinList();
 
+    /**
+     * 获取某个地址的所有本地UTXO，使用按地址维护的内存索引
+     * Get all local UTXOs of one address from the in-memory address index
+     *
+     * @param address 账户地址 / account address
+     * @return key为UTXO的owner，value为coin序列化后的数据 / key is the UTXO owner, value is the serialized coin
+     */
+    Collection<Entry<byte[], byte[]>> loadCoinListByAddress(byte[] address);
+
+    /**
+     * 注册UTXO变化监听器，每次写入或删除提交后通知
+     * Register a listener notified after every committed save or delete of a UTXO
+     */
+    void addChangeListener(LocalUtxoChangeListener listener);
+
     Result batchSaveAndDeleteUTXO(List<Entry<byte[], byte[]>> utxosToSave, List<byte[]> utxosToDelete);
 
     byte[] getUtxoBytes(byte[] owner);
@@ -29,6 +29,7 @@ import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.model.Result;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * author Facjas
@@ -41,4 +42,17 @@ public interface TransactionInfoStorageService {
     Result deleteTransactionInfo(byte[] infoKey);
 
     List<TransactionInfoPo> getTransactionInfoListByAddress(byte[] address) throws NulsException;
+
+    /**
+     * 按高度从新到旧读取地址的一页交易，从游标之后开始，只读取满足条件的limit条
+     * Reads one page of the txs of an address ordered newest first by height, starting after the cursor,
+     * only limit entries that match the filter are read.
+     *
+     * @param address 地址/address
+     * @param cursor  上一页最后一条的游标，为空时从第一条开始/cursor of the last entry of the previous page, starts at the first entry when empty
+     * @param limit   最多返回的条数/max number of entries
+     * @param filter  过滤条件，为null时不过滤/filter, nothing is filtered when null
+     * @return
+     */
+    List<TransactionInfoPo> getTransactionInfoPage(byte[] address, byte[] cursor, int limit, Predicate<TransactionInfoPo> filter) throws NulsException;
 }
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.ledger.storage.service.impl;
+
+import io.nuls.account.ledger.storage.constant.AccountLedgerStorageConstant;
+import io.nuls.account.ledger.storage.service.ImportLedgerStorageService;
+import io.nuls.core.tools.log.Log;
+import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.service.DBService;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.exception.NulsRuntimeException;
+import io.nuls.kernel.lite.annotation.Autowired;
+import io.nuls.kernel.lite.annotation.Component;
+import io.nuls.kernel.lite.core.bean.InitializingBean;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.utils.SerializeUtils;
+
+/**
+ * 导入账本的断点存储实现
+ * Implementation of the storage of the ledger import checkpoints
+ */
+@Component
+public class ImportLedgerStorageServiceImpl implements ImportLedgerStorageService, InitializingBean {
+
+    @Autowired
+    private DBService dbService;
+
+    @Override
+    public void afterPropertiesSet() throws NulsException {
+        Result result = dbService.createArea(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_IMPORT);
+        if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
+    }
+
+    @Override
+    public Result saveImportHeight(byte[] address, long height) {
+        return dbService.put(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_IMPORT, address, SerializeUtils.uint64ToByteArray(height));
+    }
+
+    @Override
+    public Long getImportHeight(byte[] address) {
+        byte[] value = dbService.get(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_IMPORT, address);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return SerializeUtils.readInt64LE(value, 0);
+        } catch (Exception e) {
+            Log.warn("parse import checkpoint error", e);
+            return null;
+        }
+    }
+
+    @Override
+    public Result deleteImportHeight(byte[] address) {
+        return dbService.delete(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_IMPORT, address);
+    }
+}
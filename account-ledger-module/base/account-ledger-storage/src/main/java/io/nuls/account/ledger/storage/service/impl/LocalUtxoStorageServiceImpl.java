@@ -25,11 +25,13 @@
 package io.nuls.account.ledger.storage.service.impl;
 
 import io.nuls.account.ledger.storage.constant.AccountLedgerStorageConstant;
+import io.nuls.account.ledger.storage.service.LocalUtxoChangeListener;
 import io.nuls.account.ledger.storage.service.LocalUtxoStorageService;
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.model.Entry;
 import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
@@ -37,11 +39,14 @@ import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
 import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinView;
 import io.nuls.kernel.model.Result;
 import io.nuls.ledger.service.LedgerService;
+import io.nuls.ledger.util.LedgerUtil;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Facjas
@@ -58,7 +63,15 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
     @Autowired
     private LedgerService ledgerService;
 
-    private Map<String, Entry<byte[], byte[]>> cacheMap;
+    private volatile Map<String, Entry<byte[], byte[]>> cacheMap;
+
+    /**
+     * 地址 -> 该地址的UTXO，与cacheMap同步维护
+     * address -> UTXOs of the address, maintained together with cacheMap
+     */
+    private Map<String, Map<String, Entry<byte[], byte[]>>> addressCacheMap;
+
+    private final List<LocalUtxoChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     @Override
     public void afterPropertiesSet() throws NulsException {
@@ -71,23 +84,150 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
 
     @Override
     public Collection<Entry<byte[], byte[]>> loadAllCoinList() {
-        if(cacheMap == null) {
-            cacheMap = new ConcurrentHashMap<>();
+        initCache();
+        return cacheMap.values();
+    }
+
+    @Override
+    public Collection<Entry<byte[], byte[]>> loadCoinListByAddress(byte[] address) {
+        initCache();
+        Map<String, Entry<byte[], byte[]>> coinMap = addressCacheMap.get(LedgerUtil.asString(address));
+        if (coinMap == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(coinMap.values());
+    }
 
-            List<Entry<byte[], byte[]>> coinList = dbService.entryList(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_COINDATA);
-            for(Entry<byte[], byte[]> entry : coinList) {
-                cacheMap.put(new String(entry.getKey()), entry);
+    @Override
+    public void addChangeListener(LocalUtxoChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    private void initCache() {
+        if (cacheMap != null) {
+            return;
+        }
+        synchronized (this) {
+            if (cacheMap != null) {
+                return;
+            }
+            Map<String, Entry<byte[], byte[]>> map = new ConcurrentHashMap<>();
+            Map<String, Map<String, Entry<byte[], byte[]>>> addressMap = new ConcurrentHashMap<>();
+            // 直接从游标填充缓存，不再先复制并排序整个数据区
+            // fill the cache straight from the cursor instead of copying and sorting the whole area first
+            try (DBCursor cursor = dbService.range(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_COINDATA, null, null)) {
+                while (cursor.hasNext()) {
+                    Entry<byte[], byte[]> entry = cursor.next();
+                    String key = new String(entry.getKey());
+                    map.put(key, entry);
+                    addToAddressCache(addressMap, key, entry);
+                }
+            }
+            addressCacheMap = addressMap;
+            cacheMap = map;
+        }
+    }
+
+    private static void addToAddressCache(Map<String, Map<String, Entry<byte[], byte[]>>> addressMap, String key, Entry<byte[], byte[]> entry) {
+        String address = getAddressKey(entry.getValue());
+        if (address != null) {
+            addressMap.computeIfAbsent(address, k -> new ConcurrentHashMap<>()).put(key, entry);
+        }
+    }
+
+    private static void removeFromAddressCache(Map<String, Map<String, Entry<byte[], byte[]>>> addressMap, String key, Entry<byte[], byte[]> entry) {
+        String address = getAddressKey(entry.getValue());
+        if (address == null) {
+            return;
+        }
+        addressMap.computeIfPresent(address, (k, coinMap) -> {
+            coinMap.remove(key);
+            return coinMap.isEmpty() ? null : coinMap;
+        });
+    }
+
+    private static String getAddressKey(byte[] coinBytes) {
+        try {
+            byte[] address = new CoinView().wrap(coinBytes).getAddress();
+            return address == null ? null : LedgerUtil.asString(address);
+        } catch (Exception e) {
+            Log.info("parse coin form db error");
+            return null;
+        }
+    }
+
+    /**
+     * 更新缓存，返回需要通知监听器的变化：偶数位为删除的旧值，奇数位为写入的新值，null表示无
+     * Update the cache, the returned changes are (deleted old value, saved new value) pairs to report, null for none
+     */
+    private synchronized List<Entry<byte[], byte[]>> updateCache(List<Entry<byte[], byte[]>> utxosToSave, Collection<byte[]> utxosToDelete) {
+        List<Entry<byte[], byte[]>> changes = new ArrayList<>();
+        if (cacheMap == null) {
+            return changes;
+        }
+        for (byte[] key : utxosToDelete) {
+            String keyStr = new String(key);
+            Entry<byte[], byte[]> old = cacheMap.remove(keyStr);
+            if (old != null) {
+                removeFromAddressCache(addressCacheMap, keyStr, old);
+                changes.add(old);
+                changes.add(null);
+            }
+        }
+        for (Entry<byte[], byte[]> entry : utxosToSave) {
+            String keyStr = new String(entry.getKey());
+            Entry<byte[], byte[]> old = cacheMap.put(keyStr, entry);
+            if (old != null) {
+                removeFromAddressCache(addressCacheMap, keyStr, old);
+            }
+            addToAddressCache(addressCacheMap, keyStr, entry);
+            changes.add(old);
+            changes.add(entry);
+        }
+        return changes;
+    }
+
+    /**
+     * 在写会话提交成功后更新缓存并通知监听器，会话被丢弃时缓存保持不变；没有会话时立即执行
+     * Update the cache and notify the listeners once the write session is committed, the cache stays untouched
+     * when the session is discarded. Without a session it runs right away
+     */
+    private void applyChanges(List<Entry<byte[], byte[]>> utxosToSave, Collection<byte[]> utxosToDelete) {
+        dbService.afterWriteSessionCommit(() -> fireChanges(updateCache(utxosToSave, utxosToDelete)));
+    }
+
+    /**
+     * 在缓存锁之外通知监听器，避免与监听器自身的锁形成死锁
+     * Listeners are notified outside the cache lock so their own locks cannot deadlock with it
+     */
+    private void fireChanges(List<Entry<byte[], byte[]>> changes) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < changes.size(); i += 2) {
+            Entry<byte[], byte[]> deleted = changes.get(i);
+            Entry<byte[], byte[]> saved = changes.get(i + 1);
+            for (LocalUtxoChangeListener listener : listeners) {
+                try {
+                    if (deleted != null) {
+                        listener.coinDeleted(deleted.getKey(), deleted.getValue());
+                    }
+                    if (saved != null) {
+                        listener.coinSaved(saved.getKey(), saved.getValue());
+                    }
+                } catch (Exception e) {
+                    Log.error(e);
+                }
             }
         }
-        return cacheMap.values();
     }
 
     @Override
     public Result saveUTXO(byte[] key, byte[] value) {
         Result result = dbService.put(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_COINDATA, key, value);
 
-        if(result.isSuccess() && cacheMap != null) {
-            cacheMap.put(new String(key), new Entry(key, value));
+        if (result.isSuccess()) {
+            applyChanges(Collections.singletonList(new Entry<>(key, value)), Collections.emptyList());
         }
 
         return result;
@@ -97,8 +237,10 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
     public Result<Integer> batchSaveUTXO(Map<byte[], byte[]> utxos) {
         BatchOperation batch = dbService.createWriteBatch(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_COINDATA);
         Set<Map.Entry<byte[], byte[]>> utxosToSaveEntries = utxos.entrySet();
-        for(Map.Entry<byte[], byte[]> entry : utxosToSaveEntries) {
+        List<Entry<byte[], byte[]>> utxosToSave = new ArrayList<>(utxos.size());
+        for (Map.Entry<byte[], byte[]> entry : utxosToSaveEntries) {
             batch.put(entry.getKey(), entry.getValue());
+            utxosToSave.add(new Entry<>(entry.getKey(), entry.getValue()));
         }
         Result batchResult = batch.executeBatch();
         if (batchResult.isFailed()) {
@@ -106,11 +248,7 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
         }
         Result result = Result.getSuccess().setData(utxos.size());
 
-        if(result.isSuccess() && cacheMap != null) {
-            for(Map.Entry<byte[], byte[]> entry : utxosToSaveEntries) {
-                cacheMap.put(new String(entry.getKey()), new Entry(entry.getKey(), entry.getValue()));
-            }
-        }
+        applyChanges(utxosToSave, Collections.emptyList());
 
         return result;
     }
@@ -118,8 +256,8 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
     @Override
     public Result deleteUTXO(byte[] key) {
         Result result = dbService.delete(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_COINDATA, key);
-        if(result.isSuccess() && cacheMap != null) {
-            cacheMap.remove(new String(key));
+        if (result.isSuccess()) {
+            applyChanges(Collections.emptyList(), Collections.singletonList(key));
         }
         return result;
     }
@@ -136,11 +274,7 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
         }
         Result result = Result.getSuccess().setData(new Integer(utxos.size()));
 
-        if(result.isSuccess() && cacheMap != null) {
-            for (byte[] key : utxos) {
-                cacheMap.remove(new String(key));
-            }
-        }
+        applyChanges(Collections.emptyList(), new ArrayList<>(utxos));
         return result;
     }
 
@@ -159,14 +293,7 @@ public class LocalUtxoStorageServiceImpl implements LocalUtxoStorageService, Ini
         }
         Result result = Result.getSuccess().setData(new Integer(utxosToSave.size() + utxosToDelete.size()));
 
-        if(result.isSuccess() && cacheMap != null) {
-            for(Entry<byte[], byte[]> entry : utxosToSave) {
-                cacheMap.put(new String(entry.getKey()), entry);
-            }
-            for (byte[] key : utxosToDelete) {
-                cacheMap.remove(new String(key));
-            }
-        }
+        applyChanges(new ArrayList<>(utxosToSave), new ArrayList<>(utxosToDelete));
 
         return result;
     }
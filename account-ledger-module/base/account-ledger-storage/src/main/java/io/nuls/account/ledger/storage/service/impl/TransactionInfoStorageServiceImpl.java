@@ -24,15 +24,16 @@
  */
 package io.nuls.account.ledger.storage.service.impl;
 
-import io.nuls.account.ledger.constant.AccountLedgerErrorCode;
 import io.nuls.account.ledger.storage.constant.AccountLedgerStorageConstant;
 import io.nuls.account.ledger.storage.po.TransactionInfoPo;
 import io.nuls.account.ledger.storage.service.TransactionInfoStorageService;
-import io.nuls.core.tools.array.ArraysTool;
+import io.nuls.account.ledger.storage.util.TxInfoHeightIndexUtil;
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.model.Entry;
+import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
-import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
 import io.nuls.kernel.lite.annotation.Autowired;
@@ -40,13 +41,12 @@ import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
 import io.nuls.kernel.model.Address;
 import io.nuls.kernel.model.Result;
-import io.nuls.kernel.utils.AddressTool;
 
-import javax.naming.PartialResultException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * author Facjas
@@ -57,18 +57,73 @@ public class TransactionInfoStorageServiceImpl implements TransactionInfoStorage
     @Autowired
     private DBService dbService;
 
+    private static final int REBUILD_BATCH_SIZE = 10000;
+
     @Override
     public void afterPropertiesSet() throws NulsException {
         Result result = dbService.createArea(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX);
         if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
             throw new NulsRuntimeException(result.getErrorCode());
         }
+        result = dbService.createArea(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX);
+        if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
+        if (dbService.get(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX, AccountLedgerStorageConstant.TX_HEIGHT_INDEX_READY_KEY) == null) {
+            rebuildHeightIndex();
+        }
+    }
+
+    /**
+     * 根据交易索引表重建高度索引，升级后首次启动或上次重建未完成时执行
+     * Rebuild the height index from the tx index table, runs on the first start after upgrading or if the last rebuild was interrupted.
+     */
+    private void rebuildHeightIndex() {
+        Log.info("rebuild account ledger tx height index start");
+        BatchOperation batch = dbService.createWriteBatch(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX);
+        int count = 0;
+        try (DBCursor cursor = dbService.range(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, null, null)) {
+            TransactionInfoPo infoPo = new TransactionInfoPo();
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> entry = cursor.next();
+                try {
+                    infoPo.parse(entry.getValue(), 0);
+                    batch.put(TxInfoHeightIndexUtil.toIndexKey(getAddress(entry.getKey()), infoPo), entry.getValue());
+                } catch (Exception e) {
+                    Log.info("parse transaction info form db error");
+                    continue;
+                }
+                if (++count % REBUILD_BATCH_SIZE == 0) {
+                    executeRebuildBatch(batch);
+                    batch = dbService.createWriteBatch(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX);
+                }
+            }
+        }
+        batch.put(AccountLedgerStorageConstant.TX_HEIGHT_INDEX_READY_KEY, new byte[0]);
+        executeRebuildBatch(batch);
+        Log.info("rebuild account ledger tx height index finished, count: " + count);
+    }
+
+    private void executeRebuildBatch(BatchOperation batch) {
+        Result result = batch.executeBatch();
+        if (result.isFailed()) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
     }
 
     @Override
     public Result saveTransactionInfo(byte[] infoKey, TransactionInfoPo infoPo) {
         try {
-            dbService.put(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, infoKey, infoPo.serialize());
+            byte[] infoBytes = infoPo.serialize();
+            byte[] indexKey = TxInfoHeightIndexUtil.toIndexKey(getAddress(infoKey), infoPo);
+            // 交易确认后高度会变化，先删除旧的高度索引
+            // the height changes once the tx is confirmed, so the old height index entry is removed first
+            byte[] oldIndexKey = getHeightIndexKey(infoKey);
+            if (oldIndexKey != null && !Arrays.equals(oldIndexKey, indexKey)) {
+                dbService.delete(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX, oldIndexKey);
+            }
+            dbService.put(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, infoKey, infoBytes);
+            dbService.put(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX, indexKey, infoBytes);
             return Result.getSuccess();
         } catch (Exception e) {
             return Result.getFailed();
@@ -78,19 +133,32 @@ public class TransactionInfoStorageServiceImpl implements TransactionInfoStorage
     @Override
     public List<TransactionInfoPo> getTransactionInfoListByAddress(byte[] address) throws NulsException {
         List<TransactionInfoPo> infoPoList = new ArrayList<>();
-        Set<byte[]> keySet = dbService.keySet(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX);
-        if (keySet == null || keySet.isEmpty()) {
-            return infoPoList;
+        TransactionInfoPo transactionInfoPo;
+        try (DBCursor cursor = dbService.seek(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, address)) {
+            while (cursor.hasNext()) {
+                transactionInfoPo = new TransactionInfoPo();
+                transactionInfoPo.parse(cursor.next().getValue(), 0);
+                infoPoList.add(transactionInfoPo);
+            }
         }
+        return infoPoList;
+    }
 
-        byte[] addressKey = new byte[Address.ADDRESS_LENGTH];
-        for (byte[] key : keySet) {
-            System.arraycopy(key, 0, addressKey, 0, Address.ADDRESS_LENGTH);
-            if (java.util.Arrays.equals(addressKey, address)) {
-                byte[] values = dbService.get(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, key);
-                TransactionInfoPo transactionInfoPo = new TransactionInfoPo();
-                transactionInfoPo.parse(values, 0);
-                infoPoList.add(transactionInfoPo);
+    @Override
+    public List<TransactionInfoPo> getTransactionInfoPage(byte[] address, byte[] cursor, int limit, Predicate<TransactionInfoPo> filter) throws NulsException {
+        List<TransactionInfoPo> infoPoList = new ArrayList<>();
+        if (limit <= 0) {
+            return infoPoList;
+        }
+        TransactionInfoPo transactionInfoPo;
+        try (DBCursor dbCursor = dbService.range(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX,
+                TxInfoHeightIndexUtil.toStartKey(address, cursor), TxInfoHeightIndexUtil.toEndKey(address))) {
+            while (dbCursor.hasNext() && infoPoList.size() < limit) {
+                transactionInfoPo = new TransactionInfoPo();
+                transactionInfoPo.parse(dbCursor.next().getValue(), 0);
+                if (filter == null || filter.test(transactionInfoPo)) {
+                    infoPoList.add(transactionInfoPo);
+                }
             }
         }
         return infoPoList;
@@ -98,6 +166,33 @@ public class TransactionInfoStorageServiceImpl implements TransactionInfoStorage
 
     @Override
     public Result deleteTransactionInfo(byte[] infoKey) {
+        byte[] indexKey = getHeightIndexKey(infoKey);
+        if (indexKey != null) {
+            dbService.delete(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_HEIGHT_INDEX, indexKey);
+        }
         return dbService.delete(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, infoKey);
     }
+
+    /**
+     * 根据已保存的交易信息计算其高度索引的key，不存在时返回null
+     * Computes the height index key from the saved tx info, returns null if nothing is saved.
+     */
+    private byte[] getHeightIndexKey(byte[] infoKey) {
+        byte[] values = dbService.get(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX_INDEX, infoKey);
+        if (values == null) {
+            return null;
+        }
+        try {
+            TransactionInfoPo infoPo = new TransactionInfoPo();
+            infoPo.parse(values, 0);
+            return TxInfoHeightIndexUtil.toIndexKey(getAddress(infoKey), infoPo);
+        } catch (NulsException | IOException e) {
+            Log.error(e);
+            return null;
+        }
+    }
+
+    private byte[] getAddress(byte[] infoKey) {
+        return Arrays.copyOf(infoKey, Address.ADDRESS_LENGTH);
+    }
 }
@@ -30,6 +30,7 @@ import io.nuls.account.ledger.storage.service.UnconfirmedTransactionStorageServi
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.model.Entry;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
@@ -108,18 +109,19 @@ public class UnconfiredmTransactionStorageImpl implements UnconfirmedTransaction
     public Result<List<Transaction>> loadAllUnconfirmedList() {
         Result result;
         List<UnconfirmedTxPo> tmpList = new ArrayList<>();
-        List<Entry<byte[], byte[]>> txs = dbService.entryList(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX);
-
-        for (Entry<byte[], byte[]> txEntry : txs) {
-            try {
-                UnconfirmedTxPo tmpTx = new UnconfirmedTxPo(txEntry.getValue());
-                if (tmpTx != null) {
-                    NulsByteBuffer buffer = new NulsByteBuffer(txEntry.getKey(), 0);
-                    tmpTx.getTx().setHash(buffer.readHash());
-                    tmpList.add(tmpTx);
+        try (DBCursor cursor = dbService.range(AccountLedgerStorageConstant.DB_NAME_ACCOUNT_LEDGER_TX, null, null)) {
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> txEntry = cursor.next();
+                try {
+                    UnconfirmedTxPo tmpTx = new UnconfirmedTxPo(txEntry.getValue());
+                    if (tmpTx != null) {
+                        NulsByteBuffer buffer = new NulsByteBuffer(txEntry.getKey(), 0);
+                        tmpTx.getTx().setHash(buffer.readHash());
+                        tmpList.add(tmpTx);
+                    }
+                } catch (Exception e) {
+                    Log.warn("parse local tx error", e);
                 }
-            } catch (Exception e) {
-                Log.warn("parse local tx error", e);
             }
         }
 
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.account.ledger.storage.util;
+
+import io.nuls.account.ledger.storage.po.TransactionInfoPo;
+import io.nuls.core.tools.array.ArraysTool;
+import io.nuls.kernel.model.Address;
+
+import java.io.IOException;
+
+/**
+ * 按高度排序的交易索引的key为 address(23 bytes) + 取反的高度(4 bytes) + 取反的时间(6 bytes) + txHash，
+ * 均为大端序，所以同一地址的交易按高度、时间从新到旧排列，未确认交易(高度为-1)排在最前面。
+ * 游标为key去掉地址前缀后的部分，从游标之后继续读取即可得到下一页
+ * The height ordered tx index key is address(23 bytes) + inverted height(4 bytes) + inverted time(6 bytes) + txHash,
+ * all big-endian, so the txs of an address are ordered newest first by height and time, unconfirmed txs (height -1) come first.
+ * A cursor is the key without the address prefix, reading on after the cursor gives the next page.
+ */
+public class TxInfoHeightIndexUtil {
+
+    private static final int HEIGHT_LENGTH = 4;
+
+    private static final int TIME_LENGTH = 6;
+
+    public static byte[] toIndexKey(byte[] address, TransactionInfoPo infoPo) throws IOException {
+        byte[] order = new byte[HEIGHT_LENGTH + TIME_LENGTH];
+        writeInverted(order, 0, HEIGHT_LENGTH, infoPo.getBlockHeight());
+        writeInverted(order, HEIGHT_LENGTH, TIME_LENGTH, infoPo.getTime());
+        return ArraysTool.concatenate(address, order, infoPo.getTxHash().serialize());
+    }
+
+    public static byte[] getCursor(byte[] indexKey) {
+        byte[] cursor = new byte[indexKey.length - Address.ADDRESS_LENGTH];
+        System.arraycopy(indexKey, Address.ADDRESS_LENGTH, cursor, 0, cursor.length);
+        return cursor;
+    }
+
+    /**
+     * 分页读取的起始key(包含)，游标为空时从该地址的第一条开始，否则从游标指向的那条之后开始
+     * The start key (inclusive) of a page, the first entry of the address without a cursor, otherwise the entry right after the cursor.
+     */
+    public static byte[] toStartKey(byte[] address, byte[] cursor) {
+        if (cursor == null || cursor.length == 0) {
+            return address;
+        }
+        // 追加一个0字节即为紧随游标key之后的最小key
+        // appending a zero byte gives the smallest key right after the cursor key
+        return ArraysTool.concatenate(address, cursor, new byte[1]);
+    }
+
+    /**
+     * 该地址前缀范围之后的第一个key(不包含)，前缀全为0xFF时返回null，表示直到末尾
+     * The first key after the prefix range of the address (exclusive), null when the prefix is all 0xFF, meaning up to the end.
+     */
+    public static byte[] toEndKey(byte[] address) {
+        byte[] end = new byte[address.length];
+        System.arraycopy(address, 0, end, 0, address.length);
+        for (int i = end.length - 1; i >= 0; i--) {
+            if (end[i] != (byte) 0xFF) {
+                end[i]++;
+                return end;
+            }
+            end[i] = 0;
+        }
+        return null;
+    }
+
+    private static void writeInverted(byte[] bytes, int offset, int length, long value) {
+        long inverted = ~value;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            bytes[i] = (byte) inverted;
+            inverted >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.account.ledger.storage.util;
+
+import io.nuls.account.ledger.storage.po.TransactionInfoPo;
+import io.nuls.kernel.model.Address;
+import io.nuls.kernel.model.NulsDigestData;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TxInfoHeightIndexUtilTest {
+
+    private static TransactionInfoPo createInfo(long height, long time, int seed) {
+        TransactionInfoPo infoPo = new TransactionInfoPo();
+        infoPo.setBlockHeight(height);
+        infoPo.setTime(time);
+        infoPo.setTxHash(NulsDigestData.calcDigestData(new byte[]{(byte) seed}));
+        return infoPo;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    @Test
+    public void newestFirst() throws Exception {
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        // 期望的顺序：未确认交易(包括从数据库读出的uint32高度)、高度倒序、同高度时间倒序
+        // expected order: unconfirmed txs (including the uint32 height read back from the db), height desc, time desc within a height
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(-1L, 2000L, 1)));
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(0xFFFFFFFFL, 1000L, 2)));
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(300L, 1500L, 3)));
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(300L, 1400L, 4)));
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(256L, 1600L, 5)));
+        keys.add(TxInfoHeightIndexUtil.toIndexKey(address, createInfo(0L, 100L, 6)));
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue("index " + i, compareUnsigned(keys.get(i - 1), keys.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void cursorStartsAfterLastEntry() throws Exception {
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        Arrays.fill(address, (byte) 7);
+        byte[] key = TxInfoHeightIndexUtil.toIndexKey(address, createInfo(300L, 1500L, 3));
+        byte[] next = TxInfoHeightIndexUtil.toIndexKey(address, createInfo(300L, 1400L, 4));
+        byte[] cursor = TxInfoHeightIndexUtil.getCursor(key);
+        assertEquals(key.length - Address.ADDRESS_LENGTH, cursor.length);
+
+        byte[] start = TxInfoHeightIndexUtil.toStartKey(address, cursor);
+        assertTrue(compareUnsigned(key, start) < 0);
+        assertTrue(compareUnsigned(start, next) <= 0);
+        assertArrayEquals(address, TxInfoHeightIndexUtil.toStartKey(address, null));
+    }
+
+    @Test
+    public void endKeyCoversAddressPrefix() throws Exception {
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        address[0] = 1;
+        address[Address.ADDRESS_LENGTH - 1] = (byte) 0xFF;
+        byte[] end = TxInfoHeightIndexUtil.toEndKey(address);
+        assertEquals(1, end[0]);
+        assertEquals(1, end[Address.ADDRESS_LENGTH - 2]);
+        assertEquals(0, end[Address.ADDRESS_LENGTH - 1]);
+        byte[] last = TxInfoHeightIndexUtil.toIndexKey(address, createInfo(0L, 0L, 1));
+        assertTrue(compareUnsigned(last, end) < 0);
+
+        byte[] allOnes = new byte[Address.ADDRESS_LENGTH];
+        Arrays.fill(allOnes, (byte) 0xFF);
+        assertNull(TxInfoHeightIndexUtil.toEndKey(allOnes));
+    }
+}
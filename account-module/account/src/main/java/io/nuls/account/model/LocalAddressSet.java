@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.account.model;
+
+import io.nuls.core.tools.BloomFilter.BloomFilter;
+import io.nuls.kernel.utils.ByteArrayWrapper;
+
+import java.util.*;
+
+/**
+ * 本地地址集合的不可变快照：本地账户地址和本地多签（P2SH）地址，以字节为键做哈希查找，前置布隆过滤器
+ * 绝大多数交易地址不属于本地，布隆过滤器直接排除，不需要创建键对象；账户增删时由AccountCacheService整体替换
+ * An immutable snapshot of the local addresses: local account addresses and local multi-sign (P2SH) addresses,
+ * hashed by their bytes behind a bloom filter. Most tx addresses are not local and are rejected by the bloom filter
+ * without creating a key. AccountCacheService replaces the whole snapshot when accounts are added or removed.
+ */
+public final class LocalAddressSet {
+
+    public static final LocalAddressSet EMPTY = new LocalAddressSet(Collections.emptyList(), Collections.emptyList());
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    private final Map<ByteArrayWrapper, Account> accountMap;
+
+    private final Set<ByteArrayWrapper> multiSigAddressSet;
+
+    private final List<byte[]> accountAddressList;
+
+    private final byte[] bloomData;
+
+    private final long hashFuncs;
+
+    public LocalAddressSet(Collection<Account> accounts, Collection<byte[]> multiSigAddresses) {
+        Map<ByteArrayWrapper, Account> accountMap = new HashMap<>(accounts.size() * 4 / 3 + 1);
+        List<byte[]> accountAddressList = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            byte[] address = account.getAddress().getAddressBytes();
+            if (null == accountMap.put(new ByteArrayWrapper(address), account)) {
+                accountAddressList.add(address);
+            }
+        }
+        Set<ByteArrayWrapper> multiSigAddressSet = new HashSet<>(multiSigAddresses.size() * 4 / 3 + 1);
+        for (byte[] address : multiSigAddresses) {
+            multiSigAddressSet.add(new ByteArrayWrapper(address));
+        }
+        this.accountMap = Collections.unmodifiableMap(accountMap);
+        this.multiSigAddressSet = Collections.unmodifiableSet(multiSigAddressSet);
+        this.accountAddressList = Collections.unmodifiableList(accountAddressList);
+
+        int elements = accountMap.size() + multiSigAddressSet.size();
+        if (elements == 0) {
+            this.bloomData = null;
+            this.hashFuncs = 0;
+            return;
+        }
+        BloomFilter filter = new BloomFilter(elements, FALSE_POSITIVE_RATE, 0L);
+        for (ByteArrayWrapper key : accountMap.keySet()) {
+            filter.insert(key.getBytes());
+        }
+        for (ByteArrayWrapper key : multiSigAddressSet) {
+            filter.insert(key.getBytes());
+        }
+        this.bloomData = filter.getData();
+        this.hashFuncs = filter.getHashFuncs();
+    }
+
+    /**
+     * 布隆过滤器判断，返回false时地址一定不在集合中；快照不可变，读取不加锁
+     * The bloom filter check, false means the address is definitely not in the set; the snapshot is immutable
+     * so no lock is taken
+     */
+    public boolean mightContain(byte[] address) {
+        if (null == bloomData || null == address) {
+            return false;
+        }
+        for (int i = 0; i < hashFuncs; i++) {
+            if (!BloomFilter.checkBitLE(bloomData, BloomFilter.murmurHash3(bloomData, 0L, i, address))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 地址对应的本地账户，不是本地账户返回null
+     * The local account of the address, null if it is not a local account
+     */
+    public Account getAccount(byte[] address) {
+        if (!mightContain(address)) {
+            return null;
+        }
+        return accountMap.get(new ByteArrayWrapper(address));
+    }
+
+    public boolean isLocalAccount(byte[] address) {
+        return null != getAccount(address);
+    }
+
+    public boolean isMultiSigAddress(byte[] address) {
+        return mightContain(address) && multiSigAddressSet.contains(new ByteArrayWrapper(address));
+    }
+
+    /**
+     * 本地账户地址列表，不可修改
+     * The local account addresses, unmodifiable
+     */
+    public List<byte[]> getAccountAddressList() {
+        return accountAddressList;
+    }
+
+    public int getAccountCount() {
+        return accountMap.size();
+    }
+
+    public int getMultiSigAddressCount() {
+        return multiSigAddressSet.size();
+    }
+
+    public Collection<Account> getAccounts() {
+        return accountMap.values();
+    }
+
+    public Collection<byte[]> getMultiSigAddresses() {
+        List<byte[]> list = new ArrayList<>(multiSigAddressSet.size());
+        for (ByteArrayWrapper key : multiSigAddressSet) {
+            list.add(key.getBytes());
+        }
+        return list;
+    }
+}
@@ -27,6 +27,7 @@ package io.nuls.account.service;
 import io.nuls.account.model.Account;
 import io.nuls.account.model.AccountKeyStore;
 import io.nuls.account.model.Balance;
+import io.nuls.account.model.LocalAddressSet;
 import io.nuls.account.model.MultiSigAccount;
 import io.nuls.core.tools.crypto.ECKey;
 import io.nuls.kernel.exception.NulsException;
@@ -375,6 +376,14 @@ public interface AccountService {
      */
     Result<Address> createMultiAccount(List<String> pubkeys, int m);
 
+    /**
+     * 获取本地账户和本地多签地址的不可变快照，用于判断交易是否与本地相关
+     * Get the immutable snapshot of the local account and multi-sign addresses, used to tell whether a tx is local
+     *
+     * @return the current local address snapshot
+     */
+    LocalAddressSet getLocalAddressSet();
+
     /**
      * 获取所有账户集合
      * Query all account collections.
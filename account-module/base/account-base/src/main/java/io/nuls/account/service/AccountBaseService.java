@@ -74,7 +74,7 @@ public class AccountBaseService {
         if (result.isFailed()) {
             return Result.getFailed(AccountErrorCode.FAILED);
         }
-        accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+        accountCacheService.putLocalAccount(account);
         return Result.getSuccess().setData(true);
     }
 
@@ -185,7 +185,7 @@ public class AccountBaseService {
             if (result.isFailed()) {
                 return Result.getFailed(AccountErrorCode.FAILED);
             }
-            accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+            accountCacheService.putLocalAccount(account);
         } catch (NulsException e) {
             Log.error(e);
             return Result.getFailed(AccountErrorCode.FAILED);
@@ -235,7 +235,7 @@ public class AccountBaseService {
             if (result.isFailed()) {
                 return Result.getFailed(AccountErrorCode.FAILED);
             }
-            accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+            accountCacheService.putLocalAccount(account);
             return result.setData(true);
         } catch (NulsException e) {
             Log.error(e);
@@ -27,13 +27,14 @@ package io.nuls.account.service;
 
 import io.nuls.account.constant.AccountConstant;
 import io.nuls.account.model.Account;
+import io.nuls.account.model.LocalAddressSet;
 import io.nuls.kernel.model.Address;
 import io.nuls.cache.CacheMap;
 import io.nuls.core.tools.crypto.Base58;
 import io.nuls.kernel.utils.AddressTool;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 账户缓存服务类
@@ -53,6 +54,18 @@ public class AccountCacheService {
      */
     public Map<String, Account> localAccountMaps;
 
+    /**
+     * 本地账户和多签地址的不可变快照，账户或多签地址变化时整体替换
+     * Immutable snapshot of the local account and multi-sign addresses, replaced as a whole on every change
+     */
+    private volatile LocalAddressSet localAddressSet = LocalAddressSet.EMPTY;
+
+    /**
+     * 本地多签地址，为null表示尚未从存储加载
+     * Local multi-sign addresses, null until loaded from storage
+     */
+    private Map<String, byte[]> multiSigAddressMap;
+
     private AccountCacheService() {
         this.cacheMap = new CacheMap<>(AccountConstant.ACCOUNT_LIST_CACHE, 32, String.class, Account.class);
     }
@@ -126,6 +139,86 @@ public class AccountCacheService {
         this.cacheMap.destroy();
     }
 
+    /**
+     * 重置本地账户集合，随后通过putLocalAccounts装入
+     * Resets the local accounts, they are loaded afterwards through putLocalAccounts
+     */
+    public synchronized void resetLocalAccounts() {
+        this.localAccountMaps = new ConcurrentHashMap<>();
+        refreshLocalAddressSet();
+    }
+
+    /**
+     * 添加或更新一个本地账户
+     * Adds or updates a local account
+     */
+    public synchronized void putLocalAccount(Account account) {
+        this.localAccountMaps.put(account.getAddress().getBase58(), account);
+        refreshLocalAddressSet();
+    }
+
+    /**
+     * 批量添加本地账户，只替换一次地址快照
+     * Adds local accounts in bulk, the address snapshot is replaced once
+     */
+    public synchronized void putLocalAccounts(Collection<Account> accounts) {
+        for (Account account : accounts) {
+            this.localAccountMaps.put(account.getAddress().getBase58(), account);
+        }
+        refreshLocalAddressSet();
+    }
+
+    public synchronized void removeLocalAccount(String address) {
+        this.localAccountMaps.remove(address);
+        refreshLocalAddressSet();
+    }
+
+    public synchronized boolean isMultiSigAddressLoaded() {
+        return null != multiSigAddressMap;
+    }
+
+    /**
+     * 装入存储中的全部本地多签地址
+     * Loads all local multi-sign addresses from storage
+     */
+    public synchronized void setMultiSigAddresses(Collection<byte[]> addresses) {
+        this.multiSigAddressMap = new HashMap<>();
+        for (byte[] address : addresses) {
+            this.multiSigAddressMap.put(AddressTool.getStringAddressByBytes(address), address);
+        }
+        refreshLocalAddressSet();
+    }
+
+    public synchronized void putMultiSigAddress(byte[] address) {
+        if (null == multiSigAddressMap) {
+            return;
+        }
+        this.multiSigAddressMap.put(AddressTool.getStringAddressByBytes(address), address);
+        refreshLocalAddressSet();
+    }
+
+    public synchronized void removeMultiSigAddress(byte[] address) {
+        if (null == multiSigAddressMap) {
+            return;
+        }
+        this.multiSigAddressMap.remove(AddressTool.getStringAddressByBytes(address));
+        refreshLocalAddressSet();
+    }
+
+    /**
+     * 当前的本地地址快照，读取无锁
+     * The current local address snapshot, read without locking
+     */
+    public LocalAddressSet getLocalAddressSet() {
+        return localAddressSet;
+    }
+
+    private void refreshLocalAddressSet() {
+        Collection<Account> accounts = null == localAccountMaps ? Collections.emptyList() : localAccountMaps.values();
+        Collection<byte[]> multiSigAddresses = null == multiSigAddressMap ? Collections.emptyList() : multiSigAddressMap.values();
+        this.localAddressSet = new LocalAddressSet(accounts, multiSigAddresses);
+    }
+
     /**
      * 缓存多个账户
      * Cache multiple accounts
@@ -230,7 +230,7 @@ public class AliasService {
                     this.rollbackAlias(aliaspo);
                 }
                 Account account = po.toAccount();
-                accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+                accountCacheService.putLocalAccount(account);
             }
         } catch (Exception e) {
             this.rollbackAlias(aliaspo);
@@ -273,7 +273,7 @@ public class AliasService {
                         return Result.getFailed(AccountErrorCode.FAILED);
                     }
                     Account account = accountPo.toAccount();
-                    accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+                    accountCacheService.putLocalAccount(account);
                 }
             }
         } catch (Exception e) {
@@ -121,9 +121,7 @@ public class AccountServiceImpl implements AccountService {
             if (result.isFailed()) {
                 return result;
             }
-            for (Account account : accounts) {
-                accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
-            }
+            accountCacheService.putLocalAccounts(accounts);
             return Result.getSuccess().setData(accounts);
         } catch (Exception e) {
             Log.error(e);
@@ -169,7 +167,7 @@ public class AccountServiceImpl implements AccountService {
             return result;
         }
         accountLedgerService.deleteUnconfirmedTx(account.getAddress().getAddressBytes());
-        accountCacheService.localAccountMaps.remove(account.getAddress().getBase58());
+        accountCacheService.removeLocalAccount(account.getAddress().getBase58());
         return Result.getSuccess().setData(true);
     }
 
@@ -225,7 +223,7 @@ public class AccountServiceImpl implements AccountService {
         if (result.isFailed()) {
             return result;
         }
-        accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+        accountCacheService.putLocalAccount(account);
         TaskManager.asynExecuteRunnable(new Runnable() {
             @Override
             public void run() {
@@ -314,7 +312,7 @@ public class AccountServiceImpl implements AccountService {
         if (result.isFailed()) {
             return result;
         }
-        accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+        accountCacheService.putLocalAccount(account);
         TaskManager.asynExecuteRunnable(new Runnable() {
             @Override
             public void run() {
@@ -379,7 +377,7 @@ public class AccountServiceImpl implements AccountService {
         if (result.isFailed()) {
             return result;
         }
-        accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+        accountCacheService.putLocalAccount(account);
         TaskManager.asynExecuteRunnable(new Runnable() {
             @Override
             public void run() {
@@ -398,7 +396,7 @@ public class AccountServiceImpl implements AccountService {
     private void finishImport(Account account) {
         account.setOk(true);
         accountStorageService.saveAccount(new AccountPo(account));
-        accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
+        accountCacheService.putLocalAccount(account);
     }
 
     @Override
@@ -500,7 +498,7 @@ public class AccountServiceImpl implements AccountService {
                 list.add(iterator.next());
             }
         } else {
-            accountCacheService.localAccountMaps = new ConcurrentHashMap<>();
+            accountCacheService.resetLocalAccounts();
             Result<List<AccountPo>> result = accountStorageService.getAccountList();
             if (result.isFailed()) {
                 return Result.getFailed().setData(list);
@@ -515,9 +513,7 @@ public class AccountServiceImpl implements AccountService {
                 list.add(account);
                 addressList.add(account.getAddress().getBase58());
             }
-            for (Account account : list) {
-                accountCacheService.localAccountMaps.put(account.getAddress().getBase58(), account);
-            }
+            accountCacheService.putLocalAccounts(list);
         }
         list.sort(new Comparator<Account>() {
             @Override
@@ -664,6 +660,7 @@ public class AccountServiceImpl implements AccountService {
             if (result.isFailed()) {
                 return result;
             }
+            accountCacheService.putMultiSigAddress(address.getAddressBytes());
             return result.setData(account);
         } catch (Exception e) {
             Log.error(e);
@@ -673,6 +670,37 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
+    /**
+     * 获取本地账户和本地多签地址的快照，首次调用时装载账户及多签地址
+     * Get the snapshot of the local account and multi-sign addresses, they are loaded on the first call
+     *
+     * @return the current local address snapshot
+     */
+    @Override
+    public LocalAddressSet getLocalAddressSet() {
+        if (accountCacheService.localAccountMaps == null) {
+            getAccountList();
+        }
+        if (!accountCacheService.isMultiSigAddressLoaded()) {
+            List<byte[]> addressList = new ArrayList<>();
+            List<byte[]> list = this.multiSigAccountStorageService.getAccountList().getData();
+            if (null != list) {
+                for (byte[] bytes : list) {
+                    MultiSigAccount account = new MultiSigAccount();
+                    try {
+                        account.parse(new NulsByteBuffer(bytes, 0));
+                    } catch (NulsException e) {
+                        Log.error(e);
+                        continue;
+                    }
+                    addressList.add(account.getAddress().getAddressBytes());
+                }
+            }
+            accountCacheService.setMultiSigAddresses(addressList);
+        }
+        return accountCacheService.getLocalAddressSet();
+    }
+
     /**
      * 获取所有账户集合
      * Query all account collections.
@@ -767,6 +795,7 @@ public class AccountServiceImpl implements AccountService {
         if (result.isFailed()) {
             return result;
         }
+        accountCacheService.putMultiSigAddress(address.getAddressBytes());
         return result.setData(addressStr);
     }
 
@@ -781,7 +810,11 @@ public class AccountServiceImpl implements AccountService {
             if (result.isFailed() || result.getData() == null) {
                 return Result.getFailed(AccountErrorCode.ACCOUNT_NOT_EXIST);
             }
-            return this.multiSigAccountStorageService.removeAccount(addressObj);
+            result = this.multiSigAccountStorageService.removeAccount(addressObj);
+            if (result.isSuccess()) {
+                accountCacheService.removeMultiSigAddress(addressObj.getAddressBytes());
+            }
+            return result;
         } catch (Exception e) {
             Log.error(e);
             return Result.getFailed();
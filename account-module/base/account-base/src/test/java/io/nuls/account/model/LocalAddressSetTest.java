@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.model;
+
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.model.Address;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 本地地址快照测试：本地账户、多签地址的查找和布隆过滤器不漏判
+ * Local address snapshot test: lookups of local accounts and multi-sign addresses, and no false negatives
+ * from the bloom filter
+ */
+public class LocalAddressSetTest {
+
+    private static final short CHAIN_ID = 8964;
+
+    @Before
+    public void init() {
+        NulsContext.getInstance().defaultChainId = CHAIN_ID;
+    }
+
+    private byte[] hash160(int seed) {
+        byte[] hash = new byte[20];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = (byte) (seed * 31 + i);
+        }
+        hash[0] = (byte) seed;
+        hash[1] = (byte) (seed >> 8);
+        return hash;
+    }
+
+    private Account account(int seed) {
+        Account account = new Account();
+        account.setAddress(new Address(CHAIN_ID, (byte) 1, hash160(seed)));
+        return account;
+    }
+
+    @Test
+    public void lookup() {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            accounts.add(account(i));
+        }
+        List<byte[]> multiSigAddresses = new ArrayList<>();
+        byte[] multiSigAddress = new Address(CHAIN_ID, (byte) 3, hash160(5000)).getAddressBytes();
+        multiSigAddresses.add(multiSigAddress);
+
+        LocalAddressSet set = new LocalAddressSet(accounts, multiSigAddresses);
+        assertEquals(1000, set.getAccountCount());
+        assertEquals(1000, set.getAccountAddressList().size());
+        for (Account account : accounts) {
+            byte[] address = account.getAddress().getAddressBytes().clone();
+            assertTrue(set.mightContain(address));
+            assertSame(account, set.getAccount(address));
+            assertFalse(set.isMultiSigAddress(address));
+        }
+        assertTrue(set.isMultiSigAddress(multiSigAddress.clone()));
+        assertFalse(set.isLocalAccount(multiSigAddress));
+
+        int falsePositives = 0;
+        for (int i = 1000; i < 3000; i++) {
+            byte[] address = account(i).getAddress().getAddressBytes();
+            assertNull(set.getAccount(address));
+            if (set.mightContain(address)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 100);
+    }
+
+    @Test
+    public void empty() {
+        LocalAddressSet set = new LocalAddressSet(Collections.emptyList(), Collections.emptyList());
+        byte[] address = account(1).getAddress().getAddressBytes();
+        assertFalse(set.mightContain(address));
+        assertNull(set.getAccount(address));
+        assertNull(LocalAddressSet.EMPTY.getAccount(null));
+        assertTrue(set.getAccountAddressList().isEmpty());
+    }
+}
@@ -35,9 +35,11 @@ import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.model.Result;
 import io.nuls.kernel.model.RpcClientResult;
+import io.nuls.message.bus.service.MessageBusService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 
+import javax.ws.rs.GET;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -57,6 +59,9 @@ public class SystemResource {
     @Autowired
     private LanguageService languageService;
 
+    @Autowired
+    private MessageBusService messageBusService;
+
     @PUT
     @Path("/lang/{language}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -78,4 +83,14 @@ public class SystemResource {
         map.put("value", true);
         return Result.getSuccess().setData(map).toRpcClientResult();
     }
+
+    @GET
+    @Path("/msgbus/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "查询各消息类型的队列深度和处理耗时")
+    public RpcClientResult getMessageBusStats() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("list", messageBusService.getDispatchStats());
+        return Result.getSuccess().setData(map).toRpcClientResult();
+    }
 }
@@ -31,6 +31,7 @@ import io.nuls.kernel.model.*;
 import io.nuls.network.model.Node;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -67,6 +68,17 @@ public interface ConsensusService {
      */
     Result addBlock(Block block);
 
+    /**
+     * synchronous block from other peers, the block header, merkle root and transaction signatures
+     * have already been checked by the caller when verified is true
+     *
+     * 同步区块，verified为true时表示调用方已验证过区块头、梅克尔根和交易签名
+     * @param block
+     * @param verified
+     * @return Result
+     */
+    Result addBlock(Block block, boolean verified);
+
     /**
      * Roll back the latest block and roll back the status of the chain in the consensus service memory
      *
@@ -85,4 +97,14 @@ public interface ConsensusService {
 
     Transaction getTx(NulsDigestData hash);
 
+    /**
+     * Get the short tx id index of the memory pool salted by the given block hash, used to rebuild compact blocks.
+     * A colliding short id maps to null.
+     *
+     * 获取以区块hash为盐的内存池短交易ID索引，用于还原紧凑区块，冲突的短ID对应null
+     * @param blockHash block hash
+     * @return short id -> transaction
+     */
+    Map<Long, Transaction> getMemoryTxShortIdIndex(NulsDigestData blockHash);
+
 }
\ No newline at end of file
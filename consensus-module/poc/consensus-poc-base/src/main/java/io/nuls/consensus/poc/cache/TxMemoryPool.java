@@ -23,144 +23,646 @@
  *  * SOFTWARE.
  *
  */
-
 package io.nuls.consensus.poc.cache;
 
-import io.nuls.cache.LimitHashMap;
 import io.nuls.consensus.poc.protocol.constant.PocConsensusProtocolConstant;
 import io.nuls.kernel.cfg.NulsConfig;
 import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.model.Coin;
 import io.nuls.kernel.model.NulsDigestData;
 import io.nuls.kernel.model.Transaction;
+import io.nuls.ledger.util.LedgerUtil;
+import io.nuls.protocol.utils.CompactBlockUtil;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 交易 缓存
+ * 按手续费率（每字节手续费）排序，记录未确认交易之间的父子依赖：父交易被取出之前，子交易不会被打包取出。
+ * 占用内存超过预算时，淘汰手续费率最低且没有子交易的交易。孤儿交易在其父交易进入内存池或被区块确认时自动提升。
+ * <p>
+ * Transactions ordered by fee per byte, with the parent/child links between unconfirmed transactions:
+ * a child is not handed out before its parents. Over the memory budget the lowest fee rate transaction
+ * without children is evicted. An orphan is promoted once its parent enters the pool or gets confirmed.
  *
  * @author ln
  * @date 2018/4/13
  */
 public final class TxMemoryPool {
 
+    /**
+     * 内存池中交易序列化后的总大小上限
+     * Budget of the serialized size of all pooled transactions
+     */
+    public final static long MAX_MEMORY_SIZE = 256L * 1024 * 1024;
+
+    public final static int MAX_ORPHAN_SIZE = 200000;
+
+    /**
+     * 打包顺序：打包时放回的交易最优先（后放回的先取），其余手续费率高的优先，相同时先收到的优先
+     * Packing order: transactions put back while packing come first (last put back first out), then higher fee rate,
+     * earlier arrival first on ties
+     */
+    private final static Comparator<TxEntry> PRIORITY_COMPARATOR = (o1, o2) -> {
+        if (o1.first != o2.first) {
+            return o1.first ? -1 : 1;
+        }
+        int result = o1.first ? 0 : Double.compare(o2.feeRate, o1.feeRate);
+        if (result == 0) {
+            result = Long.compare(o1.sequence, o2.sequence);
+        }
+        return result;
+    };
+
     private final static TxMemoryPool INSTANCE = new TxMemoryPool();
 
-    private Queue<Transaction> txQueue;
+    private final ReentrantLock lock = new ReentrantLock();
 
-    private LimitHashMap<NulsDigestData, Transaction> orphanContainer;
+    private final Condition notEmpty = lock.newCondition();
 
-    private TxMemoryPool() {
-        txQueue = new LinkedBlockingDeque<>();
+    private final Map<String, TxEntry> txMap = new HashMap<>();
+
+    /**
+     * 所有父交易都已被取出的交易
+     * Entries whose in-pool parents have all been handed out
+     */
+    private final TreeSet<TxEntry> readySet = new TreeSet<>(PRIORITY_COMPARATOR);
+
+    private final TreeSet<TxEntry> evictSet = new TreeSet<>(PRIORITY_COMPARATOR.reversed());
 
-//        orphanContainer = new CacheMap<>("orphan-txs", 256, NulsDigestData.class, TxContainer.class, 3600, 0, null);
-        this.orphanContainer = new LimitHashMap(200000);
+    private final LinkedHashMap<String, Transaction> orphanContainer = new LinkedHashMap<>();
+
+    /**
+     * 父交易hash -> 等待该父交易的孤儿交易hash
+     * parent hash -> hashes of the orphans waiting for it
+     */
+    private final Map<String, Set<String>> orphanParentMap = new HashMap<>();
+
+    /**
+     * 父交易已到达、等待重新验证的孤儿交易hash，孤儿交易在验证通过或过期之前一直留在孤儿池中
+     * Hashes of the orphans whose parents arrived and wait to be verified again, an orphan stays in the orphan pool
+     * until it is accepted or expires
+     */
+    private final Set<String> promotedOrphans = new LinkedHashSet<>();
+
+    private long memorySize;
+
+    private long maxMemorySize = MAX_MEMORY_SIZE;
+
+    private long sequence;
+
+    /**
+     * 内存池内容的修改计数，用于判断短交易ID索引是否过期
+     * Modification count of the pool content, tells whether the short id index is stale
+     */
+    private long modCount;
+
+    private NulsDigestData shortIdIndexBlockHash;
+
+    private long shortIdIndexModCount;
+
+    private Map<Long, Transaction> shortIdIndex;
+
+    private TxMemoryPool() {
     }
 
     public static TxMemoryPool getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * 打包时放回的交易，下次打包时最先取出
+     * A transaction put back while packing, it is handed out first the next time
+     */
     public boolean addInFirst(Transaction tx, boolean isOrphan) {
+        return add(tx, isOrphan, true);
+    }
+
+    public boolean add(Transaction tx, boolean isOrphan) {
+        return add(tx, isOrphan, false);
+    }
+
+    private boolean add(Transaction tx, boolean isOrphan, boolean first) {
+        if (tx == null) {
+            return false;
+        }
+        String hash = tx.getHash().getDigestHex();
+        Set<String> parents = getParentHashes(tx);
+        if (isOrphan) {
+            addOrphan(hash, tx, parents);
+            return true;
+        }
+        TxEntry entry = new TxEntry(hash, tx);
+        lock.lock();
         try {
-            if (tx == null) {
-                return false;
-            }
             //check Repeatability
-            if (isOrphan) {
-                NulsDigestData hash = tx.getHash();
-                orphanContainer.put(hash, tx);
-            } else {
-                ((LinkedBlockingDeque) txQueue).addFirst(tx);
+            if (txMap.containsKey(hash)) {
+                return true;
             }
-            return true;
+            removeOrphanInner(hash);
+            entry.first = first;
+            entry.sequence = first ? -sequence++ : sequence++;
+            for (String parentHash : parents) {
+                TxEntry parent = txMap.get(parentHash);
+                if (null != parent) {
+                    parent.children.add(entry);
+                    entry.parents.add(parent);
+                    entry.pendingParents++;
+                }
+            }
+            txMap.put(hash, entry);
+            modCount++;
+            evictSet.add(entry);
+            if (entry.pendingParents == 0) {
+                readySet.add(entry);
+            }
+            memorySize += entry.size;
+            promoteOrphans(hash);
+            boolean added = evict(entry);
+            if (!readySet.isEmpty()) {
+                notEmpty.signalAll();
+            }
+            return added;
         } finally {
+            lock.unlock();
         }
     }
 
-    public boolean add(Transaction tx, boolean isOrphan) {
+    private void addOrphan(String hash, Transaction tx, Set<String> parents) {
+        lock.lock();
         try {
-            if (tx == null) {
-                return false;
+            if (txMap.containsKey(hash)) {
+                return;
             }
-            //check Repeatability
-            if (isOrphan) {
-                NulsDigestData hash = tx.getHash();
-                orphanContainer.put(hash, tx);
-            } else {
-                txQueue.offer(tx);
+            orphanContainer.put(hash, tx);
+            modCount++;
+            for (String parentHash : parents) {
+                orphanParentMap.computeIfAbsent(parentHash, k -> new HashSet<>()).add(hash);
+            }
+            if (orphanContainer.size() > MAX_ORPHAN_SIZE) {
+                removeOrphanInner(orphanContainer.keySet().iterator().next());
             }
-            return true;
         } finally {
+            lock.unlock();
         }
     }
 
+    private void promoteOrphans(String parentHash) {
+        Set<String> orphanHashes = orphanParentMap.remove(parentHash);
+        if (null == orphanHashes) {
+            return;
+        }
+        for (String orphanHash : orphanHashes) {
+            if (orphanContainer.containsKey(orphanHash)) {
+                promotedOrphans.add(orphanHash);
+            }
+        }
+    }
+
+    private Transaction removeOrphanInner(String hash) {
+        Transaction orphan = orphanContainer.remove(hash);
+        if (null == orphan) {
+            return null;
+        }
+        modCount++;
+        promotedOrphans.remove(hash);
+        for (String parentHash : getParentHashes(orphan)) {
+            Set<String> orphanHashes = orphanParentMap.get(parentHash);
+            if (null != orphanHashes) {
+                orphanHashes.remove(hash);
+                if (orphanHashes.isEmpty()) {
+                    orphanParentMap.remove(parentHash);
+                }
+            }
+        }
+        return orphan;
+    }
+
+    /**
+     * 超过内存预算时，淘汰手续费率最低且没有子交易的交易
+     * Evict the lowest fee rate entries without children while over the memory budget
+     *
+     * @return 新加入的交易是否被保留 / whether the newly added entry was kept
+     */
+    private boolean evict(TxEntry added) {
+        boolean kept = true;
+        Iterator<TxEntry> it = evictSet.iterator();
+        while (memorySize > maxMemorySize && it.hasNext()) {
+            TxEntry entry = it.next();
+            if (!entry.children.isEmpty()) {
+                continue;
+            }
+            it.remove();
+            readySet.remove(entry);
+            // 父交易失去最后一个子交易后可以被淘汰，它可能排在已经遍历过的位置，需要从头开始
+            // a parent losing its last child becomes evictable and may sit before the cursor, so start over
+            boolean freedParent = false;
+            for (TxEntry parent : entry.parents) {
+                if (parent.children.size() == 1) {
+                    freedParent = true;
+                }
+            }
+            detach(entry);
+            if (entry == added) {
+                kept = false;
+            }
+            if (freedParent) {
+                it = evictSet.iterator();
+            }
+        }
+        return kept;
+    }
+
     /**
-     * Get a TxContainer, the first TxContainer received, removed from the memory pool after acquisition
+     * Get a TxContainer, the highest fee rate transaction without pending parents, removed from the memory pool after acquisition
      * <p>
-     * 获取一笔交易，最先收到的交易，获取之后从内存池中移除
+     * 获取一笔交易，手续费率最高且父交易都已取出的交易，获取之后从内存池中移除
      *
      * @return TxContainer
      */
     public Transaction get() {
-        if (NulsContext.isNetFinished(NulsConfig.MODULES_CONFIG.getCfgValue(PocConsensusProtocolConstant.CFG_CONSENSUS_SECTION, PocConsensusProtocolConstant.STOP_DELAY, Integer.MAX_VALUE))) {
+        if (isNetFinished()) {
             return null;
         }
-        return txQueue.poll();
+        lock.lock();
+        try {
+            return pollReady();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 与get相同，内存池为空时最多等待给定的时间
+     * Same as get, waits up to the given time while the pool has no transaction to hand out
+     */
+    public Transaction get(long timeout, TimeUnit unit) throws InterruptedException {
+        if (isNetFinished()) {
+            return null;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (readySet.isEmpty()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return pollReady();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isNetFinished() {
+        return NulsContext.isNetFinished(NulsConfig.MODULES_CONFIG.getCfgValue(PocConsensusProtocolConstant.CFG_CONSENSUS_SECTION, PocConsensusProtocolConstant.STOP_DELAY, Integer.MAX_VALUE));
+    }
+
+    private Transaction pollReady() {
+        TxEntry entry = readySet.pollFirst();
+        if (null == entry) {
+            return null;
+        }
+        evictSet.remove(entry);
+        detach(entry);
+        return entry.tx;
+    }
+
+    /**
+     * 从索引中移除并断开与父交易、子交易的关联，子交易的等待计数减一。
+     * 只用于交易被取出打包或被区块确认的情况，此时子交易依赖的输出已经存在或即将存在
+     * Drop the entry from the indexes and unlink it from its parents and children, its children wait for one parent less.
+     * Only used when the entry is handed out for packing or confirmed, so the outputs its children spend exist or will.
+     */
+    private void detach(TxEntry entry) {
+        txMap.remove(entry.hash);
+        modCount++;
+        memorySize -= entry.size;
+        for (TxEntry parent : entry.parents) {
+            parent.children.remove(entry);
+        }
+        entry.parents.clear();
+        for (TxEntry child : entry.children) {
+            child.parents.remove(entry);
+            child.pendingParents--;
+            if (child.pendingParents == 0 && txMap.containsKey(child.hash)) {
+                readySet.add(child);
+            }
+        }
+        entry.children.clear();
+    }
+
+    public Transaction getTx(NulsDigestData hash) {
+        lock.lock();
+        try {
+            String key = hash.getDigestHex();
+            TxEntry entry = txMap.get(key);
+            if (null != entry) {
+                return entry.tx;
+            }
+            return orphanContainer.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 以区块hash为盐的短交易ID索引（包含孤儿交易），同一区块且内存池未变化时直接复用上次的索引
+     * 哈希计算在锁外进行，只在锁内复制交易列表
+     * Short tx id index salted by the block hash, orphans included. Reused while the block hash is the same
+     * and the pool has not changed. Hashing runs outside the lock, only the snapshot is taken under it.
+     */
+    public Map<Long, Transaction> getShortIdIndex(NulsDigestData blockHash) {
+        List<Transaction> txs;
+        long snapshotModCount;
+        lock.lock();
+        try {
+            if (null != shortIdIndex && shortIdIndexModCount == modCount && blockHash.equals(shortIdIndexBlockHash)) {
+                return shortIdIndex;
+            }
+            txs = new ArrayList<>(txMap.size() + orphanContainer.size());
+            for (TxEntry entry : txMap.values()) {
+                txs.add(entry.tx);
+            }
+            txs.addAll(orphanContainer.values());
+            snapshotModCount = modCount;
+        } finally {
+            lock.unlock();
+        }
+        Map<Long, Transaction> index = Collections.unmodifiableMap(CompactBlockUtil.buildShortIdIndex(blockHash, txs));
+        lock.lock();
+        try {
+            if (snapshotModCount == modCount) {
+                shortIdIndexBlockHash = blockHash;
+                shortIdIndexModCount = snapshotModCount;
+                shortIdIndex = index;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return index;
     }
 
     public List<Transaction> getAll() {
-        List<Transaction> txs = new ArrayList<>();
-        Iterator<Transaction> it = txQueue.iterator();
-        while (it.hasNext()) {
-            txs.add(it.next());
+        lock.lock();
+        try {
+            List<Transaction> txs = new ArrayList<>(evictSet.size());
+            for (TxEntry entry : evictSet.descendingSet()) {
+                txs.add(entry.tx);
+            }
+            return txs;
+        } finally {
+            lock.unlock();
         }
-        return txs;
     }
 
     public List<Transaction> getAllOrphan() {
-        return new ArrayList<>(orphanContainer.values());
+        lock.lock();
+        try {
+            return new ArrayList<>(orphanContainer.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出父交易已到达的孤儿交易，由调用方重新验证；这些交易仍留在孤儿池中，验证通过后由调用方移除
+     * Take the orphans whose parents arrived, the caller verifies them again. They stay in the orphan pool until the
+     * caller removes them after a successful verification.
+     */
+    public List<Transaction> takePromotedOrphans() {
+        lock.lock();
+        try {
+            List<Transaction> list = new ArrayList<>(promotedOrphans.size());
+            for (String hash : promotedOrphans) {
+                list.add(orphanContainer.get(hash));
+            }
+            promotedOrphans.clear();
+            return list;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 验证时遇到临时错误的孤儿交易，下次重新验证
+     * An orphan whose verification hit a transient error, it is verified again the next time
+     */
+    public void retryOrphan(NulsDigestData hash) {
+        lock.lock();
+        try {
+            String key = hash.getDigestHex();
+            if (orphanContainer.containsKey(key)) {
+                promotedOrphans.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除交易时间早于给定时间的孤儿交易，不做验证
+     * Drop the orphans whose tx time is before the given time, without verifying them
+     *
+     * @return 移除的数量 / number of orphans dropped
+     */
+    public int removeExpiredOrphans(long expireTime) {
+        lock.lock();
+        try {
+            List<String> expired = new ArrayList<>();
+            for (Map.Entry<String, Transaction> entry : orphanContainer.entrySet()) {
+                if (entry.getValue().getTime() < expireTime) {
+                    expired.add(entry.getKey());
+                }
+            }
+            for (String hash : expired) {
+                removeOrphanInner(hash);
+            }
+            return expired.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 区块确认后移除其中的交易，并提升等待这些交易的孤儿交易
+     * Remove the transactions confirmed by a block and promote the orphans waiting for them
+     */
+    public void removeConfirmed(List<Transaction> txs) {
+        lock.lock();
+        try {
+            for (Transaction tx : txs) {
+                String hash = tx.getHash().getDigestHex();
+                removeOrphanInner(hash);
+                TxEntry entry = txMap.get(hash);
+                if (null != entry) {
+                    readySet.remove(entry);
+                    evictSet.remove(entry);
+                    detach(entry);
+                }
+                promoteOrphans(hash);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * 移除一笔无效的交易，依赖它的子孙交易一起移除，因为它们花费的输出不会再出现
+     * Remove an invalid transaction together with its descendants, the outputs they spend will never exist
+     */
     public boolean remove(NulsDigestData hash) {
-//        TxContainer obj = container.remove(hash);
-//        if (obj != null) {
-//            txHashQueue.remove(hash);
-//        } else {
-        orphanContainer.remove(hash);
-//        }
+        lock.lock();
+        try {
+            String key = hash.getDigestHex();
+            removeOrphanInner(key);
+            TxEntry entry = txMap.get(key);
+            if (null != entry) {
+                removeWithDescendants(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
         return true;
     }
 
+    private void removeWithDescendants(TxEntry root) {
+        List<TxEntry> subtree = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        subtree.add(root);
+        visited.add(root.hash);
+        for (int i = 0; i < subtree.size(); i++) {
+            for (TxEntry child : subtree.get(i).children) {
+                if (visited.add(child.hash)) {
+                    subtree.add(child);
+                }
+            }
+        }
+        for (TxEntry entry : subtree) {
+            detach(entry);
+        }
+        // detach可能把尚未移除的子孙交易放入就绪集合，全部断开之后再统一清理
+        // detach may have put a descendant into the ready set before it was dropped, so clean up afterwards
+        for (TxEntry entry : subtree) {
+            readySet.remove(entry);
+            evictSet.remove(entry);
+        }
+    }
+
     public boolean exist(NulsDigestData hash) {
-        return /*container.containsKey(hash) || */orphanContainer.containsKey(hash);
+        lock.lock();
+        try {
+            String key = hash.getDigestHex();
+            return txMap.containsKey(key) || orphanContainer.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void clear() {
+        lock.lock();
         try {
-            txQueue.clear();
-
+            txMap.clear();
+            readySet.clear();
+            evictSet.clear();
             orphanContainer.clear();
+            orphanParentMap.clear();
+            promotedOrphans.clear();
+            memorySize = 0;
+            modCount++;
         } finally {
+            lock.unlock();
         }
     }
 
     public int size() {
-        return txQueue.size();
+        return getPoolSize();
     }
 
     public int getPoolSize() {
-        return txQueue.size();
+        lock.lock();
+        try {
+            return txMap.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public int getOrphanPoolSize() {
-        return orphanContainer.size();
+        lock.lock();
+        try {
+            return orphanContainer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMemorySize() {
+        lock.lock();
+        try {
+            return memorySize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调整内存预算，供测试使用
+     * Change the memory budget, used by tests
+     */
+    void setMaxMemorySize(long maxMemorySize) {
+        lock.lock();
+        try {
+            this.maxMemorySize = maxMemorySize;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void removeOrphan(NulsDigestData hash) {
-        this.orphanContainer.remove(hash);
+        lock.lock();
+        try {
+            removeOrphanInner(hash.getDigestHex());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Set<String> getParentHashes(Transaction tx) {
+        if (null == tx.getCoinData() || null == tx.getCoinData().getFrom()) {
+            return Collections.emptySet();
+        }
+        Set<String> parents = new HashSet<>();
+        for (Coin coin : tx.getCoinData().getFrom()) {
+            String parentHash = LedgerUtil.getTxHash(coin.getOwner());
+            if (null != parentHash) {
+                parents.add(parentHash);
+            }
+        }
+        return parents;
+    }
+
+    private static final class TxEntry {
+
+        private final String hash;
+        private final Transaction tx;
+        private final int size;
+        private final double feeRate;
+        private final List<TxEntry> parents = new ArrayList<>();
+        private final List<TxEntry> children = new ArrayList<>();
+        private int pendingParents;
+        private boolean first;
+        private long sequence;
+
+        private TxEntry(String hash, Transaction tx) {
+            this.hash = hash;
+            this.tx = tx;
+            this.size = Math.max(1, tx.size());
+            this.feeRate = (double) tx.getFee().getValue() / this.size;
+        }
     }
 }
@@ -37,6 +37,11 @@ public class BlockContainer {
     private Block block;
     private Node node;
     private int status;
+    /**
+     * 区块的区块头、梅克尔根和交易签名已在下载流水线中验证过
+     * The header, merkle root and tx signatures were already checked by the download pipeline
+     */
+    private boolean verified;
 
     public BlockContainer() {
     }
@@ -75,4 +80,12 @@ public class BlockContainer {
     public void setNode(Node node) {
         this.node = node;
     }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public void setVerified(boolean verified) {
+        this.verified = verified;
+    }
 }
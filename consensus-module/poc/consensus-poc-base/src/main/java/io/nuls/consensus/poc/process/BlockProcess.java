@@ -153,7 +153,9 @@ public class BlockProcess {
         // whether the attribute of the block header is legal, the Merkel tree root is correct, the signature is correct,
         // and whether the expanded round of information is valid
         // 验证区块，需要验证的内容有：区块大小是否超过限制、区块头属性是否合法、梅克尔树根是否正确、签名是否正确、扩展的轮次信息是否合法
-        block.verifyWithException();
+        if (!blockContainer.isVerified()) {
+            block.verifyWithException();
+        }
         bifurcationUtil.validate(block.getHeader());
 
         ValidateResult<List<Transaction>> validateResult = ledgerService.verifyDoubleSpend(block);
@@ -216,6 +218,8 @@ public class BlockProcess {
                         }
                     }
 
+                    // 下载阶段已经验证过签名的交易(tx.isSignatureVerified())在这里只执行与链状态相关的验证器
+                    // txs whose signatures were verified in the download stage only run the chain state dependent validators here
                     for (Transaction tx : txs) {
                         Future<Boolean> res = signExecutor.submit(new Callable<Boolean>() {
                             @Override
@@ -258,6 +262,8 @@ public class BlockProcess {
                     tempHeader.setHeight(verifyHeader.getHeight());
                     tempHeader.setPackingAddress(verifyHeader.getPackingAddress());
                     contractService.createCurrentBlockHeader(tempHeader);
+                    // 并行预执行本区块中的调用合约交易，不冲突的结果在顺序执行时直接采用
+                    contractService.speculateBatchTxs(txs, bestHeight, tempHeader, stateRoot, false);
 
                     List<ContractResult> contractResultList = new ArrayList<>();
                     // 用于存储合约执行结果的stateRoot, 如果不为空，则说明验证、打包的区块是同一个节点
@@ -444,6 +450,7 @@ public class BlockProcess {
         for (Transaction tx : block.getTxs()) {
             transactionCacheStorageService.removeTx(tx.getHash());
         }
+        TxMemoryPool.getInstance().removeConfirmed(block.getTxs());
         return success;
     }
 
@@ -76,6 +76,7 @@ import io.nuls.protocol.utils.SmallBlockDuplicateRemoval;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author ln
@@ -393,20 +394,26 @@ public class ConsensusProcess {
         Set<String> redPunishAddress = new HashSet<>();
         while (true) {
 
-            if ((self.getPackEndTime() - TimeService.currentTimeMillis()) <= 500L) {
+            long remaining = self.getPackEndTime() - TimeService.currentTimeMillis() - 500L;
+            if (remaining <= 0L) {
                 break;
             }
             start = System.nanoTime();
             Transaction tx = txMemoryPool.get();
             getTxUse += (System.nanoTime() - start);
             if (tx == null) {
+                // 内存池为空时阻塞等待新交易，直到打包时间结束
+                // Block until a transaction arrives or the packing window ends
                 try {
-                    sleepTIme += 100;
-                    Thread.sleep(100L);
+                    long waitStart = System.currentTimeMillis();
+                    tx = txMemoryPool.get(remaining, TimeUnit.MILLISECONDS);
+                    sleepTIme += System.currentTimeMillis() - waitStart;
                 } catch (InterruptedException e) {
                     Log.error("packaging error ", e);
                 }
-                continue;
+                if (tx == null) {
+                    continue;
+                }
             }
 
             start = System.nanoTime();
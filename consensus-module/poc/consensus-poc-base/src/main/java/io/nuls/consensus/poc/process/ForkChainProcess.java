@@ -336,6 +336,8 @@ public class ForkChainProcess {
             tempHeader.setHeight(verifyHeader.getHeight());
             tempHeader.setPackingAddress(verifyHeader.getPackingAddress());
             contractService.createCurrentBlockHeader(tempHeader);
+            // 并行预执行本区块中的调用合约交易，不冲突的结果在顺序执行时直接采用
+            contractService.speculateBatchTxs(newBlock.getTxs(), bestHeight, tempHeader, stateRoot, true);
 
             List<ContractResult> contractResultList = new ArrayList<>();
             // 用于存储合约执行结果的stateRoot, 如果不为空，则说明验证、打包的区块是同一个节点
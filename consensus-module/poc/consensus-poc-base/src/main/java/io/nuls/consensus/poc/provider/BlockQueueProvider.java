@@ -32,7 +32,9 @@ import io.nuls.kernel.context.NulsContext;
 import io.nuls.protocol.service.DownloadService;
 
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author ln
@@ -41,8 +43,20 @@ public class BlockQueueProvider {
 
     private final static BlockQueueProvider INSTANCE = new BlockQueueProvider();
 
+    /**
+     * 下载队列的容量，队列满时下载线程会被阻塞，直到区块处理线程消费掉队列中的区块
+     * Capacity of the download queue, the download pipeline blocks on a full queue until blocks are consumed
+     */
+    private final static int DOWNLOAD_QUEUE_CAPACITY = 500;
+
+    /**
+     * 下载队列满时，单次等待的最长时间
+     * The longest time a single put waits for room in the download queue
+     */
+    private final static long DOWNLOAD_QUEUE_OFFER_TIMEOUT = 1000L;
+
     private Queue<BlockContainer> blockQueue;
-    private Queue<BlockContainer> downloadBlockQueue;
+    private BlockingQueue<BlockContainer> downloadBlockQueue;
 
     private DownloadService downloadService;
 
@@ -50,7 +64,7 @@ public class BlockQueueProvider {
 
     private BlockQueueProvider() {
         blockQueue = new LinkedBlockingDeque<>();
-        downloadBlockQueue = new LinkedBlockingDeque<>();
+        downloadBlockQueue = new LinkedBlockingDeque<>(DOWNLOAD_QUEUE_CAPACITY);
         initDownloadQueue();
     }
 
@@ -75,7 +89,12 @@ public class BlockQueueProvider {
             if (downloadBlockQueueHasDestory) {
                 initDownloadQueue();
             }
-            downloadBlockQueue.offer(blockContainer);
+            try {
+                return downloadBlockQueue.offer(blockContainer, DOWNLOAD_QUEUE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
         }
         return true;
     }
@@ -54,6 +54,7 @@ import io.nuls.protocol.service.BlockService;
 import io.nuls.protocol.service.DownloadService;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author ln
@@ -110,7 +111,13 @@ public class ConsensusPocServiceImpl implements ConsensusService {
 
     @Override
     public Result addBlock(Block block) {
+        return addBlock(block, false);
+    }
+
+    @Override
+    public Result addBlock(Block block, boolean verified) {
         BlockContainer blockContainer = new BlockContainer(block, BlockContainerStatus.DOWNLOADING);
+        blockContainer.setVerified(verified);
         boolean success = blockQueueProvider.put(blockContainer);
         return new Result(success, null);
     }
@@ -145,6 +152,11 @@ public class ConsensusPocServiceImpl implements ConsensusService {
         return txMemoryPool.getAll();
     }
 
+    @Override
+    public Map<Long, Transaction> getMemoryTxShortIdIndex(NulsDigestData blockHash) {
+        return txMemoryPool.getShortIdIndex(blockHash);
+    }
+
     @Override
     public Transaction getTx(NulsDigestData hash) {
         Transaction tx = transactionCacheStorageService.getTx(hash);
@@ -63,9 +63,16 @@ public class TxProcessTask implements Runnable {
     private Map<String, Coin> temporaryToMap = new HashMap<>();
     private Set<String> temporaryFromSet = new HashSet<>();
 
-    private List<Transaction> orphanTxList = new ArrayList<>();
+    /**
+     * 孤儿交易只在父交易到达时由内存池提升并重新验证，定时清理只移除过期的孤儿交易，不做验证
+     * Orphans are verified again only when the pool promotes them on a parent's arrival, the periodic sweep just drops
+     * the expired ones without verifying anything
+     */
+    private static final long ORPHAN_SWEEP_INTERVAL = 60000L;
 
-    private static int maxOrphanSize = 200000;
+    private static final long ORPHAN_EXPIRE_TIME = 3600000L;
+
+    private long lastOrphanSweepTime;
 
 //    int count = 0;
 //    int size = 0;
@@ -92,7 +99,7 @@ public class TxProcessTask implements Runnable {
         }
 
         Transaction tx = null;
-        while ((tx = transactionQueueStorageService.pollTx()) != null && orphanTxList.size() < maxOrphanSize) {
+        while ((tx = transactionQueueStorageService.pollTx()) != null && pool.getOrphanPoolSize() < TxMemoryPool.MAX_ORPHAN_SIZE) {
 //            size++;
             processTx(tx, false);
         }
@@ -100,23 +107,33 @@ public class TxProcessTask implements Runnable {
 
 
     private void doOrphanTxTask() {
+        long now = TimeService.currentTimeMillis();
+        if (now - lastOrphanSweepTime >= ORPHAN_SWEEP_INTERVAL) {
+            lastOrphanSweepTime = now;
+            pool.removeExpiredOrphans(now - ORPHAN_EXPIRE_TIME);
+        }
+        List<Transaction> orphanTxList = pool.takePromotedOrphans();
         orphanTxList.sort(txComparator);
-
-        Iterator<Transaction> it = orphanTxList.iterator();
-        while (it.hasNext()) {
-            Transaction tx = it.next();
-            boolean success = processTx(tx, true);
-            if (success) {
-                it.remove();
+        for (Transaction tx : orphanTxList) {
+            if (processTx(tx, true)) {
+                pool.removeOrphan(tx.getHash());
             }
         }
     }
 
 
+    /**
+     * 处理一笔交易；对孤儿交易，返回true表示可以从孤儿池中移除，临时错误时留在孤儿池中下次重试
+     * Process a transaction. For an orphan, true means it can leave the orphan pool; on a transient error it stays
+     * there and is tried again the next time.
+     */
     private boolean processTx(Transaction tx, boolean isOrphanTx) {
         try {
             Result result = tx.verify();
             if (result.isFailed()) {
+                if (isOrphanTx) {
+                    pool.retryOrphan(tx.getHash());
+                }
                 return false;
             }
 
@@ -144,15 +161,25 @@ public class TxProcessTask implements Runnable {
             } else if (validateResult.getErrorCode().equals(TransactionErrorCode.ORPHAN_TX) && !isOrphanTx) {
                 processOrphanTx(tx);
             } else if (isOrphanTx) {
-                return tx.getTime() < (TimeService.currentTimeMillis() - 3600000L);
+                if (tx.getTime() < (TimeService.currentTimeMillis() - ORPHAN_EXPIRE_TIME)) {
+                    return true;
+                }
+                if (validateResult.getErrorCode().equals(TransactionErrorCode.ORPHAN_TX)) {
+                    // 仍缺少其他父交易，重新登记等待
+                    // still missing another parent, wait for it again
+                    processOrphanTx(tx);
+                }
             }
         } catch (Exception e) {
             Log.error(e);
+            if (isOrphanTx) {
+                pool.retryOrphan(tx.getHash());
+            }
         }
         return false;
     }
 
     private void processOrphanTx(Transaction tx) throws NulsException {
-        orphanTxList.add(tx);
+        pool.add(tx, true);
     }
 }
@@ -27,10 +27,25 @@
 package io.nuls.consensus.poc.cache;
 
 import io.nuls.consensus.poc.TestTransaction;
+import io.nuls.core.tools.array.ArraysTool;
+import io.nuls.core.tools.cfg.IniEntity;
+import io.nuls.kernel.cfg.NulsConfig;
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.model.BlockHeader;
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinData;
+import io.nuls.kernel.model.Na;
 import io.nuls.kernel.model.Transaction;
+import org.ini4j.Ini;
+import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -41,11 +56,27 @@ public class TxMemoryPoolTest {
 
     private TxMemoryPool txMemoryPool = TxMemoryPool.getInstance();
 
+    private static long time = 1;
+
+    @BeforeClass
+    public static void initConfig() {
+        NulsConfig.MODULES_CONFIG = new IniEntity(new Ini());
+        Block block = new Block();
+        block.setHeader(new BlockHeader());
+        NulsContext.getInstance().setBestBlock(block);
+    }
+
+    @Before
+    public void clear() {
+        txMemoryPool.clear();
+        txMemoryPool.setMaxMemorySize(TxMemoryPool.MAX_MEMORY_SIZE);
+    }
+
     @Test
     public void test() {
         assertNotNull(txMemoryPool);
 
-        Transaction tx = new TestTransaction();
+        Transaction tx = newTx(null, 0);
 
         boolean success = txMemoryPool.add(tx, false);
 
@@ -59,32 +90,12 @@ public class TxMemoryPoolTest {
 
         assertNull(tempTx);
 
-//        tempTx = txMemoryPool.get(tx.getTx().getHash());
-//        assertNull(tempTx);
-//
-//        txMemoryPool.add(tx, false);
-//        tempTx = txMemoryPool.get(tx.getTx().getHash());
-//        assertEquals(tempTx, tx);
-//
-//        tempTx = txMemoryPool.get(tx.getTx().getHash());
-//        assertEquals(tempTx, tx);
-
-        Transaction tx2 = new TestTransaction();
+        Transaction tx2 = newTx(null, 0);
         txMemoryPool.add(tx2, true);
 
-        tempTx = txMemoryPool.get();
-
-        assertNotNull(tempTx);
-        assertEquals(tempTx, tx);
-        tempTx = txMemoryPool.get();
-
-        assertNotNull(tempTx);
-        assertEquals(tempTx, tx2);
-
         tempTx = txMemoryPool.get();
         assertNull(tempTx);
 
-        txMemoryPool.add(tx2, true);
         List<Transaction> list = txMemoryPool.getAll();
         assertEquals(list.size(), 0);
 
@@ -103,4 +114,173 @@ public class TxMemoryPoolTest {
         success = txMemoryPool.exist(tx2.getHash());
         assertFalse(success);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFeeRateOrder() {
+        Transaction low = newTx(null, 1000);
+        Transaction high = newTx(null, 100000);
+        Transaction middle = newTx(null, 10000);
+        txMemoryPool.add(low, false);
+        txMemoryPool.add(high, false);
+        txMemoryPool.add(middle, false);
+
+        assertEquals(high, txMemoryPool.getTx(high.getHash()));
+        assertEquals(3, txMemoryPool.getPoolSize());
+        assertEquals(high, txMemoryPool.getAll().get(0));
+
+        assertEquals(high, txMemoryPool.get());
+        assertEquals(middle, txMemoryPool.get());
+        assertEquals(low, txMemoryPool.get());
+        assertNull(txMemoryPool.get());
+        assertEquals(0, txMemoryPool.getMemorySize());
+    }
+
+    @Test
+    public void testParentBeforeChild() {
+        Transaction parent = newTx(null, 1000);
+        Transaction child = newTx(parent, 100000);
+        Transaction other = newTx(null, 10000);
+        txMemoryPool.add(parent, false);
+        txMemoryPool.add(child, false);
+        txMemoryPool.add(other, false);
+
+        assertEquals(other, txMemoryPool.get());
+        assertEquals(parent, txMemoryPool.get());
+        assertEquals(child, txMemoryPool.get());
+    }
+
+    @Test
+    public void testEvictParentAfterChild() {
+        Transaction parent = newTx(null, 1000);
+        Transaction child = newTx(parent, 100);
+        txMemoryPool.setMaxMemorySize(parent.size() + child.size());
+        txMemoryPool.add(parent, false);
+        txMemoryPool.add(child, false);
+
+        // the child is the lowest fee rate leaf and goes first
+        Transaction high = newTx(null, 100000);
+        assertTrue(txMemoryPool.add(high, false));
+        assertFalse(txMemoryPool.exist(child.getHash()));
+        assertTrue(txMemoryPool.exist(parent.getHash()));
+
+        // without its child the parent can be evicted too
+        Transaction middle = newTx(null, 50000);
+        assertTrue(txMemoryPool.add(middle, false));
+        assertFalse(txMemoryPool.exist(parent.getHash()));
+        assertTrue(txMemoryPool.exist(high.getHash()));
+        assertTrue(txMemoryPool.exist(middle.getHash()));
+        assertEquals(2, txMemoryPool.getPoolSize());
+
+        assertEquals(high, txMemoryPool.get());
+        assertEquals(middle, txMemoryPool.get());
+        assertNull(txMemoryPool.get());
+    }
+
+    @Test
+    public void testRemoveParentDropsDescendants() {
+        Transaction parent = newTx(null, 1000);
+        Transaction child = newTx(parent, 100000);
+        Transaction grandchild = newTx(child, 100000);
+        Transaction other = newTx(null, 10000);
+        txMemoryPool.add(parent, false);
+        txMemoryPool.add(child, false);
+        txMemoryPool.add(grandchild, false);
+        txMemoryPool.add(other, false);
+
+        txMemoryPool.remove(parent.getHash());
+        assertFalse(txMemoryPool.exist(child.getHash()));
+        assertFalse(txMemoryPool.exist(grandchild.getHash()));
+        assertEquals(1, txMemoryPool.getPoolSize());
+        assertEquals(other.size(), txMemoryPool.getMemorySize());
+
+        assertEquals(other, txMemoryPool.get());
+        assertNull(txMemoryPool.get());
+    }
+
+    @Test
+    public void testAddInFirst() {
+        Transaction high = newTx(null, 100000);
+        Transaction low = newTx(null, 1000);
+        txMemoryPool.add(high, false);
+        txMemoryPool.addInFirst(low, false);
+
+        assertEquals(low, txMemoryPool.get());
+        assertEquals(high, txMemoryPool.get());
+    }
+
+    @Test
+    public void testOrphanPromotion() {
+        Transaction parent = newTx(null, 1000);
+        Transaction orphan = newTx(parent, 1000);
+        txMemoryPool.add(orphan, true);
+        assertEquals(1, txMemoryPool.getOrphanPoolSize());
+        assertTrue(txMemoryPool.takePromotedOrphans().isEmpty());
+
+        txMemoryPool.add(parent, false);
+        List<Transaction> promoted = txMemoryPool.takePromotedOrphans();
+        assertEquals(1, promoted.size());
+        assertEquals(orphan, promoted.get(0));
+        // a promoted orphan stays in the orphan pool until it is accepted
+        assertEquals(1, txMemoryPool.getOrphanPoolSize());
+        assertTrue(txMemoryPool.takePromotedOrphans().isEmpty());
+        txMemoryPool.retryOrphan(orphan.getHash());
+        assertEquals(orphan, txMemoryPool.takePromotedOrphans().get(0));
+        txMemoryPool.removeOrphan(orphan.getHash());
+        assertEquals(0, txMemoryPool.getOrphanPoolSize());
+
+        Transaction confirmedParent = newTx(null, 1000);
+        Transaction orphan2 = newTx(confirmedParent, 1000);
+        txMemoryPool.add(orphan2, true);
+        txMemoryPool.removeConfirmed(Collections.singletonList(confirmedParent));
+        assertEquals(orphan2, txMemoryPool.takePromotedOrphans().get(0));
+        assertTrue(txMemoryPool.exist(parent.getHash()));
+    }
+
+    @Test
+    public void testRemoveExpiredOrphans() {
+        Transaction old = newTx(newTx(null, 0), 1000);
+        Transaction fresh = newTx(newTx(null, 0), 1000);
+        txMemoryPool.add(old, true);
+        txMemoryPool.add(fresh, true);
+
+        assertEquals(1, txMemoryPool.removeExpiredOrphans(fresh.getTime()));
+        assertFalse(txMemoryPool.exist(old.getHash()));
+        assertTrue(txMemoryPool.exist(fresh.getHash()));
+    }
+
+    @Test
+    public void testBlockingGet() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        assertNull(txMemoryPool.get(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+
+        Transaction tx = newTx(null, 1000);
+        new Thread(() -> {
+            try {
+                Thread.sleep(20L);
+            } catch (InterruptedException e) {
+            }
+            txMemoryPool.add(tx, false);
+        }).start();
+        assertEquals(tx, txMemoryPool.get(5, TimeUnit.SECONDS));
+    }
+
+    private Transaction newTx(Transaction parent, long fee) {
+        Transaction tx = new TestTransaction();
+        tx.setTime(time++);
+        if (null == parent && fee == 0) {
+            return tx;
+        }
+        CoinData coinData = new CoinData();
+        byte[] owner;
+        try {
+            owner = null == parent ? new byte[34] : parent.getHash().serialize();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        coinData.addFrom(new Coin(ArraysTool.concatenate(owner, new byte[]{0}), Na.valueOf(1000000L + fee)));
+        coinData.addTo(new Coin(new byte[23], Na.valueOf(1000000L)));
+        tx.setCoinData(coinData);
+        return tx;
+    }
+}
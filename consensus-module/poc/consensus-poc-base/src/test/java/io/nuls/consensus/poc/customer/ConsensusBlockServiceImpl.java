@@ -97,6 +97,11 @@ public class ConsensusBlockServiceImpl implements BlockService {
         return null;
     }
 
+    @Override
+    public Result<byte[]> getBlockBytes(long height) {
+        return null;
+    }
+
     @Override
     public List<String> getBlockTxHash(long height) {
         return null;
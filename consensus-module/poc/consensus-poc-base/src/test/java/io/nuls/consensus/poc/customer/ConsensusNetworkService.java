@@ -82,6 +82,16 @@ public class ConsensusNetworkService implements NetworkService {
         return null;
     }
 
+    @Override
+    public BroadcastResult sendToAllNodeExcept(BaseNulsData event, Collection<Node> excludeNodes, boolean asyn, int percent) {
+        return null;
+    }
+
+    @Override
+    public BroadcastResult sendToNodes(BaseNulsData event, Collection<Node> nodes, boolean asyn) {
+        return null;
+    }
+
     @Override
     public BroadcastResult sendToNode(BaseNulsData event, Node node, boolean asyn) {
         return null;
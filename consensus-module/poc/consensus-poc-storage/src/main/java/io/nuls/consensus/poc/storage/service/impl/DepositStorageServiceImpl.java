@@ -30,6 +30,7 @@ import io.nuls.consensus.poc.storage.po.DepositPo;
 import io.nuls.consensus.poc.storage.service.DepositStorageService;
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.model.Entry;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
@@ -42,7 +43,6 @@ import io.nuls.kernel.model.Result;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @author: Niels Wang
@@ -116,38 +116,42 @@ public class DepositStorageServiceImpl implements DepositStorageService, Initial
 
     @Override
     public List<DepositPo> getList() {
-        List<Entry<byte[], byte[]>> list = dbService.entryList(ConsensusStorageConstant.DB_NAME_CONSENSUS_DEPOSIT);
         List<DepositPo> resultList = new ArrayList<>();
-        if (list == null) {
-            return resultList;
-        }
-        for (Entry<byte[], byte[]> entry : list) {
-            DepositPo depositPo = new DepositPo();
-            try {
-                depositPo.parse(entry.getValue(), 0);
-            } catch (NulsException e) {
-                Log.error(e);
-                throw new NulsRuntimeException(e);
-            }
-            NulsDigestData hash = new NulsDigestData();
-            try {
-                hash.parse(entry.getKey(), 0);
-            } catch (NulsException e) {
-                Log.error(e);
+        try (DBCursor cursor = dbService.range(ConsensusStorageConstant.DB_NAME_CONSENSUS_DEPOSIT, null, null)) {
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> entry = cursor.next();
+                DepositPo depositPo = new DepositPo();
+                try {
+                    depositPo.parse(entry.getValue(), 0);
+                } catch (NulsException e) {
+                    Log.error(e);
+                    throw new NulsRuntimeException(e);
+                }
+                NulsDigestData hash = new NulsDigestData();
+                try {
+                    hash.parse(entry.getKey(), 0);
+                } catch (NulsException e) {
+                    Log.error(e);
+                }
+                depositPo.setTxHash(hash);
+                resultList.add(depositPo);
             }
-            depositPo.setTxHash(hash);
-            resultList.add(depositPo);
         }
         return resultList;
     }
 
     @Override
     public int size() {
-        Set<byte[]> list = dbService.keySet(ConsensusStorageConstant.DB_NAME_CONSENSUS_DEPOSIT);
-        if (list == null) {
-            return 0;
+        // 逐条计数，不把整个数据区的key装入内存
+        // count entry by entry instead of loading all keys of the area
+        int size = 0;
+        try (DBCursor cursor = dbService.range(ConsensusStorageConstant.DB_NAME_CONSENSUS_DEPOSIT, null, null)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                size++;
+            }
         }
-        return list.size();
+        return size;
     }
 
     @Override
@@ -69,6 +69,8 @@ import io.nuls.kernel.lite.annotation.Service;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
 import io.nuls.kernel.model.*;
 import io.nuls.kernel.script.SignatureUtil;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.thread.manager.TaskManager;
 import io.nuls.kernel.utils.AddressTool;
 import io.nuls.kernel.utils.VarInt;
 import io.nuls.kernel.validate.ValidateResult;
@@ -78,6 +80,7 @@ import io.nuls.protocol.constant.ProtocolConstant;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -137,6 +140,10 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
 
     private ThreadLocal<ProgramExecutor> localProgramExecutor = new ThreadLocal<>();
 
+    private ThreadLocal<ContractSpeculation> localSpeculation = new ThreadLocal<>();
+
+    private volatile ExecutorService speculationPool;
+
     @Override
     public void afterPropertiesSet() throws NulsException {
         programExecutor = vmHelper.getProgramExecutor();
@@ -176,9 +183,10 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
             if (executor == null) {
                 track = programExecutor.begin(prevStateRoot);
             } else {
-                track = executor.startTracking();
+                track = this.startTrack(executor);
             }
             ProgramResult programResult = track.create(programCreate);
+            this.addSpeculationWrites(executor, track);
             // 批量提交方式，交易track放置到外部处理合约执行结果的方法里去提交
             if (executor == null) {
                 track.commit();
@@ -251,6 +259,13 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
      * @return
      */
     private Result<ContractResult> callContract(ProgramExecutor executor, long number, byte[] prevStateRoot, CallContractData call) {
+        return this.callContract(executor, number, prevStateRoot, call, null);
+    }
+
+    /**
+     * @param txHash 批量执行时用于取出并行预执行的结果，可为空
+     */
+    private Result<ContractResult> callContract(ProgramExecutor executor, long number, byte[] prevStateRoot, CallContractData call, NulsDigestData txHash) {
         if (number < 0) {
             return Result.getFailed(ContractErrorCode.PARAMETER_ERROR);
         }
@@ -261,26 +276,28 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
             byte[] contractAddress = call.getContractAddress();
             byte[] sender = call.getSender();
             long price = call.getPrice();
-            ProgramCall programCall = new ProgramCall();
-            programCall.setContractAddress(contractAddress);
-            programCall.setSender(sender);
-            programCall.setValue(BigInteger.valueOf(call.getValue()));
-            programCall.setPrice(price);
-            programCall.setGasLimit(call.getGasLimit());
-            programCall.setNumber(number);
-            programCall.setMethodName(call.getMethodName());
-            programCall.setMethodDesc(call.getMethodDesc());
-            programCall.setArgs(call.getArgs());
+            ProgramCall programCall = newProgramCall(call, number);
+
+            ContractSpeculation speculation = executor != null ? localSpeculation.get() : null;
+            ContractSpeculation.SpeculativeCall speculativeCall = speculation != null && txHash != null ? speculation.take(txHash) : null;
 
             ProgramExecutor track;
+            ProgramResult programResult;
             if (executor == null) {
                 track = programExecutor.begin(prevStateRoot);
-            } else {
+                programResult = track.call(programCall);
+            } else if (speculativeCall != null) {
+                // 采用并行预执行的结果，在批量执行器上重放它的写操作
                 track = executor.startTracking();
+                track.replay(speculativeCall.stateAccess);
+                programResult = speculativeCall.programResult;
+                speculation.addWrites(speculativeCall.stateAccess);
+            } else {
+                track = this.startTrack(executor);
+                programResult = track.call(programCall);
+                this.addSpeculationWrites(executor, track);
             }
 
-            ProgramResult programResult = track.call(programCall);
-
             // 批量提交方式，交易track放置到外部处理合约执行结果的方法里去提交
             if (executor == null) {
                 track.commit();
@@ -353,9 +370,10 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
             if (executor == null) {
                 track = programExecutor.begin(prevStateRoot);
             } else {
-                track = executor.startTracking();
+                track = this.startTrack(executor);
             }
             ProgramResult programResult = track.stop(contractAddress, sender);
+            this.addSpeculationWrites(executor, track);
             // 批量提交方式，交易track放置到外部处理合约执行结果的方法里去提交
             if (executor == null) {
                 track.commit();
@@ -799,8 +817,12 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
             if (!ContractUtil.checkPrice(callContractData.getPrice())) {
                 return Result.getFailed(ContractErrorCode.CONTRACT_MINIMUM_PRICE);
             }
-            Result<ContractResult> result = callContract(track, height, stateRoot, callContractData);
+            Result<ContractResult> result = callContract(track, height, stateRoot, callContractData, tx.getHash());
             byte[] contractAddress = callContractData.getContractAddress();
+            ContractSpeculation speculation = localSpeculation.get();
+            if (speculation != null && callContractData.getValue() > 0) {
+                speculation.writeBalance(contractAddress);
+            }
             BigInteger preBalance = vmContext.getBalance(contractAddress, height);
             ContractResult contractResult = result.getData();
             if (!contractResult.isSuccess()) {
@@ -1493,6 +1515,14 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
             } else {
                 handleContractResult = this.verifyContractResult(tx, contractResult, stateRoot, blockTime, toMaps, contractUsedCoinMap);
             }
+            // 合约转账改变了相关合约的余额，后面读取过这些余额的预执行结果不能采用
+            ContractSpeculation speculation = localSpeculation.get();
+            if (speculation != null && contractResult.getTransfers() != null) {
+                for (ContractTransfer transfer : contractResult.getTransfers()) {
+                    speculation.writeBalance(transfer.getFrom());
+                    speculation.writeBalance(transfer.getTo());
+                }
+            }
         }
 
         return Result.getSuccess().setData(contractResult);
@@ -1509,8 +1539,99 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
         }
     }
 
+    @Override
+    public void speculateBatchTxs(List<Transaction> txs, long bestHeight, BlockHeader tempHeader, byte[] stateRoot, boolean isForkChain) {
+        this.closeSpeculation();
+        if (stateRoot == null || localProgramExecutor.get() == null) {
+            return;
+        }
+        List<CallContractTransaction> callTxs = new ArrayList<>();
+        for (Transaction tx : txs) {
+            if (!ContractUtil.isContractTransaction(tx)) {
+                continue;
+            }
+            // 打包节点验证自己的区块时不会再执行合约，也就不需要预执行
+            if (!isForkChain && (((ContractTransaction) tx).getContractResult() != null || getContractExecuteResult(tx.getHash()) != null)) {
+                return;
+            }
+            if (tx instanceof CallContractTransaction && ContractUtil.checkPrice(((CallContractTransaction) tx).getTxData().getPrice())) {
+                callTxs.add((CallContractTransaction) tx);
+            }
+        }
+        if (callTxs.size() < SPECULATION_MIN_TXS) {
+            return;
+        }
+        ExecutorService pool = this.getSpeculationPool();
+        ContractSpeculation speculation = new ContractSpeculation();
+        for (CallContractTransaction tx : callTxs) {
+            ProgramCall programCall = newProgramCall(tx.getTxData(), bestHeight);
+            speculation.submit(pool, tx.getHash(), () -> {
+                vmContext.createCurrentBlockHeader(tempHeader);
+                try {
+                    ProgramExecutor track = programExecutor.begin(stateRoot).startRecording();
+                    ProgramResult programResult = track.call(programCall);
+                    return new ContractSpeculation.SpeculativeCall(programResult, track.getStateAccess());
+                } finally {
+                    vmContext.removeCurrentBlockHeader();
+                }
+            });
+        }
+        localSpeculation.set(speculation);
+    }
+
+    private ExecutorService getSpeculationPool() {
+        if (speculationPool == null) {
+            synchronized (this) {
+                if (speculationPool == null) {
+                    int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+                    speculationPool = TaskManager.createThreadPool(threadCount, Integer.MAX_VALUE,
+                            new NulsThreadFactory(ContractConstant.MODULE_ID_CONTRACT, "contract-speculation"));
+                }
+            }
+        }
+        return speculationPool;
+    }
+
+    private void closeSpeculation() {
+        ContractSpeculation speculation = localSpeculation.get();
+        if (speculation != null) {
+            localSpeculation.remove();
+            speculation.close();
+        }
+    }
+
+    /**
+     * 存在并行预执行时用记录读写集合的track执行，以便检测后面交易的冲突
+     * Executes on a recording track while speculation is active, so later transactions can be checked for conflicts
+     */
+    private ProgramExecutor startTrack(ProgramExecutor executor) {
+        return localSpeculation.get() != null ? executor.startRecording() : executor.startTracking();
+    }
+
+    private void addSpeculationWrites(ProgramExecutor executor, ProgramExecutor track) {
+        ContractSpeculation speculation = localSpeculation.get();
+        if (executor != null && speculation != null) {
+            speculation.addWrites(track.getStateAccess());
+        }
+    }
+
+    private static ProgramCall newProgramCall(CallContractData call, long number) {
+        ProgramCall programCall = new ProgramCall();
+        programCall.setContractAddress(call.getContractAddress());
+        programCall.setSender(call.getSender());
+        programCall.setValue(BigInteger.valueOf(call.getValue()));
+        programCall.setPrice(call.getPrice());
+        programCall.setGasLimit(call.getGasLimit());
+        programCall.setNumber(number);
+        programCall.setMethodName(call.getMethodName());
+        programCall.setMethodDesc(call.getMethodDesc());
+        programCall.setArgs(call.getArgs());
+        return programCall;
+    }
+
     @Override
     public void createBatchExecute(byte[] stateRoot) {
+        this.closeSpeculation();
         localProgramExecutor.remove();
         if (stateRoot == null) {
             return;
@@ -1521,6 +1642,7 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
 
     @Override
     public Result<byte[]> commitBatchExecute() {
+        this.closeSpeculation();
         ProgramExecutor executor = localProgramExecutor.get();
         if (executor == null) {
             return Result.getSuccess();
@@ -1532,6 +1654,7 @@ public class ContractServiceImpl implements ContractService, InitializingBean {
 
     @Override
     public void removeBatchExecute() {
+        this.closeSpeculation();
         localProgramExecutor.remove();
     }
 
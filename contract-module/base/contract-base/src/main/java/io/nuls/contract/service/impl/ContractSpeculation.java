@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.service.impl;
+
+import io.nuls.contract.vm.program.ProgramResult;
+import io.nuls.contract.vm.program.StateAccess;
+import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.model.NulsDigestData;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 一个区块内合约调用交易的并行预执行
+ * 预执行基于区块开始时的状态，按区块顺序处理交易时，读集合与前面交易的写集合没有交集的预执行结果才会被采用，
+ * 否则按原方式重新执行，因此最终状态根与顺序执行完全一致
+ * <p>
+ * Speculative parallel execution of the contract call transactions of one block.
+ * Speculation runs against the state at the start of the block. While the transactions are processed in block
+ * order, a speculative result is adopted only if its read set does not intersect the writes of the earlier
+ * transactions; otherwise the transaction is executed again as before, so the state root is exactly the one
+ * of sequential execution.
+ */
+class ContractSpeculation {
+
+    private final Map<NulsDigestData, Future<SpeculativeCall>> calls = new HashMap<>();
+
+    /**
+     * 已按顺序处理的交易的写集合
+     * Writes of the transactions already processed in block order
+     */
+    private final StateAccess committedWrites = new StateAccess();
+
+    /**
+     * 有交易的写集合未知时，后面的预执行结果都不能采用
+     * Set once the writes of a processed transaction are unknown, no later result can be adopted
+     */
+    private boolean poisoned;
+
+    private volatile boolean closed;
+
+    private int adopted;
+
+    private int reexecuted;
+
+    void submit(ExecutorService pool, NulsDigestData txHash, Callable<SpeculativeCall> task) {
+        calls.put(txHash, pool.submit(() -> closed ? null : task.call()));
+    }
+
+    /**
+     * 取出交易的预执行结果，不能采用时返回null
+     * Takes the speculative result of a transaction, null when it cannot be adopted
+     */
+    SpeculativeCall take(NulsDigestData txHash) {
+        Future<SpeculativeCall> future = calls.remove(txHash);
+        if (future == null) {
+            return null;
+        }
+        SpeculativeCall call;
+        try {
+            call = future.get();
+        } catch (Exception e) {
+            Log.warn("contract speculation failed: " + e.getMessage());
+            call = null;
+        }
+        if (call == null || poisoned || call.stateAccess.isUntracked() || call.stateAccess.conflictsWith(committedWrites)) {
+            reexecuted++;
+            return null;
+        }
+        adopted++;
+        return call;
+    }
+
+    void addWrites(StateAccess stateAccess) {
+        if (stateAccess == null || stateAccess.isUntracked()) {
+            poisoned = true;
+        } else {
+            committedWrites.mergeWrites(stateAccess);
+        }
+    }
+
+    void writeBalance(byte[] address) {
+        committedWrites.writeBalance(address);
+    }
+
+    /**
+     * 停止未开始的预执行并等待执行中的完成，之后才能提交批量执行器
+     * Stops speculation that has not started and waits for running ones, must happen before the batch is committed
+     */
+    void close() {
+        closed = true;
+        for (Future<SpeculativeCall> future : calls.values()) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                // 结果已不再需要
+            }
+        }
+        calls.clear();
+        if (Log.isDebugEnabled()) {
+            Log.debug("contract speculation adopted: {}, re-executed: {}", adopted, reexecuted);
+        }
+    }
+
+    static class SpeculativeCall {
+
+        final ProgramResult programResult;
+
+        final StateAccess stateAccess;
+
+        SpeculativeCall(ProgramResult programResult, StateAccess stateAccess) {
+            this.programResult = programResult;
+            this.stateAccess = stateAccess;
+        }
+    }
+
+}
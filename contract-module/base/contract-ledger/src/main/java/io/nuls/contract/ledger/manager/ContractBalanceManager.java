@@ -43,6 +43,7 @@ import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.model.Address;
 import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinView;
 import io.nuls.kernel.model.Na;
 import io.nuls.kernel.model.Result;
 import io.nuls.kernel.utils.AddressTool;
@@ -106,30 +107,34 @@ public class ContractBalanceManager {
     public void initContractBalance() {
         balanceMap = new ConcurrentHashMap<>();
         List<Entry<byte[], byte[]>> rawList = contractUtxoStorageService.loadAllCoinList();
+        CoinView view = new CoinView();
         Coin coin;
         String strAddress;
         ContractBalance balance;
         for (Entry<byte[], byte[]> coinEntry : rawList) {
-            coin = new Coin();
             try {
-                coin.parse(coinEntry.getValue(), 0);
-                //strAddress = asString(coin.getOwner());
-                coin.setKey(asString(coinEntry.getKey()));
-                strAddress = asString(coin.getAddress());
+                view.wrap(coinEntry.getValue());
             } catch (NulsException e) {
                 Log.error("parse contract coin error form db", e);
                 continue;
             }
+            byte[] address = view.getAddress();
+            if (address == null) {
+                continue;
+            }
+            strAddress = asString(address);
             balance = balanceMap.get(strAddress);
             if(balance == null) {
                 balance = new ContractBalance();
                 balanceMap.put(strAddress, balance);
             }
-            // 共识奖励的utxo
-            if(coin.getLockTime() != 0) {
+            // 共识奖励的utxo，只有这部分需要完整的Coin
+            if(view.getLockTime() != 0) {
+                coin = view.toCoin();
+                coin.setKey(asString(coinEntry.getKey()));
                 balance.getConsensusRewardCoins().put(coin.getKey(), coin);
             } else {
-                balance.addUsable(coin.getNa());
+                balance.addUsable(Na.valueOf(view.getNaValue()));
             }
         }
     }
@@ -300,15 +305,16 @@ public class ContractBalanceManager {
     public List<Coin> getCoinListByAddress(byte[] address) {
         List<Coin> coinList = new ArrayList<>();
         List<Entry<byte[], byte[]>> rawList = contractUtxoStorageService.loadAllCoinList();
+        CoinView view = new CoinView();
         for (Entry<byte[], byte[]> coinEntry : rawList) {
-            Coin coin = new Coin();
             try {
-                coin.parse(coinEntry.getValue(), 0);
+                view.wrap(coinEntry.getValue());
             } catch (NulsException e) {
                 Log.info("parse coin form db error");
                 continue;
             }
-            if (Arrays.equals(coin.getAddress(), address)) {
+            if (view.isAddress(address)) {
+                Coin coin = view.toCoin();
                 coin.setOwner(coinEntry.getKey());
                 coin.setKey(asString(coinEntry.getKey()));
                 coinList.add(coin);
@@ -27,13 +27,14 @@ package io.nuls.contract.storage.service.impl;
 import io.nuls.contract.storage.constant.ContractStorageConstant;
 import io.nuls.contract.dto.ContractTokenTransferInfoPo;
 import io.nuls.contract.storage.service.ContractTokenTransferStorageService;
+import io.nuls.core.tools.array.ArraysTool;
 import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsRuntimeException;
 import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
-import io.nuls.kernel.model.Address;
 import io.nuls.kernel.model.Result;
 
 import java.util.ArrayList;
@@ -66,64 +67,22 @@ public class ContractTokenTransferStorageServiceImpl implements ContractTokenTra
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(byte[] address) {
-        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<byte[]> keyList = dbService.keyList(this.area);
-        if (keyList == null || keyList.isEmpty()) {
-            return infoPoList;
-        }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (byte[] key : keyList) {
-            if (isAddressEquals(key, address)) {
-                tokenTransferInfoPo = dbService.getModel(this.area, key, ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
-            }
-        }
-        return infoPoList;
-    }
-
-    private boolean isAddressEquals(byte[] key, byte[] address) {
-        int length = Address.ADDRESS_LENGTH;
-        for(int i = 0; i < length; i++) {
-            if(key[i] != address[i]) {
-                return false;
-            }
-        }
-        return true;
+        return getTokenTransferInfoListByPrefix(address);
     }
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(byte[] address, byte[] txHash) {
-        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<byte[]> keyList = dbService.keyList(this.area);
-        if (keyList == null || keyList.isEmpty()) {
-            return infoPoList;
-        }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (byte[] key : keyList) {
-            if (isAddressAndHashEquals(key, address, txHash)) {
-                tokenTransferInfoPo = dbService.getModel(this.area, key, ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
-            }
-        }
-        return infoPoList;
+        return getTokenTransferInfoListByPrefix(ArraysTool.concatenate(address, txHash));
     }
 
-    private boolean isAddressAndHashEquals(byte[] key, byte[] address, byte[] txHash) {
-        int length = Address.ADDRESS_LENGTH + txHash.length;
-        for(int i = 0, k = 0; i < length; i++) {
-            if(i < Address.ADDRESS_LENGTH) {
-                if(key[i] != address[i]) {
-                    return false;
-                }
-            } else {
-                if(key[i] != txHash[k++]) {
-                    return false;
-                }
+    private List<ContractTokenTransferInfoPo> getTokenTransferInfoListByPrefix(byte[] prefix) {
+        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
+        try (DBCursor cursor = dbService.seek(this.area, prefix)) {
+            while (cursor.hasNext()) {
+                infoPoList.add(dbService.toModel(cursor.next().getValue(), ContractTokenTransferInfoPo.class));
             }
         }
-        return true;
+        return infoPoList;
     }
 
     @Override
@@ -28,6 +28,7 @@ import io.nuls.contract.storage.constant.ContractStorageConstant;
 import io.nuls.contract.storage.po.TransactionInfoPo;
 import io.nuls.contract.storage.service.ContractTransactionInfoStorageService;
 import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
@@ -35,14 +36,12 @@ import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Component;
 import io.nuls.kernel.lite.annotation.Service;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
-import io.nuls.kernel.model.Address;
 import io.nuls.kernel.model.Result;
 import io.nuls.kernel.utils.AddressTool;
 import io.nuls.kernel.utils.NulsByteBuffer;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -71,20 +70,11 @@ public class ContractTransactionInfoStorageServiceImpl implements ContractTransa
     @Override
     public List<TransactionInfoPo> getTransactionInfoListByAddress(byte[] address) throws NulsException {
         List<TransactionInfoPo> infoPoList = new ArrayList<>();
-        List<byte[]> keyList = dbService.keyList(ContractStorageConstant.DB_NAME_CONTRACT_LEDGER_TX_INDEX);
-        if (keyList == null || keyList.isEmpty()) {
-            return infoPoList;
-        }
-
-        byte[] addressKey = new byte[Address.ADDRESS_LENGTH];
         TransactionInfoPo transactionInfoPo;
-        byte[] values;
-        for (byte[] key : keyList) {
-            System.arraycopy(key, 0, addressKey, 0, Address.ADDRESS_LENGTH);
-            if (Arrays.equals(addressKey, address)) {
-                values = dbService.get(ContractStorageConstant.DB_NAME_CONTRACT_LEDGER_TX_INDEX, key);
+        try (DBCursor cursor = dbService.seek(ContractStorageConstant.DB_NAME_CONTRACT_LEDGER_TX_INDEX, address)) {
+            while (cursor.hasNext()) {
                 transactionInfoPo = new TransactionInfoPo();
-                transactionInfoPo.parse(values, 0);
+                transactionInfoPo.parse(cursor.next().getValue(), 0);
                 infoPoList.add(transactionInfoPo);
             }
         }
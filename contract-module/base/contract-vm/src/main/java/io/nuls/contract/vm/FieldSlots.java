@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.code.FieldLayout;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 按槽位存储的对象字段，按字段布局下标读写，并记录字段是否被修改
+ * 作为Map使用时保持与LinkedHashMap相同的插入顺序，状态的JSON编码因此不变
+ * <p>
+ * Slot based storage of an object's fields, read and written by layout index, with a flag telling whether any field changed.
+ * When used as a Map it keeps LinkedHashMap insertion order, so the JSON encoding of the state is unchanged.
+ */
+public class FieldSlots extends AbstractMap<String, Object> {
+
+    private final FieldLayout layout;
+
+    private Object[] values;
+
+    private boolean[] present;
+
+    private int[] order;
+
+    private int size;
+
+    /**
+     * 布局之外的字段名，槽位从layout.size()开始
+     * Names outside the layout, their slots start at layout.size()
+     */
+    private List<String> extraNames;
+
+    private boolean dirty;
+
+    private boolean created;
+
+    private Set<Entry<String, Object>> entrySet;
+
+    public FieldSlots(FieldLayout layout, boolean created) {
+        int capacity = layout.size();
+        this.layout = layout;
+        this.values = new Object[capacity];
+        this.present = new boolean[capacity];
+        this.order = new int[capacity];
+        this.created = created;
+    }
+
+    private FieldSlots(FieldSlots source) {
+        this.layout = source.layout;
+        this.values = source.values.clone();
+        this.present = source.present.clone();
+        this.order = source.order.clone();
+        this.size = source.size;
+        this.extraNames = source.extraNames != null ? new ArrayList<>(source.extraNames) : null;
+        this.created = false;
+    }
+
+    /**
+     * 复制字段值，副本的修改标记为空
+     * Copies the field values, the copy starts unchanged
+     */
+    public FieldSlots copy() {
+        return new FieldSlots(this);
+    }
+
+    public FieldLayout getLayout() {
+        return layout;
+    }
+
+    public int indexOf(String name, int hint) {
+        return layout.indexOf(name, hint);
+    }
+
+    public Object get(int slot) {
+        return values[slot];
+    }
+
+    public void set(int slot, Object value) {
+        if (!present[slot]) {
+            present[slot] = true;
+            order[size++] = slot;
+        }
+        values[slot] = value;
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return created || dirty;
+    }
+
+    private int slotOf(Object name) {
+        int slot = layout.indexOf((String) name);
+        if (slot == FieldLayout.NOT_FOUND && extraNames != null) {
+            int i = extraNames.indexOf(name);
+            if (i >= 0) {
+                slot = layout.size() + i;
+            }
+        }
+        return slot;
+    }
+
+    private int addExtra(String name) {
+        if (extraNames == null) {
+            extraNames = new ArrayList<>();
+        }
+        extraNames.add(name);
+        int slot = layout.size() + extraNames.size() - 1;
+        if (slot >= values.length) {
+            int capacity = values.length + 4;
+            values = Arrays.copyOf(values, capacity);
+            present = Arrays.copyOf(present, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+        return slot;
+    }
+
+    private String nameOf(int slot) {
+        return slot < layout.size() ? layout.name(slot) : extraNames.get(slot - layout.size());
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        int slot = slotOf(key);
+        return slot >= 0 && present[slot];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            slot = addExtra(key);
+        }
+        Object old = values[slot];
+        set(slot, value);
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            action.accept(nameOf(slot), values[slot]);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < size;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (i >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            return new SlotEntry(order[i++]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private class SlotEntry implements Entry<String, Object> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return nameOf(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return values[slot];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[slot];
+            set(slot, value);
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+    }
+
+}
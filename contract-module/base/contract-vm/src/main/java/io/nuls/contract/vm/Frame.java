@@ -24,11 +24,14 @@
  */
 package io.nuls.contract.vm;
 
+import io.nuls.contract.vm.code.InstructionStream;
 import io.nuls.contract.vm.code.MethodCode;
 import io.nuls.contract.vm.code.VariableType;
 import io.nuls.contract.vm.instructions.references.Athrow;
 import org.objectweb.asm.tree.*;
 
+import java.util.List;
+
 public class Frame {
 
     public final VM vm;
@@ -49,6 +52,10 @@ public class Frame {
 
     public final Result result;
 
+    private final InstructionStream instructionStream;
+
+    private int index;
+
     private AbstractInsnNode currentInsnNode;
 
     private OpCode currentOpCode;
@@ -65,32 +72,65 @@ public class Frame {
         this.operandStack = new OperandStack(this.maxStack);
         this.localVariables = new LocalVariables(this.maxLocals, args);
         this.result = new Result(this.methodCode.returnVariableType);
-        this.currentInsnNode = this.methodCode.instructions.getFirst();
+        this.instructionStream = this.methodCode.instructionStream;
+        this.index = 0;
+        this.currentInsnNode = this.instructionStream.size() > 0 ? this.instructionStream.insnNodes[0] : null;
     }
 
     public void step() {
         if (this.currentInsnNode != null) {
-            this.currentInsnNode = this.currentInsnNode.getNext();
+            this.index++;
+            if (this.index < this.instructionStream.size()) {
+                this.currentInsnNode = this.instructionStream.insnNodes[this.index];
+            } else {
+                this.currentInsnNode = null;
+            }
         }
     }
 
+    /**
+     * 跳转后停在标签上（保证行号计算不变），下一次step()进入目标指令
+     * After a jump the frame rests on the label (so line numbers stay exact), the next step() enters the target instruction
+     */
     public void jump() {
+        this.index = this.instructionStream.jumpTargets[this.index] - 1;
         this.currentInsnNode = jumpInsnNode().label;
     }
 
     public void jump(LabelNode label) {
+        this.index = this.instructionStream.indexOf(label) - 1;
         this.currentInsnNode = label;
     }
 
     public OpCode currentOpCode() {
         if (this.currentInsnNode != null) {
-            this.currentOpCode = OpCode.valueOf(this.currentInsnNode.getOpcode());
+            this.currentOpCode = this.instructionStream.opCodes[this.index];
         } else {
             this.currentOpCode = null;
         }
         return this.currentOpCode;
     }
 
+    public int currentGasCost() {
+        return this.instructionStream.gasCosts[this.index];
+    }
+
+    public String currentMethodFullName() {
+        return this.instructionStream.methodFullNames[this.index];
+    }
+
+    public List<VariableType> currentMethodArgs() {
+        return this.instructionStream.methodArgs[this.index];
+    }
+
+    public int currentFieldSlot() {
+        return this.instructionStream.fieldSlots[this.index];
+    }
+
+    public void setCurrentFieldSlot(int slot) {
+        this.instructionStream.fieldSlots[this.index] = slot;
+    }
+
     public int getLine(LabelNode labelNode) {
         AbstractInsnNode abstractInsnNode = labelNode;
         while (!(abstractInsnNode instanceof LineNumberNode)) {
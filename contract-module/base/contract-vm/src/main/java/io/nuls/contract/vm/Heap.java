@@ -28,12 +28,15 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import io.nuls.contract.vm.code.ClassCode;
 import io.nuls.contract.vm.code.FieldCode;
+import io.nuls.contract.vm.code.FieldLayout;
 import io.nuls.contract.vm.code.MethodCode;
 import io.nuls.contract.vm.code.VariableType;
 import io.nuls.contract.vm.natives.io.nuls.contract.sdk.NativeAddress;
+import io.nuls.contract.vm.util.BinaryUtils;
 import io.nuls.contract.vm.util.CloneUtils;
 import io.nuls.contract.vm.util.Constants;
 import io.nuls.contract.vm.util.JsonUtils;
+import io.nuls.kernel.context.NulsContext;
 import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.Repository;
 import org.ethereum.vm.DataWord;
@@ -68,6 +71,13 @@ public class Heap {
 
     private static final DataWord OBJECT_REF_COUNT = new DataWord("objectRefCount");
 
+    /**
+     * 从该主网版本开始用二进制编码写入状态，版本在nuls-version.xml中声明，之前写入的JSON状态在对象下次修改时才会改写
+     * State is written in the binary encoding from this main net version on, the version is declared in nuls-version.xml;
+     * JSON state written before is only rewritten when the object changes again
+     */
+    private static final int BINARY_STATE_VERSION = 5;
+
     public Heap(BigInteger objectRefCount) {
         this.objectRefCount = new BigInteger(objectRefCount.toString());
     }
@@ -87,14 +97,18 @@ public class Heap {
     }
 
     public ObjectRef newObjectRef(String ref, String desc, int... dimensions) {
+        ObjectRef objectRef = createObjectRef(ref, desc, dimensions);
+        objects.put(objectRef, new LinkedHashMap<>());
+        change(objectRef);
+        return objectRef;
+    }
+
+    private ObjectRef createObjectRef(String ref, String desc, int... dimensions) {
         if (StringUtils.isEmpty(ref)) {
             objectRefCount = objectRefCount.add(BigInteger.ONE);
             ref = objectRefCount.toString();
         }
-        ObjectRef objectRef = new ObjectRef(ref, desc, dimensions);
-        objects.put(objectRef, new LinkedHashMap<>());
-        change(objectRef);
-        return objectRef;
+        return new ObjectRef(ref, desc, dimensions);
     }
 
     public ObjectRef newObjectRef(String desc, int... dimensions) {
@@ -102,8 +116,18 @@ public class Heap {
     }
 
     public ObjectRef newObject(String ref, ClassCode classCode) {
-        ObjectRef objectRef = newObjectRef(ref, classCode.variableType.getDesc());
-        initFields(classCode, objectRef);
+        FieldLayout fieldLayout = classCode.getFieldLayout();
+        ObjectRef objectRef;
+        if (fieldLayout != null) {
+            objectRef = createObjectRef(ref, classCode.variableType.getDesc());
+            objects.put(objectRef, new FieldSlots(fieldLayout, true));
+            initFields(classCode, objectRef);
+        } else {
+            objectRef = newObjectRef(ref, classCode.variableType.getDesc());
+            initFields(classCode, objectRef);
+            // initFields已加载整个父类链，此时计算布局不会触发类初始化
+            fieldLayout(classCode);
+        }
         return objectRef;
     }
 
@@ -149,7 +173,10 @@ public class Heap {
         Map<String, Object> fields = objects.get(objectRef);
         if (fields == null) {
             fields = INIT_OBJECTS.get(objectRef);
-            if (fields != null) {
+            if (fields instanceof FieldSlots) {
+                fields = ((FieldSlots) fields).copy();
+                objects.put(objectRef, fields);
+            } else if (fields != null) {
                 fields = CloneUtils.clone(fields);
                 objects.put(objectRef, fields);
             } else {
@@ -172,8 +199,37 @@ public class Heap {
             return null;
         }
         byte[] value = dataWord.getNoLeadZeroesData();
-        Map<String, Object> map = (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
-        return map;
+        Map<String, Object> map;
+        if (BinaryUtils.isBinary(value)) {
+            map = BinaryUtils.decode(value, classNames);
+        } else {
+            map = (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
+        }
+        return toFieldSlots(objectRef, map);
+    }
+
+    /**
+     * 已有布局的类的实例转换为按槽位存储，保持字段顺序且不标记修改
+     * Converts an instance of a class with a known layout to slot storage, keeping the field order and no dirty slots
+     */
+    private Map<String, Object> toFieldSlots(ObjectRef objectRef, Map<String, Object> map) {
+        if (map == null || objectRef.isArray() || this.vm == null) {
+            return map;
+        }
+        String className = objectRef.getVariableType().getType();
+        if (className.equals(objectRef.getRef())) {
+            return map;
+        }
+        ClassCode classCode = this.vm.methodArea.getLoadedClass(className);
+        FieldLayout fieldLayout = classCode != null ? classCode.getFieldLayout() : null;
+        if (fieldLayout == null) {
+            return map;
+        }
+        FieldSlots fieldSlots = new FieldSlots(fieldLayout, false);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            fieldSlots.put(entry.getKey(), entry.getValue());
+        }
+        return fieldSlots.copy();
     }
 
     public Object getField(ObjectRef objectRef, String fieldName) {
@@ -181,8 +237,11 @@ public class Heap {
     }
 
     public void putField(ObjectRef objectRef, String fieldName, Object value) {
-        putFields(objectRef).put(fieldName, value);
-        change(objectRef);
+        Map<String, Object> fields = putFields(objectRef);
+        fields.put(fieldName, value);
+        if (!(fields instanceof FieldSlots)) {
+            change(objectRef);
+        }
     }
 
     public Object getStatic(String className, String fieldName) {
@@ -283,6 +342,9 @@ public class Heap {
             return null;
         }
         byte[] value = dataWord.getNoLeadZeroesData();
+        if (BinaryUtils.isBinary(value)) {
+            return BinaryUtils.decodeArray(value, classNames);
+        }
         Class clazz = arrayRef.getVariableType().getPrimitiveTypeClass();
         if (!arrayRef.getVariableType().getComponentType().isPrimitive()) {
             clazz = ObjectRef.class;
@@ -557,12 +619,13 @@ public class Heap {
         Map<DataWord, DataWord> contractState = new HashMap<>(1024);
         contractState.put(OBJECT_REF_COUNT, new DataWord(this.objectRefCount));
         Set<ObjectRef> stateObjectRefs = new HashSet<>(1024);
+        boolean binaryState = NulsContext.MAIN_NET_VERSION >= BINARY_STATE_VERSION;
         String className = this.contract.getVariableType().getType();
         ObjectRef staticObjectRef = getStaticObjectRef(className);
         stateObjectRefs(stateObjectRefs, staticObjectRef);
         stateObjectRefs(stateObjectRefs, this.contract);
         for (ObjectRef objectRef : stateObjectRefs) {
-            if (!this.changes.contains(objectRef)) {
+            if (!isChanged(objectRef)) {
                 continue;
             }
             Map<String, Object> fields = getFieldsInit(objectRef);
@@ -570,8 +633,13 @@ public class Heap {
                 continue;
             }
             String key = JsonUtils.encode(objectRef, classNames);
-            String value = JsonUtils.encode(fields, classNames);
-            contractState.put(new DataWord(key), new DataWord(value));
+            DataWord value;
+            if (binaryState) {
+                value = DataWord.of(BinaryUtils.encode(fields, classNames));
+            } else {
+                value = new DataWord(JsonUtils.encode(fields, classNames));
+            }
+            contractState.put(new DataWord(key), value);
             if (objectRef.isArray()) {
                 for (String k : fields.keySet()) {
                     Integer i = Integer.valueOf(k);
@@ -580,7 +648,9 @@ public class Heap {
                     }
                     String arrayKey = objectRef.getRef() + "_" + k;
                     Object object = getArrayInit(objectRef, i);
-                    if (object != null) {
+                    if (object != null && binaryState) {
+                        contractState.put(new DataWord(arrayKey), DataWord.of(BinaryUtils.encodeArray(object, classNames)));
+                    } else if (object != null) {
                         Class clazz = objectRef.getVariableType().getPrimitiveTypeClass();
                         if (!objectRef.getVariableType().getComponentType().isPrimitive()) {
                             clazz = ObjectRef.class;
@@ -630,6 +700,31 @@ public class Heap {
         }
     }
 
+    /**
+     * 按槽位存储的对象由自身的修改标记决定是否写入状态，只看本次执行的对象，不看INIT_OBJECTS
+     * Objects in slot storage track their own dirty slots; only objects of this execution count, never INIT_OBJECTS
+     */
+    private boolean isChanged(ObjectRef objectRef) {
+        if (this.changes.contains(objectRef)) {
+            return true;
+        }
+        Map<String, Object> fields = this.objects.get(objectRef);
+        return fields instanceof FieldSlots && ((FieldSlots) fields).isDirty();
+    }
+
+    private FieldLayout fieldLayout(ClassCode classCode) {
+        FieldLayout fieldLayout = classCode.getFieldLayout();
+        if (fieldLayout == null) {
+            FieldLayout superLayout = null;
+            if (StringUtils.isNotBlank(classCode.superName)) {
+                superLayout = fieldLayout(this.vm.methodArea.loadClass(classCode.superName));
+            }
+            fieldLayout = new FieldLayout(superLayout, classCode);
+            classCode.setFieldLayout(fieldLayout);
+        }
+        return fieldLayout;
+    }
+
     private void initFields(ClassCode classCode, ObjectRef objectRef) {
         if (StringUtils.isNotBlank(classCode.superName)) {
             ClassCode superClassCode = this.vm.methodArea.loadClass(classCode.superName);
@@ -64,6 +64,10 @@ public class MethodArea {
         } else {
             fullName = className + "." + methodName;
         }
+        return loadMethod(fullName, className, methodName, methodDesc);
+    }
+
+    public MethodCode loadMethod(String fullName, String className, String methodName, String methodDesc) {
         MethodCode methodCode = INIT_METHOD_CODES.get(fullName);
         if (methodCode != null) {
             return methodCode;
@@ -119,6 +123,18 @@ public class MethodArea {
         return classCode;
     }
 
+    /**
+     * 只查找已加载的类，不会触发加载和类初始化
+     * Looks up an already loaded class only, never triggers loading or class initialization
+     */
+    public ClassCode getLoadedClass(String className) {
+        ClassCode classCode = INIT_CLASS_CODES.get(className);
+        if (classCode == null) {
+            classCode = this.classCodes.get(className);
+        }
+        return classCode;
+    }
+
     public void loadClassCodes(Map<String, ClassCode> classCodes) {
         if (classCodes != null) {
             this.loadClassCodes.putAll(classCodes);
@@ -56,9 +56,7 @@ import io.nuls.contract.vm.program.impl.ProgramInvoke;
 import io.nuls.contract.vm.util.Log;
 import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.Repository;
-import org.objectweb.asm.tree.LookupSwitchInsnNode;
 import org.objectweb.asm.tree.MultiANewArrayInsnNode;
-import org.objectweb.asm.tree.TableSwitchInsnNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -346,7 +344,10 @@ public class VM {
         }
 
         if (frame.addGas) {
-            int gasCost = gasCost(frame, opCode);
+            int gasCost = frame.currentGasCost();
+            if (gasCost == GasCost.DYNAMIC) {
+                gasCost = gasCost(frame, opCode);
+            }
             addGasUsed(gasCost);
         }
 
@@ -846,206 +847,14 @@ public class VM {
     }
 
     public int gasCost(Frame frame, OpCode opCode) {
-        int gasCost = 1;
+        int gasCost;
         switch (opCode) {
-            case NOP:
-                break;
-            case ACONST_NULL:
-            case ICONST_M1:
-            case ICONST_0:
-            case ICONST_1:
-            case ICONST_2:
-            case ICONST_3:
-            case ICONST_4:
-            case ICONST_5:
-            case LCONST_0:
-            case LCONST_1:
-            case FCONST_0:
-            case FCONST_1:
-            case FCONST_2:
-            case DCONST_0:
-            case DCONST_1:
-            case BIPUSH:
-            case SIPUSH:
-                gasCost = GasCost.CONSTANT;
-                break;
-            case LDC:
-                Object value = frame.ldcInsnNode().cst;
-                if (value instanceof Number) {
-                    gasCost = GasCost.LDC;
-                } else {
-                    gasCost = Math.max(value.toString().length(), 1) * GasCost.LDC;
-                }
-                break;
-            case ILOAD:
-            case LLOAD:
-            case FLOAD:
-            case DLOAD:
-            case ALOAD:
-                gasCost = GasCost.LOAD;
-                break;
-            case IALOAD:
-            case LALOAD:
-            case FALOAD:
-            case DALOAD:
-            case AALOAD:
-            case BALOAD:
-            case CALOAD:
-            case SALOAD:
-                gasCost = GasCost.ARRAYLOAD;
-                break;
-            case ISTORE:
-            case LSTORE:
-            case FSTORE:
-            case DSTORE:
-            case ASTORE:
-                gasCost = GasCost.STORE;
-                break;
-            case IASTORE:
-            case LASTORE:
-            case FASTORE:
-            case DASTORE:
-            case AASTORE:
-            case BASTORE:
-            case CASTORE:
-            case SASTORE:
-                gasCost = GasCost.ARRAYSTORE;
-                break;
-            case POP:
-            case POP2:
-            case DUP:
-            case DUP_X1:
-            case DUP_X2:
-            case DUP2:
-            case DUP2_X1:
-            case DUP2_X2:
-            case SWAP:
-                gasCost = GasCost.STACK;
-                break;
-            case IADD:
-            case LADD:
-            case FADD:
-            case DADD:
-            case ISUB:
-            case LSUB:
-            case FSUB:
-            case DSUB:
-            case IMUL:
-            case LMUL:
-            case FMUL:
-            case DMUL:
-            case IDIV:
-            case LDIV:
-            case FDIV:
-            case DDIV:
-            case IREM:
-            case LREM:
-            case FREM:
-            case DREM:
-            case INEG:
-            case LNEG:
-            case FNEG:
-            case DNEG:
-            case ISHL:
-            case LSHL:
-            case ISHR:
-            case LSHR:
-            case IUSHR:
-            case LUSHR:
-            case IAND:
-            case LAND:
-            case IOR:
-            case LOR:
-            case IXOR:
-            case LXOR:
-            case IINC:
-                gasCost = GasCost.MATH;
-                break;
-            case I2L:
-            case I2F:
-            case I2D:
-            case L2I:
-            case L2F:
-            case L2D:
-            case F2I:
-            case F2L:
-            case F2D:
-            case D2I:
-            case D2L:
-            case D2F:
-            case I2B:
-            case I2C:
-            case I2S:
-                gasCost = GasCost.CONVERSION;
-                break;
-            case LCMP:
-            case FCMPL:
-            case FCMPG:
-            case DCMPL:
-            case DCMPG:
-            case IFEQ:
-            case IFNE:
-            case IFLT:
-            case IFGE:
-            case IFGT:
-            case IFLE:
-            case IF_ICMPEQ:
-            case IF_ICMPNE:
-            case IF_ICMPLT:
-            case IF_ICMPGE:
-            case IF_ICMPGT:
-            case IF_ICMPLE:
-            case IF_ACMPEQ:
-            case IF_ACMPNE:
-                gasCost = GasCost.COMPARISON;
-                break;
-            case GOTO:
-            case JSR:
-            case RET:
-                gasCost = GasCost.CONTROL;
-                break;
-            case TABLESWITCH:
-                TableSwitchInsnNode table = frame.tableSwitchInsnNode();
-                gasCost = Math.max(table.max - table.min, 1) * GasCost.TABLESWITCH;
-                break;
-            case LOOKUPSWITCH:
-                LookupSwitchInsnNode lookup = frame.lookupSwitchInsnNode();
-                gasCost = Math.max(lookup.keys.size(), 1) * GasCost.LOOKUPSWITCH;
-                break;
-            case IRETURN:
-            case LRETURN:
-            case FRETURN:
-            case DRETURN:
-            case ARETURN:
-            case RETURN:
-                gasCost = GasCost.CONTROL;
-                break;
-            case GETSTATIC:
-            case PUTSTATIC:
-            case GETFIELD:
-            case PUTFIELD:
-            case INVOKEVIRTUAL:
-            case INVOKESPECIAL:
-            case INVOKESTATIC:
-            case INVOKEINTERFACE:
-            case INVOKEDYNAMIC:
-            case NEW:
-                gasCost = GasCost.REFERENCE;
-                break;
             case NEWARRAY:
             case ANEWARRAY:
                 int count = frame.operandStack.popInt();
                 gasCost = Math.max(count, 1) * GasCost.NEWARRAY;
                 frame.operandStack.pushInt(count);
                 break;
-            case ARRAYLENGTH:
-            case ATHROW:
-            case CHECKCAST:
-            case INSTANCEOF:
-            case MONITORENTER:
-            case MONITOREXIT:
-                gasCost = GasCost.REFERENCE;
-                break;
             case MULTIANEWARRAY:
                 MultiANewArrayInsnNode multiANewArrayInsnNode = frame.multiANewArrayInsnNode();
                 int size = 1;
@@ -1062,11 +871,8 @@ public class VM {
                 }
                 gasCost = size * GasCost.MULTIANEWARRAY;
                 break;
-            case IFNULL:
-            case IFNONNULL:
-                gasCost = GasCost.EXTENDED;
-                break;
             default:
+                gasCost = GasCost.cost(frame.getCurrentInsnNode(), opCode);
                 break;
         }
         return gasCost;
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.nuls.contract.vm.util.Utils.hashMapInitialCapacity;
+
+/**
+ * 对象实例字段的槽位布局，父类字段在前，同名字段共用一个槽位
+ * 布局只依赖类的继承链，计算后缓存在ClassCode上
+ * <p>
+ * Slot layout of the instance fields of a class. Super class fields come first and fields
+ * sharing a name share one slot, so a field keeps the same slot in every subclass.
+ * The layout only depends on the class hierarchy and is cached on the ClassCode.
+ */
+public class FieldLayout {
+
+    public static final int NOT_FOUND = -1;
+
+    private final String[] names;
+
+    private final Map<String, Integer> indexes;
+
+    public FieldLayout(FieldLayout superLayout, ClassCode classCode) {
+        List<String> list = new ArrayList<>();
+        if (superLayout != null) {
+            for (String name : superLayout.names) {
+                list.add(name);
+            }
+        }
+        for (FieldCode fieldCode : classCode.fields.values()) {
+            if (!fieldCode.isStatic && !list.contains(fieldCode.name)) {
+                list.add(fieldCode.name);
+            }
+        }
+        this.names = list.toArray(new String[list.size()]);
+        this.indexes = new HashMap<>(hashMapInitialCapacity(this.names.length));
+        for (int i = 0; i < this.names.length; i++) {
+            this.indexes.put(this.names[i], i);
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int slot) {
+        return names[slot];
+    }
+
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : NOT_FOUND;
+    }
+
+    /**
+     * 先用调用方缓存的槽位校验字段名，不匹配时再查表
+     * Verifies the caller's cached slot against the field name before falling back to a lookup
+     */
+    public int indexOf(String name, int hint) {
+        if (hint >= 0 && hint < names.length) {
+            String slotName = names[hint];
+            if (slotName == name || slotName.equals(name)) {
+                return hint;
+            }
+        }
+        return indexOf(name);
+    }
+
+}
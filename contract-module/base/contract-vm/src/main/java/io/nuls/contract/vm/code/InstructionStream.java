@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import io.nuls.contract.vm.GasCost;
+import io.nuls.contract.vm.OpCode;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法字节码的预解码指令流，类加载时生成并随ClassCode一起缓存
+ * 去掉标签、行号、栈帧等伪指令，预先计算操作码、静态gas消耗、跳转目标和方法引用
+ * <p>
+ * Pre-decoded instruction stream of a method, built once at class load time and cached with its ClassCode.
+ * Pseudo instructions (labels, line numbers, frames) are dropped, and opcodes, static gas costs,
+ * jump targets and method references are resolved ahead of time.
+ */
+public class InstructionStream {
+
+    public static final int NO_TARGET = -1;
+
+    /**
+     * 真实指令，保留原始节点供指令实现读取操作数
+     * Real instructions, the original nodes are kept so instruction implementations can read their operands
+     */
+    public final AbstractInsnNode[] insnNodes;
+
+    public final OpCode[] opCodes;
+
+    /**
+     * 静态gas消耗，{@link GasCost#DYNAMIC}表示需要在运行时计算
+     * Static gas costs, {@link GasCost#DYNAMIC} means the cost depends on the operand stack
+     */
+    public final int[] gasCosts;
+
+    /**
+     * 跳转指令的目标指令下标
+     * Index of the target instruction of each jump instruction
+     */
+    public final int[] jumpTargets;
+
+    /**
+     * invokestatic/invokespecial的方法全名，调用时不需要再拼接
+     * Full method names of invokestatic/invokespecial, so they need not be concatenated on every call
+     */
+    public final String[] methodFullNames;
+
+    /**
+     * 方法调用指令的参数类型
+     * Argument types of method invocation instructions
+     */
+    public final List<VariableType>[] methodArgs;
+
+    /**
+     * getfield/putfield上次命中的字段槽位，多个线程同时写入只会导致重新查找
+     * Field slot last resolved by each getfield/putfield, a racing write only costs another lookup
+     */
+    public final int[] fieldSlots;
+
+    private final Map<LabelNode, Integer> labelIndexes;
+
+    public InstructionStream(InsnList instructions) {
+        int size = 0;
+        for (AbstractInsnNode insnNode = instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            if (insnNode.getOpcode() >= 0) {
+                size++;
+            }
+        }
+        this.insnNodes = new AbstractInsnNode[size];
+        this.opCodes = new OpCode[size];
+        this.gasCosts = new int[size];
+        this.jumpTargets = new int[size];
+        this.methodFullNames = new String[size];
+        this.methodArgs = new List[size];
+        this.fieldSlots = new int[size];
+        this.labelIndexes = new IdentityHashMap<>();
+
+        int index = 0;
+        for (AbstractInsnNode insnNode = instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            if (insnNode instanceof LabelNode) {
+                // 标签指向其后的第一条真实指令
+                this.labelIndexes.put((LabelNode) insnNode, index);
+            } else if (insnNode.getOpcode() >= 0) {
+                this.insnNodes[index] = insnNode;
+                index++;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            AbstractInsnNode insnNode = this.insnNodes[i];
+            OpCode opCode = OpCode.valueOf(insnNode.getOpcode());
+            this.opCodes[i] = opCode;
+            this.gasCosts[i] = opCode != null ? GasCost.cost(insnNode, opCode) : 0;
+            this.jumpTargets[i] = NO_TARGET;
+            this.fieldSlots[i] = FieldLayout.NOT_FOUND;
+            if (insnNode instanceof JumpInsnNode) {
+                this.jumpTargets[i] = indexOf(((JumpInsnNode) insnNode).label);
+            } else if (insnNode instanceof MethodInsnNode) {
+                MethodInsnNode methodInsnNode = (MethodInsnNode) insnNode;
+                this.methodArgs[i] = VariableType.parseArgs(methodInsnNode.desc);
+                int opcode = methodInsnNode.getOpcode();
+                if (opcode == Opcodes.INVOKESTATIC || opcode == Opcodes.INVOKESPECIAL) {
+                    this.methodFullNames[i] = methodInsnNode.owner + "." + methodInsnNode.name + methodInsnNode.desc;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return insnNodes.length;
+    }
+
+    /**
+     * 标签之后第一条真实指令的下标，标签位于方法末尾时返回size()
+     * Index of the first real instruction after the label, size() when the label ends the method
+     */
+    public int indexOf(LabelNode labelNode) {
+        Integer index = labelIndexes.get(labelNode);
+        if (index == null) {
+            throw new IllegalArgumentException("unknown label");
+        }
+        return index;
+    }
+
+}
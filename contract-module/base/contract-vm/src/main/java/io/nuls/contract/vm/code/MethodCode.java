@@ -147,6 +147,12 @@ public class MethodCode {
      */
     public final InsnList instructions;
 
+    /**
+     * 预解码的指令流
+     * The pre-decoded instruction stream of this method.
+     */
+    public final InstructionStream instructionStream;
+
     /**
      * The try catch blocks of this method.
      */
@@ -233,6 +239,7 @@ public class MethodCode {
         invisibleAnnotableParameterCount = methodNode.invisibleAnnotableParameterCount;
         invisibleParameterAnnotations = methodNode.invisibleParameterAnnotations;
         instructions = methodNode.instructions;
+        instructionStream = new InstructionStream(instructions);
         tryCatchBlocks = ListUtils.emptyIfNull(methodNode.tryCatchBlocks);
         maxStack = methodNode.maxStack;
         maxLocals = methodNode.maxLocals;
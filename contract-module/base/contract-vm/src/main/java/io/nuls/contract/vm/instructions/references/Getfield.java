@@ -24,12 +24,15 @@
  */
 package io.nuls.contract.vm.instructions.references;
 
+import io.nuls.contract.vm.FieldSlots;
 import io.nuls.contract.vm.Frame;
 import io.nuls.contract.vm.ObjectRef;
 import io.nuls.contract.vm.code.Descriptors;
 import io.nuls.contract.vm.util.Log;
 import org.objectweb.asm.tree.FieldInsnNode;
 
+import java.util.Map;
+
 public class Getfield {
 
     public static void getfield(Frame frame) {
@@ -41,7 +44,15 @@ public class Getfield {
             frame.throwNullPointerException();
             return;
         }
-        Object value = frame.heap.getField(objectRef, fieldName);
+        Object value;
+        Map<String, Object> fields = frame.heap.getFields(objectRef);
+        int slot = fields instanceof FieldSlots ? ((FieldSlots) fields).indexOf(fieldName, frame.currentFieldSlot()) : -1;
+        if (slot >= 0) {
+            frame.setCurrentFieldSlot(slot);
+            value = ((FieldSlots) fields).get(slot);
+        } else {
+            value = fields.get(fieldName);
+        }
         if (Descriptors.LONG_DESC.equals(fieldDesc)) {
             frame.operandStack.pushLong((long) value);
         } else if (Descriptors.DOUBLE_DESC.equals(fieldDesc)) {
@@ -42,7 +42,7 @@ public class Invokeinterface {
         String interfaceMethodName = methodInsnNode.name;
         String interfaceMethodDesc = methodInsnNode.desc;
 
-        List<VariableType> variableTypes = VariableType.parseArgs(interfaceMethodDesc);
+        List<VariableType> variableTypes = frame.currentMethodArgs();
         MethodArgs methodArgs = new MethodArgs(variableTypes, frame.operandStack, false);
         ObjectRef objectRef = methodArgs.objectRef;
         if (objectRef == null) {
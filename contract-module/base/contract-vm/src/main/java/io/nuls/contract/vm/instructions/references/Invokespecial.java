@@ -42,7 +42,7 @@ public class Invokespecial {
         String methodName = methodInsnNode.name;
         String methodDesc = methodInsnNode.desc;
 
-        MethodCode methodCode = frame.methodArea.loadMethod(className, methodName, methodDesc);
+        MethodCode methodCode = frame.methodArea.loadMethod(frame.currentMethodFullName(), className, methodName, methodDesc);
 
         MethodArgs methodArgs = new MethodArgs(methodCode.argsVariableType, frame.operandStack, false);
         ObjectRef objectRef = methodArgs.objectRef;
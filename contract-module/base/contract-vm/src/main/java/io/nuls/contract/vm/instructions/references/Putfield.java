@@ -24,12 +24,15 @@
  */
 package io.nuls.contract.vm.instructions.references;
 
+import io.nuls.contract.vm.FieldSlots;
 import io.nuls.contract.vm.Frame;
 import io.nuls.contract.vm.ObjectRef;
 import io.nuls.contract.vm.code.Descriptors;
 import io.nuls.contract.vm.util.Log;
 import org.objectweb.asm.tree.FieldInsnNode;
 
+import java.util.Map;
+
 public class Putfield {
 
     public static void putfield(Frame frame) {
@@ -49,7 +52,14 @@ public class Putfield {
             frame.throwNullPointerException();
             return;
         }
-        frame.heap.putField(objectRef, fieldName, value);
+        Map<String, Object> fields = frame.heap.putFields(objectRef);
+        int slot = fields instanceof FieldSlots ? ((FieldSlots) fields).indexOf(fieldName, frame.currentFieldSlot()) : -1;
+        if (slot >= 0) {
+            frame.setCurrentFieldSlot(slot);
+            ((FieldSlots) fields).set(slot, value);
+        } else {
+            frame.heap.putField(objectRef, fieldName, value);
+        }
 
         //Log.result(frame.getCurrentOpCode(), value, objectRef, fieldName);
     }
@@ -32,6 +32,24 @@ public interface ProgramExecutor {
 
     ProgramExecutor startTracking();
 
+    /**
+     * 同startTracking，同时记录读写集合，见{@link #getStateAccess()}
+     * Like startTracking, additionally recording the state read and written, see {@link #getStateAccess()}
+     */
+    ProgramExecutor startRecording();
+
+    /**
+     * startRecording创建的执行器记录的读写集合，其它执行器返回null
+     * The state access recorded by an executor created with startRecording, null for other executors
+     */
+    StateAccess getStateAccess();
+
+    /**
+     * 在当前track上重放另一个执行器记录的写操作
+     * Replays the writes recorded by another executor on this track
+     */
+    void replay(StateAccess stateAccess);
+
     void commit();
 
     byte[] getRoot();
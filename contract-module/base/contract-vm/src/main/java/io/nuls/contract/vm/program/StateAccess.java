@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.program;
+
+import org.ethereum.core.Repository;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.vm.DataWord;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 一次合约执行读写过的状态：账户和存储的键、读取过余额的地址，以及可重放的写操作
+ * 用于并行预执行合约交易时检测与前面交易的冲突
+ * <p>
+ * The state read and written by one contract execution: account and storage keys, addresses whose balance
+ * was read, and a log of the writes that can be replayed. Used to detect conflicts with earlier transactions
+ * when contract transactions are executed speculatively in parallel.
+ */
+public class StateAccess {
+
+    private final Set<ByteArrayWrapper> reads = new HashSet<>();
+
+    private final Set<ByteArrayWrapper> writes = new HashSet<>();
+
+    private final Set<ByteArrayWrapper> balanceReads = new HashSet<>();
+
+    private final Set<ByteArrayWrapper> balanceWrites = new HashSet<>();
+
+    private final List<Consumer<Repository>> writeLog = new ArrayList<>();
+
+    /**
+     * 执行中有无法记录的访问(嵌套track、回滚等)，此时结果不能被采用
+     * Set when the execution touched state in a way that cannot be recorded (nested tracks, rollbacks),
+     * such a result must never be adopted
+     */
+    private boolean untracked;
+
+    private boolean revert;
+
+    public static ByteArrayWrapper accountKey(byte[] address) {
+        return new ByteArrayWrapper(address);
+    }
+
+    public static ByteArrayWrapper storageKey(byte[] address, DataWord key) {
+        byte[] keyData = key.getData();
+        byte[] bytes = Arrays.copyOf(address, address.length + keyData.length);
+        System.arraycopy(keyData, 0, bytes, address.length, keyData.length);
+        return new ByteArrayWrapper(bytes);
+    }
+
+    public void read(ByteArrayWrapper key) {
+        reads.add(key);
+    }
+
+    public void write(ByteArrayWrapper key, Consumer<Repository> operation) {
+        writes.add(key);
+        writeLog.add(operation);
+    }
+
+    public void readBalance(byte[] address) {
+        balanceReads.add(new ByteArrayWrapper(address));
+    }
+
+    public void writeBalance(byte[] address) {
+        balanceWrites.add(new ByteArrayWrapper(address));
+    }
+
+    /**
+     * 本次执行读过的键或余额是否被前面的交易写过
+     * Whether a key or balance read by this execution was written by earlier transactions
+     */
+    public boolean conflictsWith(StateAccess earlier) {
+        return intersects(reads, earlier.writes) || intersects(balanceReads, earlier.balanceWrites);
+    }
+
+    /**
+     * 合并后面交易的写集合
+     * Adds the write sets of a later transaction
+     */
+    public void mergeWrites(StateAccess later) {
+        writes.addAll(later.writes);
+        balanceWrites.addAll(later.balanceWrites);
+    }
+
+    public void replay(Repository repository) {
+        for (Consumer<Repository> operation : writeLog) {
+            operation.accept(repository);
+        }
+    }
+
+    private static boolean intersects(Set<ByteArrayWrapper> a, Set<ByteArrayWrapper> b) {
+        if (a.size() > b.size()) {
+            Set<ByteArrayWrapper> t = a;
+            a = b;
+            b = t;
+        }
+        for (ByteArrayWrapper key : a) {
+            if (b.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isUntracked() {
+        return untracked;
+    }
+
+    public void setUntracked(boolean untracked) {
+        this.untracked = untracked;
+    }
+
+    public boolean isRevert() {
+        return revert;
+    }
+
+    public void setRevert(boolean revert) {
+        this.revert = revert;
+    }
+
+}
@@ -87,12 +87,14 @@ public class ProgramExecutorImpl implements ProgramExecutor {
 
     private final Thread thread;
 
+    private final StateAccess stateAccess;
+
     public ProgramExecutorImpl(VMContext vmContext, DBService dbService) {
-        this(vmContext, stateSource(dbService), null, null, null, null);
+        this(vmContext, stateSource(dbService), null, null, null, null, null);
     }
 
     private ProgramExecutorImpl(VMContext vmContext, Source<byte[], byte[]> source, Repository repository, byte[] prevStateRoot,
-                                Map<ByteArrayWrapper, ProgramAccount> accounts, Thread thread) {
+                                Map<ByteArrayWrapper, ProgramAccount> accounts, Thread thread, StateAccess stateAccess) {
         this.parent = this;
         this.vmContext = vmContext;
         this.source = source;
@@ -101,10 +103,11 @@ public class ProgramExecutorImpl implements ProgramExecutor {
         this.beginTime = this.currentTime = System.currentTimeMillis();
         this.accounts = accounts;
         this.thread = thread;
+        this.stateAccess = stateAccess;
     }
 
     public ProgramExecutor callProgramExecutor() {
-        return new ProgramExecutorImpl(vmContext, source, repository, prevStateRoot, accounts, thread);
+        return new ProgramExecutorImpl(vmContext, source, repository, prevStateRoot, accounts, thread, stateAccess);
     }
 
     @Override
@@ -113,7 +116,7 @@ public class ProgramExecutorImpl implements ProgramExecutor {
             log.debug("begin vm root: {}", Hex.toHexString(prevStateRoot));
         }
         Repository repository = new RepositoryRoot(source, prevStateRoot);
-        return new ProgramExecutorImpl(vmContext, source, repository, prevStateRoot, new HashMap<>(), Thread.currentThread());
+        return new ProgramExecutorImpl(vmContext, source, repository, prevStateRoot, new HashMap<>(), Thread.currentThread(), null);
     }
 
     @Override
@@ -123,7 +126,37 @@ public class ProgramExecutorImpl implements ProgramExecutor {
             log.debug("startTracking");
         }
         Repository track = repository.startTracking();
-        return new ProgramExecutorImpl(vmContext, source, track, null, new HashMap<>(), thread);
+        return new ProgramExecutorImpl(vmContext, source, track, null, new HashMap<>(), thread, null);
+    }
+
+    @Override
+    public ProgramExecutor startRecording() {
+        checkThread();
+        if (log.isDebugEnabled()) {
+            log.debug("startRecording");
+        }
+        StateAccess stateAccess = new StateAccess();
+        Repository track = new RecordingRepository(repository.startTracking(), stateAccess);
+        return new ProgramExecutorImpl(vmContext, source, track, null, new HashMap<>(), thread, stateAccess);
+    }
+
+    @Override
+    public StateAccess getStateAccess() {
+        if (stateAccess != null) {
+            // 执行过程中读取过余额的地址都缓存在accounts中
+            for (ByteArrayWrapper address : accounts.keySet()) {
+                stateAccess.readBalance(address.getData());
+            }
+            stateAccess.setRevert(revert);
+        }
+        return stateAccess;
+    }
+
+    @Override
+    public void replay(StateAccess stateAccess) {
+        checkThread();
+        stateAccess.replay(repository);
+        this.revert = stateAccess.isRevert();
     }
 
     @Override
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.program.impl;
+
+import io.nuls.contract.vm.program.StateAccess;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.db.ContractDetails;
+import org.ethereum.vm.DataWord;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static io.nuls.contract.vm.program.StateAccess.accountKey;
+import static io.nuls.contract.vm.program.StateAccess.storageKey;
+
+/**
+ * 记录读写集合的Repository，所有操作委托给被包装的track
+ * <p>
+ * Repository recording the keys read and written, all operations are delegated to the wrapped track.
+ */
+class RecordingRepository implements Repository {
+
+    private final Repository repository;
+
+    private final StateAccess stateAccess;
+
+    RecordingRepository(Repository repository, StateAccess stateAccess) {
+        this.repository = repository;
+        this.stateAccess = stateAccess;
+    }
+
+    @Override
+    public AccountState createAccount(byte[] addr, byte[] creater) {
+        stateAccess.read(accountKey(addr));
+        stateAccess.write(accountKey(addr), r -> r.createAccount(addr, creater));
+        return repository.createAccount(addr, creater);
+    }
+
+    @Override
+    public boolean isExist(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.isExist(addr);
+    }
+
+    @Override
+    public AccountState getAccountState(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.getAccountState(addr);
+    }
+
+    @Override
+    public void delete(byte[] addr) {
+        stateAccess.write(accountKey(addr), r -> r.delete(addr));
+        repository.delete(addr);
+    }
+
+    @Override
+    public BigInteger increaseNonce(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        stateAccess.write(accountKey(addr), r -> r.increaseNonce(addr));
+        return repository.increaseNonce(addr);
+    }
+
+    @Override
+    public BigInteger setNonce(byte[] addr, BigInteger nonce) {
+        stateAccess.write(accountKey(addr), r -> r.setNonce(addr, nonce));
+        return repository.setNonce(addr, nonce);
+    }
+
+    @Override
+    public BigInteger getNonce(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.getNonce(addr);
+    }
+
+    @Override
+    public ContractDetails getContractDetails(byte[] addr) {
+        // 通过ContractDetails的访问无法记录
+        stateAccess.setUntracked(true);
+        return repository.getContractDetails(addr);
+    }
+
+    @Override
+    public boolean hasContractDetails(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.hasContractDetails(addr);
+    }
+
+    @Override
+    public void saveCode(byte[] addr, byte[] code) {
+        stateAccess.write(accountKey(addr), r -> r.saveCode(addr, code));
+        repository.saveCode(addr, code);
+    }
+
+    @Override
+    public byte[] getCode(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.getCode(addr);
+    }
+
+    @Override
+    public byte[] getCodeHash(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.getCodeHash(addr);
+    }
+
+    @Override
+    public void addStorageRow(byte[] addr, DataWord key, DataWord value) {
+        stateAccess.write(storageKey(addr, key), r -> r.addStorageRow(addr, key, value));
+        repository.addStorageRow(addr, key, value);
+    }
+
+    @Override
+    public DataWord getStorageValue(byte[] addr, DataWord key) {
+        stateAccess.read(storageKey(addr, key));
+        return repository.getStorageValue(addr, key);
+    }
+
+    @Override
+    public int getStorageSize(byte[] addr) {
+        stateAccess.setUntracked(true);
+        return repository.getStorageSize(addr);
+    }
+
+    @Override
+    public Set<DataWord> getStorageKeys(byte[] addr) {
+        stateAccess.setUntracked(true);
+        return repository.getStorageKeys(addr);
+    }
+
+    @Override
+    public Map<DataWord, DataWord> getStorage(byte[] addr, @Nullable Collection<DataWord> keys) {
+        stateAccess.setUntracked(true);
+        return repository.getStorage(addr, keys);
+    }
+
+    @Override
+    public BigInteger getBalance(byte[] addr) {
+        stateAccess.read(accountKey(addr));
+        return repository.getBalance(addr);
+    }
+
+    @Override
+    public BigInteger addBalance(byte[] addr, BigInteger value) {
+        stateAccess.read(accountKey(addr));
+        stateAccess.write(accountKey(addr), r -> r.addBalance(addr, value));
+        return repository.addBalance(addr, value);
+    }
+
+    @Override
+    public Set<byte[]> getAccountsKeys() {
+        stateAccess.setUntracked(true);
+        return repository.getAccountsKeys();
+    }
+
+    @Override
+    public void dumpState(Block block, long gasUsed, int txNumber, byte[] txHash) {
+        repository.dumpState(block, gasUsed, txNumber, txHash);
+    }
+
+    @Override
+    public Repository startTracking() {
+        // 嵌套track可能回滚，已记录的写操作不再可靠
+        stateAccess.setUntracked(true);
+        return repository.startTracking();
+    }
+
+    @Override
+    public void flush() {
+        repository.flush();
+    }
+
+    @Override
+    public void flushNoReconnect() {
+        repository.flushNoReconnect();
+    }
+
+    @Override
+    public void commit() {
+        repository.commit();
+    }
+
+    @Override
+    public void rollback() {
+        stateAccess.setUntracked(true);
+        repository.rollback();
+    }
+
+    @Override
+    public void syncToRoot(byte[] root) {
+        stateAccess.setUntracked(true);
+        repository.syncToRoot(root);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return repository.isClosed();
+    }
+
+    @Override
+    public void close() {
+        repository.close();
+    }
+
+    @Override
+    public void reset() {
+        stateAccess.setUntracked(true);
+        repository.reset();
+    }
+
+    @Override
+    public void updateBatch(HashMap<ByteArrayWrapper, AccountState> accountStates, HashMap<ByteArrayWrapper, ContractDetails> contractDetailes) {
+        stateAccess.setUntracked(true);
+        repository.updateBatch(accountStates, contractDetailes);
+    }
+
+    @Override
+    public byte[] getRoot() {
+        return repository.getRoot();
+    }
+
+    @Override
+    public void loadAccount(byte[] addr, HashMap<ByteArrayWrapper, AccountState> cacheAccounts, HashMap<ByteArrayWrapper, ContractDetails> cacheDetails) {
+        stateAccess.setUntracked(true);
+        repository.loadAccount(addr, cacheAccounts, cacheDetails);
+    }
+
+    @Override
+    public Repository getSnapshotTo(byte[] root) {
+        stateAccess.setUntracked(true);
+        return repository.getSnapshotTo(root);
+    }
+
+    @Override
+    public Repository clone() {
+        stateAccess.setUntracked(true);
+        return repository.clone();
+    }
+
+}
@@ -0,0 +1,516 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.util;
+
+import com.google.common.collect.BiMap;
+import io.nuls.contract.vm.ObjectRef;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.nuls.contract.vm.util.Utils.hashMapInitialCapacity;
+
+/**
+ * 合约状态的二进制编码，整数使用varint，类名使用类名字典的短名
+ * 以MAGIC和版本号开头，与以'{'或'['开头的JSON编码区分，读取时两种格式都支持
+ * <p>
+ * Binary encoding of contract state with varint integers and class names shortened by the class name dictionary.
+ * Values start with MAGIC and a version byte so they can be told apart from the JSON encoding,
+ * which starts with '{' or '['; readers accept both formats.
+ */
+public class BinaryUtils {
+
+    /**
+     * 不能为0，DataWord读取时会去掉前导0
+     * Must not be zero, DataWord strips leading zeroes
+     */
+    public static final byte MAGIC = (byte) 0xB5;
+
+    public static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte FLOAT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FALSE = 5;
+    private static final byte TRUE = 6;
+    private static final byte BYTE = 7;
+    private static final byte CHAR = 8;
+    private static final byte SHORT = 9;
+    private static final byte STRING = 10;
+    private static final byte REF = 11;
+    private static final byte REF_NUMBER = 12;
+    private static final byte ARRAY = 13;
+    private static final byte BOOLEAN = 14;
+
+    public static boolean isBinary(byte[] value) {
+        return value != null && value.length >= 2 && value[0] == MAGIC;
+    }
+
+    public static byte[] encode(Map<String, Object> fields, BiMap<String, String> classNames) {
+        Output out = new Output(16 + fields.size() * 12);
+        out.writeHeader();
+        out.writeVarLong(fields.size());
+        fields.forEach((k, v) -> {
+            out.writeString(k);
+            writeValue(out, v, classNames);
+        });
+        return out.toByteArray();
+    }
+
+    public static Map<String, Object> decode(byte[] value, BiMap<String, String> classNames) {
+        Input in = new Input(value);
+        int size = in.readLength();
+        Map<String, Object> map = new LinkedHashMap<>(hashMapInitialCapacity(size));
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            map.put(key, readValue(in, classNames));
+        }
+        in.checkEnd();
+        return map;
+    }
+
+    public static byte[] encodeArray(Object array, BiMap<String, String> classNames) {
+        Output out = new Output(16 + Array.getLength(array) * 4);
+        out.writeHeader();
+        writeArray(out, array, classNames);
+        return out.toByteArray();
+    }
+
+    public static Object decodeArray(byte[] value, BiMap<String, String> classNames) {
+        Input in = new Input(value);
+        Object array = readArray(in, classNames);
+        in.checkEnd();
+        return array;
+    }
+
+    private static void writeValue(Output out, Object value, BiMap<String, String> classNames) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Integer) {
+            out.write(INT);
+            out.writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            out.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Float) {
+            out.write(FLOAT);
+            out.writeFixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            out.writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Byte) {
+            out.write(BYTE);
+            out.write((Byte) value);
+        } else if (value instanceof Character) {
+            out.write(CHAR);
+            out.writeVarLong((Character) value);
+        } else if (value instanceof Short) {
+            out.write(SHORT);
+            out.writeVarLong(zigZag((Short) value));
+        } else if (value instanceof String) {
+            out.write(STRING);
+            out.writeString((String) value);
+        } else if (value instanceof ObjectRef) {
+            writeRef(out, (ObjectRef) value, classNames);
+        } else if (value.getClass().isArray()) {
+            out.write(ARRAY);
+            writeArray(out, value, classNames);
+        } else {
+            throw new IllegalArgumentException("unknown value");
+        }
+    }
+
+    private static Object readValue(Input in, BiMap<String, String> classNames) {
+        byte tag = in.read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return (int) unZigZag(in.readVarLong());
+            case LONG:
+                return unZigZag(in.readVarLong());
+            case FLOAT:
+                return Float.intBitsToFloat((int) in.readFixed(4));
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readFixed(8));
+            case FALSE:
+                return false;
+            case TRUE:
+                return true;
+            case BYTE:
+                return in.read();
+            case CHAR:
+                return (char) in.readVarLong();
+            case SHORT:
+                return (short) unZigZag(in.readVarLong());
+            case STRING:
+                return in.readString();
+            case REF:
+            case REF_NUMBER:
+                return readRef(in, tag, classNames);
+            case ARRAY:
+                return readArray(in, classNames);
+            default:
+                throw new IllegalArgumentException("unknown tag " + tag);
+        }
+    }
+
+    /**
+     * 自增生成的引用是不带前导0的十进制数，按varint写入，其它引用(合约地址、类名)按字符串写入
+     * Generated refs are decimal numbers without leading zeroes and are written as varints,
+     * other refs (contract addresses, class names) are written as strings
+     */
+    private static void writeRef(Output out, ObjectRef objectRef, BiMap<String, String> classNames) {
+        String ref = objectRef.getRef();
+        if (isNumber(ref)) {
+            out.write(REF_NUMBER);
+            out.writeVarLong(Long.parseLong(ref));
+        } else {
+            out.write(REF);
+            out.writeString(ref);
+        }
+        String desc = objectRef.getDesc();
+        String shortName = classNames.inverse().get(desc);
+        out.writeString(shortName != null ? shortName : desc);
+        int[] dimensions = objectRef.getDimensions();
+        out.writeVarLong(dimensions.length);
+        for (int dimension : dimensions) {
+            out.writeVarLong(dimension);
+        }
+    }
+
+    private static ObjectRef readRef(Input in, byte tag, BiMap<String, String> classNames) {
+        String ref = tag == REF_NUMBER ? Long.toString(in.readVarLong()) : in.readString();
+        String desc = in.readString();
+        String fullName = classNames.get(desc);
+        if (fullName != null) {
+            desc = fullName;
+        }
+        int[] dimensions = new int[in.readLength()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = (int) in.readVarLong();
+        }
+        return new ObjectRef(ref, desc, dimensions);
+    }
+
+    private static void writeArray(Output out, Object array, BiMap<String, String> classNames) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (componentType == Integer.TYPE) {
+            out.write(INT);
+            out.writeVarLong(length);
+            for (int v : (int[]) array) {
+                out.writeVarLong(zigZag(v));
+            }
+        } else if (componentType == Long.TYPE) {
+            out.write(LONG);
+            out.writeVarLong(length);
+            for (long v : (long[]) array) {
+                out.writeVarLong(zigZag(v));
+            }
+        } else if (componentType == Float.TYPE) {
+            out.write(FLOAT);
+            out.writeVarLong(length);
+            for (float v : (float[]) array) {
+                out.writeFixed(Float.floatToRawIntBits(v), 4);
+            }
+        } else if (componentType == Double.TYPE) {
+            out.write(DOUBLE);
+            out.writeVarLong(length);
+            for (double v : (double[]) array) {
+                out.writeFixed(Double.doubleToRawLongBits(v), 8);
+            }
+        } else if (componentType == Boolean.TYPE) {
+            out.write(BOOLEAN);
+            out.writeVarLong(length);
+            for (boolean v : (boolean[]) array) {
+                out.write(v ? TRUE : FALSE);
+            }
+        } else if (componentType == Byte.TYPE) {
+            out.write(BYTE);
+            out.writeVarLong(length);
+            out.write((byte[]) array);
+        } else if (componentType == Character.TYPE) {
+            out.write(CHAR);
+            out.writeVarLong(length);
+            for (char v : (char[]) array) {
+                out.writeVarLong(v);
+            }
+        } else if (componentType == Short.TYPE) {
+            out.write(SHORT);
+            out.writeVarLong(length);
+            for (short v : (short[]) array) {
+                out.writeVarLong(zigZag(v));
+            }
+        } else {
+            out.write(REF);
+            out.writeVarLong(length);
+            for (int i = 0; i < length; i++) {
+                ObjectRef objectRef = (ObjectRef) Array.get(array, i);
+                if (objectRef == null) {
+                    out.write(NULL);
+                } else {
+                    writeRef(out, objectRef, classNames);
+                }
+            }
+        }
+    }
+
+    private static Object readArray(Input in, BiMap<String, String> classNames) {
+        byte componentTag = in.read();
+        int length = in.readLength();
+        switch (componentTag) {
+            case INT: {
+                int[] array = new int[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (int) unZigZag(in.readVarLong());
+                }
+                return array;
+            }
+            case LONG: {
+                long[] array = new long[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = unZigZag(in.readVarLong());
+                }
+                return array;
+            }
+            case FLOAT: {
+                float[] array = new float[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = Float.intBitsToFloat((int) in.readFixed(4));
+                }
+                return array;
+            }
+            case DOUBLE: {
+                double[] array = new double[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = Double.longBitsToDouble(in.readFixed(8));
+                }
+                return array;
+            }
+            case BOOLEAN: {
+                boolean[] array = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.read() == TRUE;
+                }
+                return array;
+            }
+            case BYTE:
+                return in.readBytes(length);
+            case CHAR: {
+                char[] array = new char[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (char) in.readVarLong();
+                }
+                return array;
+            }
+            case SHORT: {
+                short[] array = new short[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (short) unZigZag(in.readVarLong());
+                }
+                return array;
+            }
+            case REF: {
+                ObjectRef[] array = new ObjectRef[length];
+                for (int i = 0; i < length; i++) {
+                    byte tag = in.read();
+                    if (tag != NULL) {
+                        array[i] = readRef(in, tag, classNames);
+                    }
+                }
+                return array;
+            }
+            default:
+                throw new IllegalArgumentException("unknown array type " + componentTag);
+        }
+    }
+
+    private static boolean isNumber(String ref) {
+        int length = ref.length();
+        if (length == 0 || length > 18 || (ref.charAt(0) == '0' && length > 1)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = ref.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+
+        private byte[] buf;
+
+        private int size;
+
+        Output(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void ensure(int n) {
+            if (size + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + n));
+            }
+        }
+
+        void writeHeader() {
+            write(MAGIC);
+            write(VERSION);
+        }
+
+        void write(byte b) {
+            ensure(1);
+            buf[size++] = b;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        void writeFixed(long value, int bytes) {
+            ensure(bytes);
+            for (int i = 0; i < bytes; i++) {
+                buf[size++] = (byte) (value >>> (i << 3));
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+    }
+
+    private static class Input {
+
+        private final byte[] buf;
+
+        private int pos;
+
+        Input(byte[] buf) {
+            if (!isBinary(buf)) {
+                throw new IllegalArgumentException("not binary state");
+            }
+            if (buf[1] != VERSION) {
+                throw new IllegalArgumentException("unknown state version " + buf[1]);
+            }
+            this.buf = buf;
+            this.pos = 2;
+        }
+
+        byte read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("unexpected end of state");
+            }
+            return buf[pos++];
+        }
+
+        byte[] readBytes(int length) {
+            if (pos + length > buf.length) {
+                throw new IllegalArgumentException("unexpected end of state");
+            }
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > buf.length - pos) {
+                throw new IllegalArgumentException("malformed length " + length);
+            }
+            return (int) length;
+        }
+
+        long readFixed(int bytes) {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (long) (read() & 0xFF) << (i << 3);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        void checkEnd() {
+            if (pos != buf.length) {
+                throw new IllegalArgumentException("trailing bytes in state");
+            }
+        }
+
+    }
+
+}
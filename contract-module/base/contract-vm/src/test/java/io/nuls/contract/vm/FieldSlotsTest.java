@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.code.ClassCodeLoader;
+import io.nuls.contract.vm.code.FieldLayout;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FieldSlotsTest {
+
+    public static class Base {
+        int a;
+        long b;
+    }
+
+    public static class Child extends Base {
+        static int s;
+        int c;
+        String b;
+    }
+
+    private FieldLayout layout;
+
+    @Before
+    public void setUp() {
+        FieldLayout baseLayout = new FieldLayout(null, ClassCodeLoader.load("io/nuls/contract/vm/FieldSlotsTest$Base"));
+        layout = new FieldLayout(baseLayout, ClassCodeLoader.load("io/nuls/contract/vm/FieldSlotsTest$Child"));
+    }
+
+    @Test
+    public void testLayout() {
+        assertEquals(3, layout.size());
+        assertEquals(0, layout.indexOf("a"));
+        assertEquals(1, layout.indexOf("b"));
+        assertEquals(2, layout.indexOf("c"));
+        assertEquals(FieldLayout.NOT_FOUND, layout.indexOf("s"));
+        assertEquals(2, layout.indexOf("c", 2));
+        assertEquals(2, layout.indexOf("c", 0));
+        assertEquals(FieldLayout.NOT_FOUND, layout.indexOf("x", 1));
+    }
+
+    @Test
+    public void testSameOrderAsLinkedHashMap() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        FieldSlots fieldSlots = new FieldSlots(layout, true);
+        String[] names = {"c", "x", "a", "c", "b", "y", "x"};
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(expected.put(names[i], i), fieldSlots.put(names[i], i));
+        }
+        assertEquals(expected, fieldSlots);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(fieldSlots.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(fieldSlots.values()));
+        assertEquals(expected.hashCode(), fieldSlots.hashCode());
+        assertNull(fieldSlots.get("z"));
+        assertFalse(fieldSlots.containsKey("z"));
+    }
+
+    @Test
+    public void testDirtySlots() {
+        FieldSlots fieldSlots = new FieldSlots(layout, true);
+        fieldSlots.put("a", 1);
+        fieldSlots.put("b", 2L);
+        assertTrue(fieldSlots.isDirty());
+
+        FieldSlots copy = fieldSlots.copy();
+        assertFalse(copy.isDirty());
+        assertEquals(fieldSlots, copy);
+
+        copy.set(layout.indexOf("b"), 3L);
+        assertTrue(copy.isDirty());
+        assertEquals(2L, fieldSlots.get("b"));
+        assertEquals(3L, copy.get("b"));
+
+        FieldSlots entries = copy.copy();
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            entry.setValue(entry.getValue());
+        }
+        assertTrue(entries.isDirty());
+
+        FieldSlots extra = copy.copy();
+        extra.put("x", 4);
+        assertTrue(extra.isDirty());
+        assertEquals(3, extra.size());
+    }
+
+}
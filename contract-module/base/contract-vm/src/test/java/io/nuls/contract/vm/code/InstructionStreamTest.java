@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import io.nuls.contract.vm.GasCost;
+import io.nuls.contract.vm.OpCode;
+import io.nuls.contract.vm.VM;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InstructionStreamTest {
+
+    private static final String CLASS_NAME = "io/nuls/contract/vm/code/InstructionStreamTest";
+
+    private ClassCode classCode;
+
+    public static int fib(int n) {
+        int a = 0, b = 1;
+        for (int i = 0; i < n; i++) {
+            int t = a + b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public static int sum(int n) {
+        int[] values = new int[n];
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            switch (i % 3) {
+                case 0:
+                    values[i] = i;
+                    break;
+                case 1:
+                    values[i] = -i;
+                    break;
+                default:
+                    values[i] = 1;
+            }
+            s += values[i];
+        }
+        return s;
+    }
+
+    @Before
+    public void setUp() {
+        classCode = ClassCodeLoader.load(CLASS_NAME);
+    }
+
+    @Test
+    public void testPseudoInstructionsDropped() {
+        MethodCode methodCode = classCode.getMethodCode("sum", "(I)I");
+        InstructionStream stream = methodCode.instructionStream;
+        int size = 0;
+        for (AbstractInsnNode insnNode = methodCode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            if (insnNode.getOpcode() >= 0) {
+                assertSame(insnNode, stream.insnNodes[size]);
+                assertEquals(OpCode.valueOf(insnNode.getOpcode()), stream.opCodes[size]);
+                size++;
+            }
+        }
+        assertEquals(size, stream.size());
+    }
+
+    @Test
+    public void testJumpTargets() {
+        InstructionStream stream = classCode.getMethodCode("fib", "(I)I").instructionStream;
+        int jumps = 0;
+        for (int i = 0; i < stream.size(); i++) {
+            if (stream.insnNodes[i] instanceof JumpInsnNode) {
+                LabelNode label = ((JumpInsnNode) stream.insnNodes[i]).label;
+                AbstractInsnNode target = label;
+                while (target != null && target.getOpcode() < 0) {
+                    target = target.getNext();
+                }
+                assertSame(target, stream.insnNodes[stream.jumpTargets[i]]);
+                jumps++;
+            } else {
+                assertEquals(InstructionStream.NO_TARGET, stream.jumpTargets[i]);
+            }
+        }
+        assertTrue(jumps > 0);
+    }
+
+    @Test
+    public void testGasCosts() {
+        InstructionStream stream = classCode.getMethodCode("sum", "(I)I").instructionStream;
+        for (int i = 0; i < stream.size(); i++) {
+            if (stream.opCodes[i] == OpCode.NEWARRAY) {
+                assertEquals(GasCost.DYNAMIC, stream.gasCosts[i]);
+            } else {
+                assertEquals(GasCost.cost(stream.insnNodes[i], stream.opCodes[i]), stream.gasCosts[i]);
+                assertTrue(stream.gasCosts[i] > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testRun() {
+        assertEquals(55, run("fib", 10));
+        assertEquals(fib(30), run("fib", 30));
+        assertEquals(sum(50), run("sum", 50));
+    }
+
+    private Object run(String methodName, int n) {
+        VM vm = new VM();
+        Map<String, ClassCode> classCodes = new LinkedHashMap<>();
+        classCodes.put("java/lang/Object", ClassCodeLoader.load("java/lang/Object"));
+        classCodes.put(CLASS_NAME, classCode);
+        vm.methodArea.loadClassCodes(classCodes);
+        MethodCode methodCode = vm.methodArea.loadMethod(CLASS_NAME, methodName, "(I)I");
+        vm.run(methodCode, new Object[]{n}, true);
+        return vm.getResultValue();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.program;
+
+import org.ethereum.vm.DataWord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StateAccessTest {
+
+    private static final byte[] CONTRACT_A = new byte[]{1, 1, 1};
+
+    private static final byte[] CONTRACT_B = new byte[]{2, 2, 2};
+
+    @Test
+    public void testStorageConflict() {
+        StateAccess committed = new StateAccess();
+        committed.write(StateAccess.storageKey(CONTRACT_A, DataWord.of(7)), repository -> {
+        });
+
+        StateAccess other = new StateAccess();
+        other.read(StateAccess.storageKey(CONTRACT_B, DataWord.of(7)));
+        other.read(StateAccess.storageKey(CONTRACT_A, DataWord.of(8)));
+        assertFalse(other.conflictsWith(committed));
+
+        StateAccess same = new StateAccess();
+        same.read(StateAccess.storageKey(CONTRACT_A, DataWord.of(7)));
+        assertTrue(same.conflictsWith(committed));
+    }
+
+    @Test
+    public void testBalanceConflict() {
+        StateAccess committed = new StateAccess();
+        StateAccess later = new StateAccess();
+        later.readBalance(CONTRACT_B);
+        assertFalse(later.conflictsWith(committed));
+
+        committed.writeBalance(CONTRACT_B);
+        assertTrue(later.conflictsWith(committed));
+    }
+
+    @Test
+    public void testMergeWrites() {
+        StateAccess committed = new StateAccess();
+        StateAccess first = new StateAccess();
+        first.write(StateAccess.accountKey(CONTRACT_A), repository -> {
+        });
+        committed.mergeWrites(first);
+
+        StateAccess second = new StateAccess();
+        second.read(StateAccess.accountKey(CONTRACT_A));
+        assertTrue(second.conflictsWith(committed));
+        // 只合并写集合，读集合不会造成冲突
+        assertFalse(committed.conflictsWith(second));
+    }
+
+    @Test
+    public void testReplayOrder() {
+        List<Integer> applied = new ArrayList<>();
+        StateAccess access = new StateAccess();
+        access.write(StateAccess.accountKey(CONTRACT_A), repository -> applied.add(1));
+        access.write(StateAccess.accountKey(CONTRACT_B), repository -> applied.add(2));
+        access.write(StateAccess.accountKey(CONTRACT_A), repository -> applied.add(3));
+        access.replay(null);
+        assertEquals(3, applied.size());
+        assertEquals(Integer.valueOf(1), applied.get(0));
+        assertEquals(Integer.valueOf(3), applied.get(2));
+    }
+
+}
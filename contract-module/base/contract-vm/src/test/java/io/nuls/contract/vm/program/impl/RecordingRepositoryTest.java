@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.program.impl;
+
+import io.nuls.contract.vm.program.StateAccess;
+import org.ethereum.core.Repository;
+import org.ethereum.datasource.inmem.HashMapDB;
+import org.ethereum.db.RepositoryRoot;
+import org.ethereum.vm.DataWord;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class RecordingRepositoryTest {
+
+    private static final byte[] SENDER = new byte[]{9, 9, 9};
+
+    private static final byte[] CONTRACT = new byte[]{1, 2, 3};
+
+    private static void execute(Repository track) {
+        track.createAccount(CONTRACT, SENDER);
+        track.saveCode(CONTRACT, new byte[]{0x0a, 0x0b});
+        track.increaseNonce(CONTRACT);
+        track.addStorageRow(CONTRACT, DataWord.of(1), DataWord.of(100));
+        track.addStorageRow(CONTRACT, DataWord.of(2), DataWord.of(200));
+        track.addBalance(CONTRACT, BigInteger.TEN);
+    }
+
+    @Test
+    public void testReplayProducesSameRoot() {
+        Repository direct = new RepositoryRoot(new HashMapDB<>());
+        Repository track = direct.startTracking();
+        execute(track);
+        track.commit();
+        direct.commit();
+
+        Repository speculative = new RepositoryRoot(new HashMapDB<>());
+        StateAccess stateAccess = new StateAccess();
+        execute(new RecordingRepository(speculative.startTracking(), stateAccess));
+        assertFalse(stateAccess.isUntracked());
+
+        Repository replayed = new RepositoryRoot(new HashMapDB<>());
+        Repository replayTrack = replayed.startTracking();
+        stateAccess.replay(replayTrack);
+        replayTrack.commit();
+        replayed.commit();
+
+        assertArrayEquals(direct.getRoot(), replayed.getRoot());
+        assertEquals(DataWord.of(200), replayed.getStorageValue(CONTRACT, DataWord.of(2)));
+        assertEquals(BigInteger.ONE, replayed.getNonce(CONTRACT));
+    }
+
+    @Test
+    public void testReadsConflictWithEarlierWrites() {
+        Repository root = new RepositoryRoot(new HashMapDB<>());
+
+        StateAccess earlier = new StateAccess();
+        Repository writer = new RecordingRepository(root.startTracking(), earlier);
+        writer.addStorageRow(CONTRACT, DataWord.of(1), DataWord.of(100));
+
+        StateAccess later = new StateAccess();
+        Repository reader = new RecordingRepository(root.startTracking(), later);
+        reader.getStorageValue(CONTRACT, DataWord.of(2));
+        assertFalse(later.conflictsWith(earlier));
+        reader.getStorageValue(CONTRACT, DataWord.of(1));
+        assertTrue(later.conflictsWith(earlier));
+    }
+
+    @Test
+    public void testNestedTrackIsUntracked() {
+        StateAccess stateAccess = new StateAccess();
+        Repository track = new RecordingRepository(new RepositoryRoot(new HashMapDB<>()).startTracking(), stateAccess);
+        track.startTracking();
+        assertTrue(stateAccess.isUntracked());
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.util;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import io.nuls.contract.vm.ObjectRef;
+import io.nuls.contract.vm.code.VariableType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON与二进制状态编码的性能对比，数据按NRC20代币余额表(HashMap)在状态中的结构构造：
+ * 一个HashMap$Node、它的地址字符串和BigInteger余额，以及一个1024个节点引用的table分块
+ * <p>
+ * Benchmark of the JSON and binary state encodings on data shaped like the balance map (a HashMap)
+ * of an NRC20 token: one HashMap$Node with its address string and BigInteger balance,
+ * plus a 1024 element chunk of the node table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryUtilsBenchmark {
+
+    private BiMap<String, String> classNames;
+
+    private Map<String, Object>[] objects;
+
+    private ObjectRef[] table;
+
+    private String[] jsonObjects;
+
+    private byte[][] binaryObjects;
+
+    private String jsonTable;
+
+    private byte[] binaryTable;
+
+    @Setup
+    public void setUp() {
+        classNames = HashBiMap.create();
+        classNames.put("0", "Lio/nuls/contract/token/SimpleToken;");
+        classNames.putAll(VariableType.DESCRIPTORS);
+
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("hash", 1893216347);
+        node.put("key", new ObjectRef("10231", "Ljava/lang/String;"));
+        node.put("value", new ObjectRef("10232", "Ljava/math/BigInteger;"));
+        node.put("next", null);
+
+        Map<String, Object> address = new LinkedHashMap<>();
+        address.put("hash", 0);
+        address.put("value", new ObjectRef("10233", "[C", 32));
+
+        Map<String, Object> chars = new LinkedHashMap<>();
+        chars.put("0", "Nsdz8mKKFMehRDVRZFyXNuuenugUYM7M".toCharArray());
+
+        Map<String, Object> balance = new LinkedHashMap<>();
+        balance.put("signum", 1);
+        balance.put("mag", new ObjectRef("10234", "[I", 2));
+        balance.put("bitCount", 0);
+        balance.put("bitLength", 0);
+        balance.put("lowestSetBit", 0);
+        balance.put("firstNonzeroIntNum", 0);
+
+        Map<String, Object> mag = new LinkedHashMap<>();
+        mag.put("0", new int[]{232, -727379968});
+
+        objects = new Map[]{node, address, chars, balance, mag};
+        jsonObjects = new String[objects.length];
+        binaryObjects = new byte[objects.length][];
+        for (int i = 0; i < objects.length; i++) {
+            jsonObjects[i] = JsonUtils.encode(objects[i], classNames);
+            binaryObjects[i] = BinaryUtils.encode(objects[i], classNames);
+        }
+
+        table = new ObjectRef[1024];
+        for (int i = 0; i < table.length; i += 2) {
+            table[i] = new ObjectRef(String.valueOf(20000 + i), "Ljava/util/HashMap$Node;");
+        }
+        jsonTable = JsonUtils.encodeArray(table, ObjectRef.class, classNames);
+        binaryTable = BinaryUtils.encodeArray(table, classNames);
+    }
+
+    @Benchmark
+    public int decodeObjectsJson() {
+        int size = 0;
+        for (String json : jsonObjects) {
+            size += ((Map) JsonUtils.decode(json, classNames)).size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int decodeObjectsBinary() {
+        int size = 0;
+        for (byte[] binary : binaryObjects) {
+            size += BinaryUtils.decode(binary, classNames).size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int encodeObjectsJson() {
+        int size = 0;
+        for (Map<String, Object> object : objects) {
+            size += JsonUtils.encode(object, classNames).length();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int encodeObjectsBinary() {
+        int size = 0;
+        for (Map<String, Object> object : objects) {
+            size += BinaryUtils.encode(object, classNames).length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public Object decodeTableJson() {
+        return JsonUtils.decodeArray(jsonTable, ObjectRef.class, classNames);
+    }
+
+    @Benchmark
+    public Object decodeTableBinary() {
+        return BinaryUtils.decodeArray(binaryTable, classNames);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BinaryUtilsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
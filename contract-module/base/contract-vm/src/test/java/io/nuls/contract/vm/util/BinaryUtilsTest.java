@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.util;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import io.nuls.contract.vm.ObjectRef;
+import io.nuls.contract.vm.code.VariableType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryUtilsTest {
+
+    private BiMap<String, String> classNames;
+
+    @Before
+    public void setUp() {
+        classNames = HashBiMap.create();
+        classNames.put("0", "Lio/nuls/contract/token/SimpleToken;");
+        classNames.putAll(VariableType.DESCRIPTORS);
+    }
+
+    @Test
+    public void testFieldsSameAsJson() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("i", -123456);
+        fields.put("j", Long.MIN_VALUE);
+        fields.put("f", 1.5f);
+        fields.put("d", -0.1d);
+        fields.put("z", true);
+        fields.put("b", (byte) -7);
+        fields.put("c", 'x');
+        fields.put("s", (short) 300);
+        fields.put("str", "中文 text");
+        fields.put("null", null);
+        fields.put("ref", new ObjectRef("42", "Ljava/util/HashMap;"));
+        fields.put("contract", new ObjectRef("Nsdz8mKKFMehRDVRZFyXNuuenugUYM7M", "Lio/nuls/contract/token/SimpleToken;"));
+        fields.put("other", new ObjectRef("007", "Lcom/example/Other;"));
+        fields.put("1", "1");
+        fields.put("0", new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE});
+
+        byte[] binary = BinaryUtils.encode(fields, classNames);
+        assertTrue(BinaryUtils.isBinary(binary));
+        Map<String, Object> fromBinary = BinaryUtils.decode(binary, classNames);
+        Map<String, Object> fromJson = (Map<String, Object>) JsonUtils.decode(JsonUtils.encode(fields, classNames), classNames);
+
+        assertEquals(Arrays.asList(fromJson.keySet().toArray()), Arrays.asList(fromBinary.keySet().toArray()));
+        for (String key : fromJson.keySet()) {
+            Object expected = fromJson.get(key);
+            Object actual = fromBinary.get(key);
+            if (expected instanceof int[]) {
+                assertArrayEquals((int[]) expected, (int[]) actual);
+            } else {
+                assertEquals(key, expected, actual);
+            }
+        }
+        assertEquals(JsonUtils.encode(fields, classNames), JsonUtils.encode(fromBinary, classNames));
+    }
+
+    @Test
+    public void testArrayChunks() {
+        ObjectRef[] refs = new ObjectRef[1024];
+        for (int i = 0; i < refs.length; i += 3) {
+            refs[i] = new ObjectRef(String.valueOf(1000 + i), "Ljava/util/HashMap$Node;");
+        }
+        assertArrayEquals(refs, (ObjectRef[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(refs, classNames), classNames));
+
+        ObjectRef[] multi = {new ObjectRef("5", "[I", 3), null};
+        assertArrayEquals(multi, (ObjectRef[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(multi, classNames), classNames));
+
+        char[] chars = "Nsdz8mKKFMehRDVRZFyXNuuenugUYM7M".toCharArray();
+        assertArrayEquals(chars, (char[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(chars, classNames), classNames));
+
+        byte[] bytes = {0, 1, -1, 127, -128};
+        assertArrayEquals(bytes, (byte[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(bytes, classNames), classNames));
+
+        long[] longs = {0, -1, Long.MAX_VALUE, Long.MIN_VALUE};
+        assertArrayEquals(longs, (long[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(longs, classNames), classNames));
+
+        boolean[] booleans = {true, false, true};
+        assertTrue(Arrays.equals(booleans, (boolean[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(booleans, classNames), classNames)));
+
+        double[] doubles = {0.0, -0.0, Double.NaN, 1e300};
+        assertArrayEquals(doubles, (double[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(doubles, classNames), classNames), 0);
+
+        short[] shorts = {Short.MIN_VALUE, 0, Short.MAX_VALUE};
+        assertArrayEquals(shorts, (short[]) BinaryUtils.decodeArray(BinaryUtils.encodeArray(shorts, classNames), classNames));
+    }
+
+    @Test
+    public void testJsonIsNotBinary() {
+        assertFalse(BinaryUtils.isBinary("{\"a\":\"I_1\"}".getBytes()));
+        assertFalse(BinaryUtils.isBinary("[1,2]".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVersion() {
+        byte[] binary = BinaryUtils.encode(new LinkedHashMap<>(), classNames);
+        binary[1] = 2;
+        BinaryUtils.decode(binary, classNames);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("value", "truncated");
+        byte[] binary = BinaryUtils.encode(fields, classNames);
+        BinaryUtils.decode(Arrays.copyOf(binary, binary.length - 1), classNames);
+    }
+
+}
@@ -78,6 +78,11 @@ public interface ContractConstant extends NulsConstant {
 
     int MAX_PACKAGE_GAS = 5000000;
 
+    /**
+     * 区块中调用合约交易至少达到这个数量才会并行预执行
+     */
+    int SPECULATION_MIN_TXS = 2;
+
     /**
      *
      */
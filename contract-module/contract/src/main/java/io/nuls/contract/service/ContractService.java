@@ -175,6 +175,12 @@ public interface ContractService {
 
     void createBatchExecute(byte[] stateRoot);
 
+    /**
+     * 在批量执行开始后，并行预执行区块中的调用合约交易，与之前交易不冲突的结果会被直接采用
+     * Speculatively executes the call-contract transactions of a block in parallel; results that do not conflict with earlier transactions are adopted as-is
+     */
+    void speculateBatchTxs(List<Transaction> txs, long bestHeight, BlockHeader tempHeader, byte[] stateRoot, boolean isForkChain);
+
     Result<byte[]> commitBatchExecute();
 
     void removeBatchExecute();
@@ -28,7 +28,9 @@ package io.nuls.kernel.lite.core;
 import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.constant.ModuleStatusEnum;
 import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.lite.core.interceptor.BeanMethodInterceptorChain;
 import io.nuls.kernel.lite.core.interceptor.BeanMethodInterceptorManager;
+import io.nuls.kernel.lite.core.interceptor.MultipleBeanMethodInterceptorChain;
 import io.nuls.kernel.lite.exception.BeanStatusException;
 import io.nuls.kernel.module.BaseModuleBootstrap;
 import io.nuls.kernel.module.manager.ServiceManager;
@@ -37,23 +39,27 @@ import net.sf.cglib.proxy.MethodProxy;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 系统默认的服务拦截器
+ * 每个代理类、每个方法的拦截计划(目标类型、注解、拦截器链、所属模块)只在第一次调用时计算，之后直接使用
  * System default service interceptor.
+ * The interceptor plan of every proxy class and method (target type, annotations, interceptor chains, module)
+ * is computed on the first call only and reused afterwards.
  *
  * @author Niels
  */
 public class ModularServiceMethodInterceptor implements MethodInterceptor {
+
+    private static final int MAX_RETRY_COUNT = 100;
+
     /**
-     * 线程安全的拦截器执行进度标识
-     * Thread-safe interceptors perform progress identification.
+     * 代理类的拦截计划
+     * Interceptor plans of the proxy classes.
      */
-    private ThreadLocal<Integer> threadLocal = new ThreadLocal<>();
+    private final Map<Class, ClassPlan> classPlanMap = new ConcurrentHashMap<>();
 
     /**
      * 拦截方法
@@ -69,13 +75,13 @@ public class ModularServiceMethodInterceptor implements MethodInterceptor {
     @Override
     public Object intercept(Object obj, Method method, Object[] params, MethodProxy methodProxy) throws Throwable {
 //        Log.debug(method.toString());
-        threadLocal.set(0);
+        int count = 0;
         Throwable throwable = null;
-        while (threadLocal.get() < 100) {
+        while (count < MAX_RETRY_COUNT) {
             try {
                 return this.doIntercept(obj, method, params, methodProxy);
             } catch (BeanStatusException e) {
-                threadLocal.set(threadLocal.get() + 1);
+                count++;
                 throwable = e;
                 Thread.sleep(200L);
             }
@@ -95,31 +101,32 @@ public class ModularServiceMethodInterceptor implements MethodInterceptor {
      * @throws Throwable 该方法可能抛出异常，请谨慎处理/This method may throw an exception, handle with care.
      */
     private Object doIntercept(Object obj, Method method, Object[] params, MethodProxy methodProxy) throws Throwable {
-        List<Annotation> annotationList = new ArrayList<>();
-        if (!method.getDeclaringClass().equals(Object.class)) {
-            String className = obj.getClass().getCanonicalName();
-            className = className.substring(0, className.indexOf("$$"));
-            Class clazz = Class.forName(className);
-            fillAnnotationList(annotationList, clazz, method);
-            BaseModuleBootstrap module = ServiceManager.getInstance().getModule(clazz);
-            if (module == null) {
-                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
-            }
-            if (module.getModuleId() != NulsConstant.MODULE_ID_MICROKERNEL &&
-                    module.getStatus() != ModuleStatusEnum.STARTING &&
-                    module.getStatus() != ModuleStatusEnum.RUNNING) {
-                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
-            }
-            boolean isOk = SpringLiteContext.checkBeanOk(obj);
-            if (!isOk) {
-                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
-            }
+        if (method.getDeclaringClass().equals(Object.class)) {
+            return methodProxy.invokeSuper(obj, params);
         }
-        if (annotationList.isEmpty()) {
+        ClassPlan classPlan = getClassPlan(obj.getClass());
+        classPlan.checkReady(obj);
+        MethodPlan methodPlan = classPlan.getMethodPlan(method);
+        InterceptorBinding binding = methodPlan.getBinding();
+        if (binding.chainList.isEmpty()) {
             return methodProxy.invokeSuper(obj, params);
         }
-        return BeanMethodInterceptorManager.doInterceptor(annotationList.toArray(new Annotation[annotationList.size()]), obj, method, params, methodProxy);
+        MultipleBeanMethodInterceptorChain chain = new MultipleBeanMethodInterceptorChain(binding.annotationList, binding.chainList);
+        return chain.startInterceptor(null, obj, method, params, methodProxy);
+    }
 
+    private ClassPlan getClassPlan(Class proxyClass) throws ClassNotFoundException {
+        ClassPlan plan = classPlanMap.get(proxyClass);
+        if (plan == null) {
+            String className = proxyClass.getCanonicalName();
+            className = className.substring(0, className.indexOf("$$"));
+            plan = new ClassPlan(Class.forName(className));
+            ClassPlan old = classPlanMap.putIfAbsent(proxyClass, plan);
+            if (old != null) {
+                plan = old;
+            }
+        }
+        return plan;
     }
 
     /**
@@ -130,7 +137,7 @@ public class ModularServiceMethodInterceptor implements MethodInterceptor {
      * @param clazz          方法所属对象的类型/The type of the object that the method belongs to.
      * @param method         方法定义/Method definition
      */
-    private void fillAnnotationList(List<Annotation> annotationList, Class clazz, Method method) {
+    private static void fillAnnotationList(List<Annotation> annotationList, Class clazz, Method method) {
         Set<Class> classSet = new HashSet<>();
         for (Annotation ann : method.getDeclaredAnnotations()) {
             annotationList.add(ann);
@@ -147,4 +154,132 @@ public class ModularServiceMethodInterceptor implements MethodInterceptor {
             }
         }
     }
+
+    /**
+     * 一个代理类的拦截计划：目标类型、所属模块、实例状态和各方法的计划
+     * Interceptor plan of a proxy class: the target type, its module, the instance status and the plans of the methods.
+     */
+    private static class ClassPlan {
+
+        private final Class clazz;
+
+        private final Map<Method, MethodPlan> methodPlanMap = new ConcurrentHashMap<>();
+
+        /**
+         * 已确认的所属模块和组装完成的实例，实例集合的版本改变(如服务被删除)后重新检查
+         * The confirmed module and assembled instance, checked again when the version of the instances changes
+         * (e.g. a service is removed)
+         */
+        private volatile ReadyState readyState;
+
+        ClassPlan(Class clazz) {
+            this.clazz = clazz;
+        }
+
+        void checkReady(Object obj) {
+            int beanVersion = SpringLiteContext.getBeanVersion();
+            ReadyState state = readyState;
+            if (state != null && state.beanVersion == beanVersion && state.bean == obj) {
+                checkModuleStatus(state.module);
+                return;
+            }
+            BaseModuleBootstrap module = ServiceManager.getInstance().getModule(clazz);
+            if (module == null) {
+                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
+            }
+            checkModuleStatus(module);
+            if (!SpringLiteContext.checkBeanOk(obj)) {
+                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
+            }
+            readyState = new ReadyState(beanVersion, module, obj);
+        }
+
+        private void checkModuleStatus(BaseModuleBootstrap module) {
+            if (module.getModuleId() != NulsConstant.MODULE_ID_MICROKERNEL &&
+                    module.getStatus() != ModuleStatusEnum.STARTING &&
+                    module.getStatus() != ModuleStatusEnum.RUNNING) {
+                throw new BeanStatusException(KernelErrorCode.DATA_ERROR);
+            }
+        }
+
+        MethodPlan getMethodPlan(Method method) {
+            MethodPlan plan = methodPlanMap.get(method);
+            if (plan == null) {
+                List<Annotation> annotationList = new ArrayList<>();
+                fillAnnotationList(annotationList, clazz, method);
+                plan = new MethodPlan(annotationList);
+                MethodPlan old = methodPlanMap.putIfAbsent(method, plan);
+                if (old != null) {
+                    plan = old;
+                }
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * 一个方法的拦截计划：全部注解和其中有拦截器的部分，拦截器池改变后重新绑定
+     * Interceptor plan of a method: all of its annotations and the ones bound to interceptors,
+     * rebound when the interceptor pool changes.
+     */
+    private static class MethodPlan {
+
+        private final List<Annotation> annotationList;
+
+        private volatile InterceptorBinding binding;
+
+        MethodPlan(List<Annotation> annotationList) {
+            this.annotationList = annotationList;
+        }
+
+        InterceptorBinding getBinding() {
+            int version = BeanMethodInterceptorManager.getVersion();
+            InterceptorBinding binding = this.binding;
+            if (binding != null && binding.version == version) {
+                return binding;
+            }
+            List<Annotation> boundAnnotations = new ArrayList<>();
+            List<BeanMethodInterceptorChain> chainList = new ArrayList<>();
+            for (Annotation ann : annotationList) {
+                BeanMethodInterceptorChain chain = BeanMethodInterceptorManager.getInterceptorChain(ann.annotationType());
+                if (null != chain) {
+                    boundAnnotations.add(ann);
+                    chainList.add(chain);
+                }
+            }
+            binding = new InterceptorBinding(version, boundAnnotations, chainList);
+            this.binding = binding;
+            return binding;
+        }
+    }
+
+    private static class ReadyState {
+
+        private final int beanVersion;
+
+        private final BaseModuleBootstrap module;
+
+        private final Object bean;
+
+        ReadyState(int beanVersion, BaseModuleBootstrap module, Object bean) {
+            this.beanVersion = beanVersion;
+            this.module = module;
+            this.bean = bean;
+        }
+    }
+
+    private static class InterceptorBinding {
+
+        private final int version;
+
+        private final List<Annotation> annotationList;
+
+        private final List<BeanMethodInterceptorChain> chainList;
+
+        InterceptorBinding(int version, List<Annotation> annotationList, List<BeanMethodInterceptorChain> chainList) {
+            this.version = version;
+            this.annotationList = annotationList;
+            this.chainList = chainList;
+        }
+    }
 }
@@ -57,6 +57,11 @@ public class SpringLiteContext {
 
     private static final Map<String, Object> BEAN_OK_MAP = new ConcurrentHashMap<>();
     private static final Map<String, Object> BEAN_TEMP_MAP = new ConcurrentHashMap<>();
+    /**
+     * 删除实例时递增，用于让缓存的实例状态失效
+     * Increases when instances are removed, so cached instance status is checked again
+     */
+    private static volatile int beanVersion;
     private static final Map<String, Class> BEAN_TYPE_MAP = new ConcurrentHashMap<>();
     private static final Map<Class, Set<String>> CLASS_NAME_SET_MAP = new ConcurrentHashMap<>();
 
@@ -418,7 +423,7 @@ public class SpringLiteContext {
             BEAN_TEMP_MAP.remove(name);
             BEAN_TYPE_MAP.remove(name);
         }
-
+        beanVersion++;
     }
 
     //    /**
@@ -431,6 +436,16 @@ public class SpringLiteContext {
         return BEAN_OK_MAP.containsValue(bean);
     }
 
+    /**
+     * 获取实例集合的版本，实例被删除后版本改变
+     * Get the version of the instances, it changes when instances are removed.
+     *
+     * @return 版本/version
+     */
+    public static int getBeanVersion() {
+        return beanVersion;
+    }
+
     //    /**
 //     * 获取一个类型的所有实例
 //     * Gets all instances of a type.
@@ -47,6 +47,12 @@ public class BeanMethodInterceptorManager {
      */
     private static final Map<Class, BeanMethodInterceptorChain> INTERCEPTOR_MAP = new HashMap<>();
 
+    /**
+     * 拦截器池的版本，每次添加拦截器时递增，用于让缓存的拦截计划失效
+     * Version of the interceptor pool, it increases on every added interceptor so cached interceptor plans are rebuilt
+     */
+    private static volatile int version;
+
     /**
      * 添加方法拦截器到管理器中
      * Add a method interceptor to the manager.
@@ -54,13 +60,35 @@ public class BeanMethodInterceptorManager {
      * @param annotationType 注解类型
      * @param interceptor    拦截器
      */
-    public static void addBeanMethodInterceptor(Class annotationType, BeanMethodInterceptor interceptor) {
+    public static synchronized void addBeanMethodInterceptor(Class annotationType, BeanMethodInterceptor interceptor) {
         BeanMethodInterceptorChain interceptorChain = INTERCEPTOR_MAP.get(annotationType);
         if (null == interceptorChain) {
             interceptorChain = new BeanMethodInterceptorChain();
         }
         interceptorChain.add(interceptor);
         INTERCEPTOR_MAP.put(annotationType, interceptorChain);
+        version++;
+    }
+
+    /**
+     * 获取注解类型对应的拦截器链，没有时返回null
+     * Get the interceptor chain of an annotation type, null if there is none.
+     *
+     * @param annotationType 注解类型
+     * @return 拦截器链
+     */
+    public static BeanMethodInterceptorChain getInterceptorChain(Class annotationType) {
+        return INTERCEPTOR_MAP.get(annotationType);
+    }
+
+    /**
+     * 获取拦截器池的版本
+     * Get the version of the interceptor pool.
+     *
+     * @return 版本/version
+     */
+    public static int getVersion() {
+        return version;
     }
 
     /**
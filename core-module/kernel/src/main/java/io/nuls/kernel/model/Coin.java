@@ -33,7 +33,6 @@ import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
 import io.nuls.kernel.func.TimeService;
-import io.nuls.kernel.script.Script;
 import io.nuls.kernel.utils.AddressTool;
 import io.nuls.kernel.utils.NulsByteBuffer;
 import io.nuls.kernel.utils.NulsOutputStreamBuffer;
@@ -197,24 +196,19 @@ public class Coin extends BaseNulsData {
 
     @JsonIgnore
     public byte[] getAddress() {
-        byte[] address = new byte[23];
         //如果owner不是存放的脚本则直接返回owner
-        if (owner == null || owner.length == 23) {
+        if (owner == null || owner.length == Address.ADDRESS_LENGTH) {
             return owner;
-        } else {
-            Script scriptPubkey = new Script(owner);
-            //如果为P2PKH类型交易则从第四位开始返回23个字节
-            if (scriptPubkey.isSentToAddress()) {
-                System.arraycopy(owner, 3, address, 0, 23);
-            }
-            //如果为P2SH或multi类型的UTXO则从第三位开始返回23个字节
-            else if (scriptPubkey.isPayToScriptHash()) {
-                scriptPubkey.isSentToMultiSig();
-                System.arraycopy(owner, 2, address, 0, 23);
-            }else{
-                throw new NulsRuntimeException(KernelErrorCode.ADDRESS_IS_NOT_BELONGS_TO_CHAIN);
-            }
         }
+        //P2PKH类型从第四位开始、P2SH或multi类型从第三位开始取23个字节，标准脚本按字节识别，不再创建Script对象
+        //P2PKH owners carry the address from the 4th byte, P2SH or multi from the 3rd; standard scripts are recognized
+        //on the bytes without creating a Script
+        int offset = CoinView.getAddressOffset(CoinView.getOwnerType(owner, 0, owner.length));
+        if (offset < 0) {
+            throw new NulsRuntimeException(KernelErrorCode.ADDRESS_IS_NOT_BELONGS_TO_CHAIN);
+        }
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        System.arraycopy(owner, offset, address, 0, Address.ADDRESS_LENGTH);
         return address;
     }
 
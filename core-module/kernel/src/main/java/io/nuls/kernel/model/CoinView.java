@@ -0,0 +1,274 @@
+/*
+ * *
+ *  * MIT License
+ *  *
+ *  * Copyright (c) 2017-2019 nuls.io
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.model;
+
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.func.TimeService;
+import io.nuls.kernel.script.Script;
+import io.nuls.kernel.script.ScriptOpCodes;
+import io.nuls.kernel.utils.SerializeUtils;
+
+/**
+ * Coin序列化数据的只读视图，直接从字节数组的固定偏移读取金额、锁定时间和地址，不复制owner也不创建Na
+ * 同一个实例可以通过wrap反复指向下一条数据，适合遍历大量utxo；锁定脚本类型在每次wrap后只识别一次
+ * A read-only view over the serialized bytes of a Coin. Amount, lock time and address are read at fixed offsets of
+ * the backing array, the owner is not copied and no Na is created. One instance can be re-pointed at the next
+ * entry with wrap, which suits scans over many utxo; the script type is recognized once per wrap.
+ */
+public final class CoinView {
+
+    private static final int OWNER_TYPE_UNKNOWN = -1;
+    private static final int OWNER_TYPE_UNRECOGNIZED = 0;
+    private static final int OWNER_TYPE_ADDRESS = 1;
+    private static final int OWNER_TYPE_P2PKH = 2;
+    private static final int OWNER_TYPE_P2SH = 3;
+
+    private static final int P2PKH_LENGTH = Address.ADDRESS_LENGTH + 5;
+    private static final int P2SH_LENGTH = Address.ADDRESS_LENGTH + 3;
+
+    private static final int NA_LENGTH = 8;
+    private static final int LOCK_TIME_LENGTH = 6;
+    private static final long UINT48_MAX = 0xFFFFFFFFFFFFL;
+
+    private byte[] bytes;
+    private int ownerOffset;
+    private int ownerLength;
+    private int naOffset;
+    private int ownerType = OWNER_TYPE_UNKNOWN;
+
+    public CoinView wrap(byte[] bytes) throws NulsException {
+        return wrap(bytes, 0);
+    }
+
+    /**
+     * 指向一条Coin序列化数据，格式与Coin.parse一致：变长owner、8字节金额、6字节锁定时间
+     * Points the view at a serialized Coin, the same layout Coin.parse reads: length prefixed owner,
+     * 8 byte amount and 6 byte lock time
+     */
+    public CoinView wrap(byte[] bytes, int offset) throws NulsException {
+        if (bytes == null || offset < 0 || offset >= bytes.length) {
+            throw new NulsException(KernelErrorCode.DATA_PARSE_ERROR);
+        }
+        long length;
+        int cursor;
+        try {
+            int first = bytes[offset] & 0xFF;
+            if (first < 253) {
+                length = first;
+                cursor = offset + 1;
+            } else if (first == 253) {
+                length = SerializeUtils.readUint16LE(bytes, offset + 1);
+                cursor = offset + 3;
+            } else if (first == 254) {
+                length = SerializeUtils.readUint32LE(bytes, offset + 1);
+                cursor = offset + 5;
+            } else {
+                length = SerializeUtils.readInt64LE(bytes, offset + 1);
+                cursor = offset + 9;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new NulsException(KernelErrorCode.DATA_PARSE_ERROR, e);
+        }
+        if (length < 0 || cursor + length + NA_LENGTH + LOCK_TIME_LENGTH > bytes.length) {
+            throw new NulsException(KernelErrorCode.DATA_PARSE_ERROR);
+        }
+        this.bytes = bytes;
+        this.ownerOffset = cursor;
+        this.ownerLength = (int) length;
+        this.naOffset = cursor + (int) length;
+        this.ownerType = OWNER_TYPE_UNKNOWN;
+        return this;
+    }
+
+    public long getNaValue() {
+        return SerializeUtils.readInt64LE(bytes, naOffset);
+    }
+
+    /**
+     * 与NulsByteBuffer.readUint48一致，全1表示永久锁定，返回-1
+     * Same as NulsByteBuffer.readUint48, all ones means locked forever and reads as -1
+     */
+    public long getLockTime() {
+        int offset = naOffset + NA_LENGTH;
+        long value = (bytes[offset] & 0xffL) |
+                ((bytes[offset + 1] & 0xffL) << 8) |
+                ((bytes[offset + 2] & 0xffL) << 16) |
+                ((bytes[offset + 3] & 0xffL) << 24) |
+                ((bytes[offset + 4] & 0xffL) << 32) |
+                ((bytes[offset + 5] & 0xffL) << 40);
+        if (value == UINT48_MAX) {
+            return -1L;
+        }
+        return value;
+    }
+
+    public int getOwnerLength() {
+        return ownerLength;
+    }
+
+    /**
+     * 复制一份owner，owner为空时与Coin.parse一样返回null
+     * A copy of the owner, null for an empty owner as Coin.parse does
+     */
+    public byte[] getOwner() {
+        if (ownerLength == 0) {
+            return null;
+        }
+        byte[] owner = new byte[ownerLength];
+        System.arraycopy(bytes, ownerOffset, owner, 0, ownerLength);
+        return owner;
+    }
+
+    /**
+     * 所属地址是否与给定地址相同，不分配内存；无法识别的锁定脚本返回false
+     * Whether the coin belongs to the given address, without allocating; false for unrecognized scripts
+     */
+    public boolean isAddress(byte[] address) {
+        if (address == null || address.length != Address.ADDRESS_LENGTH) {
+            return false;
+        }
+        int offset = getAddressOffset();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < Address.ADDRESS_LENGTH; i++) {
+            if (bytes[offset + i] != address[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 所属地址，规则与Coin.getAddress相同，无法识别的锁定脚本返回null
+     * The address the coin belongs to by the rules of Coin.getAddress, null for unrecognized scripts
+     */
+    public byte[] getAddress() {
+        int offset = getAddressOffset();
+        if (offset < 0) {
+            return null;
+        }
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        System.arraycopy(bytes, offset, address, 0, Address.ADDRESS_LENGTH);
+        return address;
+    }
+
+    /**
+     * 与Coin.usable相同的可用判断
+     * The same check as Coin.usable
+     */
+    public boolean usable(long bestHeight) {
+        long lockTime = getLockTime();
+        if (lockTime < 0) {
+            return false;
+        }
+        if (lockTime == 0) {
+            return true;
+        }
+        if (lockTime > NulsConstant.BlOCKHEIGHT_TIME_DIVIDE) {
+            return lockTime <= TimeService.currentTimeMillis();
+        }
+        return lockTime <= bestHeight;
+    }
+
+    /**
+     * 生成完整的Coin对象，只对真正需要返回的数据调用
+     * Materializes a full Coin, only for entries that are actually returned
+     */
+    public Coin toCoin() {
+        return new Coin(getOwner(), Na.valueOf(getNaValue()), getLockTime());
+    }
+
+    private int getAddressOffset() {
+        if (ownerType == OWNER_TYPE_UNKNOWN) {
+            ownerType = getOwnerType(bytes, ownerOffset, ownerLength);
+        }
+        int offset = getAddressOffset(ownerType);
+        return offset < 0 ? offset : ownerOffset + offset;
+    }
+
+    /**
+     * 地址在owner中的起始位置，无法识别时返回-1
+     * Start of the address inside the owner, -1 when unrecognized
+     */
+    static int getAddressOffset(int ownerType) {
+        switch (ownerType) {
+            case OWNER_TYPE_ADDRESS:
+                return 0;
+            case OWNER_TYPE_P2PKH:
+                return 3;
+            case OWNER_TYPE_P2SH:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 识别owner的类型：标准的P2PKH和P2SH模板直接按字节判断，其余情况才解析脚本
+     * Recognizes the owner: the standard P2PKH and P2SH templates are matched on the bytes, a script is only
+     * parsed for anything else
+     */
+    static int getOwnerType(byte[] bytes, int offset, int length) {
+        if (length == Address.ADDRESS_LENGTH) {
+            return OWNER_TYPE_ADDRESS;
+        }
+        if (length == P2PKH_LENGTH
+                && (bytes[offset] & 0xFF) == ScriptOpCodes.OP_DUP
+                && (bytes[offset + 1] & 0xFF) == ScriptOpCodes.OP_HASH160
+                && (bytes[offset + 2] & 0xFF) == Address.ADDRESS_LENGTH
+                && (bytes[offset + length - 2] & 0xFF) == ScriptOpCodes.OP_EQUALVERIFY
+                && (bytes[offset + length - 1] & 0xFF) == ScriptOpCodes.OP_CHECKSIG) {
+            return OWNER_TYPE_P2PKH;
+        }
+        if (length == P2SH_LENGTH
+                && (bytes[offset] & 0xFF) == ScriptOpCodes.OP_HASH160
+                && (bytes[offset + 1] & 0xFF) == Address.ADDRESS_LENGTH
+                && (bytes[offset + length - 1] & 0xFF) == ScriptOpCodes.OP_EQUAL) {
+            return OWNER_TYPE_P2SH;
+        }
+        if (length == 0) {
+            return OWNER_TYPE_UNRECOGNIZED;
+        }
+        byte[] program = new byte[length];
+        System.arraycopy(bytes, offset, program, 0, length);
+        try {
+            Script script = new Script(program);
+            if (script.isSentToAddress()) {
+                return OWNER_TYPE_P2PKH;
+            }
+            if (script.isPayToScriptHash()) {
+                return OWNER_TYPE_P2SH;
+            }
+        } catch (Exception e) {
+            return OWNER_TYPE_UNRECOGNIZED;
+        }
+        return OWNER_TYPE_UNRECOGNIZED;
+    }
+}
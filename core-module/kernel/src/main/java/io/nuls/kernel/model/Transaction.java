@@ -66,6 +66,12 @@ public abstract class Transaction<T extends TransactionLogicData> extends BaseNu
 
     protected transient int size;
 
+    /**
+     * 签名已经在区块下载阶段验证过，之后的交易验证不再重复验证签名
+     * The signatures were verified while the block was downloaded, later validation of the tx skips them
+     */
+    private transient boolean signatureVerified;
+
     @Override
     public int size() {
         int size = 0;
@@ -179,6 +185,14 @@ public abstract class Transaction<T extends TransactionLogicData> extends BaseNu
         return true;
     }
 
+    public boolean isSignatureVerified() {
+        return signatureVerified;
+    }
+
+    public void setSignatureVerified(boolean signatureVerified) {
+        this.signatureVerified = signatureVerified;
+    }
+
     protected abstract T parseTxData(NulsByteBuffer byteBuffer) throws NulsException;
 
     public Transaction(int type) {
@@ -1546,7 +1546,7 @@ public class Script {
             // We could reasonably move this out of the loop, but because signature verification is significantly
             // more expensive than hashing, its not a big deal.
             try {
-                if (ECKey.verify(txContainingThis.getHash().getDigestBytes(), sigs.getFirst(), pubKey)) {
+                if (SignatureCache.verify(txContainingThis.getHash().getDigestBytes(), sigs.getFirst(), pubKey)) {
                     sigs.pollFirst();
                 }
                /* TransactionSignature sig = TransactionSignature.decodeFromBitcoin(sigs.getFirst(), requireCanonical);
@@ -1705,7 +1705,7 @@ public class Script {
      * 签名验证
      */
     public static boolean verifySign(byte[] digestData, byte[] signData, byte[] publicKey) {
-        return ECKey.verify(digestData, signData, publicKey);
+        return SignatureCache.verify(digestData, signData, publicKey);
     }
 
     @Override
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.script;
+
+import io.nuls.core.tools.crypto.ECKey;
+import io.nuls.core.tools.crypto.Sha256Hash;
+import io.nuls.kernel.utils.TwoGenerations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证签名的缓存，键为(摘要, 公钥, 签名)的哈希，只记录验证通过的签名
+ * 交易进入内存池时验证过的签名，在打包和验证区块时不需要再做一次ECDSA验证
+ * 由当前和上一代两个集合组成，当前代写满后变为上一代，原来的上一代被丢弃
+ * <p>
+ * Cache of verified signatures keyed by the hash of (digest, public key, signature), only successful
+ * verifications are recorded. A signature checked when its transaction entered the memory pool needs no second
+ * ECDSA verification while packing or validating a block. Made of a current and a previous generation, the current
+ * one becomes the previous one once it is full and the old previous generation is dropped.
+ */
+public final class SignatureCache {
+    private static final Logger log = LoggerFactory.getLogger(SignatureCache.class);
+
+    /**
+     * 每一代缓存的签名数量
+     * Signatures cached per generation
+     */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private static final SignatureCache INSTANCE = new SignatureCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+
+    private final TwoGenerations<Set<Sha256Hash>> generations = new TwoGenerations<>(ConcurrentHashMap::newKeySet);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    SignatureCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static SignatureCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 验证签名，验证通过过的(摘要, 公钥, 签名)直接返回true
+     * Verifies a signature, returns true at once for a (digest, public key, signature) verified before
+     */
+    public static boolean verify(byte[] digestBytes, byte[] signBytes, byte[] publicKey) {
+        return INSTANCE.verifyCached(digestBytes, signBytes, publicKey);
+    }
+
+    boolean verifyCached(byte[] digestBytes, byte[] signBytes, byte[] publicKey) {
+        if (digestBytes == null || signBytes == null || publicKey == null) {
+            return ECKey.verify(digestBytes, signBytes, publicKey);
+        }
+        Sha256Hash key = key(digestBytes, signBytes, publicKey);
+        Set<Sha256Hash> previous = generations.getPrevious();
+        if (generations.getCurrent().contains(key) || (previous != null && previous.contains(key))) {
+            hitCount.increment();
+            return true;
+        }
+        missCount.increment();
+        boolean result = ECKey.verify(digestBytes, signBytes, publicKey);
+        if (result) {
+            this.put(key);
+        }
+        return result;
+    }
+
+    /**
+     * 重复验证的签名不计数，当前代记满capacity个不同的签名后轮换
+     * A signature verified again is not counted, the generation rotates after capacity distinct signatures
+     */
+    private void put(Sha256Hash key) {
+        Set<Sha256Hash> generation = generations.getCurrent();
+        if (generation.add(key) && generations.added() >= capacity && generations.rotate(generation)) {
+            logRotation();
+        }
+    }
+
+    private void logRotation() {
+        if (log.isDebugEnabled()) {
+            log.debug("signature cache rotated, hits: {}, misses: {}, hit rate: {}", getHitCount(), getMissCount(), getHitRate());
+        }
+    }
+
+    /**
+     * 各部分带上长度再计算哈希，不同的拆分方式不会得到相同的键
+     * Every part is hashed together with its length, so different splits never produce the same key
+     */
+    private static Sha256Hash key(byte[] digestBytes, byte[] signBytes, byte[] publicKey) {
+        MessageDigest digest = Sha256Hash.newDigest();
+        update(digest, digestBytes);
+        update(digest, publicKey);
+        update(digest, signBytes);
+        return Sha256Hash.wrap(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, byte[] bytes) {
+        int length = bytes.length;
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+        digest.update(bytes);
+    }
+
+    public void clear() {
+        generations.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 命中率，没有查询时为0
+     * Hit rate, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        Set<Sha256Hash> previous = generations.getPrevious();
+        return generations.getCurrent().size() + (previous == null ? 0 : previous.size());
+    }
+}
@@ -63,7 +63,7 @@ public class SignatureUtil {
             }
             if (transactionSignature.getP2PHKSignatures() != null && transactionSignature.getP2PHKSignatures().size() > 0) {
                 for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                    if (!ECKey.verify(tx.getHash().getDigestBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (!SignatureCache.verify(tx.getHash().getDigestBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                         throw new NulsException(KernelErrorCode.SIGNATURE_ERROR);
                     }
                 }
@@ -321,7 +321,7 @@ public class SignatureUtil {
             }
             return validMultiScriptSign(digestBytes, signtures, pubkeys);
         } else {
-            if (!ECKey.verify(digestBytes, chunks.get(0).data, chunks.get(1).data)) {
+            if (!SignatureCache.verify(digestBytes, chunks.get(0).data, chunks.get(1).data)) {
                 return false;
             }
         }
@@ -379,7 +379,7 @@ public class SignatureUtil {
     public static boolean validMultiScriptSign(byte[] digestBytes, LinkedList<byte[]> signtures, LinkedList<byte[]> pubkeys) {
         while (signtures.size() > 0) {
             byte[] pubKey = pubkeys.pollFirst();
-            if (ECKey.verify(digestBytes, signtures.getFirst(), pubKey)) {
+            if (SignatureCache.verify(digestBytes, signtures.getFirst(), pubKey)) {
                 signtures.pollFirst();
             }
             if (signtures.size() > pubkeys.size()) {
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 两代容器的轮换：写入只进入当前代，查询检查两代；轮换时当前代变为上一代，原来的上一代被丢弃
+ * 读写不加锁，只有轮换和清空互斥；多个线程同时发现需要轮换时只有第一个生效
+ * <p>
+ * Rotation of two container generations: writes go to the current generation, lookups check both. On rotation the
+ * current generation becomes the previous one and the old previous generation is dropped.
+ * Reads and writes take no lock, only rotate and clear are exclusive; when several threads decide to rotate the
+ * same generation only the first one takes effect.
+ *
+ * @param <G> 每一代的容器类型/container type of one generation
+ */
+public class TwoGenerations<G> {
+
+    private final Supplier<G> factory;
+
+    private volatile G current;
+    private volatile G previous;
+    private volatile long generationStart;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final AtomicInteger rotationCount = new AtomicInteger(0);
+
+    public TwoGenerations(Supplier<G> factory) {
+        this.factory = factory;
+        this.current = factory.get();
+        this.generationStart = System.currentTimeMillis();
+    }
+
+    public G getCurrent() {
+        return current;
+    }
+
+    /**
+     * 第一次轮换之前为null
+     * null before the first rotation
+     */
+    public G getPrevious() {
+        return previous;
+    }
+
+    /**
+     * 记录一次写入当前代，返回当前代的写入数
+     * Record one write into the current generation, returns the writes of the current generation
+     */
+    public int added() {
+        return size.incrementAndGet();
+    }
+
+    /**
+     * 把generation轮换为上一代，它已经不是当前代时(其他线程已经轮换)返回false
+     * Rotate generation into the previous one, returns false if it is no longer current because another thread
+     * rotated it
+     */
+    public synchronized boolean rotate(G generation) {
+        if (current != generation) {
+            return false;
+        }
+        previous = generation;
+        current = factory.get();
+        size.set(0);
+        generationStart = System.currentTimeMillis();
+        rotationCount.incrementAndGet();
+        return true;
+    }
+
+    public synchronized void clear() {
+        previous = null;
+        current = factory.get();
+        size.set(0);
+        generationStart = System.currentTimeMillis();
+    }
+
+    /**
+     * 当前代的写入数
+     * Writes into the current generation
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    public long getGenerationStart() {
+        return generationStart;
+    }
+
+    public int getRotationCount() {
+        return rotationCount.get();
+    }
+}
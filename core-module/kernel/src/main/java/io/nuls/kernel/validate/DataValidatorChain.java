@@ -24,65 +24,33 @@
  */
 package io.nuls.kernel.validate;
 
-import io.nuls.core.tools.log.Log;
-import io.nuls.kernel.constant.KernelErrorCode;
-import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.model.NulsData;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
+ * 同一个数据类型上注册的验证器，按注册顺序执行
+ * Validators registered for one data class, executed in registration order
+ *
  * @author Niels
  */
 public class DataValidatorChain {
 
     private List<NulsDataValidator<NulsData>> list = new ArrayList<>();
     private Set<Class> classSet = new HashSet<>();
-    private ThreadLocal<Integer> index = new ThreadLocal<>();
 
     public ValidateResult startDoValidator(NulsData data) {
-        if (list.isEmpty()) {
-            return ValidateResult.getSuccessResult();
-        }
-        index.set(-1);
-        ValidateResult result;
-        try {
-            result = doValidate(data);
-        } catch (Exception e) {
-            Log.error(e);
-            result = ValidateResult.getFailedResult(this.getClass().getName(), KernelErrorCode.SYS_UNKOWN_EXCEPTION);
-        }
-        boolean b = index.get() == list.size();
-        index.remove();
-        if (!b && result.isSuccess()) {
-            return ValidateResult.getFailedResult(this.getClass().getName(), KernelErrorCode.VALIDATORS_NOT_FULLY_EXECUTED);
+        for (NulsDataValidator<NulsData> validator : list) {
+            ValidateResult result = ValidatorManager.doValidate(validator, data, null);
+            if (result.isFailed()) {
+                return result;
+            }
         }
-        return result;
-    }
-
-    private ValidateResult doValidate(NulsData data) {
-        index.set(1 + index.get());
-        if (index.get() == list.size()) {
-            return ValidateResult.getSuccessResult();
-        }
-        NulsDataValidator validator = list.get(index.get());
-        ValidateResult result = null;
-        try {
-            result = validator.validate(data);
-        } catch (NulsException e) {
-            Log.error(e);
-            return ValidateResult.getFailedResult(this.getClass().getName(), e.getErrorCode());
-        }
-        if (null == result) {
-            Log.error(validator.getClass() + " has null result!");
-        }
-        if (!result.isSuccess()) {
-            return result;
-        }
-        return this.doValidate(data);
+        return ValidateResult.getSuccessResult();
     }
 
     public void addValidator(NulsDataValidator validator) {
@@ -94,4 +62,8 @@ public class DataValidatorChain {
             list.add(validator);
         }
     }
+
+    public List<NulsDataValidator<NulsData>> getValidators() {
+        return Collections.unmodifiableList(list);
+    }
 }
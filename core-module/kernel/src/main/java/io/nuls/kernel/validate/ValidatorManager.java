@@ -25,25 +25,55 @@
 
 package io.nuls.kernel.validate;
 
+import io.nuls.core.tools.log.Log;
 import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
 import io.nuls.kernel.lite.core.SpringLiteContext;
 import io.nuls.kernel.model.BaseNulsData;
+import io.nuls.kernel.model.Block;
 import io.nuls.kernel.model.NulsData;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.thread.manager.TaskManager;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
+ * 验证器管理：每个具体数据类型的验证器（包括父类上注册的）在第一次验证时展开成一个不可变数组，之后直接按顺序执行
+ * Validator manager: the validators of a concrete data class, including those registered on its super classes, are
+ * flattened into an immutable array on its first validation and executed in order from then on.
+ *
  * @author Niels
  */
 public class ValidatorManager {
 
+    /**
+     * 交易数达到这个数量的区块并行执行各个验证器
+     * Blocks with at least this many transactions run their validators in parallel
+     */
+    public static final int PARALLEL_BLOCK_TX_COUNT = 1000;
+
+    private static final ValidatorEntry[] EMPTY_PLAN = new ValidatorEntry[0];
+
     private static Map<Class, DataValidatorChain> chainMap = new ConcurrentHashMap<>();
 
+    private static Map<Class, ValidatorEntry[]> planMap = new ConcurrentHashMap<>();
+
+    private static Map<Class, ValidatorStats> statsMap = new ConcurrentHashMap<>();
+
+    private static volatile int parallelBlockTxCount = PARALLEL_BLOCK_TX_COUNT;
+
+    private static volatile ExecutorService parallelExecutor;
+
     private static boolean success;
 
     public static void init() {
@@ -73,30 +103,29 @@ public class ValidatorManager {
         return success;
     }
 
-    public static void addValidator(Class<? extends NulsData> clazz, NulsDataValidator<? extends NulsData> validator) {
+    public static synchronized void addValidator(Class<? extends NulsData> clazz, NulsDataValidator<? extends NulsData> validator) {
         DataValidatorChain chain = chainMap.get(clazz);
         if (null == chain) {
             chain = new DataValidatorChain();
             chainMap.put(clazz, chain);
         }
         chain.addValidator(validator);
+        if (null != validator) {
+            statsMap.computeIfAbsent(validator.getClass(), c -> new ValidatorStats(c.getName()));
+        }
+        planMap.clear();
     }
 
     public static ValidateResult startDoValidator(NulsData data) {
         if (data == null) {
             return ValidateResult.getFailedResult(ValidatorManager.class.getName(), KernelErrorCode.NULL_PARAMETER);
         }
-        List<DataValidatorChain> chainList = new ArrayList<>();
-        Class<NulsData> clazz = (Class<NulsData>) data.getClass();
-        while (!clazz.equals(BaseNulsData.class)) {
-            DataValidatorChain chain = chainMap.get(clazz);
-            if (null != chain) {
-                chainList.add(chain);
-            }
-            clazz = (Class<NulsData>) clazz.getSuperclass();
+        ValidatorEntry[] plan = getPlan(data.getClass());
+        if (plan.length > 1 && isParallel(data)) {
+            return doValidateParallel(plan, data);
         }
-        for (DataValidatorChain chain : chainList) {
-            ValidateResult result = chain.startDoValidator(data);
+        for (ValidatorEntry entry : plan) {
+            ValidateResult result = doValidate(entry.validator, data, entry.stats);
             if (result.isFailed()) {
                 return result;
             }
@@ -104,5 +133,147 @@ public class ValidatorManager {
         return ValidateResult.getSuccessResult();
     }
 
-}
+    /**
+     * 按子类到父类的顺序展开验证器，与逐级查找各个类型的验证链顺序相同
+     * Flattens the validators from the class up to its super classes, the same order as walking the chains of every
+     * class level
+     */
+    private static ValidatorEntry[] getPlan(Class clazz) {
+        ValidatorEntry[] plan = planMap.get(clazz);
+        if (null != plan) {
+            return plan;
+        }
+        return buildPlan(clazz);
+    }
 
+    /**
+     * 与addValidator使用同一把锁，注册验证器时清空的计划不会被并发构建的旧计划覆盖
+     * Uses the same lock as addValidator, so a plan built concurrently with a registration can not be cached stale
+     */
+    private static synchronized ValidatorEntry[] buildPlan(Class clazz) {
+        ValidatorEntry[] plan = planMap.get(clazz);
+        if (null != plan) {
+            return plan;
+        }
+        List<ValidatorEntry> entries = new ArrayList<>();
+        for (Class c = clazz; c != null && !c.equals(BaseNulsData.class); c = c.getSuperclass()) {
+            DataValidatorChain chain = chainMap.get(c);
+            if (null == chain) {
+                continue;
+            }
+            for (NulsDataValidator<NulsData> validator : chain.getValidators()) {
+                entries.add(new ValidatorEntry(validator, statsMap.get(validator.getClass())));
+            }
+        }
+        plan = entries.isEmpty() ? EMPTY_PLAN : entries.toArray(new ValidatorEntry[entries.size()]);
+        planMap.put(clazz, plan);
+        return plan;
+    }
+
+    private static boolean isParallel(NulsData data) {
+        if (!(data instanceof Block)) {
+            return false;
+        }
+        int count = parallelBlockTxCount;
+        List txs = ((Block) data).getTxs();
+        return count > 0 && txs != null && txs.size() >= count;
+    }
+
+    /**
+     * 各个验证器同时执行，返回按原顺序的第一个失败结果，所以结果与顺序执行相同，验证器不能有副作用
+     * Runs all validators at once and returns the first failure in the original order, so the result is the same as
+     * sequential execution. Validators must have no side effects.
+     */
+    private static ValidateResult doValidateParallel(ValidatorEntry[] plan, NulsData data) {
+        ExecutorService executor = getParallelExecutor();
+        List<Future<ValidateResult>> futures = new ArrayList<>(plan.length - 1);
+        for (int i = 1; i < plan.length; i++) {
+            ValidatorEntry entry = plan[i];
+            futures.add(executor.submit(() -> doValidate(entry.validator, data, entry.stats)));
+        }
+        ValidateResult result = doValidate(plan[0].validator, data, plan[0].stats);
+        try {
+            for (Future<ValidateResult> future : futures) {
+                if (result.isFailed()) {
+                    break;
+                }
+                result = future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = ValidateResult.getFailedResult(ValidatorManager.class.getName(), KernelErrorCode.SYS_UNKOWN_EXCEPTION);
+        } catch (ExecutionException e) {
+            Log.error(e);
+            result = ValidateResult.getFailedResult(ValidatorManager.class.getName(), KernelErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+        if (result.isFailed()) {
+            for (Future<ValidateResult> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    private static ExecutorService getParallelExecutor() {
+        if (null == parallelExecutor) {
+            synchronized (ValidatorManager.class) {
+                if (null == parallelExecutor) {
+                    parallelExecutor = TaskManager.createThreadPool(Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE,
+                            new NulsThreadFactory(NulsConstant.MODULE_ID_MICROKERNEL, "validator"));
+                }
+            }
+        }
+        return parallelExecutor;
+    }
+
+    static ValidateResult doValidate(NulsDataValidator validator, NulsData data, ValidatorStats stats) {
+        long start = System.nanoTime();
+        ValidateResult result;
+        try {
+            result = validator.validate(data);
+            if (null == result) {
+                Log.error(validator.getClass() + " has null result!");
+                result = ValidateResult.getFailedResult(DataValidatorChain.class.getName(), KernelErrorCode.SYS_UNKOWN_EXCEPTION);
+            }
+        } catch (NulsException e) {
+            Log.error(e);
+            result = ValidateResult.getFailedResult(DataValidatorChain.class.getName(), e.getErrorCode());
+        } catch (Exception e) {
+            Log.error(e);
+            result = ValidateResult.getFailedResult(DataValidatorChain.class.getName(), KernelErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+        if (null != stats) {
+            stats.record(System.nanoTime() - start, result.isSuccess());
+        }
+        return result;
+    }
+
+    /**
+     * 各个验证器的统计，按总耗时从高到低排列
+     * Statistics of every validator, sorted by total time spent, highest first
+     */
+    public static List<ValidatorStats> getValidatorStats() {
+        List<ValidatorStats> list = new ArrayList<>(statsMap.values());
+        list.sort(Comparator.comparingLong(ValidatorStats::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * @param count 并行验证的最小区块交易数，0表示不并行/minimum block transactions for parallel validation, 0 disables it
+     */
+    public static void setParallelBlockTxCount(int count) {
+        parallelBlockTxCount = count;
+    }
+
+    private static final class ValidatorEntry {
+
+        private final NulsDataValidator validator;
+
+        private final ValidatorStats stats;
+
+        private ValidatorEntry(NulsDataValidator validator, ValidatorStats stats) {
+            this.validator = validator;
+            this.stats = stats;
+        }
+    }
+}
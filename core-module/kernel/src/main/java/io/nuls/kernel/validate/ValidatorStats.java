@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.kernel.validate;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个验证器的执行次数、失败次数和耗时
+ * Invocation count, failure count and time spent of one validator
+ */
+public class ValidatorStats {
+
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    public ValidatorStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, boolean success) {
+        count.increment();
+        totalNanos.add(nanos);
+        if (!success) {
+            failedCount.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getAverageNanos() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : totalNanos.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{count=" + getCount() + ", failed=" + getFailedCount() + ", avgNanos=" + getAverageNanos() + "}";
+    }
+}
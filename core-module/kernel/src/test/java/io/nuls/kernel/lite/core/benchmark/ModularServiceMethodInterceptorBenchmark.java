@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.lite.core.benchmark;
+
+import io.nuls.kernel.constant.ModuleStatusEnum;
+import io.nuls.kernel.lite.annotation.Service;
+import io.nuls.kernel.lite.core.ModularServiceMethodInterceptor;
+import io.nuls.kernel.lite.core.SpringLiteContext;
+import io.nuls.kernel.module.BaseModuleBootstrap;
+import io.nuls.kernel.module.manager.ModuleManager;
+import io.nuls.kernel.module.manager.ServiceManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务代理调用与直接调用的性能对比
+ * Benchmark of calls through the service proxy against direct calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModularServiceMethodInterceptorBenchmark {
+
+    private static final short BENCHMARK_MODULE_ID = 999;
+
+    private BenchmarkService proxied;
+
+    private BenchmarkService direct;
+
+    private long value;
+
+    @Setup
+    public void setUp() throws Exception {
+        // 只扫描本包，BenchmarkService是本类的嵌套类，也在这个包下
+        // scan this package only, the nested BenchmarkService lives in it as well
+        SpringLiteContext.init(ModularServiceMethodInterceptorBenchmark.class.getPackage().getName(), new ModularServiceMethodInterceptor());
+        BenchmarkModule module = new BenchmarkModule();
+        module.setStatus(ModuleStatusEnum.RUNNING);
+        ModuleManager.getInstance().regModule(module);
+        ServiceManager.getInstance().regService(BENCHMARK_MODULE_ID, BenchmarkService.class);
+        proxied = SpringLiteContext.getBean(BenchmarkService.class);
+        direct = new BenchmarkService();
+    }
+
+    @Benchmark
+    public long proxiedCall() {
+        return proxied.add(value++);
+    }
+
+    @Benchmark
+    public long directCall() {
+        return direct.add(value++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ModularServiceMethodInterceptorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    @Service
+    public static class BenchmarkService {
+
+        private long total;
+
+        public long add(long value) {
+            total += value;
+            return total;
+        }
+    }
+
+    public static class BenchmarkModule extends BaseModuleBootstrap {
+
+        public BenchmarkModule() {
+            super(BENCHMARK_MODULE_ID);
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public String getInfo() {
+            return null;
+        }
+    }
+}
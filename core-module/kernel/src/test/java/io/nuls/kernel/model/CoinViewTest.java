@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.model;
+
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.script.Script;
+import io.nuls.kernel.script.ScriptBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Coin只读视图测试：读取的金额、锁定时间和地址必须与Coin.parse后的结果一致
+ * Coin view test: amount, lock time and address read by the view must match a parsed Coin
+ */
+public class CoinViewTest {
+
+    private byte[] address() {
+        byte[] address = new byte[Address.ADDRESS_LENGTH];
+        for (int i = 0; i < address.length; i++) {
+            address[i] = (byte) (i + 1);
+        }
+        return address;
+    }
+
+    private void assertSameAsCoin(Coin coin, byte[] address) throws Exception {
+        byte[] bytes = coin.serialize();
+        Coin parsed = new Coin();
+        parsed.parse(bytes, 0);
+
+        CoinView view = new CoinView().wrap(bytes);
+        assertEquals(parsed.getNa().getValue(), view.getNaValue());
+        assertEquals(parsed.getLockTime(), view.getLockTime());
+        assertArrayEquals(parsed.getOwner(), view.getOwner());
+        assertArrayEquals(address, parsed.getAddress());
+        assertArrayEquals(address, view.getAddress());
+        assertTrue(view.isAddress(address));
+        assertEquals(parsed.usable(100L), view.usable(100L));
+
+        Coin copy = view.toCoin();
+        assertArrayEquals(bytes, copy.serialize());
+    }
+
+    @Test
+    public void addressOwner() throws Exception {
+        byte[] address = address();
+        assertSameAsCoin(new Coin(address, Na.valueOf(12345L), 0L), address);
+        assertSameAsCoin(new Coin(address, Na.valueOf(1L), 99L), address);
+        assertSameAsCoin(new Coin(address, Na.valueOf(1L), -1L), address);
+    }
+
+    @Test
+    public void scriptOwner() throws Exception {
+        byte[] address = address();
+        Script p2pkh = ScriptBuilder.createOutputScript(address, 1);
+        assertSameAsCoin(new Coin(p2pkh.getProgram(), Na.valueOf(500L), 0L), address);
+        Script p2sh = ScriptBuilder.createOutputScript(address, 0);
+        assertSameAsCoin(new Coin(p2sh.getProgram(), Na.valueOf(500L), 1500000000000L), address);
+    }
+
+    @Test
+    public void rewrap() throws Exception {
+        byte[] address = address();
+        byte[] other = address();
+        other[0] = 0;
+        byte[] first = new Coin(ScriptBuilder.createOutputScript(address, 1).getProgram(), Na.valueOf(1L), 0L).serialize();
+        byte[] second = new Coin(other, Na.valueOf(2L), 0L).serialize();
+
+        CoinView view = new CoinView();
+        assertTrue(view.wrap(first).isAddress(address));
+        assertFalse(view.wrap(second).isAddress(address));
+        assertTrue(view.isAddress(other));
+        assertEquals(2L, view.getNaValue());
+        assertFalse(new CoinView().wrap(new Coin(new byte[]{1, 2, 3}, Na.valueOf(1L), 0L).serialize()).isAddress(address));
+    }
+
+    @Test(expected = NulsException.class)
+    public void truncated() throws Exception {
+        byte[] bytes = new Coin(address(), Na.valueOf(1L), 0L).serialize();
+        new CoinView().wrap(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
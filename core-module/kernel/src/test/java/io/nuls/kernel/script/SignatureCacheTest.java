@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.script;
+
+import io.nuls.core.tools.crypto.ECKey;
+import io.nuls.core.tools.crypto.Sha256Hash;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SignatureCacheTest {
+
+    @Test
+    public void testHitAfterSuccessfulVerify() {
+        SignatureCache cache = new SignatureCache(100);
+        ECKey key = new ECKey();
+        byte[] digest = Sha256Hash.hash("tx".getBytes());
+        byte[] sign = key.sign(digest);
+
+        assertTrue(cache.verifyCached(digest, sign, key.getPubKey()));
+        assertEquals(0, cache.getHitCount());
+        assertTrue(cache.verifyCached(digest, sign, key.getPubKey()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testFailureIsNotCached() {
+        SignatureCache cache = new SignatureCache(100);
+        ECKey key = new ECKey();
+        ECKey other = new ECKey();
+        byte[] digest = Sha256Hash.hash("tx".getBytes());
+        byte[] sign = key.sign(digest);
+
+        assertTrue(cache.verifyCached(digest, sign, key.getPubKey()));
+        assertFalse(cache.verifyCached(digest, sign, other.getPubKey()));
+        assertFalse(cache.verifyCached(Sha256Hash.hash("other".getBytes()), sign, key.getPubKey()));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testRotation() {
+        SignatureCache cache = new SignatureCache(2);
+        ECKey key = new ECKey();
+        byte[][] digests = new byte[3][];
+        byte[][] signs = new byte[3][];
+        for (int i = 0; i < 3; i++) {
+            digests[i] = Sha256Hash.hash(new byte[]{(byte) i});
+            signs[i] = key.sign(digests[i]);
+            assertTrue(cache.verifyCached(digests[i], signs[i], key.getPubKey()));
+        }
+        // 前两个在上一代，第三个在当前代
+        assertTrue(cache.verifyCached(digests[0], signs[0], key.getPubKey()));
+        assertTrue(cache.verifyCached(digests[2], signs[2], key.getPubKey()));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.size());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.kernel.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TwoGenerationsTest {
+
+    @Test
+    public void testRotate() {
+        TwoGenerations<Set<String>> generations = new TwoGenerations<>(HashSet::new);
+        Set<String> first = generations.getCurrent();
+        assertNull(generations.getPrevious());
+        first.add("a");
+        assertEquals(1, generations.added());
+
+        assertTrue(generations.rotate(first));
+        assertSame(first, generations.getPrevious());
+        assertNotSame(first, generations.getCurrent());
+        assertEquals(0, generations.getSize());
+        // 同一代只轮换一次
+        assertFalse(generations.rotate(first));
+        assertSame(first, generations.getPrevious());
+        assertEquals(1, generations.getRotationCount());
+    }
+
+    @Test
+    public void testClear() {
+        TwoGenerations<Set<String>> generations = new TwoGenerations<>(HashSet::new);
+        Set<String> first = generations.getCurrent();
+        generations.added();
+        generations.rotate(first);
+        generations.added();
+
+        generations.clear();
+        assertNull(generations.getPrevious());
+        assertEquals(0, generations.getSize());
+        // 清空前取到的一代不能再触发轮换
+        assertFalse(generations.rotate(first));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.kernel.validate;
+
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.model.Transaction;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ValidatorManagerTest {
+
+    public static class ParentBlock extends Block {
+        final List<String> trace = Collections.synchronizedList(new ArrayList<>());
+        String failAt;
+        boolean throwAt;
+    }
+
+    public static class ChildBlock extends ParentBlock {
+    }
+
+    public static class TraceValidator implements NulsDataValidator<ParentBlock> {
+
+        private final String name;
+
+        TraceValidator(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ValidateResult validate(ParentBlock data) throws NulsException {
+            data.trace.add(name);
+            if (name.equals(data.failAt)) {
+                if (data.throwAt) {
+                    throw new NulsException(KernelErrorCode.DATA_ERROR);
+                }
+                return ValidateResult.getFailedResult(name, KernelErrorCode.FAILED);
+            }
+            return ValidateResult.getSuccessResult();
+        }
+    }
+
+    public static class ChildValidator extends TraceValidator {
+        ChildValidator() {
+            super("child");
+        }
+    }
+
+    public static class ParentValidator1 extends TraceValidator {
+        ParentValidator1() {
+            super("parent1");
+        }
+    }
+
+    public static class ParentValidator2 extends TraceValidator {
+        ParentValidator2() {
+            super("parent2");
+        }
+    }
+
+    @BeforeClass
+    public static void register() {
+        ValidatorManager.addValidator(ParentBlock.class, new ParentValidator1());
+        ValidatorManager.addValidator(ParentBlock.class, new ParentValidator2());
+        ValidatorManager.addValidator(ChildBlock.class, new ChildValidator());
+    }
+
+    @After
+    public void resetParallel() {
+        ValidatorManager.setParallelBlockTxCount(ValidatorManager.PARALLEL_BLOCK_TX_COUNT);
+    }
+
+    @Test
+    public void testOrder() {
+        ChildBlock block = new ChildBlock();
+        assertTrue(ValidatorManager.startDoValidator(block).isSuccess());
+        assertEquals(3, block.trace.size());
+        assertEquals("child", block.trace.get(0));
+        assertEquals("parent1", block.trace.get(1));
+        assertEquals("parent2", block.trace.get(2));
+
+        ParentBlock parent = new ParentBlock();
+        assertTrue(ValidatorManager.startDoValidator(parent).isSuccess());
+        assertEquals(2, parent.trace.size());
+    }
+
+    @Test
+    public void testStopAtFirstFailure() {
+        ChildBlock block = new ChildBlock();
+        block.failAt = "parent1";
+        ValidateResult result = ValidatorManager.startDoValidator(block);
+        assertTrue(result.isFailed());
+        assertEquals("parent1", result.getClassName());
+        assertEquals(2, block.trace.size());
+
+        block = new ChildBlock();
+        block.failAt = "child";
+        block.throwAt = true;
+        result = ValidatorManager.startDoValidator(block);
+        assertEquals(KernelErrorCode.DATA_ERROR, result.getErrorCode());
+        assertEquals(1, block.trace.size());
+    }
+
+    @Test
+    public void testParallel() {
+        ValidatorManager.setParallelBlockTxCount(1);
+        ChildBlock block = new ChildBlock();
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(null);
+        block.setTxs(txs);
+        assertTrue(ValidatorManager.startDoValidator(block).isSuccess());
+        assertEquals(3, block.trace.size());
+
+        block = new ChildBlock();
+        block.setTxs(txs);
+        block.failAt = "parent2";
+        ValidateResult result = ValidatorManager.startDoValidator(block);
+        assertEquals("parent2", result.getClassName());
+    }
+
+    @Test
+    public void testStats() {
+        long before = statsOf(ChildValidator.class).getCount();
+        long failedBefore = statsOf(ChildValidator.class).getFailedCount();
+        ChildBlock block = new ChildBlock();
+        block.failAt = "child";
+        ValidatorManager.startDoValidator(block);
+        assertEquals(before + 1, statsOf(ChildValidator.class).getCount());
+        assertEquals(failedBefore + 1, statsOf(ChildValidator.class).getFailedCount());
+    }
+
+    private static ValidatorStats statsOf(Class clazz) {
+        for (ValidatorStats stats : ValidatorManager.getValidatorStats()) {
+            if (stats.getName().equals(clazz.getName())) {
+                return stats;
+            }
+        }
+        throw new AssertionError(clazz.getName());
+    }
+}
@@ -151,6 +151,17 @@ public interface DBService {
      */
     Object getModel(String area, byte[] key);
 
+    /**
+     * 将以putModel方式存储的value还原为指定的对象，用于游标读出的数据
+     * Restores a value stored with putModel to the specified object, used for data read through a cursor.
+     *
+     * @param value 存储的value/the stored value
+     * @param clazz 指定对象的class/Specifies the class of the object.
+     * @param <T>
+     * @return
+     */
+    <T> T toModel(byte[] value, Class<T> clazz);
+
     /**
      * 获取数据区域的所有key的无序集合
      * Gets an unordered collection of all keys in the data area.
@@ -169,6 +180,65 @@ public interface DBService {
      */
     List<byte[]> keyList(String area);
 
+    /**
+     * 获取数据区域中以指定前缀开头的所有key的有序集合，只遍历该前缀范围内的数据
+     * Gets an ordered collection of the keys in the data area that start with the given prefix,
+     * only the prefix range is iterated.
+     *
+     * @param area
+     * @param prefix key前缀/key prefix
+     * @return
+     */
+    List<byte[]> keyListByPrefix(String area, byte[] prefix);
+
+    /**
+     * 打开一个遍历所有以指定前缀开头的key的游标
+     * Open a cursor over all keys that start with the given prefix.
+     *
+     * @param area
+     * @param prefix key前缀/key prefix
+     * @return
+     */
+    DBCursor seek(String area, byte[] prefix);
+
+    /**
+     * 打开一个遍历所有以指定前缀开头的key的游标，支持倒序和分页
+     * Open a cursor over all keys that start with the given prefix, with reverse order and paging.
+     *
+     * @param area
+     * @param prefix  key前缀/key prefix
+     * @param reverse 是否倒序/whether to iterate in reverse order
+     * @param offset  跳过的条数/number of entries to skip
+     * @param limit   最多返回的条数，小于等于0表示不限制/max number of entries, no limit when less than or equal to 0
+     * @return
+     */
+    DBCursor seek(String area, byte[] prefix, boolean reverse, int offset, int limit);
+
+    /**
+     * 打开一个遍历[from, to)范围内key的游标，from为null表示从头开始，to为null表示直到末尾
+     * Open a cursor over keys in [from, to), a null from starts at the first key and a null to runs to the last key.
+     *
+     * @param area
+     * @param from 起始key(包含)/start key (inclusive)
+     * @param to   结束key(不包含)/end key (exclusive)
+     * @return
+     */
+    DBCursor range(String area, byte[] from, byte[] to);
+
+    /**
+     * 打开一个遍历[from, to)范围内key的游标，支持倒序和分页
+     * Open a cursor over keys in [from, to), with reverse order and paging.
+     *
+     * @param area
+     * @param from    起始key(包含)/start key (inclusive)
+     * @param to      结束key(不包含)/end key (exclusive)
+     * @param reverse 是否倒序/whether to iterate in reverse order
+     * @param offset  跳过的条数/number of entries to skip
+     * @param limit   最多返回的条数，小于等于0表示不限制/max number of entries, no limit when less than or equal to 0
+     * @return
+     */
+    DBCursor range(String area, byte[] from, byte[] to, boolean reverse, int offset, int limit);
+
     /**
      * 获取数据区域的所有value的有序集合
      * Gets an ordered collection of all values in the data area.
@@ -232,6 +302,38 @@ public interface DBService {
      */
     BatchOperation createWriteBatch(String area);
 
+    /**
+     * 在当前线程开启写会话，会话期间所有数据区域的写操作先暂存在内存中，只有当前线程的读操作可以读到暂存的数据，
+     * 其他线程在提交之前读到的仍是已存储的数据；会话可以嵌套，只有最外层的提交才会真正写入
+     * Begin a write session on the current thread. Writes to any data area are staged in memory during the session
+     * and only reads on the current thread see the staged data, other threads read the stored data until the commit.
+     * Sessions can be nested, only the outermost commit really writes.
+     */
+    void beginWriteSession();
+
+    /**
+     * 提交当前线程的写会话，每个数据区域只执行一次同步批量写入，并通过提交日志保证崩溃后可以恢复
+     * Commit the write session of the current thread, every data area is written with one synchronous batch
+     * and a commit journal makes it recoverable after a crash.
+     *
+     * @return
+     */
+    Result commitWriteSession();
+
+    /**
+     * 丢弃当前线程写会话中暂存的全部数据，嵌套时外层的读操作也不再看到这些数据，最外层的提交不写入并返回失败
+     * Discard all data staged in the write session of the current thread. When nested, the outer levels no longer
+     * read that data either and the outermost commit writes nothing and fails.
+     */
+    void discardWriteSession();
+
+    /**
+     * 登记在当前线程写会话提交成功后执行的操作，用于更新内存缓存或通知监听器；没有会话时立即执行，会话被丢弃或提交失败时不执行
+     * Register an action run after the write session of the current thread is committed successfully, used to update
+     * in-memory caches or notify listeners. It runs right away without a session, and never if the session is discarded or fails.
+     */
+    void afterWriteSessionCommit(Runnable action);
+
     /**
      * 清除Area
      *
@@ -242,4 +344,12 @@ public interface DBService {
 
     Result clearArea(String area);
 
+    /**
+     * 数据存储的根目录，各数据区域都在其下，需要自行管理文件的模块也可以在其中存放数据
+     * The root directory of the data storage, every area lives under it and modules that manage their own files can keep them there too.
+     *
+     * @return 根目录路径/root directory path
+     */
+    String getDataPath();
+
 }
@@ -25,6 +25,7 @@ import io.nuls.core.tools.str.StringUtils;
 import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.model.Entry;
 import io.nuls.db.model.ModelWrapper;
+import io.nuls.db.service.impl.LevelDBCursor;
 import io.nuls.kernel.args.NULSParams;
 import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.model.Result;
@@ -35,6 +36,8 @@ import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBFactory;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
 import org.iq80.leveldb.impl.Iq80DBFactory;
 
 import java.io.File;
@@ -60,8 +63,19 @@ public class LevelDBManager {
 
     private static final String BASE_DB_NAME = "leveldb";
 
+    private static final byte[] WRITE_SESSION_JOURNAL_KEY = bytes("write-session-journal");
+
+    private static final WriteOptions SYNC_WRITE = new WriteOptions().sync(true);
+
     private static volatile boolean isInit = false;
 
+    /**
+     * 写会话未能完整写入时置位，此后拒绝提交新的会话，直到重启时从提交日志重放成功
+     * Set when a write session could not be fully applied, new sessions are refused from then on
+     * until the journal is replayed successfully on restart.
+     */
+    private static volatile boolean writeSessionBroken = false;
+
     private static ReentrantLock lock = new ReentrantLock();
 
     private static String dataPath;
@@ -70,6 +84,10 @@ public class LevelDBManager {
         return max;
     }
 
+    public static String getDataPath() {
+        return dataPath;
+    }
+
     public static String getBaseAreaName() {
         return BASE_AREA_NAME;
     }
@@ -106,6 +124,7 @@ public class LevelDBManager {
                     }
 
                 }
+                replayWriteSessionJournal();
             }
         }
 
@@ -433,6 +452,11 @@ public class LevelDBManager {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
         try {
+            WriteSession session = WriteSession.current();
+            if (session != null) {
+                session.put(area, key, value);
+                return Result.getSuccess();
+            }
             DB db = AREAS.get(area);
             db.put(key, value);
             return Result.getSuccess();
@@ -454,9 +478,7 @@ public class LevelDBManager {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
         try {
-            DB db = AREAS.get(area);
-            db.put(bytes(key), bytes(value));
-            return Result.getSuccess();
+            return put(area, bytes(key), bytes(value));
         } catch (Exception e) {
             Log.error(e);
             return Result.getFailed(DBErrorCode.DB_UNKOWN_EXCEPTION);
@@ -475,9 +497,7 @@ public class LevelDBManager {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
         try {
-            DB db = AREAS.get(area);
-            db.put(key, bytes(value));
-            return Result.getSuccess();
+            return put(area, key, bytes(value));
         } catch (Exception e) {
             Log.error(e);
             return Result.getFailed(DBErrorCode.DB_UNKOWN_EXCEPTION);
@@ -531,9 +551,7 @@ public class LevelDBManager {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
         try {
-            DB db = AREAS.get(area);
-            db.delete(bytes(key));
-            return Result.getSuccess();
+            return delete(area, bytes(key));
         } catch (Exception e) {
             Log.error(e);
             return Result.getFailed(DBErrorCode.DB_UNKOWN_EXCEPTION);
@@ -548,6 +566,11 @@ public class LevelDBManager {
             return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
         }
         try {
+            WriteSession session = WriteSession.current();
+            if (session != null) {
+                session.delete(area, key);
+                return Result.getSuccess();
+            }
             DB db = AREAS.get(area);
             db.delete(key);
             return Result.getSuccess();
@@ -569,8 +592,7 @@ public class LevelDBManager {
             return null;
         }
         try {
-            DB db = AREAS.get(area);
-            return db.get(bytes(key));
+            return get(area, bytes(key));
         } catch (Exception e) {
             return null;
         }
@@ -584,6 +606,10 @@ public class LevelDBManager {
             return null;
         }
         try {
+            WriteSession session = WriteSession.current();
+            if (session != null && session.contains(area, key)) {
+                return session.get(area, key);
+            }
             DB db = AREAS.get(area);
             return db.get(key);
         } catch (Exception e) {
@@ -619,8 +645,7 @@ public class LevelDBManager {
             return null;
         }
         try {
-            DB db = AREAS.get(area);
-            byte[] bytes = db.get(key);
+            byte[] bytes = get(area, key);
             if (bytes == null) {
                 return null;
             }
@@ -659,6 +684,16 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            Set<byte[]> keySet = new HashSet<>();
+            try (LevelDBCursor cursor = sessionCursor(area)) {
+                while (cursor.hasNext()) {
+                    keySet.add(cursor.next().getKey());
+                }
+            }
+            return keySet;
+        }
         DBIterator iterator = null;
         Set<byte[]> keySet;
         try {
@@ -688,6 +723,14 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            List<byte[]> keyList = new ArrayList<>();
+            for (Entry<byte[], byte[]> entry : sessionEntryList(area)) {
+                keyList.add(entry.getKey());
+            }
+            return keyList;
+        }
         DBIterator iterator = null;
         List<byte[]> keyList;
         try {
@@ -721,6 +764,16 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            Set<Entry<byte[], byte[]>> entrySet = new HashSet<>();
+            try (LevelDBCursor cursor = sessionCursor(area)) {
+                while (cursor.hasNext()) {
+                    entrySet.add(cursor.next());
+                }
+            }
+            return entrySet;
+        }
         DBIterator iterator = null;
         Set<Entry<byte[], byte[]>> entrySet;
         try {
@@ -755,6 +808,10 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            return sessionEntryList(area);
+        }
         DBIterator iterator = null;
         List<Entry<byte[], byte[]>> entryList;
         try {
@@ -799,6 +856,15 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            Comparator<byte[]> comparator = AREAS_COMPARATOR.get(area);
+            List<Entry<byte[], T>> entryList = new ArrayList<>();
+            for (Entry<byte[], byte[]> entry : sessionEntryList(area)) {
+                entryList.add(new Entry<byte[], T>(entry.getKey(), getModel(entry.getValue(), clazz), comparator));
+            }
+            return entryList;
+        }
         DBIterator iterator = null;
         List<Entry<byte[], T>> entryList;
         try {
@@ -866,6 +932,16 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            List<T> list = new ArrayList<>();
+            try (LevelDBCursor cursor = sessionCursor(area)) {
+                while (cursor.hasNext()) {
+                    list.add(getModel(cursor.next().getValue(), clazz));
+                }
+            }
+            return list;
+        }
         DBIterator iterator = null;
         List<T> list;
         try {
@@ -899,6 +975,16 @@ public class LevelDBManager {
         if (!baseCheckArea(area)) {
             return null;
         }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            List<byte[]> list = new ArrayList<>();
+            try (LevelDBCursor cursor = sessionCursor(area)) {
+                while (cursor.hasNext()) {
+                    list.add(cursor.next().getValue());
+                }
+            }
+            return list;
+        }
         DBIterator iterator = null;
         List<byte[]> list = null;
         try {
@@ -946,6 +1032,196 @@ public class LevelDBManager {
         }
     }
 
+    /**
+     * 遍历整个数据区域的游标，按key逐条合并当前线程写会话中暂存的数据，不会预先读入整个数据区域
+     * A cursor over the whole area that merges the data staged in the write session of the current thread key by key,
+     * the area is never loaded up front.
+     */
+    private static LevelDBCursor sessionCursor(String area) {
+        return LevelDBCursor.range(area, null, null, false, 0, 0);
+    }
+
+    /**
+     * 合并写会话中暂存的数据后的全部数据，如果自定义了比较器则按比较器排序。
+     * 通过游标逐条合并已存储的数据和暂存数据，只生成一份结果列表
+     * All data of the area merged with the data staged in the write session, sorted by the custom comparator if there
+     * is one. The cursor merges the stored and the staged entries one by one, so only the result list is built.
+     */
+    private static List<Entry<byte[], byte[]>> sessionEntryList(String area) {
+        Comparator<byte[]> comparator = AREAS_COMPARATOR.get(area);
+        List<Entry<byte[], byte[]>> entryList = new ArrayList<>();
+        try (LevelDBCursor cursor = sessionCursor(area)) {
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> entry = cursor.next();
+                entryList.add(comparator == null ? entry : new Entry<byte[], byte[]>(entry.getKey(), entry.getValue(), comparator));
+            }
+        }
+        if (comparator == null) {
+            return entryList;
+        }
+        entryList.sort(new Comparator<Entry<byte[], byte[]>>() {
+            @Override
+            public int compare(Entry<byte[], byte[]> o1, Entry<byte[], byte[]> o2) {
+                return o1.compareTo(o2.getKey());
+            }
+        });
+        return entryList;
+    }
+
+    /**
+     * 在当前线程开启写会话
+     * Begin a write session on the current thread.
+     */
+    public static void beginWriteSession() {
+        WriteSession.begin();
+    }
+
+    /**
+     * 丢弃当前线程写会话中暂存的数据
+     * Discard the data staged in the write session of the current thread.
+     */
+    public static void discardWriteSession() {
+        WriteSession.discard();
+    }
+
+    /**
+     * 提交当前线程的写会话，先同步写入提交日志，再对每个数据区域执行一次同步批量写入，最后删除提交日志
+     * Commit the write session of the current thread. The commit journal is written synchronously first,
+     * then every data area is written with one synchronous batch, and finally the journal is removed.
+     */
+    public static Result commitWriteSession() {
+        WriteSession session;
+        session = WriteSession.end();
+        if (session == null) {
+            return Result.getSuccess();
+        }
+        // 嵌套的会话已被丢弃，暂存数据已经清空，整个会话不写入任何数据
+        // a nested level was discarded and the staged data is already gone, nothing of the session is written
+        if (session.isRollbackOnly()) {
+            return Result.getFailed(DBErrorCode.DB_ROLLBACK_ERROR);
+        }
+        if (session.isEmpty()) {
+            runAfterCommitActions(session);
+            return Result.getSuccess();
+        }
+        if (writeSessionBroken) {
+            Log.error("a previous write session was applied partially, no more sessions are accepted until restart");
+            return Result.getFailed(DBErrorCode.DB_SAVE_ERROR);
+        }
+        DB baseDb = AREAS.get(BASE_AREA_NAME);
+        try {
+            // 未删除的提交日志说明上一个会话没有完整写入，不能被覆盖
+            // a journal left in place means the previous session was not fully applied, it must not be overwritten
+            if (baseDb.get(WRITE_SESSION_JOURNAL_KEY) != null) {
+                writeSessionBroken = true;
+                Log.error("a pending write session journal exists, no more sessions are accepted until restart");
+                return Result.getFailed(DBErrorCode.DB_SAVE_ERROR);
+            }
+            baseDb.put(WRITE_SESSION_JOURNAL_KEY, session.toJournal(), SYNC_WRITE);
+        } catch (Exception e) {
+            Log.error("write session journal failed", e);
+            return Result.getFailed(DBErrorCode.DB_SAVE_ERROR);
+        }
+        // 提交日志已持久化，写入失败时重试一次，仍然失败则停止接受新的会话，部分写入的数据在下次启动时由提交日志补全
+        // the journal is persisted, retry once if writing fails. If it still fails no more sessions are accepted,
+        // the partially applied data is completed from the journal on the next start
+        if (!applyWriteSession(session) && !applyWriteSession(session)) {
+            writeSessionBroken = true;
+            Log.error("apply write session failed, no more sessions are accepted, it will be replayed from the journal on the next start");
+            return Result.getFailed(DBErrorCode.DB_SAVE_ERROR);
+        }
+        try {
+            baseDb.delete(WRITE_SESSION_JOURNAL_KEY, SYNC_WRITE);
+        } catch (Exception e) {
+            writeSessionBroken = true;
+            Log.error("delete write session journal failed, no more sessions are accepted until restart", e);
+        }
+        runAfterCommitActions(session);
+        return Result.getSuccess();
+    }
+
+    /**
+     * 登记在当前线程写会话提交成功后执行的操作，没有会话时立即执行，会话被丢弃或提交失败时不执行
+     * Register an action run after the write session of the current thread is committed successfully.
+     * It runs right away when there is no session, and never runs if the session is discarded or fails to commit.
+     */
+    public static void afterWriteSessionCommit(Runnable action) {
+        WriteSession session = WriteSession.current();
+        if (session == null) {
+            action.run();
+            return;
+        }
+        session.afterCommit(action);
+    }
+
+    private static void runAfterCommitActions(WriteSession session) {
+        for (Runnable action : session.getAfterCommitActions()) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                Log.error("write session after commit action failed", e);
+            }
+        }
+    }
+
+    private static boolean applyWriteSession(WriteSession session) {
+        for (String area : session.getAreas()) {
+            DB db = AREAS.get(area);
+            if (db == null) {
+                Log.warn("write session skip area not exist: " + area);
+                continue;
+            }
+            final WriteBatch batch = db.createWriteBatch();
+            try {
+                session.forEach(area, (key, value) -> {
+                    if (value == null) {
+                        batch.delete(key);
+                    } else {
+                        batch.put(key, value);
+                    }
+                });
+                db.write(batch, SYNC_WRITE);
+            } catch (Exception e) {
+                Log.error("write session apply area failed: " + area, e);
+                return false;
+            } finally {
+                try {
+                    batch.close();
+                } catch (IOException e) {
+                    // skip it
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 启动时重放上次未完成的写会话
+     * Replay the write session left unfinished last time on start.
+     */
+    private static void replayWriteSessionJournal() {
+        DB baseDb = AREAS.get(BASE_AREA_NAME);
+        if (baseDb == null) {
+            return;
+        }
+        byte[] journal = baseDb.get(WRITE_SESSION_JOURNAL_KEY);
+        if (journal == null) {
+            return;
+        }
+        try {
+            Log.info("replay unfinished write session journal");
+            WriteSession session = WriteSession.fromJournal(journal);
+            if (applyWriteSession(session)) {
+                baseDb.delete(WRITE_SESSION_JOURNAL_KEY, SYNC_WRITE);
+                return;
+            }
+        } catch (Exception e) {
+            Log.error("replay write session journal failed", e);
+        }
+        writeSessionBroken = true;
+        Log.error("the unfinished write session could not be replayed, no more sessions are accepted");
+    }
+
     public static Result clearArea(String area) {
         if (!baseCheckArea(area)) {
             return Result.getFailed();
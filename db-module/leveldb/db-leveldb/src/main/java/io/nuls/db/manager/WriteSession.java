@@ -0,0 +1,327 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.manager;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 绑定在当前线程上的写会话，会话期间的写操作先暂存在内存中，读操作会合并暂存的数据，
+ * 提交时每个数据区域只执行一次批量写入
+ * A write session bound to the current thread. Writes made during the session are staged in memory,
+ * reads see the staged data, and on commit each data area is written with a single batch.
+ * <p>
+ * 暂存的数据只对开启会话的线程可见，其他线程在提交之前只能读到已存储的数据，所以会话中的工作不能交给其他线程执行。
+ * 嵌套的会话共享同一份暂存数据：任何一层丢弃都会立即清空全部暂存数据和提交后操作，并把会话标记为只可回滚，
+ * 之后外层的提交不写入任何数据并返回失败。
+ * Staged data is only visible to the thread that began the session, other threads read the stored data until
+ * the commit, so work inside a session must not be handed to other threads. Nested levels share the staged data:
+ * discarding any level drops all staged data and after-commit actions at once and marks the session rollback-only,
+ * an outer commit then writes nothing and fails.
+ * <p>
+ * 暂存数据按LevelDB存储的key顺序（无符号字节序）排列，以便与数据区域的迭代器逐条合并；
+ * 数据区域的自定义比较器只用于对返回的列表排序，没有传给LevelDB
+ * Staged keys are kept in the order LevelDB stores them (unsigned byte order) so they merge entry by entry with
+ * the iterator of the area. A custom area comparator only sorts the returned lists, it is not passed to LevelDB.
+ */
+public class WriteSession {
+
+    private static final ThreadLocal<WriteSession> SESSION = new ThreadLocal<>();
+
+    /**
+     * 删除标记，只按引用比较
+     * Deletion marker, only compared by reference.
+     */
+    private static final byte[] DELETED = new byte[0];
+
+    private static final byte TYPE_DELETE = 0;
+    private static final byte TYPE_PUT = 1;
+
+    private final Map<String, TreeMap<byte[], byte[]>> areaWrites = new LinkedHashMap<>();
+
+    private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+    private int depth;
+
+    private boolean rollbackOnly;
+
+    private WriteSession() {
+    }
+
+    /**
+     * 开启会话，嵌套开启时只有最外层的提交才会真正写入
+     * Begin a session, when nested only the outermost commit really writes.
+     */
+    public static void begin() {
+        WriteSession session = SESSION.get();
+        if (session == null) {
+            session = new WriteSession();
+            SESSION.set(session);
+        }
+        session.depth++;
+    }
+
+    /**
+     * 结束当前层会话，返回最外层会话以便提交，嵌套会话返回null；调用方需要检查会话是否只可回滚
+     * End the current level of the session and return the outermost session to be committed, null for a nested
+     * level. The caller checks whether the session is rollback-only.
+     */
+    public static WriteSession end() {
+        WriteSession session = SESSION.get();
+        if (session == null || !session.exit()) {
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 丢弃当前层会话，立即清空全部暂存数据和提交后操作；嵌套时把整个会话标记为只可回滚
+     * Discard the current level of the session, all staged data and after-commit actions are dropped right away.
+     * When nested the whole session is marked rollback-only.
+     */
+    public static void discard() {
+        WriteSession session = SESSION.get();
+        if (session == null) {
+            return;
+        }
+        session.rollbackOnly = true;
+        session.areaWrites.clear();
+        session.afterCommitActions.clear();
+        session.exit();
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    private boolean exit() {
+        if (--depth > 0) {
+            return false;
+        }
+        SESSION.remove();
+        return true;
+    }
+
+    public static WriteSession current() {
+        return SESSION.get();
+    }
+
+    /**
+     * 当前线程的会话是否暂存了该区域的数据
+     * Whether the session of the current thread has staged data of the area.
+     */
+    public static WriteSession currentWithWrites(String area) {
+        WriteSession session = SESSION.get();
+        if (session == null || !session.areaWrites.containsKey(area)) {
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 创建一个不绑定线程的会话，用于暂存一组批量操作
+     * Create a session not bound to any thread, used to stage a group of batch operations.
+     */
+    public static WriteSession detached() {
+        return new WriteSession();
+    }
+
+    /**
+     * 合并另一个会话暂存的全部写操作
+     * Merge all writes staged in another session.
+     */
+    public void putAll(WriteSession other) {
+        for (Map.Entry<String, TreeMap<byte[], byte[]>> area : other.areaWrites.entrySet()) {
+            getWrites(area.getKey()).putAll(area.getValue());
+        }
+    }
+
+    public void put(String area, byte[] key, byte[] value) {
+        getWrites(area).put(key, value);
+    }
+
+    public void delete(String area, byte[] key) {
+        getWrites(area).put(key, DELETED);
+    }
+
+    private TreeMap<byte[], byte[]> getWrites(String area) {
+        TreeMap<byte[], byte[]> writes = areaWrites.get(area);
+        if (writes == null) {
+            writes = new TreeMap<>(WriteSession::compare);
+            areaWrites.put(area, writes);
+        }
+        return writes;
+    }
+
+    public boolean contains(String area, byte[] key) {
+        TreeMap<byte[], byte[]> writes = areaWrites.get(area);
+        return writes != null && writes.containsKey(key);
+    }
+
+    /**
+     * 获取暂存的值，被删除时返回null，调用前需先用contains判断
+     * Get the staged value, null if it was deleted, check with contains first.
+     */
+    public byte[] get(String area, byte[] key) {
+        TreeMap<byte[], byte[]> writes = areaWrites.get(area);
+        if (writes == null) {
+            return null;
+        }
+        byte[] value = writes.get(key);
+        return value == DELETED ? null : value;
+    }
+
+    /**
+     * 返回区域内[from, to)范围的暂存数据，删除的key对应的value为null
+     * Returns the staged data of the area in [from, to), deleted keys map to a null value.
+     */
+    public Iterator<Map.Entry<byte[], byte[]>> range(String area, byte[] from, byte[] to) {
+        TreeMap<byte[], byte[]> writes = areaWrites.get(area);
+        if (writes == null) {
+            return Collections.emptyIterator();
+        }
+        NavigableMap<byte[], byte[]> range = writes;
+        if (from != null && to != null) {
+            range = writes.subMap(from, true, to, false);
+        } else if (from != null) {
+            range = writes.tailMap(from, true);
+        } else if (to != null) {
+            range = writes.headMap(to, false);
+        }
+        final Iterator<Map.Entry<byte[], byte[]>> iterator = range.entrySet().iterator();
+        return new Iterator<Map.Entry<byte[], byte[]>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<byte[], byte[]> next() {
+                Map.Entry<byte[], byte[]> entry = iterator.next();
+                byte[] value = entry.getValue() == DELETED ? null : entry.getValue();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value);
+            }
+        };
+    }
+
+    public boolean isEmpty() {
+        return areaWrites.isEmpty();
+    }
+
+    /**
+     * 登记提交成功后执行的操作，例如更新内存缓存，会话被丢弃时这些操作也被丢弃
+     * Register an action run after a successful commit, such as updating an in-memory cache.
+     * The actions are dropped together with the session when it is discarded.
+     */
+    public void afterCommit(Runnable action) {
+        afterCommitActions.add(action);
+    }
+
+    public List<Runnable> getAfterCommitActions() {
+        return afterCommitActions;
+    }
+
+    public Set<String> getAreas() {
+        return areaWrites.keySet();
+    }
+
+    /**
+     * 遍历区域内所有暂存的写操作，value为null表示删除
+     * Visit all staged writes of the area, a null value means delete.
+     */
+    public void forEach(String area, WriteVisitor visitor) {
+        TreeMap<byte[], byte[]> writes = areaWrites.get(area);
+        if (writes == null) {
+            return;
+        }
+        for (Map.Entry<byte[], byte[]> entry : writes.entrySet()) {
+            visitor.visit(entry.getKey(), entry.getValue() == DELETED ? null : entry.getValue());
+        }
+    }
+
+    /**
+     * 序列化为提交日志，在写入各数据区域之前持久化，用于崩溃后恢复
+     * Serialize into a commit journal, persisted before writing the data areas and used for recovery after a crash.
+     */
+    public byte[] toJournal() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(areaWrites.size());
+        for (Map.Entry<String, TreeMap<byte[], byte[]>> area : areaWrites.entrySet()) {
+            out.writeUTF(area.getKey());
+            out.writeInt(area.getValue().size());
+            for (Map.Entry<byte[], byte[]> entry : area.getValue().entrySet()) {
+                boolean deleted = entry.getValue() == DELETED;
+                out.writeByte(deleted ? TYPE_DELETE : TYPE_PUT);
+                out.writeInt(entry.getKey().length);
+                out.write(entry.getKey());
+                if (!deleted) {
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static WriteSession fromJournal(byte[] journal) throws IOException {
+        WriteSession session = new WriteSession();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal));
+        int areaCount = in.readInt();
+        for (int i = 0; i < areaCount; i++) {
+            String area = in.readUTF();
+            int count = in.readInt();
+            for (int j = 0; j < count; j++) {
+                byte type = in.readByte();
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                if (type == TYPE_DELETE) {
+                    session.delete(area, key);
+                } else {
+                    byte[] value = new byte[in.readInt()];
+                    in.readFully(value);
+                    session.put(area, key, value);
+                }
+            }
+        }
+        return session;
+    }
+
+    /**
+     * 与LevelDB默认比较器一致的无符号字节序比较
+     * Unsigned byte order comparison, the same as the default LevelDB comparator.
+     */
+    public static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int x = a[i] & 0xFF;
+            int y = b[i] & 0xFF;
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    public interface WriteVisitor {
+        void visit(byte[] key, byte[] value);
+    }
+}
@@ -22,6 +22,7 @@ package io.nuls.db.service.impl;
 import io.nuls.core.tools.log.Log;
 import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.manager.LevelDBManager;
+import io.nuls.db.manager.WriteSession;
 import io.nuls.db.service.BatchOperation;
 import io.nuls.kernel.model.Result;
 import org.iq80.leveldb.DB;
@@ -38,12 +39,23 @@ public class BatchOperationImpl implements BatchOperation {
     private DB db;
     private WriteBatch batch;
     private volatile boolean isClose = false;
+    /**
+     * 创建时当前线程处于写会话中，则操作暂存到本地，执行时一并转入会话
+     * If the current thread is in a write session when created, operations are kept locally and moved into the session on execution.
+     */
+    private WriteSession session;
+    private WriteSession batchWrites;
 
     BatchOperationImpl(String area) {
         this.area = area;
         db = LevelDBManager.getArea(area);
+        session = WriteSession.current();
         if (db != null) {
-            batch = db.createWriteBatch();
+            if (session != null) {
+                batchWrites = WriteSession.detached();
+            } else {
+                batch = db.createWriteBatch();
+            }
         }
     }
 
@@ -51,7 +63,7 @@ public class BatchOperationImpl implements BatchOperation {
         if (db == null) {
             return Result.getFailed(DBErrorCode.DB_AREA_NOT_EXIST);
         }
-        if (batch == null) {
+        if (batch == null && batchWrites == null) {
             return Result.getFailed(DBErrorCode.DB_UNKOWN_EXCEPTION);
         }
         return SUCCESS;
@@ -62,6 +74,10 @@ public class BatchOperationImpl implements BatchOperation {
         if (key == null || value == null) {
             return FAILED_NULL;
         }
+        if (batchWrites != null) {
+            batchWrites.put(area, key, value);
+            return SUCCESS;
+        }
         batch.put(key, value);
         return SUCCESS;
     }
@@ -80,6 +96,10 @@ public class BatchOperationImpl implements BatchOperation {
         if (key == null) {
             return FAILED_NULL;
         }
+        if (batchWrites != null) {
+            batchWrites.delete(area, key);
+            return SUCCESS;
+        }
         batch.delete(key);
         return SUCCESS;
     }
@@ -98,6 +118,11 @@ public class BatchOperationImpl implements BatchOperation {
         if (checkClose()) {
             return FAILED_BATCH_CLOSE;
         }
+        if (batchWrites != null) {
+            this.close();
+            session.putAll(batchWrites);
+            return SUCCESS;
+        }
         try {
             db.write(batch);
         } catch (Exception e) {
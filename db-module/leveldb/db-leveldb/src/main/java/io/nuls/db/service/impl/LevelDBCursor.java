@@ -0,0 +1,242 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.service.impl;
+
+import io.nuls.core.tools.log.Log;
+import io.nuls.db.manager.LevelDBManager;
+import io.nuls.db.manager.WriteSession;
+import io.nuls.db.model.Entry;
+import io.nuls.db.service.DBCursor;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+
+import java.util.*;
+
+/**
+ * 基于LevelDB迭代器的游标，只在[from, to)或前缀范围内移动，不会把整个数据区域读入内存
+ * A cursor backed by the LevelDB iterator, it only moves inside [from, to) or the prefix range
+ * and never loads the whole data area into memory.
+ * <p>
+ * 当前版本的LevelDB迭代器不支持向前移动，倒序时只缓存范围内最后offset+limit条数据
+ * The iterator of this LevelDB version cannot move backwards, in reverse order only the last
+ * offset + limit entries of the range are buffered.
+ */
+public class LevelDBCursor implements DBCursor {
+
+    private final byte[] prefix;
+    private final byte[] to;
+    private final int limit;
+    private DBIterator iterator;
+    /**
+     * 当前线程写会话中暂存的同范围数据，与迭代器按key合并，value为null表示已删除
+     * Data of the same range staged in the write session of the current thread, merged with the iterator by key,
+     * a null value means deleted.
+     */
+    private Iterator<Map.Entry<byte[], byte[]>> sessionIterator;
+    private Map.Entry<byte[], byte[]> sessionHead;
+    private Entry<byte[], byte[]> head;
+    private Iterator<Entry<byte[], byte[]>> reverseIterator;
+    private int count;
+    private volatile boolean isClose = false;
+
+    private LevelDBCursor(String area, byte[] from, byte[] to, byte[] prefix, boolean reverse, int offset, int limit) {
+        this.prefix = prefix;
+        this.to = to;
+        this.limit = limit;
+        DB db = LevelDBManager.getArea(area);
+        if (db == null) {
+            this.isClose = true;
+            return;
+        }
+        WriteSession session = WriteSession.currentWithWrites(area);
+        if (session != null) {
+            sessionIterator = session.range(area, from, to);
+        }
+        this.iterator = db.iterator();
+        if (from == null) {
+            iterator.seekToFirst();
+        } else {
+            iterator.seek(from);
+        }
+        if (reverse) {
+            reverseIterator = bufferReverse(offset, limit);
+            closeIterator();
+        } else {
+            for (int i = 0; i < offset && fetch(); i++) {
+                head = null;
+            }
+        }
+    }
+
+    static LevelDBCursor seek(String area, byte[] prefix, boolean reverse, int offset, int limit) {
+        return new LevelDBCursor(area, prefix, null, prefix, reverse, offset, limit);
+    }
+
+    public static LevelDBCursor range(String area, byte[] from, byte[] to, boolean reverse, int offset, int limit) {
+        return new LevelDBCursor(area, from, to, null, reverse, offset, limit);
+    }
+
+    private Iterator<Entry<byte[], byte[]>> bufferReverse(int offset, int limit) {
+        int capacity = limit > 0 ? Math.max(offset, 0) + limit : Integer.MAX_VALUE;
+        ArrayDeque<Entry<byte[], byte[]>> buffer = new ArrayDeque<>();
+        while (fetch()) {
+            if (buffer.size() == capacity) {
+                buffer.pollFirst();
+            }
+            buffer.addLast(head);
+            head = null;
+        }
+        Iterator<Entry<byte[], byte[]>> descending = buffer.descendingIterator();
+        for (int i = 0; i < offset && descending.hasNext(); i++) {
+            descending.next();
+        }
+        return descending;
+    }
+
+    /**
+     * 取出下一条合并后的数据放入head，没有更多数据时返回false
+     * Fetch the next merged entry into head, returns false when there is no more data.
+     */
+    private boolean fetch() {
+        while (head == null) {
+            boolean hasStored = hasNextInRange();
+            if (sessionHead == null && sessionIterator != null && sessionIterator.hasNext()) {
+                sessionHead = sessionIterator.next();
+                if (prefix != null && !startsWith(sessionHead.getKey(), prefix)) {
+                    sessionHead = null;
+                    sessionIterator = null;
+                }
+            }
+            if (!hasStored && sessionHead == null) {
+                return false;
+            }
+            int compare;
+            if (!hasStored) {
+                compare = 1;
+            } else if (sessionHead == null) {
+                compare = -1;
+            } else {
+                compare = WriteSession.compare(iterator.peekNext().getKey(), sessionHead.getKey());
+            }
+            if (compare < 0) {
+                Map.Entry<byte[], byte[]> entry = iterator.next();
+                head = new Entry<>(entry.getKey(), entry.getValue());
+                continue;
+            }
+            if (compare == 0) {
+                // 会话中的数据覆盖已存储的数据
+                // staged data overrides the stored data
+                iterator.next();
+            }
+            if (sessionHead.getValue() != null) {
+                head = new Entry<>(sessionHead.getKey(), sessionHead.getValue());
+            }
+            sessionHead = null;
+        }
+        return true;
+    }
+
+    private boolean hasNextInRange() {
+        if (iterator == null || !iterator.hasNext()) {
+            return false;
+        }
+        byte[] key = iterator.peekNext().getKey();
+        if (prefix != null && !startsWith(key, prefix)) {
+            return false;
+        }
+        if (to != null && WriteSession.compare(key, to) >= 0) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (limit > 0 && count >= limit) {
+            return false;
+        }
+        if (reverseIterator != null) {
+            return reverseIterator.hasNext();
+        }
+        if (isClose) {
+            return false;
+        }
+        boolean hasNext = fetch();
+        if (!hasNext) {
+            closeIterator();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Entry<byte[], byte[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        count++;
+        if (reverseIterator != null) {
+            return reverseIterator.next();
+        }
+        Entry<byte[], byte[]> entry = head;
+        head = null;
+        return entry;
+    }
+
+    @Override
+    public List<Entry<byte[], byte[]>> next(int limit) {
+        List<Entry<byte[], byte[]>> list = new ArrayList<>();
+        while (list.size() < limit && hasNext()) {
+            list.add(next());
+        }
+        return list;
+    }
+
+    @Override
+    public void close() {
+        reverseIterator = null;
+        sessionIterator = null;
+        closeIterator();
+    }
+
+    private void closeIterator() {
+        this.isClose = true;
+        // Make sure you close the iterator to avoid resource leaks.
+        if (iterator != null) {
+            try {
+                iterator.close();
+            } catch (Exception e) {
+                Log.warn("close leveldb iterator error", e);
+            }
+            iterator = null;
+        }
+    }
+
+    static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -25,11 +25,13 @@ import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.manager.LevelDBManager;
 import io.nuls.db.model.Entry;
 import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.exception.NulsRuntimeException;
 import io.nuls.kernel.lite.annotation.Service;
 import io.nuls.kernel.model.Result;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -100,6 +102,11 @@ public class LevelDBServiceImpl implements DBService {
         return LevelDBManager.getModel(area, key);
     }
 
+    @Override
+    public <T> T toModel(byte[] value, Class<T> clazz) {
+        return LevelDBManager.getModel(value, clazz);
+    }
+
     @Override
     public Set<byte[]> keySet(String area) {
         return LevelDBManager.keySet(area);
@@ -110,6 +117,43 @@ public class LevelDBServiceImpl implements DBService {
         return LevelDBManager.keyList(area);
     }
 
+    @Override
+    public List<byte[]> keyListByPrefix(String area, byte[] prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        List<byte[]> keyList = new ArrayList<>();
+        try (DBCursor cursor = seek(area, prefix)) {
+            while (cursor.hasNext()) {
+                keyList.add(cursor.next().getKey());
+            }
+        }
+        return keyList;
+    }
+
+    @Override
+    public DBCursor seek(String area, byte[] prefix) {
+        return seek(area, prefix, false, 0, 0);
+    }
+
+    @Override
+    public DBCursor seek(String area, byte[] prefix, boolean reverse, int offset, int limit) {
+        if (prefix == null) {
+            throw new NulsRuntimeException(DBErrorCode.NULL_PARAMETER);
+        }
+        return LevelDBCursor.seek(area, prefix, reverse, offset, limit);
+    }
+
+    @Override
+    public DBCursor range(String area, byte[] from, byte[] to) {
+        return range(area, from, to, false, 0, 0);
+    }
+
+    @Override
+    public DBCursor range(String area, byte[] from, byte[] to, boolean reverse, int offset, int limit) {
+        return LevelDBCursor.range(area, from, to, reverse, offset, limit);
+    }
+
     @Override
     public List<byte[]> valueList(String area) {
         return LevelDBManager.valueList(area);
@@ -149,6 +193,26 @@ public class LevelDBServiceImpl implements DBService {
         return batchOperation;
     }
 
+    @Override
+    public void beginWriteSession() {
+        LevelDBManager.beginWriteSession();
+    }
+
+    @Override
+    public Result commitWriteSession() {
+        return LevelDBManager.commitWriteSession();
+    }
+
+    @Override
+    public void discardWriteSession() {
+        LevelDBManager.discardWriteSession();
+    }
+
+    @Override
+    public void afterWriteSessionCommit(Runnable action) {
+        LevelDBManager.afterWriteSessionCommit(action);
+    }
+
     @Override
     public Result destroyArea(String area) {
         return LevelDBManager.destroyArea(area);
@@ -161,4 +225,9 @@ public class LevelDBServiceImpl implements DBService {
     public Result clearArea(String area) {
         return LevelDBManager.clearArea(area);
     }
+
+    @Override
+    public String getDataPath() {
+        return LevelDBManager.getDataPath();
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.db.service;
+
+import io.nuls.db.model.Entry;
+import io.nuls.db.service.impl.LevelDBServiceImpl;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DBCursorTest {
+
+    private static DBService dbService;
+
+    private static String areaName = "cursor-test";
+
+    @BeforeClass
+    public static void init() throws Exception {
+        dbService = new LevelDBServiceImpl();
+        dbService.destroyArea(areaName);
+        dbService.createArea(areaName);
+        for (int prefix = 1; prefix <= 3; prefix++) {
+            for (int i = 0; i < 10; i++) {
+                dbService.put(areaName, new byte[]{(byte) prefix, (byte) i}, new byte[]{(byte) i});
+            }
+        }
+        dbService.put(areaName, new byte[]{(byte) 0xF0, 0}, new byte[]{0});
+    }
+
+    @AfterClass
+    public static void destroy() {
+        dbService.destroyArea(areaName);
+    }
+
+    @Test
+    public void seek() {
+        try (DBCursor cursor = dbService.seek(areaName, new byte[]{2})) {
+            List<Entry<byte[], byte[]>> list = cursor.next(100);
+            assertEquals(10, list.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(2, list.get(i).getKey()[0]);
+                assertEquals(i, list.get(i).getKey()[1]);
+            }
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    public void seekWithPaging() {
+        try (DBCursor cursor = dbService.seek(areaName, new byte[]{3}, false, 4, 3)) {
+            List<Entry<byte[], byte[]>> list = cursor.next(100);
+            assertEquals(3, list.size());
+            assertEquals(4, list.get(0).getKey()[1]);
+            assertEquals(6, list.get(2).getKey()[1]);
+        }
+        try (DBCursor cursor = dbService.seek(areaName, new byte[]{3}, true, 2, 3)) {
+            List<Entry<byte[], byte[]>> list = cursor.next(100);
+            assertEquals(3, list.size());
+            assertEquals(7, list.get(0).getKey()[1]);
+            assertEquals(5, list.get(2).getKey()[1]);
+        }
+    }
+
+    @Test
+    public void range() {
+        try (DBCursor cursor = dbService.range(areaName, new byte[]{1, 5}, new byte[]{2, 2})) {
+            assertEquals(7, cursor.next(100).size());
+        }
+        try (DBCursor cursor = dbService.range(areaName, new byte[]{3}, null)) {
+            List<Entry<byte[], byte[]>> list = cursor.next(100);
+            assertEquals(11, list.size());
+            // unsigned byte order
+            assertEquals((byte) 0xF0, list.get(10).getKey()[0]);
+        }
+        try (DBCursor cursor = dbService.range(areaName, null, new byte[]{2}, true, 0, 0)) {
+            List<Entry<byte[], byte[]>> list = cursor.next(100);
+            assertEquals(10, list.size());
+            assertEquals(9, list.get(0).getKey()[1]);
+        }
+    }
+
+    @Test
+    public void keyListByPrefix() {
+        assertEquals(10, dbService.keyListByPrefix(areaName, new byte[]{1}).size());
+        assertEquals(0, dbService.keyListByPrefix(areaName, new byte[]{4}).size());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.db.service;
+
+import io.nuls.db.service.impl.LevelDBServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WriteSessionTest {
+
+    private static DBService dbService;
+
+    private static String areaA = "session-test-a";
+
+    private static String areaB = "session-test-b";
+
+    @Before
+    public void init() {
+        dbService = new LevelDBServiceImpl();
+        dbService.createArea(areaA);
+        dbService.createArea(areaB);
+        dbService.put(areaA, new byte[]{1}, new byte[]{1});
+    }
+
+    @After
+    public void destroy() {
+        dbService.destroyArea(areaA);
+        dbService.destroyArea(areaB);
+    }
+
+    @Test
+    public void commit() {
+        dbService.beginWriteSession();
+        dbService.put(areaA, new byte[]{2}, new byte[]{2});
+        dbService.delete(areaA, new byte[]{1});
+        BatchOperation batch = dbService.createWriteBatch(areaB);
+        batch.put(new byte[]{3}, new byte[]{3});
+        assertTrue(batch.executeBatch().isSuccess());
+
+        // the current thread reads the staged data
+        assertNull(dbService.get(areaA, new byte[]{1}));
+        assertArrayEquals(new byte[]{2}, dbService.get(areaA, new byte[]{2}));
+        assertEquals(1, dbService.keyList(areaA).size());
+        try (DBCursor cursor = dbService.range(areaA, null, null)) {
+            assertArrayEquals(new byte[]{2}, cursor.next().getKey());
+            assertFalse(cursor.hasNext());
+        }
+        assertEquals(1, dbService.keySet(areaA).size());
+        assertArrayEquals(new byte[]{2}, dbService.valueList(areaA).get(0));
+
+        // other threads read the stored data until the commit
+        AtomicReference<byte[]> otherThreadValue = new AtomicReference<>();
+        Thread reader = new Thread(() -> otherThreadValue.set(dbService.get(areaA, new byte[]{1})));
+        reader.start();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertArrayEquals(new byte[]{1}, otherThreadValue.get());
+        assertTrue(dbService.commitWriteSession().isSuccess());
+
+        assertNull(dbService.get(areaA, new byte[]{1}));
+        assertArrayEquals(new byte[]{2}, dbService.get(areaA, new byte[]{2}));
+        assertArrayEquals(new byte[]{3}, dbService.get(areaB, new byte[]{3}));
+    }
+
+    @Test
+    public void discard() {
+        dbService.beginWriteSession();
+        dbService.put(areaA, new byte[]{2}, new byte[]{2});
+        dbService.discardWriteSession();
+        assertNull(dbService.get(areaA, new byte[]{2}));
+        assertArrayEquals(new byte[]{1}, dbService.get(areaA, new byte[]{1}));
+    }
+
+    @Test
+    public void nestedDiscard() {
+        dbService.beginWriteSession();
+        dbService.put(areaA, new byte[]{2}, new byte[]{2});
+        dbService.beginWriteSession();
+        dbService.put(areaB, new byte[]{3}, new byte[]{3});
+        dbService.discardWriteSession();
+        // the outer level no longer sees the staged data once any level is discarded
+        assertNull(dbService.get(areaA, new byte[]{2}));
+        assertTrue(dbService.commitWriteSession().isFailed());
+        assertNull(dbService.get(areaA, new byte[]{2}));
+        assertNull(dbService.get(areaB, new byte[]{3}));
+
+        // the thread is free for a new session afterwards
+        dbService.beginWriteSession();
+        dbService.put(areaA, new byte[]{2}, new byte[]{2});
+        assertTrue(dbService.commitWriteSession().isSuccess());
+        assertArrayEquals(new byte[]{2}, dbService.get(areaA, new byte[]{2}));
+    }
+
+    @Test
+    public void afterCommit() {
+        AtomicInteger counter = new AtomicInteger();
+        dbService.beginWriteSession();
+        dbService.put(areaA, new byte[]{2}, new byte[]{2});
+        dbService.afterWriteSessionCommit(counter::incrementAndGet);
+        assertEquals(0, counter.get());
+        assertTrue(dbService.commitWriteSession().isSuccess());
+        assertEquals(1, counter.get());
+
+        dbService.beginWriteSession();
+        dbService.afterWriteSessionCommit(counter::incrementAndGet);
+        dbService.discardWriteSession();
+        assertEquals(1, counter.get());
+
+        // without a session the action runs right away
+        dbService.afterWriteSessionCommit(counter::incrementAndGet);
+        assertEquals(2, counter.get());
+    }
+}
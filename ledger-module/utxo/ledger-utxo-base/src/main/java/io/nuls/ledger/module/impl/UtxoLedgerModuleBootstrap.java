@@ -51,7 +51,7 @@ public class UtxoLedgerModuleBootstrap extends AbstractLedgerModule {
     public void start() {
         executorService = TaskManager.createScheduledThreadPool(1,
                 new NulsThreadFactory(LedgerConstant.MODULE_ID_LEDGER, "ledger-task-thread-pool"));
-        executorService.scheduleAtFixedRate(new TotalCoinTask(), 10, 30 * 60, TimeUnit.SECONDS);
+        executorService.scheduleAtFixedRate(new TotalCoinTask(), 10, 60, TimeUnit.SECONDS);
     }
 
     @Override
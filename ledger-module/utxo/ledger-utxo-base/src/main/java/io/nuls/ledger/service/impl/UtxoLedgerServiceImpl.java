@@ -27,12 +27,12 @@ import io.nuls.contract.constant.ContractConstant;
 import io.nuls.contract.constant.ContractErrorCode;
 import io.nuls.contract.service.ContractService;
 import io.nuls.core.tools.array.ArraysTool;
-import io.nuls.core.tools.calc.LongUtils;
 import io.nuls.core.tools.log.Log;
 import io.nuls.core.tools.map.MapUtil;
 import io.nuls.core.tools.param.AssertUtil;
 import io.nuls.db.model.Entry;
 import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBService;
 import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.constant.NulsConstant;
 import io.nuls.kernel.constant.TransactionErrorCode;
@@ -52,8 +52,12 @@ import io.nuls.kernel.utils.VarInt;
 import io.nuls.kernel.validate.ValidateResult;
 import io.nuls.ledger.constant.LedgerErrorCode;
 import io.nuls.ledger.service.LedgerService;
+import io.nuls.ledger.storage.service.UtxoLedgerSupplyStorageService;
 import io.nuls.ledger.storage.service.UtxoLedgerTransactionStorageService;
 import io.nuls.ledger.storage.service.UtxoLedgerUtxoStorageService;
+import io.nuls.ledger.storage.po.UtxoSupplyPo;
+import io.nuls.ledger.storage.util.UtxoAddressIndexUtil;
+import io.nuls.ledger.storage.util.UtxoSupplyDelta;
 import io.nuls.ledger.util.LedgerUtil;
 import org.spongycastle.util.Arrays;
 
@@ -73,40 +77,41 @@ public class UtxoLedgerServiceImpl implements LedgerService {
     @Autowired
     private UtxoLedgerTransactionStorageService utxoLedgerTransactionStorageService;
     @Autowired
+    private UtxoLedgerSupplyStorageService utxoLedgerSupplyStorageService;
+    @Autowired
     private ContractService contractService;
+    @Autowired
+    private DBService dbService;
 
     @Override
     public Result saveTx(Transaction tx) throws NulsException {
         if (tx == null) {
             return Result.getFailed(LedgerErrorCode.NULL_PARAMETER);
         }
+        // 交易和CoinData在同一个写会话中保存，失败时丢弃会话，无需再回滚
+        // the tx and its CoinData are saved in one write session, on failure the session is discarded instead of rolled back
+        dbService.beginWriteSession();
+        boolean finished = false;
         try {
             // 保存交易
             Result result = utxoLedgerTransactionStorageService.saveTx(tx);
             if (result.isFailed()) {
-                Result rollbackResult = rollbackTx(tx);
-                if (rollbackResult.isFailed()) {
-                    throw new NulsException(rollbackResult.getErrorCode());
-                }
+                return result;
             }
-
             // 保存CoinData
             result = saveCoinData(tx);
             if (result.isFailed()) {
-                Result rollbackResult = rollbackCoinData(tx);
-                if (rollbackResult.isFailed()) {
-                    throw new NulsException(rollbackResult.getErrorCode());
-                }
+                return result;
             }
-
-            return result;
+            finished = true;
+            return dbService.commitWriteSession();
         } catch (IOException e) {
             Log.error(e);
-            Result rollbackResult = rollbackTx(tx);
-            if (rollbackResult.isFailed()) {
-                throw new NulsException(rollbackResult.getErrorCode());
-            }
             return Result.getFailed(KernelErrorCode.IO_ERROR);
+        } finally {
+            if (!finished) {
+                dbService.discardWriteSession();
+            }
         }
     }
 
@@ -117,6 +122,12 @@ public class UtxoLedgerServiceImpl implements LedgerService {
         //TestLog-
         if (coinData != null) {
             BatchOperation batch = utxoLedgerUtxoStorageService.createWriteBatch();
+            // 地址索引与utxo在同一个写会话中提交
+            // the address index is committed in the same write session as the utxo
+            BatchOperation indexBatch = utxoLedgerUtxoStorageService.createAddressIndexWriteBatch();
+            // 供应量的变化与utxo在同一个写会话中记账
+            // the supply change is accounted in the same write session as the utxo
+            UtxoSupplyDelta supplyDelta = new UtxoSupplyDelta();
             // 删除utxo已花费 - from
             List<Coin> froms = coinData.getFrom();
             for (Coin from : froms) {
@@ -128,6 +139,23 @@ public class UtxoLedgerServiceImpl implements LedgerService {
 //                Log.info("delete utxo:" + Hex.encode(from.()));
                 //TestLog-
                 batch.delete(from.getOwner());
+                Coin spent = from.getFrom();
+                // from.getFrom()是瞬态字段，只有verifyCoinData会填充；保存的交易对象不是校验过的那个实例时
+                // (如从存储重新读取的区块、切换分叉链时重新反序列化的交易)为空，此时回查utxo数据区，
+                // 本次batch的删除尚未执行，所以还能读到被花费的utxo
+                // from.getFrom() is transient and only filled by verifyCoinData; it is null when the saved instance is not
+                // the verified one (blocks re-read from storage, txs deserialized again while switching to a fork chain),
+                // so fall back to the utxo area, which still holds the spent utxo because this batch has not run yet
+                if (spent == null) {
+                    spent = utxoLedgerUtxoStorageService.getUtxo(from.getOwner());
+                }
+                byte[] address = UtxoAddressIndexUtil.getAddress(spent);
+                if (address != null) {
+                    indexBatch.delete(UtxoAddressIndexUtil.toIndexKey(address, from.getOwner()));
+                }
+                if (spent != null) {
+                    supplyDelta.remove(spent);
+                }
             }
             // 保存utxo - to
             byte[] txHashBytes = tx.getHash().serialize();
@@ -137,6 +165,11 @@ public class UtxoLedgerServiceImpl implements LedgerService {
                     byte[] owner = Arrays.concatenate(txHashBytes, new VarInt(i).encode());
 //                    Log.info("129 save utxo:::" + Hex.encode(owner));
                     batch.put(owner, tos.get(i).serialize());
+                    byte[] address = UtxoAddressIndexUtil.getAddress(tos.get(i));
+                    if (address != null) {
+                        indexBatch.put(UtxoAddressIndexUtil.toIndexKey(address, owner), UtxoAddressIndexUtil.EMPTY_VALUE);
+                    }
+                    supplyDelta.add(tos.get(i));
                 } catch (IOException e) {
                     Log.error(e);
                     return Result.getFailed(KernelErrorCode.IO_ERROR);
@@ -147,6 +180,14 @@ public class UtxoLedgerServiceImpl implements LedgerService {
             if (batchResult.isFailed()) {
                 return batchResult;
             }
+            batchResult = indexBatch.executeBatch();
+            if (batchResult.isFailed()) {
+                return batchResult;
+            }
+            batchResult = utxoLedgerSupplyStorageService.applyDelta(supplyDelta, tx.getBlockHeight());
+            if (batchResult.isFailed()) {
+                return batchResult;
+            }
         }
         return Result.getSuccess();
     }
@@ -156,38 +197,36 @@ public class UtxoLedgerServiceImpl implements LedgerService {
         if (tx == null) {
             return Result.getFailed(LedgerErrorCode.NULL_PARAMETER);
         }
+        dbService.beginWriteSession();
+        boolean finished = false;
         try {
             // 回滚CoinData
             Result result = rollbackCoinData(tx);
             if (result.isFailed()) {
-                Result recoveryResult = saveCoinData(tx);
-                if (recoveryResult.isFailed()) {
-                    throw new NulsException(recoveryResult.getErrorCode());
-                }
                 return result;
             }
             // 回滚交易
             result = utxoLedgerTransactionStorageService.deleteTx(tx);
             if (result.isFailed()) {
-                Result recoveryResult = saveTx(tx);
-                if (recoveryResult.isFailed()) {
-                    throw new NulsException(recoveryResult.getErrorCode());
-                }
+                return result;
             }
-            return result;
+            finished = true;
+            return dbService.commitWriteSession();
         } catch (IOException e) {
             Log.error(e);
-            Result rollbackResult = saveTx(tx);
-            if (rollbackResult.isFailed()) {
-                throw new NulsException(rollbackResult.getErrorCode());
-            }
             return Result.getFailed(KernelErrorCode.IO_ERROR);
+        } finally {
+            if (!finished) {
+                dbService.discardWriteSession();
+            }
         }
     }
 
     private Result rollbackCoinData(Transaction tx) throws IOException, NulsException {
         byte[] txHashBytes = tx.getHash().serialize();
         BatchOperation batch = utxoLedgerUtxoStorageService.createWriteBatch();
+        BatchOperation indexBatch = utxoLedgerUtxoStorageService.createAddressIndexWriteBatch();
+        UtxoSupplyDelta supplyDelta = new UtxoSupplyDelta();
         CoinData coinData = tx.getCoinData();
         if (coinData != null) {
             // 保存utxo已花费 - from
@@ -205,6 +244,11 @@ public class UtxoLedgerServiceImpl implements LedgerService {
                     recovery = fromTx.getCoinData().getTo().get(fromIndex);
                     recovery.setFrom(from.getFrom());
                     batch.put(from.getOwner(), recovery.serialize());
+                    byte[] address = UtxoAddressIndexUtil.getAddress(recovery);
+                    if (address != null) {
+                        indexBatch.put(UtxoAddressIndexUtil.toIndexKey(address, from.getOwner()), UtxoAddressIndexUtil.EMPTY_VALUE);
+                    }
+                    supplyDelta.add(recovery);
                 } catch (IOException e) {
                     Log.error(e);
                     return Result.getFailed(KernelErrorCode.IO_ERROR);
@@ -216,12 +260,30 @@ public class UtxoLedgerServiceImpl implements LedgerService {
                 byte[] owner = Arrays.concatenate(txHashBytes, new VarInt(i).encode());
 //                Log.info("批量删除：" + Hex.encode(owner));
                 batch.delete(owner);
+                byte[] address = UtxoAddressIndexUtil.getAddress(tos.get(i));
+                if (address != null) {
+                    indexBatch.delete(UtxoAddressIndexUtil.toIndexKey(address, owner));
+                }
+                // 按存储中的utxo记账，它的锁定时间可能已被解锁交易修改
+                // account the stored utxo, an unlock transaction may have changed its lock time
+                Coin stored = utxoLedgerUtxoStorageService.getUtxo(owner);
+                if (stored != null) {
+                    supplyDelta.remove(stored);
+                }
             }
             // 执行批量
             Result batchResult = batch.executeBatch();
             if (batchResult.isFailed()) {
                 return batchResult;
             }
+            batchResult = indexBatch.executeBatch();
+            if (batchResult.isFailed()) {
+                return batchResult;
+            }
+            batchResult = utxoLedgerSupplyStorageService.applyDelta(supplyDelta, tx.getBlockHeight() - 1);
+            if (batchResult.isFailed()) {
+                return batchResult;
+            }
         }
         return Result.getSuccess();
     }
@@ -540,19 +602,11 @@ public class UtxoLedgerServiceImpl implements LedgerService {
             byte[] txHashBytes = txHashBytes = tx.getHash().serialize();
             Coin needUnLockUtxoNew = new Coin(needUnLockUtxo.getOwner(), needUnLockUtxo.getNa(), newockTime);
             needUnLockUtxoNew.setFrom(needUnLockUtxo.getFrom());
-            Result result = utxoLedgerUtxoStorageService.saveUtxo(Arrays.concatenate(txHashBytes, new VarInt(needUnLockUtxoIndex).encode()), needUnLockUtxoNew);
-            if (result.isFailed()) {
-                Result rollbackResult = rollbackUnlockTxCoinData(tx);
-                if (rollbackResult.isFailed()) {
-                    throw new NulsException(rollbackResult.getErrorCode());
-                }
-            }
-            return result;
+            byte[] owner = Arrays.concatenate(txHashBytes, new VarInt(needUnLockUtxoIndex).encode());
+            // 失败时写会话被丢弃，存储中的utxo和供应量都没有变化，无需再回滚
+            // on failure the write session is discarded and neither the utxo nor the supply changed, nothing to roll back
+            return replaceUtxo(owner, needUnLockUtxoNew);
         } catch (IOException e) {
-            Result rollbackResult = rollbackUnlockTxCoinData(tx);
-            if (rollbackResult.isFailed()) {
-                throw new NulsException(rollbackResult.getErrorCode());
-            }
             Log.error(e);
             return Result.getFailed(KernelErrorCode.IO_ERROR);
         }
@@ -581,7 +635,8 @@ public class UtxoLedgerServiceImpl implements LedgerService {
                 return ValidateResult.getFailedResult(CLASS_NAME, LedgerErrorCode.UTXO_STATUS_CHANGE);
             }
             byte[] txHashBytes = tx.getHash().serialize();
-            Result result = utxoLedgerUtxoStorageService.saveUtxo(Arrays.concatenate(txHashBytes, new VarInt(needUnLockUtxoIndex).encode()), needUnLockUtxo);
+            byte[] owner = Arrays.concatenate(txHashBytes, new VarInt(needUnLockUtxoIndex).encode());
+            Result result = replaceUtxo(owner, needUnLockUtxo);
             if (result.isFailed()) {
                 throw new NulsException(result.getErrorCode());
             }
@@ -592,27 +647,58 @@ public class UtxoLedgerServiceImpl implements LedgerService {
         }
     }
 
-    @Override
-    public long getWholeUTXO() {
-        long result = 0L;
-        List<byte[]> list = utxoLedgerUtxoStorageService.getAllUtxoBytes();
-        if (list == null || list.size() == 0) {
-            return result;
-        }
-        Coin coin = null;
+    /**
+     * 在一个写会话中替换utxo并记入供应量的变化，两者一起提交或一起丢弃
+     * Replace the utxo and account the supply change in one write session, both are committed or discarded together
+     */
+    private Result replaceUtxo(byte[] owner, Coin coin) {
+        dbService.beginWriteSession();
+        boolean finished = false;
         try {
-            for (byte[] utxoBytes : list) {
-                if (utxoBytes != null) {
-                    coin = new Coin();
-                    coin.parse(utxoBytes, 0);
-                    result = LongUtils.add(result, coin.getNa().getValue());
-                }
+            Result result = replaceUtxoSupply(owner, coin);
+            if (result.isFailed()) {
+                return result;
             }
-            return result;
-        } catch (NulsException e) {
-            Log.error(e);
+            result = utxoLedgerUtxoStorageService.saveUtxo(owner, coin);
+            if (result.isFailed()) {
+                return result;
+            }
+            finished = true;
+            return dbService.commitWriteSession();
+        } finally {
+            if (!finished) {
+                dbService.discardWriteSession();
+            }
+        }
+    }
+
+    /**
+     * 用将要写入的utxo替换存储中同一位置的utxo时，记入供应量的变化；这里的交易是被解锁utxo所在的旧交易，所以检查点高度保持不变
+     * Account the supply change of replacing the stored utxo at the same position with the one about to be written;
+     * the transaction here is the old one holding the unlocked utxo, so the checkpoint height stays as it is
+     */
+    private Result replaceUtxoSupply(byte[] owner, Coin coin) {
+        UtxoSupplyDelta supplyDelta = new UtxoSupplyDelta();
+        Coin stored = utxoLedgerUtxoStorageService.getUtxo(owner);
+        if (stored != null) {
+            supplyDelta.remove(stored);
+        }
+        supplyDelta.add(coin);
+        UtxoSupplyPo supply = utxoLedgerSupplyStorageService.getSupply();
+        return utxoLedgerSupplyStorageService.applyDelta(supplyDelta, supply == null ? 0L : supply.getHeight());
+    }
+
+    /**
+     * 所有utxo的总额，直接取自增量记账的检查点
+     * Sum of all utxo, taken straight from the checkpoint of the incremental accounting
+     */
+    @Override
+    public long getWholeUTXO() {
+        UtxoSupplyPo supply = utxoLedgerSupplyStorageService.getSupply();
+        if (supply == null) {
             return 0L;
         }
+        return supply.getTotal();
     }
 
     @Override
@@ -635,7 +721,7 @@ public class UtxoLedgerServiceImpl implements LedgerService {
     @Override
     public List<Coin> getAllUtxo(byte[] address) {
         List<Coin> coinList = new ArrayList<>();
-        Collection<Entry<byte[], byte[]>> rawList = utxoLedgerUtxoStorageService.getAllUtxoEntryBytes();
+        Collection<Entry<byte[], byte[]>> rawList = utxoLedgerUtxoStorageService.getUtxoEntryBytesByAddress(address);
         for (Entry<byte[], byte[]> coinEntry : rawList) {
             Coin coin = new Coin();
             try {
@@ -644,11 +730,9 @@ public class UtxoLedgerServiceImpl implements LedgerService {
                 Log.info("parse coin form db error");
                 continue;
             }
-            if (java.util.Arrays.equals(coin.getAddress(), address)) {
-                coin.setTempOwner(coin.getOwner());
-                coin.setOwner(coinEntry.getKey());
-                coinList.add(coin);
-            }
+            coin.setTempOwner(coin.getOwner());
+            coin.setOwner(coinEntry.getKey());
+            coinList.add(coin);
         }
         return coinList;
     }
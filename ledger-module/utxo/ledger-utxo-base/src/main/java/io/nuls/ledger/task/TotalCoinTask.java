@@ -1,20 +1,19 @@
 package io.nuls.ledger.task;
 
-import io.nuls.core.tools.calc.DoubleUtils;
 import io.nuls.core.tools.log.Log;
-import io.nuls.db.model.Entry;
 import io.nuls.kernel.context.NulsContext;
-import io.nuls.kernel.exception.NulsException;
-import io.nuls.kernel.lite.annotation.Autowired;
-import io.nuls.kernel.model.Coin;
-import io.nuls.ledger.storage.service.UtxoLedgerUtxoStorageService;
-
-import java.util.List;
-
+import io.nuls.kernel.func.TimeService;
+import io.nuls.ledger.storage.po.UtxoSupplyPo;
+import io.nuls.ledger.storage.service.UtxoLedgerSupplyStorageService;
+
+/**
+ * 从增量记账的检查点刷新总量和锁定量，只读取检查点和尚未解锁的锁定额条目
+ * Refresh the total and locked supply from the checkpoint of the incremental accounting,
+ * only the checkpoint and the entries that are still locked are read.
+ */
 public class TotalCoinTask implements Runnable {
 
-    @Autowired
-    private UtxoLedgerUtxoStorageService utxoLedgerUtxoStorageService;
+    private UtxoLedgerSupplyStorageService utxoLedgerSupplyStorageService;
 
     @Override
     public void run() {
@@ -25,28 +24,20 @@ public class TotalCoinTask implements Runnable {
         }
     }
 
-    private void doStatistics() throws NulsException {
-        long height = NulsContext.getInstance().getBestHeight();
-        List<Entry<byte[], byte[]>> coinBytesList = getUtxoLedgerUtxoStorageService().getAllUtxoEntryBytes();
-        long totalNuls = 0;
-        long lockedNuls = 0;
-        Coin coin = new Coin();
-        for (Entry<byte[], byte[]> coinEntryBytes : coinBytesList) {
-            coin.parse(coinEntryBytes.getValue(), 0);
-
-            totalNuls += coin.getNa().getValue();
-            if (coin.getLockTime() == -1 || coin.getLockTime() > System.currentTimeMillis() || (coin.getLockTime() < 1531152000000L && coin.getLockTime() > height)) {
-                lockedNuls += coin.getNa().getValue();
-            }
+    private void doStatistics() {
+        UtxoSupplyPo supply = getUtxoLedgerSupplyStorageService().getSupply();
+        if (supply == null) {
+            return;
         }
-        NulsContext.totalNuls = totalNuls;
-        NulsContext.lockedNuls = lockedNuls;
+        long height = NulsContext.getInstance().getBestHeight();
+        NulsContext.totalNuls = supply.getTotal();
+        NulsContext.lockedNuls = getUtxoLedgerSupplyStorageService().getLockedAmount(height, TimeService.currentTimeMillis());
     }
 
-    private UtxoLedgerUtxoStorageService getUtxoLedgerUtxoStorageService() {
-        if (utxoLedgerUtxoStorageService == null) {
-            utxoLedgerUtxoStorageService = NulsContext.getServiceBean(UtxoLedgerUtxoStorageService.class);
+    private UtxoLedgerSupplyStorageService getUtxoLedgerSupplyStorageService() {
+        if (utxoLedgerSupplyStorageService == null) {
+            utxoLedgerSupplyStorageService = NulsContext.getServiceBean(UtxoLedgerSupplyStorageService.class);
         }
-        return utxoLedgerUtxoStorageService;
+        return utxoLedgerSupplyStorageService;
     }
 }
@@ -0,0 +1,72 @@
+package io.nuls.ledger.rpc.model;
+
+import io.swagger.annotations.ApiModelProperty;
+
+public class SupplyAuditDto {
+
+    @ApiModelProperty(name = "height", value = "检查点高度")
+    private Long height;
+
+    @ApiModelProperty(name = "totalNuls", value = "增量记账的nuls总量")
+    private Long totalNuls;
+
+    @ApiModelProperty(name = "permanentLockedNuls", value = "增量记账的永久锁定nuls数量")
+    private Long permanentLockedNuls;
+
+    @ApiModelProperty(name = "recountTotalNuls", value = "全量统计的nuls总量")
+    private Long recountTotalNuls;
+
+    @ApiModelProperty(name = "recountPermanentLockedNuls", value = "全量统计的永久锁定nuls数量")
+    private Long recountPermanentLockedNuls;
+
+    @ApiModelProperty(name = "consistent", value = "两者是否一致，统计期间有新区块时为false，需要重试")
+    private Boolean consistent;
+
+    public Long getHeight() {
+        return height;
+    }
+
+    public void setHeight(Long height) {
+        this.height = height;
+    }
+
+    public Long getTotalNuls() {
+        return totalNuls;
+    }
+
+    public void setTotalNuls(Long totalNuls) {
+        this.totalNuls = totalNuls;
+    }
+
+    public Long getPermanentLockedNuls() {
+        return permanentLockedNuls;
+    }
+
+    public void setPermanentLockedNuls(Long permanentLockedNuls) {
+        this.permanentLockedNuls = permanentLockedNuls;
+    }
+
+    public Long getRecountTotalNuls() {
+        return recountTotalNuls;
+    }
+
+    public void setRecountTotalNuls(Long recountTotalNuls) {
+        this.recountTotalNuls = recountTotalNuls;
+    }
+
+    public Long getRecountPermanentLockedNuls() {
+        return recountPermanentLockedNuls;
+    }
+
+    public void setRecountPermanentLockedNuls(Long recountPermanentLockedNuls) {
+        this.recountPermanentLockedNuls = recountPermanentLockedNuls;
+    }
+
+    public Boolean getConsistent() {
+        return consistent;
+    }
+
+    public void setConsistent(Boolean consistent) {
+        this.consistent = consistent;
+    }
+}
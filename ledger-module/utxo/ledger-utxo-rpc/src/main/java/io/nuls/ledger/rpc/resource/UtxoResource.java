@@ -27,6 +27,7 @@ import io.nuls.core.tools.calc.DoubleUtils;
 import io.nuls.core.tools.log.Log;
 import io.nuls.core.tools.str.StringUtils;
 import io.nuls.db.model.Entry;
+import io.nuls.db.service.DBCursor;
 import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.lite.annotation.Autowired;
@@ -38,7 +39,10 @@ import io.nuls.kernel.model.RpcClientResult;
 import io.nuls.kernel.utils.AddressTool;
 import io.nuls.ledger.constant.LedgerErrorCode;
 import io.nuls.ledger.rpc.model.*;
+import io.nuls.ledger.storage.po.UtxoSupplyPo;
+import io.nuls.ledger.storage.service.UtxoLedgerSupplyStorageService;
 import io.nuls.ledger.storage.service.UtxoLedgerUtxoStorageService;
+import io.nuls.ledger.storage.util.UtxoSupplyDelta;
 import io.nuls.ledger.storage.util.CoinComparator;
 import io.swagger.annotations.*;
 
@@ -61,6 +65,9 @@ public class UtxoResource {
     @Autowired
     private UtxoLedgerUtxoStorageService utxoLedgerUtxoStorageService;
 
+    @Autowired
+    private UtxoLedgerSupplyStorageService utxoLedgerSupplyStorageService;
+
     @GET
     @Path("/limit/{address}/{limit}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -161,7 +168,7 @@ public class UtxoResource {
     private List<Coin> getAllUtxoByAddress(String address) {
         List<Coin> coinList = new ArrayList<>();
         byte[] addressBytes = AddressTool.getAddress(address);
-        List<Entry<byte[], byte[]>> coinBytesList = utxoLedgerUtxoStorageService.getAllUtxoEntryBytes();
+        List<Entry<byte[], byte[]>> coinBytesList = utxoLedgerUtxoStorageService.getUtxoEntryBytesByAddress(addressBytes);
         Coin coin;
         for (Entry<byte[], byte[]> coinEntryBytes : coinBytesList) {
             coin = new Coin();
@@ -171,11 +178,8 @@ public class UtxoResource {
                 Log.info("parse coin form db error");
                 continue;
             }
-            //if (Arrays.equals(coin.(), addressBytes))
-            if (Arrays.equals(coin.getAddress(), addressBytes)) {
-                coin.setOwner(coinEntryBytes.getKey());
-                coinList.add(coin);
-            }
+            coin.setOwner(coinEntryBytes.getKey());
+            coinList.add(coin);
         }
         Collections.sort(coinList, CoinComparator.getInstance());
         return coinList;
@@ -190,29 +194,31 @@ public class UtxoResource {
     })
     public RpcClientResult getInfo() throws NulsException {
         long height = NulsContext.getInstance().getBestHeight();
-        List<Entry<byte[], byte[]>> coinBytesList = utxoLedgerUtxoStorageService.getAllUtxoEntryBytes();
         double totalNuls = 0d;
         double lockedNuls = 0d;
         Map<String, Holder> map = new HashMap<>();
         Coin coin = new Coin();
         int index = 0;
-        for (Entry<byte[], byte[]> coinEntryBytes : coinBytesList) {
-            coin.parse(coinEntryBytes.getValue(), 0);
-            double value = coin.getNa().toDouble();
-            String address = AddressTool.getStringAddressByBytes(coin.getOwner());
-            Holder holder = map.get(address);
-            if (null == holder) {
-                holder = new Holder();
-                holder.setAddress(address);
-                map.put(address, holder);
-            }
-            holder.addTotal(value);
-            totalNuls = DoubleUtils.sum(totalNuls, value);
-            if (coin.getLockTime() == -1 || coin.getLockTime() > System.currentTimeMillis() || (coin.getLockTime() < 1531152000000L && coin.getLockTime() > height)) {
-                holder.addLocked(value);
-                lockedNuls = DoubleUtils.sum(lockedNuls, value);
+        try (DBCursor cursor = utxoLedgerUtxoStorageService.getUtxoCursor()) {
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> coinEntryBytes = cursor.next();
+                coin.parse(coinEntryBytes.getValue(), 0);
+                double value = coin.getNa().toDouble();
+                String address = AddressTool.getStringAddressByBytes(coin.getOwner());
+                Holder holder = map.get(address);
+                if (null == holder) {
+                    holder = new Holder();
+                    holder.setAddress(address);
+                    map.put(address, holder);
+                }
+                holder.addTotal(value);
+                totalNuls = DoubleUtils.sum(totalNuls, value);
+                if (coin.getLockTime() == -1 || coin.getLockTime() > System.currentTimeMillis() || (coin.getLockTime() < 1531152000000L && coin.getLockTime() > height)) {
+                    holder.addLocked(value);
+                    lockedNuls = DoubleUtils.sum(lockedNuls, value);
+                }
+                System.out.println(index++);
             }
-            System.out.println(index++);
         }
         Result<TokenInfoDto> result = Result.getSuccess();
         TokenInfoDto info = new TokenInfoDto();
@@ -245,4 +251,31 @@ public class UtxoResource {
         result.setData(info);
         return result.toRpcClientResult();
     }
+
+    @GET
+    @Path("/supply/audit")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "全量统计utxo，核对增量记账的代币总量")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "success", response = SupplyAuditDto.class)
+    })
+    public RpcClientResult auditSupply() {
+        UtxoSupplyPo before = utxoLedgerSupplyStorageService.getSupply();
+        UtxoSupplyDelta recount = utxoLedgerSupplyStorageService.recount();
+        UtxoSupplyPo after = utxoLedgerSupplyStorageService.getSupply();
+        if (before == null || after == null) {
+            return Result.getFailed(LedgerErrorCode.DATA_NOT_FOUND).toRpcClientResult();
+        }
+        SupplyAuditDto dto = new SupplyAuditDto();
+        dto.setHeight(after.getHeight());
+        dto.setTotalNuls(after.getTotal());
+        dto.setPermanentLockedNuls(after.getPermanentLocked());
+        dto.setRecountTotalNuls(recount.getTotal());
+        dto.setRecountPermanentLockedNuls(recount.getPermanentLocked());
+        // 统计期间检查点变化说明有区块写入，结果不可比较
+        // a checkpoint that changed during the recount means blocks were written, the results are not comparable
+        boolean stable = before.getHeight() == after.getHeight() && before.getTotal() == after.getTotal();
+        dto.setConsistent(stable && after.getTotal() == recount.getTotal() && after.getPermanentLocked() == recount.getPermanentLocked());
+        return Result.getSuccess().setData(dto).toRpcClientResult();
+    }
 }
@@ -34,5 +34,25 @@ public interface LedgerStorageConstant {
 
     String DB_NAME_LEDGER_TX = "ledger_tx";
     String DB_NAME_LEDGER_UTXO = "ledger_utxo";
+    String DB_NAME_LEDGER_UTXO_ADDRESS_INDEX = "ledger_utxo_address_index";
+    String DB_NAME_LEDGER_SUPPLY = "ledger_supply";
+
+    /**
+     * 地址索引构建完成的标记，长度小于地址长度，不会被地址前缀查询命中
+     * Marks the address index as fully built, shorter than an address so prefix lookups never hit it.
+     */
+    byte[] UTXO_ADDRESS_INDEX_READY_KEY = "index_ready".getBytes();
+
+    /**
+     * 供应量检查点的key，记录总量、永久锁定量和最后记账的高度
+     * Key of the supply checkpoint, holds the total, the permanently locked amount and the last accounted height.
+     */
+    byte[] UTXO_SUPPLY_KEY = "supply".getBytes();
+
+    /**
+     * 锁定量条目的key前缀，后接大端序的锁定时间，所以条目按解锁的先后排列
+     * Key prefix of the locked amount entries, followed by the big-endian lock time so entries are ordered by when they unlock.
+     */
+    byte UTXO_SUPPLY_LOCK_PREFIX = 'L';
 
 }
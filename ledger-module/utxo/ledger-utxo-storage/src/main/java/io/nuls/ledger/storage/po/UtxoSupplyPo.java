@@ -0,0 +1,104 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.storage.po;
+
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.model.BaseNulsData;
+import io.nuls.kernel.utils.NulsByteBuffer;
+import io.nuls.kernel.utils.NulsOutputStreamBuffer;
+import io.nuls.kernel.utils.SerializeUtils;
+
+import java.io.IOException;
+
+/**
+ * 供应量检查点，随每个区块在同一个写会话中更新
+ * Supply checkpoint, updated in the same write session as every block.
+ */
+public class UtxoSupplyPo extends BaseNulsData {
+
+    /**
+     * 最后记账的区块高度
+     * Height of the last accounted block
+     */
+    private long height;
+
+    /**
+     * 所有utxo的总额
+     * Sum of all utxo
+     */
+    private long total;
+
+    /**
+     * 锁定时间为-1的utxo总额，只有解锁交易能改变
+     * Sum of utxo with lock time -1, only unlock transactions change them
+     */
+    private long permanentLocked;
+
+    @Override
+    public int size() {
+        int size = 0;
+        size += SerializeUtils.sizeOfVarInt(height);
+        size += SerializeUtils.sizeOfInt64();
+        size += SerializeUtils.sizeOfInt64();
+        return size;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeVarInt(height);
+        stream.writeInt64(total);
+        stream.writeInt64(permanentLocked);
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.height = byteBuffer.readVarInt();
+        this.total = byteBuffer.readInt64();
+        this.permanentLocked = byteBuffer.readInt64();
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    public void setHeight(long height) {
+        this.height = height;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getPermanentLocked() {
+        return permanentLocked;
+    }
+
+    public void setPermanentLocked(long permanentLocked) {
+        this.permanentLocked = permanentLocked;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.storage.service;
+
+import io.nuls.kernel.model.Result;
+import io.nuls.ledger.storage.po.UtxoSupplyPo;
+import io.nuls.ledger.storage.util.UtxoSupplyDelta;
+
+/**
+ * 供应量增量记账的存储服务，检查点与utxo在同一个写会话中更新，不再需要扫描整个utxo数据区
+ * Storage service of the incremental supply accounting, the checkpoint is updated in the same write session as the utxo
+ * so the whole utxo area no longer needs to be scanned.
+ */
+public interface UtxoLedgerSupplyStorageService {
+
+    /**
+     * 获取供应量检查点
+     * Get the supply checkpoint
+     *
+     * @return 检查点，尚未建立时返回null/the checkpoint, null before it is built
+     */
+    UtxoSupplyPo getSupply();
+
+    /**
+     * 把一组utxo变化记入检查点和锁定额条目
+     * Account a set of utxo changes into the checkpoint and the locked amount entries
+     *
+     * @param delta  utxo变化/utxo changes
+     * @param height 变化所在的区块高度/height of the block the changes belong to
+     * @return 操作结果/operating result
+     */
+    Result applyDelta(UtxoSupplyDelta delta, long height);
+
+    /**
+     * 计算当前的锁定总额，只遍历尚未解锁的锁定额条目
+     * Calculate the current locked amount, only the entries that are still locked are visited
+     *
+     * @param bestHeight  最新高度/best height
+     * @param currentTime 当前时间/current time
+     * @return 锁定总额/locked amount
+     */
+    long getLockedAmount(long bestHeight, long currentTime);
+
+    /**
+     * 遍历整个utxo数据区重新统计供应量，不修改存储，用于审计增量记账的结果
+     * Recount the supply by walking the whole utxo area without changing the storage, used to audit the incremental accounting
+     *
+     * @return 从零开始的全部供应量/the whole supply counted from zero
+     */
+    UtxoSupplyDelta recount();
+
+    /**
+     * 用全量统计的结果重建检查点和锁定额条目
+     * Rebuild the checkpoint and the locked amount entries from a full recount
+     *
+     * @param height 检查点的高度/height of the checkpoint
+     * @return 操作结果/operating result
+     */
+    Result rebuild(long height);
+}
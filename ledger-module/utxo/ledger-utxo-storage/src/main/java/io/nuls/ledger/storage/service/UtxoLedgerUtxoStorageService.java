@@ -25,6 +25,7 @@ package io.nuls.ledger.storage.service;
 
 import io.nuls.db.model.Entry;
 import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
 import io.nuls.kernel.model.Coin;
 import io.nuls.kernel.model.Result;
 
@@ -46,7 +47,25 @@ public interface UtxoLedgerUtxoStorageService {
 
     byte[] getUtxoBytes(byte[] owner);
 
-    List<byte[]> getAllUtxoBytes();
+    /**
+     * 按key的字节序遍历整个utxo数据区的游标，key为owner，value为coin，用完后必须关闭
+     * Cursor over the whole utxo area in byte order of the keys, key is the owner and value the coin, must be closed
+     * after use.
+     */
+    DBCursor getUtxoCursor();
 
-    List<Entry<byte[], byte[]>> getAllUtxoEntryBytes();
+    /**
+     * 地址索引的批量操作，key由UtxoAddressIndexUtil生成
+     * Batch operation of the address index, keys are built by UtxoAddressIndexUtil.
+     */
+    BatchOperation createAddressIndexWriteBatch();
+
+    /**
+     * 按地址前缀查询该地址的utxo，只返回仍存在于utxo数据区的数据，key为owner，value为coin
+     * Query the utxo of an address by key prefix, only entries still present in the utxo area are returned,
+     * the key is the owner and the value is the coin bytes.
+     *
+     * @param address 23字节地址/23 bytes address
+     */
+    List<Entry<byte[], byte[]>> getUtxoEntryBytesByAddress(byte[] address);
 }
@@ -0,0 +1,219 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.storage.service.impl;
+
+import io.nuls.core.tools.array.ArraysTool;
+import io.nuls.core.tools.log.Log;
+import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.model.Entry;
+import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
+import io.nuls.db.service.DBService;
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.exception.NulsRuntimeException;
+import io.nuls.kernel.lite.annotation.Autowired;
+import io.nuls.kernel.lite.annotation.Service;
+import io.nuls.kernel.lite.core.bean.InitializingBean;
+import io.nuls.kernel.model.CoinView;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.utils.SerializeUtils;
+import io.nuls.ledger.storage.constant.LedgerStorageConstant;
+import io.nuls.ledger.storage.po.UtxoSupplyPo;
+import io.nuls.ledger.storage.service.UtxoLedgerSupplyStorageService;
+import io.nuls.ledger.storage.util.UtxoSupplyDelta;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * 锁定额条目的key为前缀加大端序的锁定时间，高度锁定的条目排在时间锁定之前；
+ * 已解锁的条目仍然保留，直到对应的utxo被花费，所以回滚高度后高度锁定会自然恢复
+ * The key of a locked amount entry is the prefix plus the big-endian lock time, height locks sort before time locks;
+ * unlocked entries stay until their utxo are spent, so height locks come back by themselves after a rollback.
+ */
+@Service
+public class UtxoLedgerSupplyStorageServiceImpl implements UtxoLedgerSupplyStorageService, InitializingBean {
+
+    @Autowired
+    private DBService dbService;
+
+    /**
+     * 升级后首次启动时检查点还不存在，此时用全量统计建立它
+     * The checkpoint does not exist on the first start after upgrading, it is built from a full recount then.
+     */
+    @Override
+    public void afterPropertiesSet() throws NulsException {
+        Result result = dbService.createArea(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY);
+        if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
+        if (getSupply() == null) {
+            result = rebuild(0L);
+            if (result.isFailed()) {
+                throw new NulsRuntimeException(result.getErrorCode());
+            }
+        }
+    }
+
+    @Override
+    public UtxoSupplyPo getSupply() {
+        byte[] bytes = dbService.get(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, LedgerStorageConstant.UTXO_SUPPLY_KEY);
+        if (bytes == null) {
+            return null;
+        }
+        UtxoSupplyPo po = new UtxoSupplyPo();
+        try {
+            po.parse(bytes, 0);
+        } catch (NulsException e) {
+            Log.error(e);
+            return null;
+        }
+        return po;
+    }
+
+    @Override
+    public Result applyDelta(UtxoSupplyDelta delta, long height) {
+        UtxoSupplyPo po = getSupply();
+        if (po == null) {
+            po = new UtxoSupplyPo();
+        }
+        po.setHeight(height);
+        po.setTotal(po.getTotal() + delta.getTotal());
+        po.setPermanentLocked(po.getPermanentLocked() + delta.getPermanentLocked());
+        Result result;
+        for (Map.Entry<Long, Long> entry : delta.getLocks().entrySet()) {
+            if (entry.getValue() == 0) {
+                continue;
+            }
+            byte[] key = toLockKey(entry.getKey());
+            byte[] bytes = dbService.get(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, key);
+            long amount = entry.getValue() + (bytes == null ? 0L : SerializeUtils.readInt64LE(bytes, 0));
+            if (amount > 0) {
+                result = dbService.put(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, key, SerializeUtils.uint64ToByteArray(amount));
+            } else {
+                result = dbService.delete(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, key);
+            }
+            if (result.isFailed()) {
+                return result;
+            }
+        }
+        try {
+            return dbService.put(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, LedgerStorageConstant.UTXO_SUPPLY_KEY, po.serialize());
+        } catch (IOException e) {
+            Log.error(e);
+            return Result.getFailed(KernelErrorCode.IO_ERROR);
+        }
+    }
+
+    @Override
+    public long getLockedAmount(long bestHeight, long currentTime) {
+        UtxoSupplyPo po = getSupply();
+        if (po == null) {
+            return 0L;
+        }
+        long locked = po.getPermanentLocked();
+        // 高度锁定：(bestHeight, DIVIDE]，时间锁定：(max(currentTime, DIVIDE), +∞)
+        // height locks: (bestHeight, DIVIDE], time locks: (max(currentTime, DIVIDE), +inf)
+        long divide = NulsConstant.BlOCKHEIGHT_TIME_DIVIDE;
+        if (bestHeight < divide) {
+            locked += sumLocks(toLockKey(Math.max(bestHeight, 0L) + 1), toLockKey(divide + 1));
+        }
+        long timeFrom = Math.max(currentTime, divide);
+        if (timeFrom < Long.MAX_VALUE) {
+            locked += sumLocks(toLockKey(timeFrom + 1), new byte[]{LedgerStorageConstant.UTXO_SUPPLY_LOCK_PREFIX + 1});
+        }
+        return locked;
+    }
+
+    private long sumLocks(byte[] from, byte[] to) {
+        long sum = 0L;
+        try (DBCursor cursor = dbService.range(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, from, to)) {
+            while (cursor.hasNext()) {
+                sum += SerializeUtils.readInt64LE(cursor.next().getValue(), 0);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public UtxoSupplyDelta recount() {
+        UtxoSupplyDelta delta = new UtxoSupplyDelta();
+        // 用游标逐条读取，不把整个utxo数据区装入内存
+        // read entry by entry through a cursor instead of loading the whole utxo area into memory
+        try (DBCursor cursor = dbService.range(LedgerStorageConstant.DB_NAME_LEDGER_UTXO, null, null)) {
+            CoinView coin = new CoinView();
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> entry = cursor.next();
+                try {
+                    coin.wrap(entry.getValue());
+                } catch (NulsException e) {
+                    Log.info("parse coin form db error");
+                    continue;
+                }
+                delta.add(coin);
+            }
+        }
+        return delta;
+    }
+
+    @Override
+    public Result rebuild(long height) {
+        Log.info("rebuild utxo supply start");
+        UtxoSupplyDelta delta = recount();
+        UtxoSupplyPo po = new UtxoSupplyPo();
+        po.setHeight(height);
+        po.setTotal(delta.getTotal());
+        po.setPermanentLocked(delta.getPermanentLocked());
+        // 旧条目的删除和新条目的写入在同一个批量中生效
+        // the old entries are deleted and the new ones written in one batch
+        BatchOperation batch = dbService.createWriteBatch(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY);
+        try (DBCursor cursor = dbService.seek(LedgerStorageConstant.DB_NAME_LEDGER_SUPPLY, new byte[]{LedgerStorageConstant.UTXO_SUPPLY_LOCK_PREFIX})) {
+            while (cursor.hasNext()) {
+                batch.delete(cursor.next().getKey());
+            }
+        }
+        for (Map.Entry<Long, Long> entry : delta.getLocks().entrySet()) {
+            if (entry.getValue() > 0) {
+                batch.put(toLockKey(entry.getKey()), SerializeUtils.uint64ToByteArray(entry.getValue()));
+            }
+        }
+        try {
+            batch.put(LedgerStorageConstant.UTXO_SUPPLY_KEY, po.serialize());
+        } catch (IOException e) {
+            Log.error(e);
+            return Result.getFailed(KernelErrorCode.IO_ERROR);
+        }
+        Result result = batch.executeBatch();
+        Log.info("rebuild utxo supply finished, total: " + po.getTotal() + ", lock entries: " + delta.getLocks().size());
+        return result;
+    }
+
+    private static byte[] toLockKey(long lockTime) {
+        return ArraysTool.concatenate(new byte[]{LedgerStorageConstant.UTXO_SUPPLY_LOCK_PREFIX},
+                ByteBuffer.allocate(8).putLong(lockTime).array());
+    }
+}
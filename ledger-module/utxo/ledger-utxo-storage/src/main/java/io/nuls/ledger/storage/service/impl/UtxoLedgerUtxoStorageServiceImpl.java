@@ -28,6 +28,7 @@ import io.nuls.core.tools.log.Log;
 import io.nuls.db.constant.DBErrorCode;
 import io.nuls.db.model.Entry;
 import io.nuls.db.service.BatchOperation;
+import io.nuls.db.service.DBCursor;
 import io.nuls.db.service.DBService;
 import io.nuls.kernel.constant.KernelErrorCode;
 import io.nuls.kernel.exception.NulsException;
@@ -36,11 +37,14 @@ import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Service;
 import io.nuls.kernel.lite.core.bean.InitializingBean;
 import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinView;
 import io.nuls.kernel.model.Result;
 import io.nuls.ledger.storage.constant.LedgerStorageConstant;
 import io.nuls.ledger.storage.service.UtxoLedgerUtxoStorageService;
+import io.nuls.ledger.storage.util.UtxoAddressIndexUtil;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -57,6 +61,8 @@ public class UtxoLedgerUtxoStorageServiceImpl implements UtxoLedgerUtxoStorageSe
     @Autowired
     private DBService dbService;
 
+    private static final int REBUILD_BATCH_SIZE = 10000;
+
     /**
      * 该方法在所有属性被设置之后调用，用于辅助对象初始化
      * This method is invoked after all properties are set, and is used to assist object initialization.
@@ -67,6 +73,57 @@ public class UtxoLedgerUtxoStorageServiceImpl implements UtxoLedgerUtxoStorageSe
         if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
             throw new NulsRuntimeException(result.getErrorCode());
         }
+        result = dbService.createArea(LedgerStorageConstant.DB_NAME_LEDGER_UTXO_ADDRESS_INDEX);
+        if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
+        if (dbService.get(LedgerStorageConstant.DB_NAME_LEDGER_UTXO_ADDRESS_INDEX, LedgerStorageConstant.UTXO_ADDRESS_INDEX_READY_KEY) == null) {
+            rebuildAddressIndex();
+        }
+    }
+
+    /**
+     * 根据utxo数据区重建地址索引，升级后首次启动或上次重建未完成时执行
+     * Rebuild the address index from the utxo area, runs on the first start after upgrading or if the last rebuild was interrupted.
+     */
+    private void rebuildAddressIndex() {
+        Log.info("rebuild utxo address index start");
+        BatchOperation batch = createAddressIndexWriteBatch();
+        int count = 0;
+        // 索引按批提交，utxo也按游标逐条读取，重建时内存占用与utxo总量无关
+        // the index is flushed in batches and the utxos are streamed, so the rebuild does not grow with the utxo set
+        try (DBCursor cursor = dbService.range(LedgerStorageConstant.DB_NAME_LEDGER_UTXO, null, null)) {
+            CoinView coin = new CoinView();
+            byte[] address;
+            while (cursor.hasNext()) {
+                Entry<byte[], byte[]> entry = cursor.next();
+                try {
+                    coin.wrap(entry.getValue());
+                } catch (NulsException e) {
+                    Log.info("parse coin form db error");
+                    continue;
+                }
+                address = UtxoAddressIndexUtil.getAddress(coin);
+                if (address == null) {
+                    continue;
+                }
+                batch.put(UtxoAddressIndexUtil.toIndexKey(address, entry.getKey()), UtxoAddressIndexUtil.EMPTY_VALUE);
+                if (++count % REBUILD_BATCH_SIZE == 0) {
+                    executeRebuildBatch(batch);
+                    batch = createAddressIndexWriteBatch();
+                }
+            }
+        }
+        batch.put(LedgerStorageConstant.UTXO_ADDRESS_INDEX_READY_KEY, UtxoAddressIndexUtil.EMPTY_VALUE);
+        executeRebuildBatch(batch);
+        Log.info("rebuild utxo address index finished, count: " + count);
+    }
+
+    private void executeRebuildBatch(BatchOperation batch) {
+        Result result = batch.executeBatch();
+        if (result.isFailed()) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
     }
 
     @Override
@@ -115,13 +172,37 @@ public class UtxoLedgerUtxoStorageServiceImpl implements UtxoLedgerUtxoStorageSe
     }
 
     @Override
-    public List<byte[]> getAllUtxoBytes() {
-        return dbService.valueList(LedgerStorageConstant.DB_NAME_LEDGER_UTXO);
+    public DBCursor getUtxoCursor() {
+        return dbService.range(LedgerStorageConstant.DB_NAME_LEDGER_UTXO, null, null);
+    }
+
+    @Override
+    public BatchOperation createAddressIndexWriteBatch() {
+        return dbService.createWriteBatch(LedgerStorageConstant.DB_NAME_LEDGER_UTXO_ADDRESS_INDEX);
     }
 
     @Override
-    public List<Entry<byte[], byte[]>> getAllUtxoEntryBytes() {
-        return dbService.entryList(LedgerStorageConstant.DB_NAME_LEDGER_UTXO);
+    public List<Entry<byte[], byte[]>> getUtxoEntryBytesByAddress(byte[] address) {
+        List<Entry<byte[], byte[]>> entryList = new ArrayList<>();
+        if (address == null) {
+            return entryList;
+        }
+        List<byte[]> indexKeyList = dbService.keyListByPrefix(LedgerStorageConstant.DB_NAME_LEDGER_UTXO_ADDRESS_INDEX, address);
+        if (indexKeyList == null) {
+            return entryList;
+        }
+        byte[] owner;
+        byte[] utxoBytes;
+        for (byte[] indexKey : indexKeyList) {
+            owner = UtxoAddressIndexUtil.getOwner(indexKey);
+            // 以utxo数据区为准，跳过已不存在的utxo
+            // the utxo area is authoritative, skip utxo that no longer exist
+            utxoBytes = getUtxoBytes(owner);
+            if (utxoBytes != null) {
+                entryList.add(new Entry<>(owner, utxoBytes));
+            }
+        }
+        return entryList;
     }
 
 }
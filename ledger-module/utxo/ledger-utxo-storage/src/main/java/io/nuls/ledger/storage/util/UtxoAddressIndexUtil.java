@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.ledger.storage.util;
+
+import io.nuls.core.tools.array.ArraysTool;
+import io.nuls.kernel.model.Address;
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinView;
+
+/**
+ * 地址索引的key为 address(23 bytes) + owner(txHash + index)，按地址前缀即可定位该地址的所有utxo
+ * The address index key is address(23 bytes) + owner(txHash + index), so all utxo of an address share one key prefix.
+ */
+public class UtxoAddressIndexUtil {
+
+    public static final byte[] EMPTY_VALUE = new byte[0];
+
+    public static byte[] toIndexKey(byte[] address, byte[] owner) {
+        return ArraysTool.concatenate(address, owner);
+    }
+
+    public static byte[] getOwner(byte[] indexKey) {
+        byte[] owner = new byte[indexKey.length - Address.ADDRESS_LENGTH];
+        System.arraycopy(indexKey, Address.ADDRESS_LENGTH, owner, 0, owner.length);
+        return owner;
+    }
+
+    /**
+     * 获取utxo的所属地址，无法识别的锁定脚本返回null，这类utxo不进入索引
+     * Gets the address the utxo belongs to, returns null for unrecognized scripts, such utxo are not indexed.
+     */
+    public static byte[] getAddress(Coin coin) {
+        if (coin == null) {
+            return null;
+        }
+        try {
+            byte[] address = coin.getAddress();
+            if (address == null || address.length != Address.ADDRESS_LENGTH) {
+                return null;
+            }
+            return address;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从序列化数据直接读取utxo的所属地址，规则同上
+     * Reads the address straight from the serialized utxo, same rules as above
+     */
+    public static byte[] getAddress(CoinView coin) {
+        if (coin == null) {
+            return null;
+        }
+        return coin.getAddress();
+    }
+}
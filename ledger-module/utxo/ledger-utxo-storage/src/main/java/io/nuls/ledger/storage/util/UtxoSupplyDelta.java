@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.storage.util;
+
+import io.nuls.kernel.constant.NulsConstant;
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.CoinView;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一组utxo变化对供应量的影响：总额、永久锁定额，以及按锁定时间汇总的时间锁定和高度锁定额
+ * The effect of a set of utxo changes on the supply: the total, the permanently locked amount,
+ * and the time and height locked amounts summed per lock time.
+ */
+public class UtxoSupplyDelta {
+
+    private long total;
+
+    private long permanentLocked;
+
+    private final Map<Long, Long> locks = new TreeMap<>();
+
+    /**
+     * 新增的utxo
+     * A utxo that was added
+     */
+    public void add(Coin coin) {
+        change(coin.getLockTime(), coin.getNa().getValue());
+    }
+
+    /**
+     * 新增的utxo，直接读取序列化数据，用于全量统计
+     * A utxo that was added, read straight from its serialized bytes, used by full recounts
+     */
+    public void add(CoinView coin) {
+        change(coin.getLockTime(), coin.getNaValue());
+    }
+
+    /**
+     * 被删除的utxo
+     * A utxo that was removed
+     */
+    public void remove(Coin coin) {
+        change(coin.getLockTime(), -coin.getNa().getValue());
+    }
+
+    private void change(long lockTime, long value) {
+        total += value;
+        if (lockTime < 0) {
+            permanentLocked += value;
+        } else if (lockTime > 0) {
+            locks.merge(lockTime, value, Long::sum);
+        }
+    }
+
+    /**
+     * 锁定时间是否表示区块高度，与Coin.usable的判断一致
+     * Whether the lock time means a block height, the same rule as Coin.usable
+     */
+    public static boolean isHeightLock(long lockTime) {
+        return lockTime > 0 && lockTime <= NulsConstant.BlOCKHEIGHT_TIME_DIVIDE;
+    }
+
+    public boolean isEmpty() {
+        if (total != 0 || permanentLocked != 0) {
+            return false;
+        }
+        for (Long value : locks.values()) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getPermanentLocked() {
+        return permanentLocked;
+    }
+
+    /**
+     * 按锁定时间从小到大排列的锁定额变化
+     * Locked amount changes ordered by lock time
+     */
+    public Map<Long, Long> getLocks() {
+        return locks;
+    }
+}
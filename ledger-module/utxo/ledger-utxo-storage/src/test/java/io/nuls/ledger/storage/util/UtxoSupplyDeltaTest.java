@@ -0,0 +1,74 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.storage.util;
+
+import io.nuls.kernel.model.Coin;
+import io.nuls.kernel.model.Na;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UtxoSupplyDeltaTest {
+
+    private static Coin coin(long value, long lockTime) {
+        return new Coin(new byte[23], Na.valueOf(value), lockTime);
+    }
+
+    @Test
+    public void classifiesLocks() {
+        UtxoSupplyDelta delta = new UtxoSupplyDelta();
+        delta.add(coin(100, 0));
+        delta.add(coin(20, -1));
+        delta.add(coin(7, 5000));
+        delta.add(coin(3, 5000));
+        delta.add(coin(9, 1600000000000L));
+        assertEquals(139, delta.getTotal());
+        assertEquals(20, delta.getPermanentLocked());
+        assertEquals(2, delta.getLocks().size());
+        assertEquals(Long.valueOf(10), delta.getLocks().get(5000L));
+        assertEquals(Long.valueOf(9), delta.getLocks().get(1600000000000L));
+        assertTrue(UtxoSupplyDelta.isHeightLock(5000L));
+        assertFalse(UtxoSupplyDelta.isHeightLock(1600000000000L));
+    }
+
+    @Test
+    public void spendAndRollbackCancelOut() {
+        UtxoSupplyDelta delta = new UtxoSupplyDelta();
+        Coin locked = coin(50, 1600000000000L);
+        Coin deposit = coin(30, -1);
+        delta.add(locked);
+        delta.add(deposit);
+        delta.remove(locked);
+        delta.remove(deposit);
+        assertTrue(delta.isEmpty());
+
+        // 解锁交易把-1替换为时间锁定，总额不变
+        // an unlock replaces -1 with a time lock, the total stays the same
+        delta.remove(deposit);
+        delta.add(coin(30, 1700000000000L));
+        assertEquals(0, delta.getTotal());
+        assertEquals(-30, delta.getPermanentLocked());
+        assertEquals(Long.valueOf(30), delta.getLocks().get(1700000000000L));
+    }
+}
@@ -30,11 +30,15 @@ import io.nuls.core.tools.disruptor.DisruptorUtil;
 import io.nuls.kernel.module.service.ModuleService;
 import io.nuls.kernel.thread.manager.NulsThreadFactory;
 import io.nuls.message.bus.constant.MessageBusConstant;
+import io.nuls.message.bus.model.MessageDispatchStats;
 import io.nuls.message.bus.module.MessageBusModuleBootstrap;
 import io.nuls.message.bus.processor.MessageClassificationProcessor;
 import io.nuls.message.bus.model.ProcessData;
 import io.nuls.protocol.message.base.BaseMessage;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 消息处理的管理器
  * Message processing manager.
@@ -74,4 +78,11 @@ public class DispatchManager<M extends BaseMessage> {
     public void offer(ProcessData<M> data) {
         disruptorService.offer(disruptorName, data);
     }
+
+    public List<MessageDispatchStats> getStats() {
+        if (null == messageProcesser) {
+            return new ArrayList<>();
+        }
+        return messageProcesser.getStats();
+    }
 }
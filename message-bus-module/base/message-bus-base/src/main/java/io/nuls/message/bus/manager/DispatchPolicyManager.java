@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.message.bus.manager;
+
+import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.cfg.NulsConfig;
+import io.nuls.message.bus.constant.MessageBusConstant;
+import io.nuls.message.bus.model.DispatchPolicy;
+import io.nuls.protocol.message.*;
+import io.nuls.protocol.message.base.BaseMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 消息分发策略管理器，为每个消息类型确定优先级、并发数、队列容量等
+ * 区块、共识相关消息为高优先级且按节点保序，其中区块同步的响应在队列满时阻塞而不是丢弃；交易广播为低优先级、可并行、队列满时降级，
+ * 其余消息保持原来的单线程顺序处理
+ * 可在modules.ini的[msg-bus]段用 dispatch.消息类名=... 覆盖
+ * Dispatch policy manager, decides the priority, concurrency and queue capacity of every message type.
+ * Block and consensus messages are high priority and kept in order per peer, block sync responses block on overflow
+ * instead of being dropped. Tx gossip is low priority,
+ * parallel and deprioritized on overflow, everything else keeps the original single-threaded processing.
+ * Can be overridden in the [msg-bus] section of modules.ini with dispatch.SimpleClassName=...
+ */
+public final class DispatchPolicyManager {
+
+    private static final DispatchPolicyManager INSTANCE = new DispatchPolicyManager();
+
+    private static final DispatchPolicy DEFAULT_POLICY = new DispatchPolicy(DispatchPolicy.Priority.NORMAL,
+            1, MessageBusConstant.DEFAULT_DISPATCH_QUEUE_CAPACITY, true, DispatchPolicy.OverflowPolicy.DROP);
+
+    private static final DispatchPolicy BLOCK_POLICY = new DispatchPolicy(DispatchPolicy.Priority.HIGH,
+            1, MessageBusConstant.DEFAULT_DISPATCH_QUEUE_CAPACITY, true, DispatchPolicy.OverflowPolicy.DROP);
+
+    private static final DispatchPolicy BLOCK_SYNC_POLICY = new DispatchPolicy(DispatchPolicy.Priority.HIGH,
+            1, MessageBusConstant.DEFAULT_DISPATCH_QUEUE_CAPACITY, true, DispatchPolicy.OverflowPolicy.BLOCK);
+
+    private static final DispatchPolicy TX_POLICY = new DispatchPolicy(DispatchPolicy.Priority.LOW,
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), MessageBusConstant.DEFAULT_TX_DISPATCH_QUEUE_CAPACITY,
+            false, DispatchPolicy.OverflowPolicy.DEPRIORITIZE);
+
+    private final Map<Class<? extends BaseMessage>, DispatchPolicy> defaultPolicies = new HashMap<>();
+
+    public static DispatchPolicyManager getInstance() {
+        return INSTANCE;
+    }
+
+    private DispatchPolicyManager() {
+        Class[] blockMessages = new Class[]{SmallBlockMessage.class, ForwardSmallBlockMessage.class, GetSmallBlockMessage.class,
+                CompactBlockMessage.class, GetCompactBlockMessage.class,
+                TxGroupMessage.class, GetTxGroupRequest.class, GetBlockMessage.class,
+                GetBlocksByHeightMessage.class, GetBlocksByHashMessage.class, GetBlocksHashMessage.class,
+                BlockHeaderMessage.class};
+        for (Class clazz : blockMessages) {
+            defaultPolicies.put(clazz, BLOCK_POLICY);
+        }
+        // 本节点请求的区块同步响应，丢弃后只能等待超时重新下载
+        // responses to the block sync requests of this node, a dropped one would only come back after a download timeout
+        Class[] blockSyncMessages = new Class[]{BlockMessage.class, BlocksHashMessage.class,
+                CompleteMessage.class, ReactMessage.class, NotFoundMessage.class};
+        for (Class clazz : blockSyncMessages) {
+            defaultPolicies.put(clazz, BLOCK_SYNC_POLICY);
+        }
+        Class[] txMessages = new Class[]{TransactionMessage.class, ForwardTxMessage.class, GetTxMessage.class};
+        for (Class clazz : txMessages) {
+            defaultPolicies.put(clazz, TX_POLICY);
+        }
+    }
+
+    public DispatchPolicy getPolicy(Class<? extends BaseMessage> messageClass) {
+        DispatchPolicy policy = defaultPolicies.get(messageClass);
+        if (null == policy) {
+            policy = DEFAULT_POLICY;
+        }
+        if (null == NulsConfig.MODULES_CONFIG) {
+            return policy;
+        }
+        String configured = NulsConfig.MODULES_CONFIG.getCfgValue(MessageBusConstant.CFG_MSG_BUS_SECTION,
+                MessageBusConstant.CFG_DISPATCH_PREFIX + messageClass.getSimpleName(), "");
+        if (configured.isEmpty()) {
+            return policy;
+        }
+        try {
+            return DispatchPolicy.parse(configured);
+        } catch (Exception e) {
+            Log.warn("invalid dispatch policy of " + messageClass.getSimpleName() + ": " + configured + ", use " + policy);
+            return policy;
+        }
+    }
+
+    public int getDeprioritizedCapacity() {
+        if (null == NulsConfig.MODULES_CONFIG) {
+            return MessageBusConstant.DEFAULT_DEPRIORITIZED_QUEUE_CAPACITY;
+        }
+        return NulsConfig.MODULES_CONFIG.getCfgValue(MessageBusConstant.CFG_MSG_BUS_SECTION,
+                MessageBusConstant.CFG_DISPATCH_DEPRIORITIZED_CAPACITY, MessageBusConstant.DEFAULT_DEPRIORITIZED_QUEUE_CAPACITY);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.message.bus.model;
+
+/**
+ * 单个消息类型的分发策略：优先级、并发数、队列容量、是否按节点保序以及队列满时的处理方式
+ * Dispatch policy of one message type: priority, concurrency, queue capacity,
+ * whether messages of the same peer must stay in order, and what to do when the queue is full.
+ */
+public class DispatchPolicy {
+
+    /**
+     * 消息优先级，高优先级（区块、共识）积压时，低优先级（交易广播）的可用队列容量减半
+     * Message priority. While high priority (block, consensus) messages are backlogged,
+     * low priority (tx gossip) messages may only use half of their queue capacity.
+     */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * 队列满时的处理方式：直接丢弃；转入该类型的降级队列，在高优先级消息处理完后再处理；
+     * 或阻塞分发线程直到队列腾出空间，用于不能丢失的区块同步消息
+     * What happens when the queue is full: drop the message; move it into the deprioritized queue of the type,
+     * which yields to high priority messages; or block the dispatching thread until the queue has room, used for
+     * block sync messages that must not be lost.
+     */
+    public enum OverflowPolicy {
+        DROP, DEPRIORITIZE, BLOCK
+    }
+
+    private final Priority priority;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final boolean orderedPerPeer;
+    private final OverflowPolicy overflowPolicy;
+
+    public DispatchPolicy(Priority priority, int concurrency, int queueCapacity, boolean orderedPerPeer, OverflowPolicy overflowPolicy) {
+        if (concurrency <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("concurrency and queue capacity must be positive");
+        }
+        this.priority = priority;
+        this.concurrency = concurrency;
+        this.queueCapacity = Math.max(queueCapacity, concurrency);
+        this.orderedPerPeer = orderedPerPeer;
+        // 降级队列不保证顺序，需要保序的消息不能降级
+        // The deprioritized queue does not keep order, so ordered messages cannot be deprioritized
+        this.overflowPolicy = orderedPerPeer && overflowPolicy == OverflowPolicy.DEPRIORITIZE ? OverflowPolicy.DROP : overflowPolicy;
+    }
+
+    /**
+     * 解析配置，格式：优先级,并发数,队列容量,是否按节点保序,溢出策略
+     * Parse a configured policy: priority,concurrency,capacity,orderedPerPeer,overflow
+     */
+    public static DispatchPolicy parse(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("dispatch policy must be priority,concurrency,capacity,ordered,overflow: " + value);
+        }
+        return new DispatchPolicy(Priority.valueOf(parts[0].trim().toUpperCase()),
+                Integer.parseInt(parts[1].trim()),
+                Integer.parseInt(parts[2].trim()),
+                Boolean.parseBoolean(parts[3].trim()),
+                OverflowPolicy.valueOf(parts[4].trim().toUpperCase()));
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean isOrderedPerPeer() {
+        return orderedPerPeer;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return priority + "," + concurrency + "," + queueCapacity + "," + orderedPerPeer + "," + overflowPolicy;
+    }
+}
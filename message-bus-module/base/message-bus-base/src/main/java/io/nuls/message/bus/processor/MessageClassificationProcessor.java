@@ -27,28 +27,41 @@ package io.nuls.message.bus.processor;
 import com.lmax.disruptor.EventHandler;
 import io.nuls.core.tools.disruptor.DisruptorData;
 import io.nuls.core.tools.log.Log;
-import io.nuls.kernel.thread.manager.NulsThreadFactory;
-import io.nuls.kernel.thread.manager.TaskManager;
 import io.nuls.message.bus.constant.MessageBusConstant;
 import io.nuls.message.bus.handler.intf.NulsMessageHandler;
+import io.nuls.message.bus.manager.DispatchPolicyManager;
 import io.nuls.message.bus.manager.HandlerManager;
+import io.nuls.message.bus.model.DispatchPolicy;
+import io.nuls.message.bus.model.MessageDispatchStats;
 import io.nuls.message.bus.model.ProcessData;
 import io.nuls.message.bus.processor.thread.NulsMessageCall;
 import io.nuls.protocol.message.base.BaseMessage;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * 按消息类型分发到各自有界队列的处理线程，队列满时按策略丢弃、降级或阻塞，区块/共识消息优先于交易广播
+ * Dispatches every message type to its own bounded worker lanes, drops, deprioritizes or blocks on overflow,
+ * and lets block/consensus messages take precedence over tx gossip.
+ *
  * @author ln
  */
 public class MessageClassificationProcessor<E extends BaseMessage> implements EventHandler<DisruptorData<ProcessData<E>>> {
 
     private HandlerManager handlerManager = HandlerManager.getInstance();
-    private Map<Class<? extends BaseMessage>, ExecutorService> handlerService = new HashMap<>();
+    private DispatchPolicyManager policyManager = DispatchPolicyManager.getInstance();
+    private Map<Class<? extends BaseMessage>, MessageTypeDispatcher> dispatchers = new ConcurrentHashMap<>();
+    private List<MessageTypeDispatcher> highPriorityDispatchers = new CopyOnWriteArrayList<>();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition highPriorityIdle = idleLock.newCondition();
 
     @Override
     public void onEvent(DisruptorData<ProcessData<E>> disruptorData, long l, boolean b) throws Exception {
@@ -72,23 +85,123 @@ public class MessageClassificationProcessor<E extends BaseMessage> implements Ev
         ProcessData processData = disruptorData.getData();
         Class<? extends BaseMessage> serviceId = processData.getData().getClass();
         Set<NulsMessageHandler> handlers = handlerManager.getHandlerList(serviceId);
-        ThreadPoolExecutor handlerExecutor = (ThreadPoolExecutor) handlerService.get(serviceId);
-        if (handlerExecutor == null) {
-            handlerExecutor = TaskManager.createThreadPool(1, 1000000, new NulsThreadFactory(MessageBusConstant.MODULE_ID_MESSAGE_BUS, "disruptor-processor"));
-            handlerService.put(serviceId, handlerExecutor);
+        if (handlers.isEmpty()) {
+            return;
         }
+        MessageTypeDispatcher dispatcher = getDispatcher(serviceId);
+        DispatchPolicy policy = dispatcher.getPolicy();
+        boolean throttle = policy.getPriority() == DispatchPolicy.Priority.LOW && hasHighPriorityBacklog();
 
         for (NulsMessageHandler handler : handlers) {
-            handlerExecutor.execute(new NulsMessageCall(processData, handler));
+            NulsMessageCall call = new NulsMessageCall(processData, handler, dispatcher);
+            if (dispatcher.tryDispatch(call, processData.getNode(), throttle)) {
+                continue;
+            }
+            if (policy.getOverflowPolicy() == DispatchPolicy.OverflowPolicy.DEPRIORITIZE) {
+                deprioritize(dispatcher, call);
+            } else if (policy.getOverflowPolicy() == DispatchPolicy.OverflowPolicy.BLOCK) {
+                // 阻塞分发线程，把压力传回网络层，而不是丢弃同步中的区块
+                // block the dispatching thread so the pressure reaches the network layer instead of dropping synced blocks
+                if (!dispatcher.dispatch(call, processData.getNode())) {
+                    dispatcher.markDropped();
+                }
+            } else {
+                dispatcher.markDropped();
+            }
         }
     }
 
-    public void shutdown() {
-        if (handlerService == null) {
+    private MessageTypeDispatcher getDispatcher(Class<? extends BaseMessage> serviceId) {
+        MessageTypeDispatcher dispatcher = dispatchers.get(serviceId);
+        if (null == dispatcher) {
+            dispatcher = new MessageTypeDispatcher(serviceId, policyManager.getPolicy(serviceId), policyManager.getDeprioritizedCapacity());
+            dispatchers.put(serviceId, dispatcher);
+            if (dispatcher.getPolicy().getPriority() == DispatchPolicy.Priority.HIGH) {
+                dispatcher.setIdleListener(this::signalHighPriorityIdle);
+                highPriorityDispatchers.add(dispatcher);
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * 高优先级消息是否有排队等待的积压，正在处理的消息不算积压
+     * Whether high priority messages are queued up, the ones being handled do not count as backlog.
+     */
+    private boolean hasHighPriorityBacklog() {
+        for (MessageTypeDispatcher dispatcher : highPriorityDispatchers) {
+            if (dispatcher.getQueued() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void signalHighPriorityIdle() {
+        if (hasHighPriorityBacklog()) {
+            return;
+        }
+        idleLock.lock();
+        try {
+            highPriorityIdle.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * 等待高优先级积压清空，最迟等到给定的截止时间
+     * Wait until the high priority backlog has drained, at the latest until the given deadline.
+     */
+    private void awaitHighPriorityIdle(long deadlineNanos) throws InterruptedException {
+        if (!hasHighPriorityBacklog()) {
             return;
         }
-        for (Map.Entry<Class<? extends BaseMessage>, ExecutorService> entry : handlerService.entrySet()) {
-            entry.getValue().shutdown();
+        idleLock.lock();
+        try {
+            long nanos;
+            while (hasHighPriorityBacklog() && (nanos = deadlineNanos - System.nanoTime()) > 0L) {
+                highPriorityIdle.awaitNanos(nanos);
+            }
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * 转入该消息类型的降级队列，在高优先级积压清空时处理；等待时间从入队时算起，积压持续时排队已久的消息不再等待
+     * Move into the deprioritized queue of the message type, it runs once the high priority backlog has drained.
+     * The wait is bounded from the time of enqueueing, so under a lasting backlog messages that queued long enough
+     * run without waiting any more.
+     */
+    private void deprioritize(MessageTypeDispatcher dispatcher, NulsMessageCall call) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MessageBusConstant.DEPRIORITIZED_MAX_DELAY_MILLIS);
+        boolean accepted = dispatcher.tryDeprioritize(() -> {
+            try {
+                awaitHighPriorityIdle(deadline);
+            } catch (InterruptedException e) {
+                call.abandon();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            call.run();
+        });
+        if (!accepted) {
+            dispatcher.markDropped();
+        }
+    }
+
+    public List<MessageDispatchStats> getStats() {
+        List<MessageDispatchStats> list = new ArrayList<>();
+        for (MessageTypeDispatcher dispatcher : dispatchers.values()) {
+            list.add(dispatcher.getStats());
+        }
+        return list;
+    }
+
+    public void shutdown() {
+        for (MessageTypeDispatcher dispatcher : dispatchers.values()) {
+            dispatcher.shutdown();
         }
     }
 }
@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.message.bus.processor;
+
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.thread.manager.TaskManager;
+import io.nuls.message.bus.constant.MessageBusConstant;
+import io.nuls.message.bus.model.DispatchPolicy;
+import io.nuls.message.bus.model.MessageDispatchStats;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.message.base.BaseMessage;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个消息类型的分发器，按策略持有有界队列的处理线程，并记录队列深度和处理耗时
+ * 需要按节点保序时，每个并发通道是一个单线程队列，同一节点的消息总是进入同一个通道；否则所有线程共享一个队列
+ * Dispatcher of one message type. Holds the bounded worker lanes described by its policy and records
+ * queue depth and handler latency.
+ * When ordered per peer, every lane is single-threaded and a peer always maps to the same lane,
+ * otherwise all workers share one queue.
+ * <p>
+ * 溢出策略为降级时另有一个同样并发数的降级队列；溢出策略为阻塞时，分发线程等待队列腾出空间
+ * With the deprioritize overflow policy there is also a deprioritized queue with the same concurrency; with the
+ * block overflow policy the dispatching thread waits until the lane has room.
+ */
+public class MessageTypeDispatcher {
+
+    private final Class<? extends BaseMessage> messageClass;
+    private final DispatchPolicy policy;
+    private final ThreadPoolExecutor[] lanes;
+    private final int laneCapacity;
+    private final ThreadPoolExecutor deprioritizedLane;
+
+    private final ReentrantLock spaceLock = new ReentrantLock();
+    private final Condition notFull = spaceLock.newCondition();
+    private final AtomicInteger blockedDispatchers = new AtomicInteger();
+    private volatile Runnable idleListener;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deprioritized = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public MessageTypeDispatcher(Class<? extends BaseMessage> messageClass, DispatchPolicy policy) {
+        this(messageClass, policy, MessageBusConstant.DEFAULT_DEPRIORITIZED_QUEUE_CAPACITY);
+    }
+
+    public MessageTypeDispatcher(Class<? extends BaseMessage> messageClass, DispatchPolicy policy, int deprioritizedCapacity) {
+        this.messageClass = messageClass;
+        this.policy = policy;
+        String poolName = "msg-" + messageClass.getSimpleName();
+        if (policy.isOrderedPerPeer()) {
+            this.lanes = new ThreadPoolExecutor[policy.getConcurrency()];
+            this.laneCapacity = Math.max(1, policy.getQueueCapacity() / lanes.length);
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = TaskManager.createThreadPool(1, laneCapacity,
+                        new NulsThreadFactory(MessageBusConstant.MODULE_ID_MESSAGE_BUS, poolName + "-" + i));
+            }
+        } else {
+            this.lanes = new ThreadPoolExecutor[]{TaskManager.createThreadPool(policy.getConcurrency(), policy.getQueueCapacity(),
+                    new NulsThreadFactory(MessageBusConstant.MODULE_ID_MESSAGE_BUS, poolName))};
+            this.laneCapacity = policy.getQueueCapacity();
+        }
+        if (policy.getOverflowPolicy() == DispatchPolicy.OverflowPolicy.DEPRIORITIZE) {
+            this.deprioritizedLane = TaskManager.createThreadPool(policy.getConcurrency(), Math.max(1, deprioritizedCapacity),
+                    new NulsThreadFactory(MessageBusConstant.MODULE_ID_MESSAGE_BUS, poolName + "-deprioritized"));
+        } else {
+            this.deprioritizedLane = null;
+        }
+    }
+
+    /**
+     * 尝试放入处理队列，队列已达到上限时返回false，由调用方按溢出策略处理
+     * Try to enqueue the task; returns false when the lane is at its limit so the caller can apply the overflow policy.
+     *
+     * @param task     处理任务 the task
+     * @param node     消息来源节点 the peer the message came from
+     * @param throttle 高优先级消息积压时，低优先级消息只能使用一半队列 low priority lanes are halved while high priority work is backlogged
+     */
+    public boolean tryDispatch(Runnable task, Node node, boolean throttle) {
+        ThreadPoolExecutor lane = lanes[laneIndex(node)];
+        int limit = throttle ? Math.max(1, laneCapacity / 2) : laneCapacity;
+        if (lane.getQueue().size() >= limit) {
+            return false;
+        }
+        pending.incrementAndGet();
+        try {
+            lane.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 放入处理队列，队列已满时阻塞等待，直到放入成功、分发器关闭或线程被中断
+     * Enqueue the task, waiting while the lane is full until it is accepted, the dispatcher shuts down
+     * or the thread is interrupted.
+     *
+     * @return 是否放入成功 / whether the task was accepted
+     */
+    public boolean dispatch(Runnable task, Node node) {
+        if (tryDispatch(task, node, false)) {
+            return true;
+        }
+        ThreadPoolExecutor lane = lanes[laneIndex(node)];
+        blockedDispatchers.incrementAndGet();
+        spaceLock.lock();
+        try {
+            while (!tryDispatch(task, node, false)) {
+                if (lane.isShutdown()) {
+                    return false;
+                }
+                // 定时等待兜底：空间在检查之后、等待之前腾出时不会错过
+                // the timed wait covers room freed between the check and the wait
+                notFull.await(10L, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            spaceLock.unlock();
+            blockedDispatchers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 放入降级队列，降级队列已满或不存在时返回false
+     * Enqueue the task into the deprioritized queue, returns false when it is full or there is none.
+     */
+    public boolean tryDeprioritize(Runnable task) {
+        if (null == deprioritizedLane) {
+            return false;
+        }
+        pending.incrementAndGet();
+        try {
+            deprioritizedLane.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            return false;
+        }
+        deprioritized.increment();
+        return true;
+    }
+
+    private int laneIndex(Node node) {
+        if (lanes.length == 1 || null == node || null == node.getId()) {
+            return 0;
+        }
+        return (node.getId().hashCode() & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    public void markDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * 处理完成（无论成功与否）后回调
+     * Called after a handler finished, whether it succeeded or not.
+     */
+    public void markHandled(long waitNanos, long latencyNanos) {
+        pending.decrementAndGet();
+        handled.increment();
+        totalWaitNanos.add(waitNanos);
+        totalLatencyNanos.add(latencyNanos);
+        long max = maxLatencyNanos.get();
+        while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+            max = maxLatencyNanos.get();
+        }
+        if (blockedDispatchers.get() > 0) {
+            spaceLock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                spaceLock.unlock();
+            }
+        }
+        Runnable listener = idleListener;
+        if (null != listener && getQueued() == 0) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 被丢弃的已入队任务（例如降级队列满或关闭）需要释放队列深度
+     * Release the depth of a queued task that was given up, e.g. on shutdown or a full deprioritized queue.
+     */
+    public void markAbandoned() {
+        pending.decrementAndGet();
+        dropped.increment();
+    }
+
+    /**
+     * 已入队、包括正在处理和降级队列中的消息数量
+     * Messages accepted and not finished yet, including the running ones and the deprioritized ones.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * 处理队列中等待处理的消息数量，不包括正在处理的消息和降级队列
+     * Messages waiting in the lanes, without the running ones and the deprioritized queue.
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * 设置处理队列排空时的回调，在处理线程上执行
+     * Set the callback run on a worker thread whenever the lanes have drained.
+     */
+    public void setIdleListener(Runnable idleListener) {
+        this.idleListener = idleListener;
+    }
+
+    public DispatchPolicy getPolicy() {
+        return policy;
+    }
+
+    public MessageDispatchStats getStats() {
+        MessageDispatchStats stats = new MessageDispatchStats();
+        stats.setMessageType(messageClass.getSimpleName());
+        stats.setPriority(policy.getPriority().name());
+        stats.setConcurrency(policy.getConcurrency());
+        stats.setOrderedPerPeer(policy.isOrderedPerPeer());
+        stats.setQueueCapacity(policy.getQueueCapacity());
+        stats.setQueueDepth(pending.get());
+        long count = handled.sum();
+        stats.setHandled(count);
+        stats.setDropped(dropped.sum());
+        stats.setDeprioritized(deprioritized.sum());
+        if (count > 0) {
+            stats.setAvgLatencyMicros(totalLatencyNanos.sum() / count / 1000);
+            stats.setAvgQueueWaitMicros(totalWaitNanos.sum() / count / 1000);
+        }
+        stats.setMaxLatencyMicros(maxLatencyNanos.get() / 1000);
+        return stats;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        if (null != deprioritizedLane) {
+            deprioritizedLane.shutdown();
+        }
+    }
+}
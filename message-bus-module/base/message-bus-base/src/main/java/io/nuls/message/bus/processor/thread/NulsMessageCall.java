@@ -28,6 +28,7 @@ package io.nuls.message.bus.processor.thread;
 import io.nuls.core.tools.log.Log;
 import io.nuls.message.bus.handler.intf.NulsMessageHandler;
 import io.nuls.message.bus.model.ProcessData;
+import io.nuls.message.bus.processor.MessageTypeDispatcher;
 import io.nuls.protocol.message.base.BaseMessage;
 
 /**
@@ -37,30 +38,51 @@ public class NulsMessageCall<T extends BaseMessage> implements Runnable {
 
     private final ProcessData<T> data;
     private final NulsMessageHandler<BaseMessage> handler;
+    private final MessageTypeDispatcher dispatcher;
+    private final long createTime;
 
     public NulsMessageCall(ProcessData<T> data, NulsMessageHandler<BaseMessage> handler) {
+        this(data, handler, null);
+    }
+
+    public NulsMessageCall(ProcessData<T> data, NulsMessageHandler<BaseMessage> handler, MessageTypeDispatcher dispatcher) {
         this.data = data;
         this.handler = handler;
+        this.dispatcher = dispatcher;
+        this.createTime = System.nanoTime();
     }
 
     @Override
     public void run() {
-        if (null == data || null == handler) {
-            return;
-        }
+        long start = System.nanoTime();
         try {
-            long start = System.currentTimeMillis();
+            if (null == data || null == handler) {
+                return;
+            }
             BaseMessage message = data.getData();
             if (null == message) {
                 return;
             }
-            handler.onMessage(message,data.getNode());
+            handler.onMessage(message, data.getNode());
             if (Log.isDebugEnabled()) {
-                Log.debug(data.getData().getClass() + ",use:" + (System.currentTimeMillis() - start));
+                Log.debug(data.getData().getClass() + ",use:" + (System.nanoTime() - start) / 1000000);
             }
         } catch (Exception e) {
             Log.error(e.getMessage());
+        } finally {
+            if (null != dispatcher) {
+                dispatcher.markHandled(start - createTime, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 放弃执行（如降级队列已满），释放分发器中的队列深度
+     * Give up the call (e.g. the deprioritized queue is full) and release its queue depth.
+     */
+    public void abandon() {
+        if (null != dispatcher) {
+            dispatcher.markAbandoned();
         }
-        return;
     }
 }
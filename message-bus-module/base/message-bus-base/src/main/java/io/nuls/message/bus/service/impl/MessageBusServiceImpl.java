@@ -35,6 +35,7 @@ import io.nuls.message.bus.handler.intf.NulsMessageHandler;
 import io.nuls.message.bus.manager.DispatchManager;
 import io.nuls.message.bus.manager.HandlerManager;
 import io.nuls.message.bus.manager.MessageManager;
+import io.nuls.message.bus.model.MessageDispatchStats;
 import io.nuls.message.bus.model.ProcessData;
 import io.nuls.message.bus.service.MessageBusService;
 import io.nuls.network.model.BroadcastResult;
@@ -43,6 +44,7 @@ import io.nuls.network.service.NetworkService;
 import io.nuls.protocol.message.base.BaseMessage;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -86,6 +88,18 @@ public class MessageBusServiceImpl implements MessageBusService {
         return getNodeIdListResult(result);
     }
 
+    @Override
+    public Result<List<String>> broadcastExcept(BaseMessage message, Collection<Node> excludeNodes, boolean aysn, int percent) {
+        BroadcastResult result = networkService.sendToAllNodeExcept(message, excludeNodes, aysn, percent);
+        return getNodeIdListResult(result);
+    }
+
+    @Override
+    public Result<List<String>> broadcastToNodes(BaseMessage message, Collection<Node> nodes, boolean aysn) {
+        BroadcastResult result = networkService.sendToNodes(message, nodes, aysn);
+        return getNodeIdListResult(result);
+    }
+
     @Override
     public Result sendToNode(BaseMessage message, Node node, boolean aysn) {
         BroadcastResult result = networkService.sendToNode(message, node, aysn);
@@ -116,6 +130,11 @@ public class MessageBusServiceImpl implements MessageBusService {
         return Result.getSuccess().setData(message);
     }
 
+    @Override
+    public List<MessageDispatchStats> getDispatchStats() {
+        return processorManager.getStats();
+    }
+
     private Result<List<String>> getNodeIdListResult(BroadcastResult result) {
         List<String> list = new ArrayList<>();
         if (!result.isSuccess() || result.getBroadcastNodes() == null || result.getBroadcastNodes().isEmpty()) {
@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.message.bus.processor;
+
+import io.nuls.message.bus.model.DispatchPolicy;
+import io.nuls.message.bus.model.MessageDispatchStats;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.message.BlockMessage;
+import io.nuls.protocol.message.TransactionMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MessageTypeDispatcherTest {
+
+    /**
+     * 队列满时拒绝，高优先级积压时低优先级队列减半
+     * Reject when the lane is full, halve the lane while high priority work is backlogged
+     */
+    @Test
+    public void boundedQueue() throws Exception {
+        DispatchPolicy policy = new DispatchPolicy(DispatchPolicy.Priority.LOW, 1, 4, false, DispatchPolicy.OverflowPolicy.DEPRIORITIZE);
+        MessageTypeDispatcher dispatcher = new MessageTypeDispatcher(TransactionMessage.class, policy);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(dispatcher.tryDispatch(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher.markHandled(0, 1000);
+        }, null, false));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, true));
+        assertTrue(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, true));
+        assertFalse(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, true));
+        assertTrue(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, false));
+        assertTrue(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, false));
+        assertFalse(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 1000), null, false));
+        assertEquals(5, dispatcher.getPending());
+        // the running message is not queued work
+        assertEquals(4, dispatcher.getQueued());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        MessageDispatchStats stats = dispatcher.getStats();
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(5, stats.getHandled());
+        assertEquals("TransactionMessage", stats.getMessageType());
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 按节点保序：多个通道并行，但同一节点的消息按到达顺序处理
+     * Ordered per peer: lanes run in parallel, messages of one peer keep their arrival order
+     */
+    @Test
+    public void orderedPerPeer() throws Exception {
+        DispatchPolicy policy = new DispatchPolicy(DispatchPolicy.Priority.HIGH, 4, 10000, true, DispatchPolicy.OverflowPolicy.DEPRIORITIZE);
+        assertEquals(DispatchPolicy.OverflowPolicy.DROP, policy.getOverflowPolicy());
+        MessageTypeDispatcher dispatcher = new MessageTypeDispatcher(BlockMessage.class, policy);
+
+        int peers = 8;
+        int perPeer = 200;
+        List<List<Integer>> received = new ArrayList<>();
+        Node[] nodes = new Node[peers];
+        for (int i = 0; i < peers; i++) {
+            received.add(Collections.synchronizedList(new ArrayList<>()));
+            nodes[i] = new Node("192.168.1." + i, 8003, 1);
+        }
+        CountDownLatch done = new CountDownLatch(peers * perPeer);
+        for (int seq = 0; seq < perPeer; seq++) {
+            for (int p = 0; p < peers; p++) {
+                List<Integer> list = received.get(p);
+                int value = seq;
+                assertTrue(dispatcher.tryDispatch(() -> {
+                    list.add(value);
+                    dispatcher.markHandled(0, 0);
+                    done.countDown();
+                }, nodes[p], false));
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> list : received) {
+            assertEquals(perPeer, list.size());
+            for (int i = 0; i < perPeer; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+        }
+        assertEquals(peers * perPeer, dispatcher.getStats().getHandled());
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 阻塞策略：队列满时分发线程等待，不丢弃消息
+     * Block policy: the dispatching thread waits while the lane is full instead of dropping the message
+     */
+    @Test
+    public void blockOnOverflow() throws Exception {
+        DispatchPolicy policy = new DispatchPolicy(DispatchPolicy.Priority.HIGH, 1, 1, true, DispatchPolicy.OverflowPolicy.BLOCK);
+        assertEquals(DispatchPolicy.OverflowPolicy.BLOCK, policy.getOverflowPolicy());
+        MessageTypeDispatcher dispatcher = new MessageTypeDispatcher(BlockMessage.class, policy);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(dispatcher.tryDispatch(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher.markHandled(0, 0);
+        }, null, false));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 0), null, false));
+        assertFalse(dispatcher.tryDispatch(() -> dispatcher.markHandled(0, 0), null, false));
+
+        CountDownLatch handled = new CountDownLatch(1);
+        AtomicBoolean accepted = new AtomicBoolean();
+        Thread blocked = new Thread(() -> accepted.set(dispatcher.dispatch(() -> {
+            dispatcher.markHandled(0, 0);
+            handled.countDown();
+        }, null)));
+        blocked.start();
+        Thread.sleep(50L);
+        assertTrue(blocked.isAlive());
+
+        release.countDown();
+        blocked.join(5000L);
+        assertTrue(accepted.get());
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, dispatcher.getStats().getDropped());
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 降级队列使用该消息类型的并发数
+     * The deprioritized queue runs with the concurrency of the message type
+     */
+    @Test
+    public void deprioritizedConcurrency() throws Exception {
+        DispatchPolicy policy = new DispatchPolicy(DispatchPolicy.Priority.LOW, 2, 2, false, DispatchPolicy.OverflowPolicy.DEPRIORITIZE);
+        MessageTypeDispatcher dispatcher = new MessageTypeDispatcher(TransactionMessage.class, policy, 10);
+        CountDownLatch together = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(dispatcher.tryDeprioritize(() -> {
+                together.countDown();
+                try {
+                    together.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dispatcher.markHandled(0, 0);
+            }));
+        }
+        assertTrue(together.await(5, TimeUnit.SECONDS));
+        assertEquals(2, dispatcher.getStats().getDeprioritized());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void parsePolicy() {
+        DispatchPolicy policy = DispatchPolicy.parse("low, 4, 50000, false, deprioritize");
+        assertEquals(DispatchPolicy.Priority.LOW, policy.getPriority());
+        assertEquals(4, policy.getConcurrency());
+        assertEquals(50000, policy.getQueueCapacity());
+        assertFalse(policy.isOrderedPerPeer());
+        assertEquals(DispatchPolicy.OverflowPolicy.DEPRIORITIZE, policy.getOverflowPolicy());
+    }
+}
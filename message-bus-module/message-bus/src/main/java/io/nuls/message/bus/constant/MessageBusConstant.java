@@ -62,6 +62,50 @@ public interface MessageBusConstant extends NulsConstant {
      */
     int DEFAULT_RING_BUFFER_SIZE = 1 << 20;
 
+    /**
+     * 消息总线模块在modules.ini中的配置段
+     * The section of the message-bus module in modules.ini
+     */
+    String CFG_MSG_BUS_SECTION = "msg-bus";
+
+    /**
+     * 按消息类型配置分发策略的前缀，例如：dispatch.TransactionMessage=LOW,4,50000,false,DEPRIORITIZE
+     * 依次为：优先级、并发数、队列容量、是否按节点保序、溢出策略
+     * Prefix of the per-message-type dispatch policy, e.g. dispatch.TransactionMessage=LOW,4,50000,false,DEPRIORITIZE
+     * in order: priority, concurrency, queue capacity, ordered per peer, overflow policy
+     */
+    String CFG_DISPATCH_PREFIX = "dispatch.";
+
+    /**
+     * 每个消息类型的降级队列容量的配置项
+     * The capacity of the deprioritized queue of each message type
+     */
+    String CFG_DISPATCH_DEPRIORITIZED_CAPACITY = "dispatch.deprioritized.capacity";
+
+    /**
+     * 每个消息类型默认的待处理队列容量
+     * The default pending queue capacity of each message type
+     */
+    int DEFAULT_DISPATCH_QUEUE_CAPACITY = 10000;
+
+    /**
+     * 交易广播类消息默认的待处理队列容量
+     * The default pending queue capacity of transaction gossip messages
+     */
+    int DEFAULT_TX_DISPATCH_QUEUE_CAPACITY = 50000;
+
+    /**
+     * 每个消息类型的降级队列的默认容量
+     * The default capacity of the deprioritized queue of each message type
+     */
+    int DEFAULT_DEPRIORITIZED_QUEUE_CAPACITY = 20000;
+
+    /**
+     * 降级消息从入队起，在高优先级消息积压时最多等待的时间（毫秒）
+     * The longest time (ms) a deprioritized message waits, counted from enqueueing, while high priority messages are backlogged
+     */
+    long DEPRIORITIZED_MAX_DELAY_MILLIS = 200L;
+
     /**
      * 消息类型为通用消息hash的消息
      */
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.message.bus.model;
+
+/**
+ * 单个消息类型的分发统计信息
+ * Dispatch statistics of one message type.
+ */
+public class MessageDispatchStats {
+
+    private String messageType;
+
+    private String priority;
+
+    private int concurrency;
+
+    private boolean orderedPerPeer;
+
+    private int queueCapacity;
+
+    /**
+     * 已接收但尚未处理完成的消息数（包含降级队列中的消息）
+     * Messages accepted but not yet handled, including the deprioritized ones
+     */
+    private int queueDepth;
+
+    private long handled;
+
+    private long dropped;
+
+    private long deprioritized;
+
+    private long avgLatencyMicros;
+
+    private long maxLatencyMicros;
+
+    private long avgQueueWaitMicros;
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public void setMessageType(String messageType) {
+        this.messageType = messageType;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public boolean isOrderedPerPeer() {
+        return orderedPerPeer;
+    }
+
+    public void setOrderedPerPeer(boolean orderedPerPeer) {
+        this.orderedPerPeer = orderedPerPeer;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public long getHandled() {
+        return handled;
+    }
+
+    public void setHandled(long handled) {
+        this.handled = handled;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public long getDeprioritized() {
+        return deprioritized;
+    }
+
+    public void setDeprioritized(long deprioritized) {
+        this.deprioritized = deprioritized;
+    }
+
+    public long getAvgLatencyMicros() {
+        return avgLatencyMicros;
+    }
+
+    public void setAvgLatencyMicros(long avgLatencyMicros) {
+        this.avgLatencyMicros = avgLatencyMicros;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    public void setMaxLatencyMicros(long maxLatencyMicros) {
+        this.maxLatencyMicros = maxLatencyMicros;
+    }
+
+    public long getAvgQueueWaitMicros() {
+        return avgQueueWaitMicros;
+    }
+
+    public void setAvgQueueWaitMicros(long avgQueueWaitMicros) {
+        this.avgQueueWaitMicros = avgQueueWaitMicros;
+    }
+}
@@ -27,9 +27,11 @@ package io.nuls.message.bus.service;
 
 import io.nuls.kernel.model.Result;
 import io.nuls.message.bus.handler.intf.NulsMessageHandler;
+import io.nuls.message.bus.model.MessageDispatchStats;
 import io.nuls.network.model.Node;
 import io.nuls.protocol.message.base.BaseMessage;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -84,6 +86,28 @@ public interface MessageBusService {
      */
     Result<List<String>> broadcast(BaseMessage message, Node excludeNode, boolean aysn, int percent);
 
+    /**
+     * 广播消息给排除列表之外的所有节点
+     * broadcast to nodes except the ones in "excludeNodes"
+     *
+     * @param message      The message was broadcast.
+     * @param excludeNodes 不会广播的节点 The nodes that are not passed.
+     * @param aysn         是否异步 Asynchronous execution
+     * @return Return all broadcasted node id list
+     */
+    Result<List<String>> broadcastExcept(BaseMessage message, Collection<Node> excludeNodes, boolean aysn, int percent);
+
+    /**
+     * 广播消息给指定的一组节点
+     * broadcast to the given nodes
+     *
+     * @param message The message was broadcast.
+     * @param nodes   接收消息的节点 The nodes that receive the message.
+     * @param aysn    是否异步 Asynchronous execution
+     * @return Return all broadcasted node id list
+     */
+    Result<List<String>> broadcastToNodes(BaseMessage message, Collection<Node> nodes, boolean aysn);
+
 
     /**
      * 发送消息到一个节点
@@ -101,4 +125,12 @@ public interface MessageBusService {
      * Instantiate a message object based on message type and module identity.
      */
     Result<? extends BaseMessage> getMessageInstance(short moduleId, int type);
+
+    /**
+     * 获取每个消息类型的分发统计（队列深度、处理耗时、丢弃数等）
+     * Get the dispatch statistics (queue depth, handler latency, drops...) of every message type.
+     *
+     * @return 统计列表 statistics list
+     */
+    List<MessageDispatchStats> getDispatchStats();
 }
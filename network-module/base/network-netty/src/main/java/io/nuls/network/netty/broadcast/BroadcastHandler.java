@@ -25,11 +25,15 @@
 
 package io.nuls.network.netty.broadcast;
 
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
 import io.nuls.core.tools.log.Log;
 import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.model.BaseNulsData;
 import io.nuls.network.constant.NetworkErrorCode;
 import io.nuls.network.constant.NetworkParam;
@@ -37,11 +41,13 @@ import io.nuls.network.model.BroadcastResult;
 import io.nuls.network.model.Node;
 import io.nuls.network.model.NodeGroup;
 import io.nuls.network.netty.manager.NodeManager;
+import io.nuls.protocol.message.RawBlockMessage;
 import io.nuls.protocol.message.base.BaseMessage;
 import io.nuls.protocol.message.base.MessageHeader;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class BroadcastHandler {
 
@@ -59,6 +65,10 @@ public class BroadcastHandler {
 
     private NodeManager nodeManager = NodeManager.getInstance();
 
+    private final LongAdder encodedBytes = new LongAdder();
+
+    private final LongAdder sentBytes = new LongAdder();
+
     public BroadcastResult broadcastToAllNode(BaseMessage msg, Node excludeNode, boolean asyn, int percent) {
         Collection<Node> nodeList = NodeManager.getInstance().getAvailableNodes();
         if (nodeList == null || nodeList.isEmpty()) {
@@ -68,6 +78,36 @@ public class BroadcastHandler {
         return broadcastToList(nodeList, msg, excludeNode, asyn, percent);
     }
 
+    public BroadcastResult broadcastToAllNodeExcept(BaseMessage msg, Collection<Node> excludeNodes, boolean asyn, int percent) {
+        Collection<Node> nodes = nodeManager.getAvailableNodes();
+        if (nodes == null || nodes.isEmpty()) {
+            return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_NODE_EMPTY);
+        }
+        Set<String> excludeIds = new HashSet<>();
+        if (excludeNodes != null) {
+            for (Node node : excludeNodes) {
+                excludeIds.add(node.getId());
+            }
+        }
+        List<Node> nodeList = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (!excludeIds.contains(node.getId())) {
+                nodeList.add(node);
+            }
+        }
+        if (nodeList.isEmpty()) {
+            return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_NODE_EMPTY);
+        }
+        return broadcastToList(nodeList, msg, null, asyn, percent);
+    }
+
+    public BroadcastResult broadcastToNodes(BaseMessage msg, Collection<Node> nodes, boolean asyn) {
+        if (nodes == null || nodes.isEmpty()) {
+            return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_NODE_EMPTY);
+        }
+        return broadcastToList(nodes, msg, null, asyn, 100);
+    }
+
     public BroadcastResult broadcastToHalfNode(BaseMessage msg, Node excludeNode, boolean asyn) {
         Collection<Node> nodes = nodeManager.getAvailableNodes();
         if (nodes.isEmpty()) {
@@ -146,17 +186,43 @@ public class BroadcastHandler {
                 }
                 nodeList = nodeBroadcastList;
             }
-            for (Node node : nodeList) {
-                if (excludeNode != null && node.getId().equals(excludeNode.getId())) {
-                    continue;
+            // 消息只序列化一次，各节点共享同一块缓冲区
+            // the message is serialized only once, all nodes share the same buffer
+            ByteBuf buffer;
+            try {
+                buffer = encode(message);
+            } catch (Exception e) {
+                Log.error(e);
+                return new BroadcastResult(false, NetworkErrorCode.NET_MESSAGE_ERROR);
+            }
+            List<Node> sentNodes = new ArrayList<>();
+            List<ChannelFuture> futures = new ArrayList<>();
+            try {
+                for (Node node : nodeList) {
+                    if (excludeNode != null && node.getId().equals(excludeNode.getId())) {
+                        continue;
+                    }
+                    ChannelFuture future = send(buffer, node);
+                    if (future != null) {
+                        sentNodes.add(node);
+                        futures.add(future);
+                    }
                 }
-                BroadcastResult br = broadcastToNode(message, node, asyn);
-                if (br.isSuccess()) {
-                    successCount++;
-                    result.getBroadcastNodes().add(node);
-                } else if (br.getErrorCode().equals(NetworkErrorCode.NET_MESSAGE_ERROR)) {
-                    return br;
+            } finally {
+                buffer.release();
+            }
+            // 同步模式下所有节点的发送同时进行，再一起等待结果
+            // in sync mode the writes to all nodes are in flight together and are awaited together
+            for (int i = 0; i < sentNodes.size(); i++) {
+                if (!asyn) {
+                    ChannelFuture future = futures.get(i);
+                    future.await();
+                    if (!future.isSuccess()) {
+                        continue;
+                    }
                 }
+                successCount++;
+                result.getBroadcastNodes().add(sentNodes.get(i));
             }
 
             if (successCount == 0) {
@@ -177,36 +243,142 @@ public class BroadcastHandler {
         if (node.getChannel() == null || !node.getChannel().isActive()) {
             return new BroadcastResult(false, NetworkErrorCode.NET_NODE_MISS_CHANNEL);
         }
+        // 旧版本的编码器要在整条消息前加长度，只能处理缓冲区，所以文件区域只在新版本下零拷贝发送
+        // the old encoder prefixes the whole message with its length and only handles buffers, so file regions go zero-copy on newer versions only
+        if (message instanceof RawBlockMessage && ((RawBlockMessage) message).isFileRegion() && NulsContext.MAIN_NET_VERSION > 1) {
+            return sendFileRegion((RawBlockMessage) message, node, asyn);
+        }
+        ByteBuf buffer;
         try {
-            MessageHeader header = message.getHeader();
-            header.setMagicNumber(networkParam.getPacketMagic());
-
-            BaseNulsData body = message.getMsgBody();
-            header.setLength(body.size());
-
-            if(asyn) {
-                node.getChannel().eventLoop().execute(() -> {
-                    try {
-                        Channel channel = node.getChannel();
-                        if (channel != null) {
-                            channel.writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                });
-            } else {
-                ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
+            buffer = encode(message);
+        } catch (Exception e) {
+            Log.error(e);
+            return new BroadcastResult(false, NetworkErrorCode.NET_MESSAGE_ERROR);
+        }
+        try {
+            ChannelFuture future = send(buffer, node);
+            if (future == null) {
+                return new BroadcastResult(false, NetworkErrorCode.NET_NODE_MISS_CHANNEL);
+            }
+            if (!asyn) {
                 future.await();
-                boolean success = future.isSuccess();
-                if (!success) {
+                if (!future.isSuccess()) {
                     return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_FAIL);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_FAIL);
+        } finally {
+            buffer.release();
+        }
+        return new BroadcastResult(true, KernelErrorCode.SUCCESS);
+    }
+
+    /**
+     * 消息头写入缓冲区，区块字节作为文件区域由内核直接写到连接上；两次写入在事件循环中连续执行，不会与其他消息交错
+     * The header goes through a buffer and the block bytes are written to the connection by the kernel as a file region;
+     * both writes run back to back on the event loop so no other message can interleave
+     */
+    private BroadcastResult sendFileRegion(RawBlockMessage message, Node node, boolean asyn) {
+        Channel channel = node.getChannel();
+        MessageHeader header = message.getHeader();
+        header.setMagicNumber(networkParam.getPacketMagic());
+        header.setLength(message.getLength());
+        ByteBuf buffer;
+        try {
+            byte[] headerBytes = header.serialize();
+            buffer = PooledByteBufAllocator.DEFAULT.directBuffer(headerBytes.length);
+            buffer.writeBytes(headerBytes);
         } catch (Exception e) {
             Log.error(e);
             return new BroadcastResult(false, NetworkErrorCode.NET_MESSAGE_ERROR);
         }
+        int length = buffer.readableBytes() + message.getLength();
+        encodedBytes.add(buffer.readableBytes());
+        ChannelPromise promise = channel.newPromise();
+        promise.addListener(f -> {
+            if (f.isSuccess()) {
+                sentBytes.add(length);
+            }
+        });
+        try {
+            channel.eventLoop().execute(() -> {
+                channel.write(buffer);
+                channel.writeAndFlush(new DefaultFileRegion(message.getFile(), message.getOffset(), message.getLength()), promise);
+            });
+        } catch (Exception e) {
+            buffer.release();
+            return new BroadcastResult(false, NetworkErrorCode.NET_NODE_MISS_CHANNEL);
+        }
+        if (!asyn) {
+            try {
+                promise.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_FAIL);
+            }
+            if (!promise.isSuccess()) {
+                return new BroadcastResult(false, NetworkErrorCode.NET_BROADCAST_FAIL);
+            }
+        }
         return new BroadcastResult(true, KernelErrorCode.SUCCESS);
     }
+
+    /**
+     * 把消息序列化到池化的直接内存缓冲区，调用者负责释放
+     * Serialize the message into a pooled direct buffer, the caller releases it
+     */
+    private ByteBuf encode(BaseMessage message) throws IOException {
+        MessageHeader header = message.getHeader();
+        header.setMagicNumber(networkParam.getPacketMagic());
+
+        if (message instanceof RawBlockMessage) {
+            header.setLength(((RawBlockMessage) message).getLength());
+        } else {
+            BaseNulsData body = message.getMsgBody();
+            header.setLength(body.size());
+        }
+
+        byte[] bytes = message.serialize();
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length);
+        buffer.writeBytes(bytes);
+        encodedBytes.add(bytes.length);
+        return buffer;
+    }
+
+    /**
+     * 向节点写出共享缓冲区的一个副本，节点没有可用连接时返回null
+     * Write a duplicate of the shared buffer to the node, null if the node has no usable channel
+     */
+    private ChannelFuture send(ByteBuf buffer, Node node) {
+        Channel channel = node.getChannel();
+        if (!node.isAlive() || channel == null || !channel.isActive()) {
+            return null;
+        }
+        int length = buffer.readableBytes();
+        ChannelFuture future = channel.writeAndFlush(buffer.retainedDuplicate());
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                sentBytes.add(length);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 已序列化的消息字节数
+     * Bytes of the serialized messages
+     */
+    public long getEncodedBytes() {
+        return encodedBytes.sum();
+    }
+
+    /**
+     * 已成功写出到各节点的字节数，广播给多个节点时按节点累计
+     * Bytes written to the nodes successfully, a message broadcast to several nodes counts once per node
+     */
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
 }
@@ -25,6 +25,7 @@
 
 package io.nuls.network.netty.message.handler;
 
+import io.nuls.core.tools.str.StringUtils;
 import io.nuls.kernel.context.NulsContext;
 import io.nuls.network.constant.NetworkConstant;
 import io.nuls.network.constant.NetworkParam;
@@ -65,6 +66,10 @@ public class GetVersionMessageHandler implements BaseNetworkMeesageHandler {
         }
         node.setBestBlockHeight(body.getBestBlockHeight());
         node.setBestBlockHash(body.getBestBlockHash());
+        if (StringUtils.isNotBlank(body.getVersion())) {
+            node.setRemoteVersion(body.getVersion());
+        }
+        node.setServices(body.getServices());
 
         NetworkMessageBody myVersionBody = new NetworkMessageBody(NetworkConstant.HANDSHAKE_CLIENT_TYPE, networkParam.getPort(),
                 NulsContext.getInstance().getBestHeight(), NulsContext.getInstance().getBestBlock().getHeader().getHash());
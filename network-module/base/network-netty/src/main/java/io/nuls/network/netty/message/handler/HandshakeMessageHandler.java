@@ -58,6 +58,7 @@ public class HandshakeMessageHandler implements BaseNetworkMeesageHandler {
 
         node.setExternalIp(body.getNodeIp());
         node.setRemoteVersion(body.getVersion());
+        node.setServices(body.getServices());
         node.setConnectStatus(NodeConnectStatusEnum.AVAILABLE);
 
         return null;
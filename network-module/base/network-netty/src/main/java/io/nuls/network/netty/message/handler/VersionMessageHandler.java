@@ -25,6 +25,7 @@
 
 package io.nuls.network.netty.message.handler;
 
+import io.nuls.core.tools.str.StringUtils;
 import io.nuls.kernel.func.TimeService;
 import io.nuls.network.model.NetworkEventResult;
 import io.nuls.network.model.Node;
@@ -61,6 +62,10 @@ public class VersionMessageHandler implements BaseNetworkMeesageHandler {
         }
         node.setBestBlockHeight(body.getBestBlockHeight());
         node.setBestBlockHash(body.getBestBlockHash());
+        if (StringUtils.isNotBlank(body.getVersion())) {
+            node.setRemoteVersion(body.getVersion());
+        }
+        node.setServices(body.getServices());
         node.setTimeOffset((TimeService.currentTimeMillis() - node.getLastTime()) / 2);
         return null;
     }
@@ -92,6 +92,18 @@ public class NetworkServiceImpl implements NetworkService {
         return broadcastHandler.broadcastToAllNode(baseMessage, excludeNode, asyn,percent);
     }
 
+    @Override
+    public BroadcastResult sendToAllNodeExcept(BaseNulsData nulsData, Collection<Node> excludeNodes, boolean asyn, int percent) {
+        BaseMessage baseMessage = (BaseMessage) nulsData;
+        return broadcastHandler.broadcastToAllNodeExcept(baseMessage, excludeNodes, asyn, percent);
+    }
+
+    @Override
+    public BroadcastResult sendToNodes(BaseNulsData nulsData, Collection<Node> nodes, boolean asyn) {
+        BaseMessage baseMessage = (BaseMessage) nulsData;
+        return broadcastHandler.broadcastToNodes(baseMessage, nodes, asyn);
+    }
+
     @Override
     public BroadcastResult sendToNode(BaseNulsData nulsData, Node node, boolean asyn) {
         BaseMessage baseMessage = (BaseMessage) nulsData;
@@ -34,6 +34,8 @@ import io.nuls.kernel.utils.NulsByteBuffer;
 import io.nuls.kernel.utils.NulsOutputStreamBuffer;
 import io.nuls.kernel.utils.SerializeUtils;
 import io.nuls.kernel.utils.VarInt;
+import io.nuls.network.constant.NetworkConstant;
+import io.nuls.network.constant.NetworkParam;
 import io.protostuff.Tag;
 
 import java.io.IOException;
@@ -54,8 +56,15 @@ public class NetworkMessageBody extends BaseNulsData {
 
     private String version;
 
+    /**
+     * 服务标识，为兼容旧节点的解析，附加在version字段中传输
+     * Service flags, carried inside the version field so older nodes still parse the body
+     */
+    private long services;
+
     public NetworkMessageBody() {
         this.version = NulsConfig.VERSION;
+        this.services = NetworkParam.getInstance().getLocalServices();
     }
 
     public NetworkMessageBody(int handshakeType, int severPort, long bestBlockHeight, NulsDigestData bestBlockHash) {
@@ -65,6 +74,7 @@ public class NetworkMessageBody extends BaseNulsData {
         this.bestBlockHash = bestBlockHash;
         this.networkTime = TimeService.currentTimeMillis();
         this.version = NulsConfig.VERSION;
+        this.services = NetworkParam.getInstance().getLocalServices();
     }
 
     public NetworkMessageBody(int handshakeType, int severPort, long bestBlockHeight, NulsDigestData bestBlockHash, String ip) {
@@ -81,7 +91,7 @@ public class NetworkMessageBody extends BaseNulsData {
         s += bestBlockHash.size();
         s += SerializeUtils.sizeOfUint48(); // networkTime
         s += SerializeUtils.sizeOfString(nodeIp);
-        s += SerializeUtils.sizeOfString(version);
+        s += SerializeUtils.sizeOfString(getVersionWithServices());
         return s;
     }
 
@@ -96,7 +106,7 @@ public class NetworkMessageBody extends BaseNulsData {
         stream.write(bestBlockHash.serialize());
         stream.writeUint48(networkTime);
         stream.writeString(nodeIp);
-        stream.writeString(version);
+        stream.writeString(getVersionWithServices());
     }
 
     @Override
@@ -107,7 +117,32 @@ public class NetworkMessageBody extends BaseNulsData {
         bestBlockHash = buffer.readHash();
         networkTime = buffer.readUint48();
         nodeIp = buffer.readString();
-        version = buffer.readString();
+        parseVersionWithServices(buffer.readString());
+    }
+
+    private String getVersionWithServices() {
+        if (services == 0L || null == version) {
+            return version;
+        }
+        return version + NetworkConstant.SERVICES_SEPARATOR + Long.toHexString(services);
+    }
+
+    private void parseVersionWithServices(String value) {
+        version = value;
+        services = 0L;
+        if (null == value) {
+            return;
+        }
+        int index = value.lastIndexOf(NetworkConstant.SERVICES_SEPARATOR);
+        if (index < 0) {
+            return;
+        }
+        version = value.substring(0, index);
+        try {
+            services = Long.parseUnsignedLong(value.substring(index + 1), 16);
+        } catch (NumberFormatException e) {
+            services = 0L;
+        }
     }
 
     public int getHandshakeType() {
@@ -178,4 +213,12 @@ public class NetworkMessageBody extends BaseNulsData {
     public void setVersion(String version) {
         this.version = version;
     }
+
+    public long getServices() {
+        return services;
+    }
+
+    public void setServices(long services) {
+        this.services = services;
+    }
 }
@@ -59,6 +59,14 @@ public interface NetworkConstant {
     int HANDSHAKE_SEVER_TYPE = 2;
     int HANDSHAKE_CLIENT_TYPE = 1;
 
+    /**
+     * 节点服务标识，附加在握手及VersionMessage的版本号之后发送，旧节点只把它当作版本号的一部分保存
+     * Node service flags, appended to the version sent in the handshake and VersionMessage.
+     * Older nodes only keep them as part of the version string
+     */
+    String SERVICES_SEPARATOR = "#";
+    long SERVICE_COMPACT_BLOCK = 1L;
+
     //network message type
     short NETWORK_GET_VERSION = 1;
     short NETWORK_VERSION = 2;
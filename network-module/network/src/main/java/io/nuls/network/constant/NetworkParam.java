@@ -53,6 +53,12 @@ public class NetworkParam {
 
     private List<String> seedIpList;
 
+    /**
+     * 本节点支持的服务标识
+     * Service flags supported by this node
+     */
+    private volatile long localServices;
+
     public int getPort() {
         return port;
     }
@@ -101,4 +107,12 @@ public class NetworkParam {
         this.seedIpList = seedIpList;
     }
 
+    public long getLocalServices() {
+        return localServices;
+    }
+
+    public synchronized void addLocalServices(long services) {
+        this.localServices |= services;
+    }
+
 }
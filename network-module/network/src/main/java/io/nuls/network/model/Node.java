@@ -97,6 +97,12 @@ public class Node extends BaseNulsData {
 
     private String remoteVersion;
 
+    /**
+     * 对方在握手及VersionMessage中声明的服务标识
+     * Service flags the peer declared in the handshake and VersionMessage
+     */
+    private long services;
+
     @Override
     public int size() {
         int s = 0;
@@ -341,4 +347,16 @@ public class Node extends BaseNulsData {
     public void setRemoteVersion(String remoteVersion) {
         this.remoteVersion = remoteVersion;
     }
+
+    public long getServices() {
+        return services;
+    }
+
+    public void setServices(long services) {
+        this.services = services;
+    }
+
+    public boolean hasServices(long services) {
+        return (this.services & services) == services;
+    }
 }
@@ -113,6 +113,28 @@ public interface NetworkService {
      */
     BroadcastResult sendToAllNode(BaseNulsData event, Node excludeNode, boolean asyn, int percent);
 
+    /**
+     * 发送消息给排除列表之外的所有节点，消息只序列化一次
+     * Send message to all connected nodes except the excluded ones, the message is serialized only once
+     *
+     * @param event        event
+     * @param excludeNodes nodes that do not need to be sent to
+     * @param asyn         Whether or not asynchronous
+     * @return BroadcastResult
+     */
+    BroadcastResult sendToAllNodeExcept(BaseNulsData event, Collection<Node> excludeNodes, boolean asyn, int percent);
+
+    /**
+     * 发送消息给指定的一组节点，消息只序列化一次
+     * Send message to the given nodes, the message is serialized only once
+     *
+     * @param event event
+     * @param nodes nodes to send to
+     * @param asyn  Whether or not asynchronous
+     * @return BroadcastResult
+     */
+    BroadcastResult sendToNodes(BaseNulsData event, Collection<Node> nodes, boolean asyn);
+
     /**
      * send message to node
      *
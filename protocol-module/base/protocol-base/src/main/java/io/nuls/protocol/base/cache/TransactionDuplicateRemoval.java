@@ -26,12 +26,8 @@
 package io.nuls.protocol.base.cache;
 
 import io.nuls.kernel.model.NulsDigestData;
-import io.nuls.kernel.thread.manager.TaskManager;
 import io.nuls.protocol.base.utils.filter.InventoryFilter;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * 用于接收交易去重
  *
@@ -40,7 +36,23 @@ import java.util.Set;
  */
 public class TransactionDuplicateRemoval {
 
-    private static InventoryFilter FILTER = new InventoryFilter( 1000000);
+    public static final int DEFAULT_ELEMENTS = 1000000;
+
+    public static final int DEFAULT_ROTATE_MINUTES = 60;
+
+    private static volatile InventoryFilter FILTER = new InventoryFilter(DEFAULT_ELEMENTS, InventoryFilter.DEFAULT_FPP, DEFAULT_ROTATE_MINUTES * 60 * 1000L);
+
+    /**
+     * 按配置重新创建过滤器，模块初始化时调用
+     * Recreate the filter with the configured parameters, called when the module initializes
+     *
+     * @param elements      每一代的容量/capacity of one generation
+     * @param fpp           误判率/false positive probability
+     * @param rotateMinutes 每一代的最长存活时间(分钟)/longest lifetime of a generation in minutes
+     */
+    public static void init(int elements, double fpp, int rotateMinutes) {
+        FILTER = new InventoryFilter(elements, fpp, rotateMinutes * 60 * 1000L);
+    }
 
     public static boolean mightContain(NulsDigestData hash) {
         return FILTER.contains(hash.getDigestBytes());
@@ -49,4 +61,8 @@ public class TransactionDuplicateRemoval {
     public static void insert(NulsDigestData hash) {
         FILTER.insert(hash.getDigestBytes());
     }
+
+    public static InventoryFilter getFilter() {
+        return FILTER;
+    }
 }
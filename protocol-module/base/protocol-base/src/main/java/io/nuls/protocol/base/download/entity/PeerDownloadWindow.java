@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.base.download.entity;
+
+import io.nuls.network.model.Node;
+
+/**
+ * 单个节点的下载窗口，根据节点实际的响应速度调整每次请求的区块数量
+ * Download window of a single peer, the number of blocks per request follows the measured throughput of the peer
+ */
+public class PeerDownloadWindow {
+
+    /**
+     * 初始窗口大小
+     * Initial window size
+     */
+    public static final int INITIAL_WINDOW = 10;
+
+    public static final int MIN_WINDOW = 2;
+
+    public static final int MAX_WINDOW = 200;
+
+    /**
+     * 期望一次请求完成的时长，窗口大小 = 吞吐量 * 该时长
+     * Expected duration of one request, window = throughput * duration
+     */
+    public static final long TARGET_REQUEST_MILLIS = 2000L;
+
+    /**
+     * 请求超时时间，超时后窗口减半
+     * A request not finished within this time is abandoned and the window is halved
+     */
+    public static final long REQUEST_TIMEOUT_MILLIS = 10000L;
+
+    /**
+     * 吞吐量的指数平滑系数
+     * Smoothing factor of the throughput moving average
+     */
+    private static final double ALPHA = 0.3d;
+
+    private final Node node;
+
+    private int window = INITIAL_WINDOW;
+
+    /**
+     * 区块/毫秒
+     * blocks per millisecond
+     */
+    private double throughput;
+
+    private boolean busy;
+
+    private long requestStart;
+
+    private long requestEnd;
+
+    private long requestTime;
+
+    private int received;
+
+    public PeerDownloadWindow(Node node) {
+        this.node = node;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public synchronized int getWindow() {
+        return window;
+    }
+
+    public synchronized double getThroughput() {
+        return throughput;
+    }
+
+    public synchronized boolean isIdle() {
+        return !busy;
+    }
+
+    public synchronized void requested(long start, int size, long now) {
+        this.busy = true;
+        this.requestStart = start;
+        this.requestEnd = start + size - 1;
+        this.requestTime = now;
+        this.received = 0;
+    }
+
+    /**
+     * 收到该节点返回的区块，请求全部完成时更新吞吐量和窗口大小
+     * A block arrived from this peer, the throughput and the window are updated once the request is complete
+     *
+     * @return 请求是否已完成 / whether the outstanding request is complete
+     */
+    public synchronized boolean received(long height, long now) {
+        if (!busy || height < requestStart || height > requestEnd) {
+            return false;
+        }
+        received++;
+        if (received < requestEnd - requestStart + 1) {
+            return false;
+        }
+        long elapsed = Math.max(1L, now - requestTime);
+        double rate = (double) received / elapsed;
+        throughput = throughput == 0 ? rate : ALPHA * rate + (1 - ALPHA) * throughput;
+        long target = Math.round(throughput * TARGET_REQUEST_MILLIS);
+        window = (int) Math.max(MIN_WINDOW, Math.min(MAX_WINDOW, target));
+        busy = false;
+        return true;
+    }
+
+    /**
+     * 检查请求是否超时，超时则释放该节点并把窗口减半
+     * Release the peer and halve its window when the outstanding request timed out
+     *
+     * @return 是否超时 / whether the request timed out
+     */
+    public synchronized boolean checkTimeout(long now) {
+        if (!busy || now - requestTime < REQUEST_TIMEOUT_MILLIS) {
+            return false;
+        }
+        failed();
+        return true;
+    }
+
+    /**
+     * 请求失败，释放该节点并把窗口减半
+     * The request failed, release the peer and halve its window
+     */
+    public synchronized void failed() {
+        busy = false;
+        window = Math.max(MIN_WINDOW, window / 2);
+        throughput = throughput / 2;
+    }
+}
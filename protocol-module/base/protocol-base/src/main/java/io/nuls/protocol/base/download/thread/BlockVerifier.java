@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.base.download.thread;
+
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.thread.manager.TaskManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * 下载区块的并行验证：按高度保存验证结果，验证失败的区块结果为null
+ * 等待验证的区块数量有上限，达到上限时提交区块的线程阻塞，直到有区块验证完成
+ * Parallel verification of downloaded blocks, the results are kept by height and a failed block yields null.
+ * The number of blocks waiting for verification is bounded, a submitting thread blocks at the bound until a
+ * verification finishes.
+ */
+public class BlockVerifier {
+
+    private final Map<Long, Future<Block>> map = new ConcurrentHashMap<>();
+
+    private final Predicate<Block> check;
+
+    private final ExecutorService executor;
+
+    /**
+     * 正在验证和排队等待验证的区块共用的许可，由它限制排队数量；线程池的队列不设上限，
+     * 因为许可在任务结束时归还，早于工作线程从队列取出下一个任务，有上限的队列会拒绝刚拿到许可的提交
+     * Permits shared by running and queued verifications, they bound the queue. The pool queue itself is unbounded:
+     * a permit is returned when a task finishes, before the worker takes the next task, so a bounded pool queue could
+     * reject a submission that just got its permit.
+     */
+    private final Semaphore slots;
+
+    public BlockVerifier(int threadCount, int queueSize, NulsThreadFactory factory, Predicate<Block> check) {
+        this.check = check;
+        this.executor = TaskManager.createThreadPool(threadCount, 0, factory);
+        this.slots = new Semaphore(threadCount + queueSize);
+    }
+
+    /**
+     * 提交一个区块验证，该高度已经有区块时返回false
+     * Submits a block for verification, returns false if the height has a block already
+     *
+     * @throws InterruptedException 等待空位时被中断 / interrupted while waiting for a free slot
+     */
+    public boolean submit(long height, Block block) throws InterruptedException {
+        if (map.containsKey(height)) {
+            return false;
+        }
+        VerifyTask task = new VerifyTask(block);
+        slots.acquire();
+        if (null != map.putIfAbsent(height, task)) {
+            slots.release();
+            return false;
+        }
+        executor.execute(task);
+        return true;
+    }
+
+    public Future<Block> get(long height) {
+        return map.get(height);
+    }
+
+    public boolean contains(long height) {
+        return map.containsKey(height);
+    }
+
+    public void remove(long height) {
+        map.remove(height);
+    }
+
+    /**
+     * 移除该高度的验证结果，验证尚未完成的取消验证
+     * Removes the result of the height, a verification still pending is cancelled
+     */
+    public void remove(long height, Future<Block> future) {
+        if (map.remove(height, future)) {
+            future.cancel(true);
+        }
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * 任务完成或被取消时归还许可，取消时尚未开始的任务也只归还一次
+     * Returns the permit when the task completes or is cancelled, a task cancelled before it started returns it once
+     * as well
+     */
+    private class VerifyTask extends FutureTask<Block> {
+
+        VerifyTask(Block block) {
+            super(() -> check.test(block) ? block : null);
+        }
+
+        @Override
+        protected void done() {
+            slots.release();
+        }
+    }
+}
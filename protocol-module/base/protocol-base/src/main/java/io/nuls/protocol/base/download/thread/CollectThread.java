@@ -30,32 +30,68 @@ import io.nuls.core.tools.log.Log;
 import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.model.Block;
 import io.nuls.kernel.model.Result;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.script.SignatureUtil;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import io.nuls.kernel.validate.ValidateResult;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.constant.ProtocolConstant;
 
-import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * 区块同步流水线：收到的区块立即在线程池中并行验证区块头、梅克尔根和交易签名，
+ * 本线程按高度顺序等待验证结果并交给共识模块处理
+ * Block sync pipeline: received blocks are checked (header, merkle root, tx signatures) in parallel on a pool
+ * as soon as they arrive, this thread takes the results in height order and hands them to consensus
+ *
  * @author Niels
  */
 public class CollectThread implements Runnable {
 
+    /**
+     * 等待某个高度的区块超过该时长后，向其他节点重新请求
+     * A height missing for longer than this is requested again from another peer
+     */
+    private static final long RETRY_WAIT_MILLIS = 5000L;
+
+    /**
+     * 单个区块验证的最长等待时间，超时后放弃该区块并重新请求
+     * Longest wait for the verification of one block, the block is dropped and requested again after it
+     */
+    private static final long VERIFY_TIMEOUT_MILLIS = 30000L;
+
+    /**
+     * 排队等待验证的区块上限，达到上限时接收区块的线程阻塞
+     * Bound of the blocks queued for verification, the thread receiving blocks blocks at the bound
+     */
+    private static final int VERIFY_QUEUE_SIZE = 200;
+
     private static final CollectThread INSTANCE = new CollectThread();
     private CompletableFuture<Boolean> future;
     private long endHeight;
-    private long startHeight;
-    private Map<Long, Block> map = new ConcurrentHashMap<>();
+    private volatile long startHeight;
     private RequestThread requestThread;
     private Lock lock = new ReentrantLock();
+    private Lock arriveLock = new ReentrantLock();
+    private Condition arrived = arriveLock.newCondition();
+    private BlockVerifier verifier = new BlockVerifier(Runtime.getRuntime().availableProcessors(), VERIFY_QUEUE_SIZE, new NulsThreadFactory(ProtocolConstant.MODULE_ID_PROTOCOL, "download-verify"), this::verify);
     private ConsensusService consensusService = NulsContext.getServiceBean(ConsensusService.class);
-    private boolean running = false;
+    private volatile boolean running = false;
 
     public void setConfiguration(long startHeight, long endHeight, RequestThread requestThread, CompletableFuture<Boolean> future) {
         if (this.isRunning()) {
             this.running = false;
             this.requestThread.stop();
+            this.signalArrived();
         }
         this.lock.lock();
         try {
@@ -63,7 +99,7 @@ public class CollectThread implements Runnable {
             this.setEndHeight(endHeight);
             this.setRequestThread(requestThread);
             this.future = future;
-            this.map.clear();
+            this.verifier.clear();
         } finally {
             this.lock.unlock();
         }
@@ -97,6 +133,9 @@ public class CollectThread implements Runnable {
                     break;
                 }
                 pushBlock();
+            } catch (InterruptedException e) {
+                Log.error(e);
+                break;
             } catch (Exception e) {
                 Log.error(e);
             }
@@ -107,50 +146,66 @@ public class CollectThread implements Runnable {
     }
 
     private boolean pushBlock() throws InterruptedException {
-
-        Block block = map.remove(startHeight);
-        if (null == block) {
-            if (startHeight - NulsContext.getInstance().getBestHeight() > 1000) {
-                Thread.sleep(10L);
-                return false;
-            }
-            block = waitBlock(startHeight);
+        long height = startHeight;
+        Future<Block> verifyFuture = waitBlock(height);
+        if (null == verifyFuture) {
+            return false;
+        }
+        Block block;
+        try {
+            block = verifyFuture.get(VERIFY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException e) {
+            Log.error(e);
+            block = null;
+        } catch (TimeoutException e) {
+            Log.warn("downloaded block verify timeout, height:{}", height);
+            block = null;
         }
         if (null == block) {
+            Log.warn("downloaded block verify failed, height:{}, download again.", height);
+            verifier.remove(height, verifyFuture);
+            this.requestThread.retryDownload(height, 1);
             return false;
         }
-        Result result = consensusService.addBlock(block);
+        // 下载队列已满时会阻塞等待，失败后重新提交同一个区块
+        // Blocks while the download queue is full, the same block is handed over again on failure
+        Result result = consensusService.addBlock(block, true);
         if (result.isSuccess()) {
-            startHeight++;
+            verifier.remove(height);
+            startHeight = height + 1;
+            this.requestThread.collected(startHeight);
             return true;
         }
         return false;
     }
 
-    private Block waitBlock(long height) throws InterruptedException {
-        Block block = null;
-        long totalWait = 0;
-        while (null == block && height == startHeight) {
-            Thread.sleep(10L);
-            totalWait += 10;
-            if (totalWait > 5000) {
-                boolean b = this.requestThread.retryDownload(height, getRequestSize());
-                if (!b) {
-                    break;
+    private Future<Block> waitBlock(long height) throws InterruptedException {
+        Future<Block> verifyFuture = verifier.get(height);
+        if (null != verifyFuture) {
+            return verifyFuture;
+        }
+        arriveLock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(RETRY_WAIT_MILLIS);
+            while (running && null == (verifyFuture = verifier.get(height))) {
+                if (remaining <= 0L) {
+                    boolean b = this.requestThread.retryDownload(height, getRequestSize());
+                    if (!b) {
+                        break;
+                    }
+                    remaining = TimeUnit.MILLISECONDS.toNanos(RETRY_WAIT_MILLIS);
                 }
-//                Log.info("Height:" + height + ",累计等待时间ms：：：：：" + totalWait+" , map size:"+map.size());
-                totalWait = 0;
+                remaining = arrived.awaitNanos(remaining);
             }
-            block = map.remove(startHeight);
+        } finally {
+            arriveLock.unlock();
         }
-//        Log.info("Height:" + height + ",累计等待时间ms：：：：：" + totalWait+" , map size:"+map.size());
-        return block;
+        return verifyFuture;
     }
 
     private int getRequestSize() {
         for (int i = 1; i <= 10; i++) {
-            Block block = map.get(startHeight + i);
-            if (null != block) {
+            if (verifier.contains(startHeight + i)) {
                 return i;
             }
         }
@@ -158,15 +213,61 @@ public class CollectThread implements Runnable {
     }
 
     public boolean addBlock(Block block) {
+        return addBlock(block, null);
+    }
+
+    public boolean addBlock(Block block, Node node) {
         long height = block.getHeader().getHeight();
         if (height < startHeight || height > endHeight) {
             return false;
         }
-//        Log.info("added block:" + height);
-        map.put(height, block);
+        if (null != requestThread) {
+            requestThread.received(node, height);
+        }
+        try {
+            if (verifier.submit(height, block)) {
+                signalArrived();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
         return true;
     }
 
+    /**
+     * 验证区块中与链状态无关的部分：区块头、梅克尔根、打包签名和交易签名
+     * Verify the parts of a block that do not depend on chain state: header, merkle root, block signature and tx signatures
+     */
+    private boolean verify(Block block) {
+        try {
+            ValidateResult result = block.verify();
+            if (result.isFailed()) {
+                Log.warn("downloaded block verify failed:{}", result.getMsg());
+                return false;
+            }
+            for (Transaction tx : block.getTxs()) {
+                if (!SignatureUtil.validateTransactionSignture(tx)) {
+                    return false;
+                }
+                tx.setSignatureVerified(true);
+            }
+            return true;
+        } catch (Exception e) {
+            Log.error(e);
+            return false;
+        }
+    }
+
+    private void signalArrived() {
+        arriveLock.lock();
+        try {
+            arrived.signalAll();
+        } finally {
+            arriveLock.unlock();
+        }
+    }
+
     protected void setEndHeight(long endHeight) {
         this.endHeight = endHeight;
     }
@@ -30,37 +30,76 @@ import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.model.Result;
 import io.nuls.message.bus.service.MessageBusService;
 import io.nuls.network.model.Node;
+import io.nuls.protocol.base.download.entity.PeerDownloadWindow;
 import io.nuls.protocol.base.download.utils.NodeComparator;
 import io.nuls.protocol.message.GetBlocksByHeightMessage;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * 向多个节点并行请求区块，每个节点的请求窗口根据其实际吞吐量自适应调整
+ * Requests blocks from several peers at once, the request window of every peer adapts to its measured throughput
+ *
  * @author Niels
  */
 public class RequestThread implements Runnable {
 
-    private List<Node> nodeList;
-    private long startHeight;
+    /**
+     * 参与下载的最大节点数
+     * The most peers used for one download
+     */
+    private static final int MAX_NODE_COUNT = 10;
+
+    /**
+     * 已请求但尚未交给共识模块的区块数上限
+     * The most blocks requested ahead of the collected height
+     */
+    private static final int MAX_AHEAD_COUNT = 500;
+
+    /**
+     * 无事可做时的最长等待时间，用于检查超时和断开的节点
+     * The longest idle wait, timeouts and disconnected peers are checked after it
+     */
+    private static final long IDLE_WAIT_MILLIS = 1000L;
+
+    private List<PeerDownloadWindow> peerList = new CopyOnWriteArrayList<>();
+    private Map<String, PeerDownloadWindow> peerMap = new ConcurrentHashMap<>();
+    private volatile long startHeight;
     private long endHeight;
+    private volatile long collectedHeight;
     private int randomIndex = 1;
 
     private MessageBusService service = NulsContext.getServiceBean(MessageBusService.class);
 
-    private static final int count = 10;
-    private boolean running = true;
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private volatile boolean running = true;
     private boolean success = false;
 
     public RequestThread(List<Node> nodeList, long startHeight, long endHeight) {
         this.startHeight = startHeight;
+        this.collectedHeight = startHeight;
         this.endHeight = endHeight;
-        int nodeCount = 5;
-        if (nodeList.size() <= nodeCount) {
-            this.nodeList = nodeList;
-        } else {
-            Collections.sort(nodeList, new NodeComparator());
-            this.nodeList = nodeList.subList(0, nodeCount);
+        List<Node> nodes = nodeList;
+        if (nodeList.size() > MAX_NODE_COUNT) {
+            nodes = new ArrayList<>(nodeList);
+            Collections.sort(nodes, new NodeComparator());
+            nodes = nodes.subList(0, MAX_NODE_COUNT);
+        }
+        for (Node node : nodes) {
+            PeerDownloadWindow peer = new PeerDownloadWindow(node);
+            peerList.add(peer);
+            peerMap.put(node.getId(), peer);
         }
     }
 
@@ -75,21 +114,21 @@ public class RequestThread implements Runnable {
                     this.success = true;
                     break;
                 }
-                if (this.nodeList == null || this.nodeList.isEmpty()) {
+                removeUnavailablePeers();
+                if (this.peerList.isEmpty()) {
                     break;
                 }
-                if (startHeight - NulsContext.getInstance().getBestHeight() < 1000) {
-                    downloadRound();
-                    continue;
-                } else {
-                    for (int i = nodeList.size() - 1; i >= 0; i--) {
-                        Node node = nodeList.get(i);
-                        if (!node.isHandShake()) {
-                            nodeList.remove(i);
-                        }
+                lock.lock();
+                try {
+                    if (!downloadRound()) {
+                        changed.await(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
                     }
+                } finally {
+                    lock.unlock();
                 }
-                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Log.error(e);
+                break;
             } catch (Exception e) {
                 Log.error(e);
             }
@@ -103,26 +142,53 @@ public class RequestThread implements Runnable {
         this.randomIndex = 1;
     }
 
-    private void downloadRound() {
-        for (int i = nodeList.size() - 1; i >= 0; i--) {
-            Node node = nodeList.get(i);
-            if (!node.isHandShake()) {
-                nodeList.remove(i);
+    private void removeUnavailablePeers() {
+        long now = System.currentTimeMillis();
+        for (PeerDownloadWindow peer : peerList) {
+            if (!peer.getNode().isHandShake()) {
+                peerList.remove(peer);
+                peerMap.remove(peer.getNode().getId());
+                continue;
+            }
+            if (peer.checkTimeout(now)) {
+                Log.info("download request timeout from {}, window reduced to {}", peer.getNode().getId(), peer.getWindow());
+            }
+        }
+    }
+
+    /**
+     * 给每个空闲节点发送一次请求，请求大小为该节点的当前窗口
+     * Send one request to every idle peer, sized by the current window of the peer
+     *
+     * @return 是否发送了请求 / whether any request was sent
+     */
+    private boolean downloadRound() {
+        boolean sent = false;
+        for (PeerDownloadWindow peer : peerList) {
+            if (!peer.isIdle()) {
                 continue;
             }
-            int size = count;
+            long ahead = startHeight - collectedHeight;
+            if (ahead >= MAX_AHEAD_COUNT) {
+                break;
+            }
+            int size = (int) Math.min(peer.getWindow(), MAX_AHEAD_COUNT - ahead);
             if ((startHeight + size) > endHeight) {
                 size = (int) (endHeight - startHeight + 1);
             }
             if (size <= 0) {
                 break;
             }
-//            Log.info("request:{}-{} ,from {}.", startHeight, size, node.getId());
-            boolean result = request(node, startHeight, size);
+            peer.requested(startHeight, size, System.currentTimeMillis());
+            boolean result = request(peer.getNode(), startHeight, size);
             if (result) {
                 startHeight += size;
+                sent = true;
+            } else {
+                peer.failed();
             }
         }
+        return sent;
     }
 
     private boolean request(Node node, long start, int size) {
@@ -132,14 +198,50 @@ public class RequestThread implements Runnable {
     }
 
     public boolean retryDownload(long start, int size) {
-        if (nodeList.isEmpty()) {
+        List<PeerDownloadWindow> peers = peerList;
+        if (peers.isEmpty()) {
             return false;
         }
-        Node node = nodeList.get(randomIndex++ % nodeList.size());
+        Node node = peers.get(randomIndex++ % peers.size()).getNode();
         request(node, start, size);
         return true;
     }
 
+    /**
+     * 收到某节点返回的区块
+     * A block arrived from the given peer
+     */
+    public void received(Node node, long height) {
+        if (null == node) {
+            return;
+        }
+        PeerDownloadWindow peer = peerMap.get(node.getId());
+        if (null != peer && peer.received(height, System.currentTimeMillis())) {
+            signal();
+        }
+    }
+
+    /**
+     * 区块已按顺序交给共识模块，释放请求额度
+     * Blocks below the given height were handed to consensus, which frees room for new requests
+     */
+    public void collected(long height) {
+        long old = collectedHeight;
+        this.collectedHeight = height;
+        if (startHeight - old >= MAX_AHEAD_COUNT) {
+            signal();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public boolean isStoped() {
         return !this.running;
     }
@@ -154,5 +256,6 @@ public class RequestThread implements Runnable {
 
     public void stop() {
         this.running = false;
+        signal();
     }
 }
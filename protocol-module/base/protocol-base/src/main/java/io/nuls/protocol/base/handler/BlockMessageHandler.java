@@ -46,7 +46,7 @@ public class BlockMessageHandler extends AbstractMessageHandler<BlockMessage> {
         }
 //        Log.info("recieved:::::" + block.getHeader().getHeight() + ":::::" + fromNode.getId());
 
-        boolean result = CollectThread.getInstance().addBlock(block);
+        boolean result = CollectThread.getInstance().addBlock(block, fromNode);
         if (result) {
             return;
         }
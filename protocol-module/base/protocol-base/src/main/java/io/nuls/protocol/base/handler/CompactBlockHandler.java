@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.protocol.base.handler;
+
+import io.nuls.consensus.service.ConsensusService;
+import io.nuls.core.tools.log.BlockLog;
+import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.func.TimeService;
+import io.nuls.kernel.model.BlockHeader;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.message.bus.handler.AbstractMessageHandler;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.constant.ProtocolConstant;
+import io.nuls.protocol.message.CompactBlockMessage;
+import io.nuls.protocol.message.GetSmallBlockMessage;
+import io.nuls.protocol.model.CompactBlock;
+import io.nuls.protocol.model.SmallBlock;
+import io.nuls.protocol.service.BlockService;
+import io.nuls.protocol.utils.CompactBlockUtil;
+import io.nuls.protocol.utils.SmallBlockDuplicateRemoval;
+
+import java.util.Map;
+
+/**
+ * 接收紧凑区块，用内存池的短交易ID索引还原为SmallBlock后按SmallBlock处理；
+ * 有交易缺失或短ID冲突时，向发送方请求完整的SmallBlock
+ * Receives a compact block, rebuilds the SmallBlock from the short id index of the memory pool and processes it
+ * like a SmallBlock. Missing transactions or colliding short ids fall back to requesting the full SmallBlock.
+ */
+public class CompactBlockHandler extends AbstractMessageHandler<CompactBlockMessage> {
+
+    private ConsensusService consensusService = NulsContext.getServiceBean(ConsensusService.class);
+    private BlockService blockService = NulsContext.getServiceBean(BlockService.class);
+    private SmallBlockHandler smallBlockHandler = new SmallBlockHandler();
+
+    @Override
+    public void onMessage(CompactBlockMessage message, Node fromNode) {
+        CompactBlock compactBlock = message.getMsgBody();
+        if (null == compactBlock || null == compactBlock.getHeader()) {
+            Log.warn("recieved a null compactBlock!");
+            return;
+        }
+        BlockHeader header = compactBlock.getHeader();
+        if (header.getTime() > (TimeService.currentTimeMillis() + ProtocolConstant.BLOCK_TIME_INTERVAL_SECOND * 1000)) {
+            return;
+        }
+        NulsDigestData blockHash = header.getHash();
+        if (SmallBlockDuplicateRemoval.isProcessed(blockHash)) {
+            return;
+        }
+        if (null != blockService.getBlockHeader(blockHash).getData()) {
+            return;
+        }
+        // 建立短交易ID索引需要对整个内存池计算哈希，先验证区块头的签名及出块人，避免伪造的区块头消耗CPU
+        // building the short id index hashes the whole memory pool, so the header signature and producer
+        // are verified first and forged headers cost no more than a signature check
+        if (!smallBlockHandler.verifyHeader(header, fromNode)) {
+            return;
+        }
+        Map<Long, Transaction> shortIdIndex = consensusService.getMemoryTxShortIdIndex(blockHash);
+        SmallBlock smallBlock = CompactBlockUtil.toSmallBlock(compactBlock, shortIdIndex);
+        if (null != smallBlock) {
+            smallBlockHandler.processVerified(smallBlock, fromNode);
+            return;
+        }
+        BlockLog.debug("compact block " + blockHash + " can not be rebuilt, request the small block from " + fromNode.getId());
+        GetSmallBlockMessage request = new GetSmallBlockMessage();
+        request.setMsgBody(blockHash);
+        Result result = messageBusService.sendToNode(request, fromNode, true);
+        if (result.isFailed()) {
+            Log.warn("get small block failed, height:" + header.getHeight());
+        }
+    }
+}
@@ -33,7 +33,9 @@ import io.nuls.network.model.Node;
 import io.nuls.protocol.model.SmallBlock;
 import io.nuls.protocol.utils.SmallBlockDuplicateRemoval;
 import io.nuls.protocol.message.ForwardSmallBlockMessage;
+import io.nuls.protocol.message.GetCompactBlockMessage;
 import io.nuls.protocol.message.GetSmallBlockMessage;
+import io.nuls.protocol.utils.CompactBlockUtil;
 
 /**
  * @author facjas
@@ -51,9 +53,16 @@ public class ForwardSmallBlockHandler extends AbstractMessageHandler<ForwardSmal
         if (!SmallBlockDuplicateRemoval.needDownloadSmallBlock(hash)) {
             return;
         }
-        GetSmallBlockMessage getSmallBlockMessage = new GetSmallBlockMessage();
-        getSmallBlockMessage.setMsgBody(hash);
-        Result result = messageBusService.sendToNode(getSmallBlockMessage, fromNode, true);
+        Result result;
+        if (CompactBlockUtil.isSupported(fromNode)) {
+            GetCompactBlockMessage getCompactBlockMessage = new GetCompactBlockMessage();
+            getCompactBlockMessage.setMsgBody(hash);
+            result = messageBusService.sendToNode(getCompactBlockMessage, fromNode, true);
+        } else {
+            GetSmallBlockMessage getSmallBlockMessage = new GetSmallBlockMessage();
+            getSmallBlockMessage.setMsgBody(hash);
+            result = messageBusService.sendToNode(getSmallBlockMessage, fromNode, true);
+        }
 
 //        if (result.isFailed()) {
 //            SmallBlockDuplicateRemoval.removeForward(hash);
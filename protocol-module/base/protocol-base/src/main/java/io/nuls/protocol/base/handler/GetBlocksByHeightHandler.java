@@ -26,8 +26,6 @@ package io.nuls.protocol.base.handler;
 
 import io.nuls.core.tools.log.Log;
 import io.nuls.kernel.context.NulsContext;
-import io.nuls.kernel.model.Block;
-import io.nuls.kernel.model.BlockHeader;
 import io.nuls.kernel.model.NulsDigestData;
 import io.nuls.kernel.model.Result;
 import io.nuls.message.bus.handler.AbstractMessageHandler;
@@ -39,6 +37,8 @@ import io.nuls.protocol.model.CompleteParam;
 import io.nuls.protocol.model.GetBlocksByHeightParam;
 import io.nuls.protocol.model.NotFound;
 import io.nuls.protocol.service.BlockService;
+import io.nuls.protocol.storage.po.BlockRawIndexPo;
+import io.nuls.protocol.storage.service.BlockRawStorageService;
 
 import java.io.IOException;
 
@@ -50,6 +50,7 @@ public class GetBlocksByHeightHandler extends AbstractMessageHandler<GetBlocksBy
     private static final int MAX_SIZE = 1000;
     private BlockService blockService = NulsContext.getServiceBean(BlockService.class);
     private MessageBusService messageBusService = NulsContext.getServiceBean(MessageBusService.class);
+    private BlockRawStorageService blockRawStorageService = NulsContext.getServiceBean(BlockRawStorageService.class);
 
     @Override
     public void onMessage(GetBlocksByHeightMessage message, Node fromNode) {
@@ -76,7 +77,7 @@ public class GetBlocksByHeightHandler extends AbstractMessageHandler<GetBlocksBy
         // react request
         messageBusService.sendToNode(new ReactMessage(requestHash), fromNode, true);
 
-        Block startBlock = blockService.getBlock(param.getStartHeight()).getData();
+        RawBlockMessage startBlock = getBlockMessage(param.getStartHeight());
         if (startBlock == null) {
             sendNotFound(requestHash, fromNode);
             return;
@@ -99,11 +100,14 @@ public class GetBlocksByHeightHandler extends AbstractMessageHandler<GetBlocksBy
 //                return;
 //            }
 //        }
-        Block block = startBlock;
-        sendBlock(block, fromNode);
+        sendBlock(startBlock, param.getStartHeight(), fromNode);
         for (long i = param.getStartHeight() + 1; i <= param.getEndHeight(); i++) {
-            block = blockService.getBlock(i).getData();
-            sendBlock(block, fromNode);
+            RawBlockMessage blockMessage = getBlockMessage(i);
+            if (blockMessage == null) {
+                sendNotFound(requestHash, fromNode);
+                return;
+            }
+            sendBlock(blockMessage, i, fromNode);
         }
 
         CompleteMessage completeMessage = new CompleteMessage();
@@ -121,12 +125,27 @@ public class GetBlocksByHeightHandler extends AbstractMessageHandler<GetBlocksBy
         }
     }
 
-    private void sendBlock(Block block, Node fromNode) {
-        BlockMessage blockMessage = new BlockMessage();
-        blockMessage.setMsgBody(block);
+    /**
+     * 区块直接以存储的原始字节发送，不再解析和重新序列化；原始区块存储中有记录时由网络层从段文件零拷贝发送
+     * Blocks are sent as their stored raw bytes without parsing and serializing again; when the raw block storage
+     * has the block the network layer sends it zero-copy from the segment file
+     */
+    private RawBlockMessage getBlockMessage(long height) {
+        BlockRawIndexPo index = blockRawStorageService.getBlockIndex(height);
+        if (index != null) {
+            return new RawBlockMessage(blockRawStorageService.getSegmentFile(index), index.getOffset(), index.getLength());
+        }
+        byte[] bytes = blockService.getBlockBytes(height).getData();
+        if (bytes == null) {
+            return null;
+        }
+        return new RawBlockMessage(bytes);
+    }
+
+    private void sendBlock(RawBlockMessage blockMessage, long height, Node fromNode) {
         Result result = this.messageBusService.sendToNode(blockMessage, fromNode, true);
         if (result.isFailed()) {
-            Log.warn("send block failed:" + fromNode.getId() + ",height:" + block.getHeader().getHeight());
+            Log.warn("send block failed:" + fromNode.getId() + ",height:" + height);
         }
     }
 }
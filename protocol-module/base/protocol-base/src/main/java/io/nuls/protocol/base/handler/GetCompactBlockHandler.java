@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.protocol.base.handler;
+
+import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Result;
+import io.nuls.message.bus.handler.AbstractMessageHandler;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.cache.TemporaryCacheManager;
+import io.nuls.protocol.message.CompactBlockMessage;
+import io.nuls.protocol.message.GetCompactBlockMessage;
+import io.nuls.protocol.message.SmallBlockMessage;
+import io.nuls.protocol.model.CompactBlock;
+import io.nuls.protocol.model.SmallBlock;
+import io.nuls.protocol.utils.CompactBlockUtil;
+
+/**
+ * 回复紧凑区块，区块内短交易ID冲突时回复完整的SmallBlock
+ * Replies with the compact block, or with the full SmallBlock when short ids collide inside the block
+ */
+public class GetCompactBlockHandler extends AbstractMessageHandler<GetCompactBlockMessage> {
+
+    private TemporaryCacheManager cacheManager = TemporaryCacheManager.getInstance();
+
+    @Override
+    public void onMessage(GetCompactBlockMessage message, Node fromNode) {
+        if (message == null || fromNode == null || null == message.getMsgBody()) {
+            return;
+        }
+        NulsDigestData blockHash = message.getMsgBody();
+        SmallBlock smallBlock = cacheManager.getSmallBlockByHash(blockHash);
+        if (null == smallBlock) {
+            return;
+        }
+        CompactBlock compactBlock = CompactBlockUtil.toCompactBlock(smallBlock);
+        Result result;
+        if (null == compactBlock) {
+            result = messageBusService.sendToNode(new SmallBlockMessage(smallBlock), fromNode, true);
+        } else {
+            result = messageBusService.sendToNode(new CompactBlockMessage(compactBlock), fromNode, true);
+        }
+        if (result.isFailed()) {
+            Log.error("send compact block fail, height:" + smallBlock.getHeader().getHeight() + ", " + result.getMsg());
+        }
+    }
+}
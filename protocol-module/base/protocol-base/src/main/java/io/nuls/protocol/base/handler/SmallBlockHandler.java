@@ -78,7 +78,14 @@ public class SmallBlockHandler extends AbstractMessageHandler<SmallBlockMessage>
             Log.warn("recieved a null smallBlock!");
             return;
         }
+        process(smallBlock, fromNode);
+    }
 
+    /**
+     * 处理一个SmallBlock，紧凑区块还原成功后也走这里
+     * Process a SmallBlock, also used for compact blocks once they are rebuilt
+     */
+    public void process(SmallBlock smallBlock, Node fromNode) {
         BlockHeader header = smallBlock.getHeader();
         //阻止恶意节点提前出块
         if (header.getTime() > (TimeService.currentTimeMillis() + ProtocolConstant.BLOCK_TIME_INTERVAL_SECOND * 1000)) {
@@ -100,15 +107,42 @@ public class SmallBlockHandler extends AbstractMessageHandler<SmallBlockMessage>
             return;
         }
 
+        if (!verifyHeader(header, fromNode)) {
+            return;
+        }
+        assemble(smallBlock, fromNode);
+    }
+
+    /**
+     * 处理区块头已经通过verifyHeader验证的SmallBlock，用于紧凑区块还原之后
+     * Process a SmallBlock whose header already passed verifyHeader, used once a compact block is rebuilt
+     */
+    public void processVerified(SmallBlock smallBlock, Node fromNode) {
+        if (!SmallBlockDuplicateRemoval.needProcess(smallBlock.getHeader().getHash())) {
+            return;
+        }
+        assemble(smallBlock, fromNode);
+    }
+
+    /**
+     * 验证区块头的签名及出块人，孤儿区块也视为通过
+     * Verify the signature and the producer of the header, orphan blocks pass as well
+     */
+    public boolean verifyHeader(BlockHeader header, Node fromNode) {
         ValidateResult result = header.verify();
         boolean isOrphan = result.getErrorCode() == TransactionErrorCode.ORPHAN_TX || result.getErrorCode() == TransactionErrorCode.ORPHAN_BLOCK;
         BlockLog.debug("recieve new block from(" + fromNode.getId() + "), tx count : " + header.getTxCount() + " , tx pool count : " + consensusService.getMemoryTxs().size() + " , header height:" + header.getHeight() + ", preHash:" + header.getPreHash() + " , hash:" + header.getHash() + ", addressHex:" + AddressTool.getStringAddressByBytes(header.getPackingAddress()) +
                 "\n and verify block result: " + result.isSuccess() + " , verify message : " + result.getMsg() + " , isOrphan : " + isOrphan);
 
         if (result.isFailed() && !isOrphan) {
-            BlockLog.debug("discard a SmallBlock:" + smallBlock.getHeader().getHash() + ", from:" + fromNode.getId() + " ,reason:" + result.getMsg());
-            return;
+            BlockLog.debug("discard a SmallBlock:" + header.getHash() + ", from:" + fromNode.getId() + " ,reason:" + result.getMsg());
+            return false;
         }
+        return true;
+    }
+
+    private void assemble(SmallBlock smallBlock, Node fromNode) {
+        BlockHeader header = smallBlock.getHeader();
         Map<NulsDigestData, Transaction> txMap = new HashMap<>();
         for (Transaction tx : smallBlock.getSubTxList()) {
             txMap.put(tx.getHash(), tx);
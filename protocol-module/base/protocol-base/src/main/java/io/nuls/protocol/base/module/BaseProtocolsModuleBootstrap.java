@@ -27,6 +27,7 @@ package io.nuls.protocol.base.module;
 
 import io.nuls.consensus.constant.ConsensusConstant;
 import io.nuls.core.tools.log.Log;
+import io.nuls.kernel.cfg.NulsConfig;
 import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.exception.NulsRuntimeException;
@@ -36,8 +37,12 @@ import io.nuls.kernel.utils.TransactionManager;
 import io.nuls.message.bus.constant.MessageBusConstant;
 import io.nuls.message.bus.service.MessageBusService;
 import io.nuls.network.constant.NetworkConstant;
+import io.nuls.network.constant.NetworkParam;
+import io.nuls.protocol.base.cache.TransactionDuplicateRemoval;
 import io.nuls.protocol.base.handler.*;
 import io.nuls.protocol.base.service.DownloadServiceImpl;
+import io.nuls.protocol.base.utils.filter.InventoryFilter;
+import io.nuls.protocol.constant.ProtocolConstant;
 import io.nuls.protocol.message.*;
 import io.nuls.protocol.model.tx.CoinBaseTransaction;
 import io.nuls.protocol.model.tx.DataTransaction;
@@ -57,6 +62,17 @@ public class BaseProtocolsModuleBootstrap extends AbstractProtocolModule {
         TransactionManager.putTx(CoinBaseTransaction.class, null);
         TransactionManager.putTx(TransferTransaction.class, null);
         TransactionManager.putTx(DataTransaction.class, null);
+        initTxFilter();
+        // 在握手及VersionMessage中声明支持紧凑区块
+        // declare compact block support in the handshake and VersionMessage
+        NetworkParam.getInstance().addLocalServices(NetworkConstant.SERVICE_COMPACT_BLOCK);
+    }
+
+    private void initTxFilter() {
+        int elements = NulsConfig.MODULES_CONFIG.getCfgValue(ProtocolConstant.CFG_PROTOCOL_SECTION, ProtocolConstant.CFG_TX_FILTER_ELEMENTS, TransactionDuplicateRemoval.DEFAULT_ELEMENTS);
+        double fpp = NulsConfig.MODULES_CONFIG.getCfgValue(ProtocolConstant.CFG_PROTOCOL_SECTION, ProtocolConstant.CFG_TX_FILTER_FPP, InventoryFilter.DEFAULT_FPP);
+        int rotateMinutes = NulsConfig.MODULES_CONFIG.getCfgValue(ProtocolConstant.CFG_PROTOCOL_SECTION, ProtocolConstant.CFG_TX_FILTER_ROTATE_MINUTES, TransactionDuplicateRemoval.DEFAULT_ROTATE_MINUTES);
+        TransactionDuplicateRemoval.init(elements, fpp, rotateMinutes);
     }
 
     @Override
@@ -116,6 +132,8 @@ public class BaseProtocolsModuleBootstrap extends AbstractProtocolModule {
 //        TaskManager.createAndRunThread(ProtocolConstant.MODULE_ID_PROTOCOL, "SmallBlock-Download", SmallBlockDownloadProcessor.getInstance());
         messageBusService.subscribeMessage(GetSmallBlockMessage.class, new GetSmallBlockHandler());
         messageBusService.subscribeMessage(ForwardSmallBlockMessage.class, new ForwardSmallBlockHandler());
+        messageBusService.subscribeMessage(GetCompactBlockMessage.class, new GetCompactBlockHandler());
+        messageBusService.subscribeMessage(CompactBlockMessage.class, new CompactBlockHandler());
         messageBusService.subscribeMessage(ForwardTxMessage.class, new ForwardTxMessageHandler());
     }
 
@@ -32,7 +32,9 @@ import io.nuls.contract.entity.tx.CallContractTransaction;
 import io.nuls.contract.entity.tx.ContractTransferTransaction;
 import io.nuls.contract.service.ContractService;
 import io.nuls.core.tools.log.Log;
+import io.nuls.db.service.DBService;
 import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.context.NulsContext;
 import io.nuls.kernel.exception.NulsException;
 import io.nuls.kernel.lite.annotation.Autowired;
 import io.nuls.kernel.lite.annotation.Service;
@@ -40,17 +42,25 @@ import io.nuls.kernel.model.*;
 import io.nuls.ledger.service.LedgerService;
 import io.nuls.message.bus.service.MessageBusService;
 import io.nuls.network.model.Node;
+import io.nuls.network.service.NetworkService;
 import io.nuls.protocol.base.utils.PoConvertUtil;
 import io.nuls.protocol.constant.ProtocolErroeCode;
+import io.nuls.protocol.message.CompactBlockMessage;
 import io.nuls.protocol.message.ForwardSmallBlockMessage;
 import io.nuls.protocol.message.SmallBlockMessage;
+import io.nuls.protocol.model.CompactBlock;
 import io.nuls.protocol.model.SmallBlock;
 import io.nuls.protocol.service.BlockService;
 import io.nuls.protocol.service.TransactionService;
 import io.nuls.protocol.storage.po.BlockHeaderPo;
+import io.nuls.protocol.storage.po.BlockRawIndexPo;
 import io.nuls.protocol.storage.service.BlockHeaderStorageService;
+import io.nuls.protocol.storage.service.BlockRawStorageService;
+import io.nuls.protocol.utils.CompactBlockUtil;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -62,6 +72,13 @@ import java.util.List;
 @Service("blockService")
 public class BlockServiceImpl implements BlockService {
 
+    /**
+     * 原始区块存储中没有记录的历史区块，低于最新高度这么多时才在读取后补写，避免与回滚交错
+     * A historical block missing from the raw block storage is filled in after a read only this far below the best height,
+     * so the fill never races with a rollback.
+     */
+    private static final long RAW_BLOCK_FILL_DEPTH = 100L;
+
     /**
      * 存储工具类
      * Storage utility class
@@ -69,6 +86,9 @@ public class BlockServiceImpl implements BlockService {
     @Autowired
     private BlockHeaderStorageService blockHeaderStorageService;
 
+    @Autowired
+    private BlockRawStorageService blockRawStorageService;
+
     @Autowired
     private LedgerService ledgerService;
 
@@ -77,12 +97,18 @@ public class BlockServiceImpl implements BlockService {
 
     @Autowired
     private MessageBusService messageBusService;
+
+    @Autowired
+    private NetworkService networkService;
     @Autowired
     private AccountLedgerService accountLedgerService;
 
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private DBService dbService;
+
     /**
      * 获取创世块（从存储中）
      * Get the creation block (from storage)
@@ -276,6 +302,40 @@ public class BlockServiceImpl implements BlockService {
         return Result.getSuccess().setData(block);
     }
 
+    /**
+     * 根据区块高度获取区块的原始字节，原始区块存储中没有时从交易重新组装，足够久远的区块顺便补写到原始区块存储中
+     * Get the raw bytes of the block at the height, rebuilt from the transactions when the raw block storage misses,
+     * a block that is old enough is filled into the raw block storage on the way.
+     *
+     * @param height 区块高度/block height
+     * @return 区块字节/block bytes
+     */
+    @Override
+    public Result<byte[]> getBlockBytes(long height) {
+        BlockRawIndexPo index = blockRawStorageService.getBlockIndex(height);
+        if (null != index) {
+            byte[] bytes = blockRawStorageService.getBlockBytes(index);
+            if (null != bytes) {
+                return Result.getSuccess().setData(bytes);
+            }
+        }
+        BlockHeaderPo headerPo = blockHeaderStorageService.getBlockHeaderPo(height);
+        if (null == headerPo) {
+            return Result.getFailed(ProtocolErroeCode.BLOCK_IS_NULL);
+        }
+        byte[] bytes;
+        try {
+            bytes = getBlock(headerPo).serialize();
+        } catch (IOException e) {
+            Log.error(e);
+            return Result.getFailed(KernelErrorCode.IO_ERROR);
+        }
+        if (NulsContext.getInstance().getBestHeight() - height >= RAW_BLOCK_FILL_DEPTH) {
+            blockRawStorageService.saveBlock(height, headerPo.getHash(), bytes);
+        }
+        return Result.getSuccess().setData(bytes);
+    }
+
     @Override
     public List<String> getBlockTxHash(long height) {
         BlockHeaderPo headerPo = blockHeaderStorageService.getBlockHeaderPo(height);
@@ -301,6 +361,25 @@ public class BlockServiceImpl implements BlockService {
         if (null == block || block.getHeader() == null || block.getTxs() == null) {
             return Result.getFailed(ProtocolErroeCode.BLOCK_IS_NULL);
         }
+        // 整个区块在一个写会话中保存，失败时丢弃会话，已存储的数据不受影响
+        // the whole block is saved in one write session, on failure the session is discarded and stored data is untouched
+        dbService.beginWriteSession();
+        boolean finished = false;
+        try {
+            Result result = this.saveBlockInSession(block);
+            if (result.isSuccess()) {
+                finished = true;
+                return dbService.commitWriteSession();
+            }
+            return result;
+        } finally {
+            if (!finished) {
+                dbService.discardWriteSession();
+            }
+        }
+    }
+
+    private Result saveBlockInSession(Block block) throws NulsException {
         long height = block.getHeader().getHeight();
         List<Transaction> savedList = new ArrayList<>();
         for (Transaction transaction : block.getTxs()) {
@@ -327,6 +406,16 @@ public class BlockServiceImpl implements BlockService {
             this.rollbackTxList(savedList, block.getHeader(), false);
             return result;
         }
+        try {
+            result = this.blockRawStorageService.saveBlock(height, block.getHeader().getHash(), block.serialize());
+        } catch (IOException e) {
+            Log.error(e);
+            result = Result.getFailed(KernelErrorCode.IO_ERROR);
+        }
+        if (result.isFailed()) {
+            this.rollbackTxList(savedList, block.getHeader(), false);
+            return result;
+        }
         try {
             accountLedgerService.saveConfirmedTransactionList(block.getTxs());
             // 保存合约相关交易
@@ -377,6 +466,23 @@ public class BlockServiceImpl implements BlockService {
         if (null == block) {
             return Result.getFailed(ProtocolErroeCode.BLOCK_IS_NULL);
         }
+        dbService.beginWriteSession();
+        boolean finished = false;
+        try {
+            Result result = this.rollbackBlockInSession(block);
+            if (result.isSuccess()) {
+                finished = true;
+                return dbService.commitWriteSession();
+            }
+            return result;
+        } finally {
+            if (!finished) {
+                dbService.discardWriteSession();
+            }
+        }
+    }
+
+    private Result rollbackBlockInSession(Block block) throws NulsException {
         boolean txsResult = this.rollbackTxList(block.getTxs(), block.getHeader(), true);
         if (!txsResult) {
             return Result.getFailed();
@@ -389,6 +495,10 @@ public class BlockServiceImpl implements BlockService {
         if (result.isFailed()) {
             return result;
         }
+        result = this.blockRawStorageService.removeBlock(po.getHeight());
+        if (result.isFailed()) {
+            return result;
+        }
         try {
             accountLedgerService.rollbackTransactions(block.getTxs());
             // 回滚合约相关交易
@@ -424,8 +534,42 @@ public class BlockServiceImpl implements BlockService {
     @Override
     public Result broadcastBlock(SmallBlock smallBlock) {
         SmallBlockMessage message = fillSmallBlockMessage(smallBlock);
-        Result<List<String>> result = messageBusService.broadcast(message, null, true, 100);
-        return result;
+        CompactBlock compactBlock = CompactBlockUtil.toCompactBlock(smallBlock);
+        Collection<Node> nodes = networkService.getAvailableNodes();
+        List<Node> compactNodes = new ArrayList<>();
+        if (null != compactBlock && null != nodes) {
+            for (Node node : nodes) {
+                if (CompactBlockUtil.isSupported(node)) {
+                    compactNodes.add(node);
+                }
+            }
+        }
+        if (compactNodes.isEmpty()) {
+            Result<List<String>> result = messageBusService.broadcast(message, null, true, 100);
+            return result;
+        }
+        /*
+         * 支持紧凑区块的节点发送CompactBlock，其余节点发送SmallBlock，每种消息只序列化一次并异步发送；
+         * 紧凑区块只发给已确认支持的节点，SmallBlock发给除这些节点外的所有节点，期间新连接的节点也能收到
+         * Peers supporting compact blocks get the CompactBlock, the others keep getting the SmallBlock. Each message
+         * is serialized once and sent asynchronously. The compact block only goes to the peers known to support it,
+         * the small block goes to everyone else, including peers that connected in between.
+         */
+        List<String> nodeIdList = new ArrayList<>();
+        Result<List<String>> compactResult = messageBusService.broadcastToNodes(new CompactBlockMessage(compactBlock), compactNodes, true);
+        if (compactResult.isSuccess() && null != compactResult.getData()) {
+            nodeIdList.addAll(compactResult.getData());
+        }
+        if (compactNodes.size() < nodes.size()) {
+            Result<List<String>> smallResult = messageBusService.broadcastExcept(message, compactNodes, true, 100);
+            if (smallResult.isSuccess() && null != smallResult.getData()) {
+                nodeIdList.addAll(smallResult.getData());
+            }
+        }
+        if (nodeIdList.isEmpty()) {
+            return Result.getFailed(KernelErrorCode.FAILED).setData(nodeIdList);
+        }
+        return Result.getSuccess().setData(nodeIdList);
     }
 
     /**
@@ -27,50 +27,117 @@ package io.nuls.protocol.base.utils.filter;
 
 import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
+import io.nuls.kernel.utils.TwoGenerations;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 向量清单过滤器
+ * 由当前和上一代两个布隆过滤器组成，当前代写满或到达轮换时间后变为上一代，所以刚插入的数据在轮换后依然能被识别
+ * <p>
+ * Inventory filter made of two bloom filter generations, the current one and the previous one. The current
+ * generation becomes the previous one once it is full or its rotation time is reached, so recently inserted
+ * data is still recognised right after a rotation.
  *
  * @author ln
  */
 public class InventoryFilter {
 
+    /**
+     * 默认的误判率
+     * Default false positive probability
+     */
+    public static final double DEFAULT_FPP = 0.00001;
+
     private final int elements;
-    private AtomicInteger size = new AtomicInteger(0);
+    private final double fpp;
+    private final long rotateMillis;
 
-    private BloomFilter<byte[]> filter;
+    private final TwoGenerations<BloomFilter<byte[]>> generations;
 
-//    private Lock lock = new ReentrantLock();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
 
     public InventoryFilter(int elements) {
+        this(elements, DEFAULT_FPP, 0);
+    }
+
+    /**
+     * @param elements     每一代的容量，内存占用约为两代的大小/capacity of one generation, memory is about two generations
+     * @param fpp          每一代的误判率/false positive probability of one generation
+     * @param rotateMillis 每一代的最长存活时间，0表示只按数量轮换/longest lifetime of a generation, 0 rotates by count only
+     */
+    public InventoryFilter(int elements, double fpp, long rotateMillis) {
         this.elements = elements;
-        filter = BloomFilter.create(Funnels.byteArrayFunnel(), elements, 0.00001);
+        this.fpp = fpp;
+        this.rotateMillis = rotateMillis;
+        this.generations = new TwoGenerations<>(this::createFilter);
     }
 
     public BloomFilter getFilter() {
-        return filter;
+        return generations.getCurrent();
     }
 
+    /**
+     * 布隆过滤器的误判率随插入数上升，所以按插入次数而不是不同元素数轮换；设置了轮换时间时，
+     * 流量低的节点也会定期丢弃很久以前的清单
+     * The false positive rate of a bloom filter grows with the insertions, so it rotates by insertion count rather
+     * than distinct elements; with a rotation time a quiet node also drops old inventory periodically
+     */
     public void insert(byte[] object) {
-//        lock.lock();
-//        try {
-        filter.put(object);
-        int count = size.incrementAndGet();
-        if (count >= elements - 100) {
-            this.clear();
+        BloomFilter<byte[]> current = generations.getCurrent();
+        current.put(object);
+        int count = generations.added();
+        if (count >= elements || (rotateMillis > 0 && System.currentTimeMillis() - generations.getGenerationStart() >= rotateMillis)) {
+            generations.rotate(current);
         }
-//        } finally {
-//            lock.unlock();
-//        }
     }
 
     public boolean contains(byte[] object) {
-        return filter.mightContain(object);
+        BloomFilter<byte[]> previous = generations.getPrevious();
+        boolean result = generations.getCurrent().mightContain(object) || (previous != null && previous.mightContain(object));
+        if (result) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return result;
     }
 
     public void clear() {
-        filter = BloomFilter.create(Funnels.byteArrayFunnel(), elements, 0.00001);
+        generations.clear();
+    }
+
+    private BloomFilter<byte[]> createFilter() {
+        return BloomFilter.create(Funnels.byteArrayFunnel(), elements, fpp);
+    }
+
+    /**
+     * 当前代已插入的数量
+     * Insertions into the current generation
+     */
+    public int getSize() {
+        return generations.getSize();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int getRotationCount() {
+        return generations.getRotationCount();
+    }
+
+    /**
+     * 当前代的预计误判率，查询时两代都会检查，整体误判率最高约为它的两倍
+     * Expected false positive probability of the current generation, both generations are checked on a query so
+     * the overall probability is at most about twice as high
+     */
+    public double getExpectedFpp() {
+        return generations.getCurrent().expectedFpp();
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.base.download.entity;
+
+import io.nuls.network.model.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PeerDownloadWindowTest {
+
+    @Test
+    public void testWindowFollowsThroughput() {
+        PeerDownloadWindow peer = new PeerDownloadWindow(new Node("1.1.1.1", 8001, Node.OUT));
+        assertTrue(peer.isIdle());
+        assertEquals(PeerDownloadWindow.INITIAL_WINDOW, peer.getWindow());
+
+        peer.requested(100, 10, 0L);
+        assertFalse(peer.isIdle());
+        for (long height = 100; height < 109; height++) {
+            assertFalse(peer.received(height, 50L));
+        }
+        assertFalse(peer.received(500, 50L));
+        assertTrue(peer.received(109, 100L));
+        assertTrue(peer.isIdle());
+        // 10 blocks in 100ms, 2000ms target -> capped at the max window
+        assertEquals(PeerDownloadWindow.MAX_WINDOW, peer.getWindow());
+
+        peer.requested(200, 10, 0L);
+        for (long height = 200; height < 210; height++) {
+            peer.received(height, 20000L);
+        }
+        assertTrue(peer.getWindow() < PeerDownloadWindow.MAX_WINDOW);
+    }
+
+    @Test
+    public void testTimeout() {
+        PeerDownloadWindow peer = new PeerDownloadWindow(new Node("1.1.1.1", 8001, Node.OUT));
+        peer.requested(1, 10, 0L);
+        assertFalse(peer.checkTimeout(PeerDownloadWindow.REQUEST_TIMEOUT_MILLIS - 1));
+        assertTrue(peer.checkTimeout(PeerDownloadWindow.REQUEST_TIMEOUT_MILLIS));
+        assertTrue(peer.isIdle());
+        assertEquals(PeerDownloadWindow.INITIAL_WINDOW / 2, peer.getWindow());
+        assertFalse(peer.received(1, PeerDownloadWindow.REQUEST_TIMEOUT_MILLIS));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.base.download.thread;
+
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.thread.manager.NulsThreadFactory;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class BlockVerifierTest {
+
+    @Test
+    public void testVerifyResult() throws Exception {
+        Block valid = new Block();
+        Block invalid = new Block();
+        BlockVerifier verifier = new BlockVerifier(2, 10, new NulsThreadFactory((short) 0, "verify-result"), block -> block == valid);
+
+        assertTrue(verifier.submit(1, valid));
+        assertTrue(verifier.submit(2, invalid));
+        assertFalse(verifier.submit(1, invalid));
+
+        assertSame(valid, verifier.get(1).get(1, TimeUnit.SECONDS));
+        assertNull(verifier.get(2).get(1, TimeUnit.SECONDS));
+
+        verifier.remove(2, verifier.get(2));
+        assertFalse(verifier.contains(2));
+        assertTrue(verifier.submit(2, valid));
+        assertSame(valid, verifier.get(2).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSubmitBlocksWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockVerifier verifier = new BlockVerifier(1, 1, new NulsThreadFactory((short) 0, "verify-full"), block -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return false;
+            }
+            return true;
+        });
+        // 一个正在验证，一个排队
+        assertTrue(verifier.submit(1, new Block()));
+        assertTrue(verifier.submit(2, new Block()));
+
+        AtomicBoolean submitted = new AtomicBoolean(false);
+        Thread thread = new Thread(() -> {
+            try {
+                submitted.set(verifier.submit(3, new Block()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        thread.join(200L);
+        assertTrue(thread.isAlive());
+        assertFalse(verifier.contains(3));
+
+        release.countDown();
+        thread.join(1000L);
+        assertFalse(thread.isAlive());
+        assertTrue(submitted.get());
+        assertNotNull(verifier.get(3).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelReleasesSlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockVerifier verifier = new BlockVerifier(1, 1, new NulsThreadFactory((short) 0, "verify-cancel"), block -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return false;
+            }
+            return true;
+        });
+        assertTrue(verifier.submit(1, new Block()));
+        assertTrue(verifier.submit(2, new Block()));
+        // 取消排队中的验证后空出一个位置，不需要等待正在执行的验证
+        verifier.remove(2, verifier.get(2));
+        assertTrue(verifier.submit(3, new Block()));
+        release.countDown();
+        assertNotNull(verifier.get(3).get(1, TimeUnit.SECONDS));
+    }
+}
@@ -32,6 +32,10 @@ import io.nuls.kernel.model.Transaction;
 import io.nuls.protocol.model.tx.TransferTransaction;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -119,4 +123,43 @@ public class InventoryFilterTest {
         System.out.println("real-size====" + set.size());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRotateKeepsPreviousGeneration() {
+        InventoryFilter filter = new InventoryFilter(1000, 0.0001, 0);
+        for (int i = 0; i < 1500; i++) {
+            filter.insert(intBytes(i));
+        }
+        assertEquals(1, filter.getRotationCount());
+        assertEquals(500, filter.getSize());
+        // 第一代的数据在轮换后依然存在
+        for (int i = 0; i < 1500; i++) {
+            assertTrue(filter.contains(intBytes(i)));
+        }
+        for (int i = 1500; i < 2000; i++) {
+            filter.insert(intBytes(i));
+        }
+        assertEquals(2, filter.getRotationCount());
+        int found = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (filter.contains(intBytes(i))) {
+                found++;
+            }
+        }
+        assertTrue(found < 10);
+    }
+
+    @Test
+    public void testHitAndMissCount() {
+        InventoryFilter filter = new InventoryFilter(1000);
+        filter.insert(intBytes(1));
+        assertTrue(filter.contains(intBytes(1)));
+        assertFalse(filter.contains(intBytes(2)));
+        assertEquals(1, filter.getHitCount());
+        assertEquals(1, filter.getMissCount());
+    }
+
+    private byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value};
+    }
+}
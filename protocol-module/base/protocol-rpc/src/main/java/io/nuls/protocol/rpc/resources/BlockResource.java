@@ -335,6 +335,27 @@ public class BlockResource {
         return result.toRpcClientResult();
     }
 
+    /**
+     * 区块在链上的原始字节，不包含合约内部转账交易，直接从原始区块存储读取而不组装区块
+     * The raw bytes of the block as it is on chain, without contract internal transfers,
+     * read directly from the raw block storage without assembling the block.
+     */
+    @GET
+    @Path("/raw/height")
+    @Produces(MediaType.APPLICATION_JSON)
+    public RpcClientResult getRawBlockBytes(@QueryParam("height") long height) {
+        if (height < 0) {
+            return Result.getFailed(KernelErrorCode.PARAMETER_ERROR).toRpcClientResult();
+        }
+        Result<byte[]> bytesResult = blockService.getBlockBytes(height);
+        if (bytesResult.isFailed()) {
+            return bytesResult.toRpcClientResult();
+        }
+        Map<String, String> map = new HashMap<>();
+        map.put("value", Base64.getEncoder().encodeToString(bytesResult.getData()));
+        return Result.getSuccess().setData(map).toRpcClientResult();
+    }
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation("根据区块高度查询区块列表，包含区块打包的所有交易信息，此接口返回数据量较多，谨慎调用")
@@ -47,6 +47,25 @@ public interface ProtocolStorageConstant {
      */
     String DB_NAME_BLOCK_HEADER = "block_header";
 
+    /**
+     * 原始区块高度索引表名称，区块字节存放在段文件目录中
+     * Raw block height index table, the block bytes live in the segment file directory.
+     */
+    String DB_NAME_BLOCK_RAW_INDEX = "block_raw_index";
+
+    /**
+     * 原始区块段文件目录名称，位于数据目录下，与各个数据表目录并列，不放在LevelDB管理的目录中
+     * Directory name of the raw block segment files. It sits in the data directory next to the table directories,
+     * outside any directory owned by LevelDB.
+     */
+    String BLOCK_RAW_SEGMENT_DIR = "block_raw_segments";
+
+    /**
+     * 单个原始区块段文件的最大字节数，超过后写入新的段文件
+     * Maximum bytes of one raw block segment file, a new segment is started once it is exceeded.
+     */
+    long BLOCK_RAW_SEGMENT_MAX_SIZE = 128 * 1024 * 1024L;
+
     /**
      * 数据库中存储的最新区块hash的索引值
      * The index value of the latest block hash stored in the database.
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.storage.service;
+
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Result;
+import io.nuls.protocol.storage.po.BlockRawIndexPo;
+
+import java.io.File;
+
+/**
+ * 原始区块存储服务接口，区块按网络传输的字节原样追加到段文件中，并按高度建立索引
+ * Raw block storage service interface, blocks are appended to segment files exactly as their wire bytes
+ * and indexed by height.
+ */
+public interface BlockRawStorageService {
+
+    /**
+     * 追加区块字节并写入高度索引，在写会话中调用时索引随会话一起提交
+     * Append the block bytes and write the height index, when called inside a write session the index is committed with it.
+     *
+     * @param height     区块高度/block height
+     * @param hash       区块摘要/block hash
+     * @param blockBytes 区块序列化后的字节/serialized block
+     * @return 操作结果/operating result
+     */
+    Result saveBlock(long height, NulsDigestData hash, byte[] blockBytes);
+
+    /**
+     * 删除高度索引，段文件中的字节不再被引用
+     * Remove the height index, the bytes in the segment file are no longer referenced.
+     *
+     * @param height 区块高度/block height
+     * @return 操作结果/operating result
+     */
+    Result removeBlock(long height);
+
+    /**
+     * 根据高度查询区块的位置，没有记录或记录的位置超出文件范围时返回null
+     * Query where the block of the height is stored, null when there is no record or it points past the end of the file.
+     *
+     * @param height 区块高度/block height
+     * @return 原始区块索引/raw block index
+     */
+    BlockRawIndexPo getBlockIndex(long height);
+
+    /**
+     * 读取索引指向的区块字节
+     * Read the block bytes the index points to.
+     *
+     * @param index 原始区块索引/raw block index
+     * @return 区块字节，读取失败时返回null/block bytes, null when the read fails
+     */
+    byte[] getBlockBytes(BlockRawIndexPo index);
+
+    /**
+     * 索引所在的段文件，供零拷贝发送使用
+     * The segment file of the index, used by zero-copy sends.
+     *
+     * @param index 原始区块索引/raw block index
+     * @return 段文件/segment file
+     */
+    File getSegmentFile(BlockRawIndexPo index);
+}
@@ -0,0 +1,256 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.storage.service.impl;
+
+import io.nuls.core.tools.log.Log;
+import io.nuls.db.constant.DBErrorCode;
+import io.nuls.db.service.DBService;
+import io.nuls.kernel.constant.KernelErrorCode;
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.exception.NulsRuntimeException;
+import io.nuls.kernel.lite.annotation.Autowired;
+import io.nuls.kernel.lite.annotation.Service;
+import io.nuls.kernel.lite.core.bean.InitializingBean;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Result;
+import io.nuls.kernel.utils.VarInt;
+import io.nuls.protocol.storage.constant.ProtocolStorageConstant;
+import io.nuls.protocol.storage.po.BlockRawIndexPo;
+import io.nuls.protocol.storage.service.BlockRawStorageService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 原始区块存储服务实现类
+ * 区块字节只追加不修改，写入后先刷盘再写索引，所以索引只会指向完整的数据；回滚或丢弃的写会话只会留下不再被引用的字节。
+ * 这些字节不会被回收：段文件不做压缩，浪费的空间只与回滚的区块数量有关。需要时可以在停机后同时删除索引表和段文件目录，
+ * 历史区块的字节会在读取时重新补齐。
+ * Raw block storage service implementation class.
+ * Block bytes are only appended and never modified, they are forced to disk before the index is written so an index
+ * always points to complete data; rollbacks and discarded write sessions only leave unreferenced bytes behind.
+ * Those bytes are never reclaimed: segment files are not compacted, and the wasted space only grows with the number
+ * of rolled back blocks. If needed, delete the index table together with the segment directory while the node is
+ * stopped; historical block bytes are filled in again when those blocks are read.
+ */
+@Service
+public class BlockRawStorageServiceImpl implements BlockRawStorageService, InitializingBean {
+
+    private static final String SEGMENT_FILE_PREFIX = "blk";
+
+    private static final String SEGMENT_FILE_SUFFIX = ".dat";
+
+    @Autowired
+    private DBService dbService;
+
+    private File segmentDir;
+
+    /**
+     * 各段文件共享的只读通道，按位置读取是线程安全的
+     * Read-only channels shared per segment file, positional reads are thread-safe.
+     */
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private int writeSegment;
+
+    private FileChannel writeChannel;
+
+    /**
+     * 创建索引表和段文件目录，并找到最后一个段文件继续追加；段文件目录与数据表目录并列，LevelDB启动时会跳过它
+     * Create the index table and the segment directory, and continue appending to the last segment file. The segment
+     * directory sits next to the table directories and is skipped by LevelDB on start as it holds no database.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        Result result = this.dbService.createArea(ProtocolStorageConstant.DB_NAME_BLOCK_RAW_INDEX);
+        if (result.isFailed() && !DBErrorCode.DB_AREA_EXIST.equals(result.getErrorCode())) {
+            throw new NulsRuntimeException(result.getErrorCode());
+        }
+        segmentDir = new File(dbService.getDataPath(), ProtocolStorageConstant.BLOCK_RAW_SEGMENT_DIR);
+        if (!segmentDir.exists() && !segmentDir.mkdirs()) {
+            throw new NulsRuntimeException(KernelErrorCode.IO_ERROR);
+        }
+        writeSegment = findLastSegment();
+    }
+
+    @Override
+    public Result saveBlock(long height, NulsDigestData hash, byte[] blockBytes) {
+        if (height < 0L || null == hash || null == blockBytes || blockBytes.length == 0) {
+            return Result.getFailed(KernelErrorCode.NULL_PARAMETER);
+        }
+        BlockRawIndexPo po;
+        try {
+            po = append(height, hash, blockBytes);
+            return dbService.put(ProtocolStorageConstant.DB_NAME_BLOCK_RAW_INDEX, new VarInt(height).encode(), po.serialize());
+        } catch (IOException e) {
+            Log.error(e);
+            return Result.getFailed(KernelErrorCode.IO_ERROR);
+        }
+    }
+
+    @Override
+    public Result removeBlock(long height) {
+        if (height < 0L) {
+            return Result.getFailed(KernelErrorCode.PARAMETER_ERROR);
+        }
+        return dbService.delete(ProtocolStorageConstant.DB_NAME_BLOCK_RAW_INDEX, new VarInt(height).encode());
+    }
+
+    @Override
+    public BlockRawIndexPo getBlockIndex(long height) {
+        if (height < 0L) {
+            return null;
+        }
+        byte[] bytes = dbService.get(ProtocolStorageConstant.DB_NAME_BLOCK_RAW_INDEX, new VarInt(height).encode());
+        if (null == bytes) {
+            return null;
+        }
+        BlockRawIndexPo po = new BlockRawIndexPo();
+        try {
+            po.parse(bytes, 0);
+        } catch (NulsException e) {
+            Log.error(e);
+            return null;
+        }
+        po.setHeight(height);
+        if (po.getOffset() + po.getLength() > getSegmentFile(po).length()) {
+            return null;
+        }
+        return po;
+    }
+
+    @Override
+    public byte[] getBlockBytes(BlockRawIndexPo index) {
+        if (null == index) {
+            return null;
+        }
+        // 其他线程读取时被中断会关闭共享通道，此时重新打开再读一次
+        // an interrupted read on another thread closes the shared channel, reopen it and read once more
+        for (int i = 0; i < 2; i++) {
+            FileChannel channel = null;
+            try {
+                channel = getReadChannel(index.getSegment());
+                ByteBuffer buffer = ByteBuffer.allocate(index.getLength());
+                long position = index.getOffset();
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        return null;
+                    }
+                    position += read;
+                }
+                return buffer.array();
+            } catch (IOException e) {
+                if (null != channel && channel.isOpen()) {
+                    Log.error(e);
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public File getSegmentFile(BlockRawIndexPo index) {
+        return getSegmentFile(index.getSegment());
+    }
+
+    private File getSegmentFile(int segment) {
+        return new File(segmentDir, String.format("%s%05d%s", SEGMENT_FILE_PREFIX, segment, SEGMENT_FILE_SUFFIX));
+    }
+
+    /**
+     * 把区块字节追加到当前段文件并刷盘，当前段文件放不下时换到新的段文件
+     * Append the block bytes to the current segment file and force them to disk, switch to a new segment when it is full.
+     */
+    private BlockRawIndexPo append(long height, NulsDigestData hash, byte[] blockBytes) throws IOException {
+        synchronized (writeLock) {
+            FileChannel channel = getWriteChannel();
+            long offset = channel.size();
+            if (offset > 0 && offset + blockBytes.length > ProtocolStorageConstant.BLOCK_RAW_SEGMENT_MAX_SIZE) {
+                channel.close();
+                writeSegment++;
+                channel = getWriteChannel();
+                offset = channel.size();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(blockBytes);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            return new BlockRawIndexPo(height, hash, writeSegment, offset, blockBytes.length);
+        }
+    }
+
+    private FileChannel getWriteChannel() throws IOException {
+        if (null == writeChannel || !writeChannel.isOpen()) {
+            writeChannel = new RandomAccessFile(getSegmentFile(writeSegment), "rw").getChannel();
+        }
+        return writeChannel;
+    }
+
+    private FileChannel getReadChannel(int segment) throws IOException {
+        FileChannel channel = readChannels.get(segment);
+        if (null != channel && channel.isOpen()) {
+            return channel;
+        }
+        FileChannel opened = new RandomAccessFile(getSegmentFile(segment), "r").getChannel();
+        if (null == channel ? null == readChannels.putIfAbsent(segment, opened) : readChannels.replace(segment, channel, opened)) {
+            return opened;
+        }
+        opened.close();
+        return readChannels.get(segment);
+    }
+
+    private int findLastSegment() {
+        int last = 0;
+        File[] files = segmentDir.listFiles();
+        if (null == files) {
+            return last;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(SEGMENT_FILE_PREFIX) || !name.endsWith(SEGMENT_FILE_SUFFIX)) {
+                continue;
+            }
+            try {
+                int segment = Integer.parseInt(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length()));
+                last = Math.max(last, segment);
+            } catch (NumberFormatException e) {
+                // not a segment file
+            }
+        }
+        return last;
+    }
+}
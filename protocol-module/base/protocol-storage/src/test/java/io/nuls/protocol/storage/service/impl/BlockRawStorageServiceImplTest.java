@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.protocol.storage.service.impl;
+
+import io.nuls.db.module.impl.LevelDbModuleBootstrap;
+import io.nuls.kernel.MicroKernelBootstrap;
+import io.nuls.kernel.context.NulsContext;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Result;
+import io.nuls.protocol.storage.po.BlockRawIndexPo;
+import io.nuls.protocol.storage.service.BlockRawStorageService;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class BlockRawStorageServiceImplTest {
+
+    private static BlockRawStorageService service;
+
+    @BeforeClass
+    public static void init() {
+        MicroKernelBootstrap mk = MicroKernelBootstrap.getInstance();
+        mk.init();
+        mk.start();
+
+        LevelDbModuleBootstrap bootstrap = new LevelDbModuleBootstrap();
+        bootstrap.init();
+        bootstrap.start();
+
+        service = NulsContext.getServiceBean(BlockRawStorageService.class);
+    }
+
+    @Test
+    public void saveAndRead() throws Exception {
+        assertNotNull(service);
+        byte[] first = "first-block-bytes".getBytes();
+        byte[] second = "second-block-bytes-longer".getBytes();
+        NulsDigestData firstHash = NulsDigestData.calcDigestData(first);
+        NulsDigestData secondHash = NulsDigestData.calcDigestData(second);
+        assertTrue(service.saveBlock(8801L, firstHash, first).isSuccess());
+        assertTrue(service.saveBlock(8802L, secondHash, second).isSuccess());
+
+        BlockRawIndexPo index = service.getBlockIndex(8802L);
+        assertNotNull(index);
+        assertEquals(secondHash, index.getHash());
+        assertEquals(second.length, index.getLength());
+        assertArrayEquals(second, service.getBlockBytes(index));
+        assertArrayEquals(first, service.getBlockBytes(service.getBlockIndex(8801L)));
+
+        // 段文件中索引指向的区域就是区块字节，可以直接发送
+        // the region the index points to in the segment file is exactly the block bytes and can be sent as is
+        File file = service.getSegmentFile(index);
+        byte[] region = new byte[index.getLength()];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(index.getOffset());
+            raf.readFully(region);
+        }
+        assertArrayEquals(second, region);
+
+        service.removeBlock(8801L);
+        service.removeBlock(8802L);
+        assertNull(service.getBlockIndex(8801L));
+        assertNull(service.getBlockIndex(8802L));
+    }
+
+    @Test
+    public void saveInvalid() {
+        Result result = service.saveBlock(1L, null, new byte[]{1});
+        assertTrue(result.isFailed());
+        result = service.saveBlock(1L, NulsDigestData.calcDigestData(new byte[]{1}), new byte[0]);
+        assertTrue(result.isFailed());
+        assertNull(service.getBlockIndex(-1L));
+    }
+}
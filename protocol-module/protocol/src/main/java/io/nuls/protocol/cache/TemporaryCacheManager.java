@@ -24,7 +24,7 @@
  */
 package io.nuls.protocol.cache;
 
-import io.nuls.cache.LimitHashMap;
+import io.nuls.cache.BoundedConcurrentMap;
 import io.nuls.kernel.model.NulsDigestData;
 import io.nuls.kernel.model.Transaction;
 import io.nuls.protocol.model.SmallBlock;
@@ -38,11 +38,24 @@ import io.nuls.protocol.model.SmallBlock;
 public class TemporaryCacheManager {
     private static final TemporaryCacheManager INSTANCE = new TemporaryCacheManager();
 
-    private LimitHashMap<NulsDigestData, SmallBlock> smallBlockCacheMap = new LimitHashMap<>(100);
-    private LimitHashMap<NulsDigestData, NulsDigestData> smallBlockHashCacheMap = new LimitHashMap<>(100);
+    /**
+     * 交易缓存按交易序列化后的字节数计算容量
+     * The transaction cache is bounded by the serialized size of the transactions
+     */
+    private static final long TX_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 小区块缓存只有100条，使用单个分段，保证淘汰的是全局最久未访问的条目，而不是某个25条分段里的
+     * The small block caches hold only 100 entries and use a single segment, so eviction is a true global LRU
+     * instead of per 25-entry segment
+     */
+    private static final int SMALL_BLOCK_CACHE_SIZE = 100;
+
+    private BoundedConcurrentMap<NulsDigestData, SmallBlock> smallBlockCacheMap = new BoundedConcurrentMap<>(SMALL_BLOCK_CACHE_SIZE, 1, (hash, block) -> 1);
+    private BoundedConcurrentMap<NulsDigestData, NulsDigestData> smallBlockHashCacheMap = new BoundedConcurrentMap<>(SMALL_BLOCK_CACHE_SIZE, 1, (hash, blockHash) -> 1);
 //    private CacheMap<NulsDigestData, Transaction> txCacheMap = new CacheMap<>("temp-tx-cache", 128, NulsDigestData.class, Transaction.class, 0, 3600);
 
-    private LimitHashMap<NulsDigestData, Transaction> txCacheMap = new LimitHashMap<>(100000);
+    private BoundedConcurrentMap<NulsDigestData, Transaction> txCacheMap = new BoundedConcurrentMap<>(TX_CACHE_MAX_BYTES, (hash, tx) -> tx.getSize());
 
     private TemporaryCacheManager() {
 
@@ -56,6 +56,15 @@ public interface ProtocolConstant extends NulsConstant {
      */
     short MODULE_ID_PROTOCOL = 3;
 
+    /**
+     * 协议模块的配置项
+     * Configuration items of the protocol module
+     */
+    String CFG_PROTOCOL_SECTION = "protocol";
+    String CFG_TX_FILTER_ELEMENTS = "tx.filter.elements";
+    String CFG_TX_FILTER_FPP = "tx.filter.fpp";
+    String CFG_TX_FILTER_ROTATE_MINUTES = "tx.filter.rotate.minutes";
+
     /**
      * 系统运行的最小连接节点数量
      * The number of minimum connection nodes that the system runs.
@@ -158,6 +167,12 @@ public interface ProtocolConstant extends NulsConstant {
     short PROTOCOL_FORWARD_NEW_BLOCK = 18;
     short PROTOCOL_GET_SMALL_BLOCK = 19;
     short PROTOCOL_GET_TRANSACTION = 20;
+    /**
+     * 紧凑区块（短交易ID）及其请求
+     * Compact block (short tx ids) and the request for it
+     */
+    short PROTOCOL_COMPACT_BLOCK = 21;
+    short PROTOCOL_GET_COMPACT_BLOCK = 22;
     //协议升级要求最低覆盖率
     int MIN_PROTOCOL_UPGRADE_RATE = 70; 
 
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.protocol.message;
+
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.model.Block;
+import io.nuls.kernel.utils.NulsByteBuffer;
+import io.nuls.kernel.utils.NulsOutputStreamBuffer;
+import io.nuls.protocol.constant.ProtocolConstant;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * 直接携带区块原始字节的区块消息，只用于发送，对端按普通的区块消息接收
+ * 字节可以来自内存，也可以是文件中的一段，后者由网络层以零拷贝的方式发送
+ * Block message carrying the raw block bytes directly, only used for sending, the peer receives it as a normal block message.
+ * The bytes are either in memory or a region of a file, the latter is sent zero-copy by the network layer.
+ */
+public class RawBlockMessage extends BaseProtocolMessage<Block> {
+
+    private byte[] blockBytes;
+
+    private File file;
+
+    private long offset;
+
+    private int length;
+
+    public RawBlockMessage() {
+        super(ProtocolConstant.PROTOCOL_BLOCK);
+    }
+
+    public RawBlockMessage(byte[] blockBytes) {
+        this();
+        this.blockBytes = blockBytes;
+        this.length = blockBytes.length;
+    }
+
+    public RawBlockMessage(File file, long offset, int length) {
+        this();
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    protected Block parseMessageBody(NulsByteBuffer byteBuffer) throws NulsException {
+        return byteBuffer.readNulsData(new Block());
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.write(getHeader().serialize());
+        stream.write(getBlockBytes());
+    }
+
+    @Override
+    public int size() {
+        return getHeader().size() + length;
+    }
+
+    /**
+     * 区块字节，来自文件时在此读取
+     * The block bytes, read here when they come from a file.
+     */
+    public byte[] getBlockBytes() throws IOException {
+        if (null != blockBytes) {
+            return blockBytes;
+        }
+        byte[] bytes = new byte[length];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(offset);
+            raf.readFully(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * 区块字节是否是文件中的一段
+     * Whether the block bytes are a region of a file.
+     */
+    public boolean isFileRegion() {
+        return null == blockBytes && null != file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
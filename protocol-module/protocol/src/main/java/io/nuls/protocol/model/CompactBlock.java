@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.protocol.model;
+
+import io.nuls.kernel.exception.NulsException;
+import io.nuls.kernel.model.BaseNulsData;
+import io.nuls.kernel.model.BlockHeader;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.utils.NulsByteBuffer;
+import io.nuls.kernel.utils.NulsOutputStreamBuffer;
+import io.nuls.kernel.utils.SerializeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 紧凑区块：区块头、预填充的系统交易（带在区块中的位置），其余交易只用6字节的短交易ID表示
+ * 短交易ID以区块hash为盐计算，接收方用内存池的短ID索引还原区块，无法还原时改为请求完整的SmallBlock
+ * Compact block: the block header, the prefilled system transactions with their position in the block,
+ * and a 6-byte short id for every other transaction. Short ids are salted with the block hash, the receiver
+ * rebuilds the block from the short id index of its memory pool and falls back to the full SmallBlock otherwise.
+ */
+public class CompactBlock extends BaseNulsData {
+
+    private BlockHeader header;
+
+    /**
+     * 预填充交易在区块中的位置，与prefilledTxList一一对应
+     * Positions of the prefilled transactions in the block, parallel to prefilledTxList
+     */
+    private List<Integer> prefilledIndexList = new ArrayList<>();
+
+    private List<Transaction> prefilledTxList = new ArrayList<>();
+
+    /**
+     * 非预填充交易按区块中的顺序排列的短交易ID
+     * Short ids of the non-prefilled transactions, in block order
+     */
+    private List<Long> shortIdList = new ArrayList<>();
+
+    public CompactBlock() {
+    }
+
+    @Override
+    public int size() {
+        int size = header.size();
+        size += SerializeUtils.sizeOfVarInt(prefilledTxList.size());
+        for (int i = 0; i < prefilledTxList.size(); i++) {
+            size += SerializeUtils.sizeOfVarInt(prefilledIndexList.get(i));
+            size += SerializeUtils.sizeOfNulsData(prefilledTxList.get(i));
+        }
+        size += SerializeUtils.sizeOfVarInt(shortIdList.size());
+        size += shortIdList.size() * SerializeUtils.sizeOfUint48();
+        return size;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeNulsData(header);
+        stream.writeVarInt(prefilledTxList.size());
+        for (int i = 0; i < prefilledTxList.size(); i++) {
+            stream.writeVarInt(prefilledIndexList.get(i));
+            stream.writeNulsData(prefilledTxList.get(i));
+        }
+        stream.writeVarInt(shortIdList.size());
+        for (Long shortId : shortIdList) {
+            stream.writeUint48(shortId);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.header = byteBuffer.readNulsData(new BlockHeader());
+        this.prefilledIndexList = new ArrayList<>();
+        this.prefilledTxList = new ArrayList<>();
+        long prefilledCount = byteBuffer.readVarInt();
+        for (int i = 0; i < prefilledCount; i++) {
+            this.prefilledIndexList.add((int) byteBuffer.readVarInt());
+            Transaction tx = byteBuffer.readTransaction();
+            tx.setBlockHeight(header.getHeight());
+            this.prefilledTxList.add(tx);
+        }
+        this.shortIdList = new ArrayList<>();
+        long shortIdCount = byteBuffer.readVarInt();
+        for (int i = 0; i < shortIdCount; i++) {
+            this.shortIdList.add(byteBuffer.readUint48());
+        }
+    }
+
+    public BlockHeader getHeader() {
+        return header;
+    }
+
+    public void setHeader(BlockHeader header) {
+        this.header = header;
+    }
+
+    public List<Integer> getPrefilledIndexList() {
+        return prefilledIndexList;
+    }
+
+    public List<Transaction> getPrefilledTxList() {
+        return prefilledTxList;
+    }
+
+    public void addPrefilledTx(int index, Transaction tx) {
+        this.prefilledIndexList.add(index);
+        this.prefilledTxList.add(tx);
+    }
+
+    public List<Long> getShortIdList() {
+        return shortIdList;
+    }
+
+    public void setShortIdList(List<Long> shortIdList) {
+        this.shortIdList = shortIdList;
+    }
+}
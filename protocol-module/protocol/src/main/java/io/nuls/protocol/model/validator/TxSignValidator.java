@@ -39,6 +39,9 @@ public class TxSignValidator implements NulsDataValidator<Transaction> {
 
     @Override
     public ValidateResult validate(Transaction tx) {
+        if (tx.isSignatureVerified()) {
+            return ValidateResult.getSuccessResult();
+        }
         try {
             if (SignatureUtil.validateTransactionSignture(tx)) {
                 return ValidateResult.getSuccessResult();
@@ -115,6 +115,15 @@ public interface BlockService {
      */
     Result<Block> getBlock(long height, boolean isNeedContractTransfer);
 
+    /**
+     * 根据区块高度获取区块在网络上传输的原始字节，优先从原始区块存储中直接读取
+     * Get the raw wire bytes of the block at the height, read directly from the raw block storage when possible.
+     *
+     * @param height 区块高度/block height
+     * @return 区块字节/block bytes
+     */
+    Result<byte[]> getBlockBytes(long height);
+
     List<String> getBlockTxHash(long height);
 
     /**
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.protocol.utils;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.nuls.core.tools.crypto.Sha256Hash;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.utils.SerializeUtils;
+import io.nuls.network.constant.NetworkConstant;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.model.CompactBlock;
+import io.nuls.protocol.model.SmallBlock;
+
+import java.util.*;
+
+/**
+ * 紧凑区块工具：短交易ID计算、SmallBlock与CompactBlock之间的转换以及节点能力判断
+ * 短交易ID = SipHash-2-4(key = SHA256(区块hash)的前16字节, 交易hash) 的低48位
+ * Compact block helpers: short tx ids, conversion between SmallBlock and CompactBlock, and the peer capability check.
+ * short id = low 48 bits of SipHash-2-4(key = first 16 bytes of SHA256(block hash), tx hash)
+ */
+public final class CompactBlockUtil {
+
+    public static final long SHORT_ID_MASK = 0xFFFFFFFFFFFFL;
+
+    private CompactBlockUtil() {
+    }
+
+    /**
+     * 根据区块hash生成短交易ID的哈希函数
+     * The short id hash function salted by the block hash
+     */
+    public static HashFunction getShortIdFunction(NulsDigestData blockHash) {
+        byte[] key = Sha256Hash.of(blockHash.getDigestBytes()).getBytes();
+        return Hashing.sipHash24(SerializeUtils.readInt64LE(key, 0), SerializeUtils.readInt64LE(key, 8));
+    }
+
+    public static long getShortId(HashFunction function, NulsDigestData txHash) {
+        return function.hashBytes(txHash.getDigestBytes()).asLong() & SHORT_ID_MASK;
+    }
+
+    /**
+     * 生成交易的短ID索引，短ID冲突的条目值为null，表示无法通过短ID还原
+     * Build a short id index of the transactions; a colliding short id maps to null, meaning it cannot be resolved
+     */
+    public static Map<Long, Transaction> buildShortIdIndex(NulsDigestData blockHash, Collection<Transaction> txs) {
+        HashFunction function = getShortIdFunction(blockHash);
+        Map<Long, Transaction> index = new HashMap<>(txs.size() * 4 / 3 + 1);
+        for (Transaction tx : txs) {
+            long shortId = getShortId(function, tx.getHash());
+            if (index.containsKey(shortId)) {
+                Transaction other = index.get(shortId);
+                if (null == other || !other.getHash().equals(tx.getHash())) {
+                    index.put(shortId, null);
+                }
+                continue;
+            }
+            index.put(shortId, tx);
+        }
+        return index;
+    }
+
+    /**
+     * 将SmallBlock转为CompactBlock，系统交易预填充；区块内短ID冲突时返回null，此时应发送完整的SmallBlock
+     * Convert a SmallBlock, prefilling its system transactions; returns null when two transactions of the block
+     * share a short id, the full SmallBlock has to be sent then
+     */
+    public static CompactBlock toCompactBlock(SmallBlock smallBlock) {
+        Map<NulsDigestData, Transaction> prefilled = new HashMap<>();
+        for (Transaction tx : smallBlock.getSubTxList()) {
+            prefilled.put(tx.getHash(), tx);
+        }
+        HashFunction function = getShortIdFunction(smallBlock.getHeader().getHash());
+        CompactBlock compactBlock = new CompactBlock();
+        compactBlock.setHeader(smallBlock.getHeader());
+        List<Long> shortIdList = new ArrayList<>();
+        Set<Long> shortIdSet = new HashSet<>();
+        List<NulsDigestData> hashList = smallBlock.getTxHashList();
+        for (int i = 0; i < hashList.size(); i++) {
+            NulsDigestData hash = hashList.get(i);
+            Transaction tx = prefilled.get(hash);
+            if (null != tx) {
+                compactBlock.addPrefilledTx(i, tx);
+                continue;
+            }
+            long shortId = getShortId(function, hash);
+            if (!shortIdSet.add(shortId)) {
+                return null;
+            }
+            shortIdList.add(shortId);
+        }
+        compactBlock.setShortIdList(shortIdList);
+        return compactBlock;
+    }
+
+    /**
+     * 用短ID索引还原出包含全部交易的SmallBlock，有交易缺失、短ID冲突或默克尔根不符时返回null
+     * Rebuild a SmallBlock carrying every transaction from the short id index. Returns null when a transaction
+     * is missing, a short id is ambiguous or the merkle root does not match.
+     */
+    public static SmallBlock toSmallBlock(CompactBlock compactBlock, Map<Long, Transaction> shortIdIndex) {
+        List<Integer> prefilledIndexList = compactBlock.getPrefilledIndexList();
+        List<Long> shortIdList = compactBlock.getShortIdList();
+        int txCount = prefilledIndexList.size() + shortIdList.size();
+        if (txCount != compactBlock.getHeader().getTxCount()) {
+            return null;
+        }
+        Transaction[] txs = new Transaction[txCount];
+        for (int i = 0; i < prefilledIndexList.size(); i++) {
+            int index = prefilledIndexList.get(i);
+            if (index < 0 || index >= txCount || null != txs[index]) {
+                return null;
+            }
+            txs[index] = compactBlock.getPrefilledTxList().get(i);
+        }
+        int cursor = 0;
+        for (Long shortId : shortIdList) {
+            while (null != txs[cursor]) {
+                cursor++;
+            }
+            Transaction tx = shortIdIndex.get(shortId);
+            if (null == tx) {
+                return null;
+            }
+            txs[cursor] = tx;
+        }
+        List<NulsDigestData> hashList = new ArrayList<>(txCount);
+        for (Transaction tx : txs) {
+            hashList.add(tx.getHash());
+        }
+        if (!NulsDigestData.calcMerkleDigestData(new ArrayList<>(hashList)).equals(compactBlock.getHeader().getMerkleHash())) {
+            return null;
+        }
+        SmallBlock smallBlock = new SmallBlock();
+        smallBlock.setHeader(compactBlock.getHeader());
+        smallBlock.setTxHashList(hashList);
+        for (Transaction tx : txs) {
+            smallBlock.addBaseTx(tx);
+        }
+        return smallBlock;
+    }
+
+    /**
+     * 节点是否支持紧凑区块，依据对方在握手及VersionMessage中声明的服务标识
+     * Whether the peer supports compact blocks, based on the service flags it declared in the handshake and VersionMessage
+     */
+    public static boolean isSupported(Node node) {
+        return null != node && node.hasServices(NetworkConstant.SERVICE_COMPACT_BLOCK);
+    }
+}
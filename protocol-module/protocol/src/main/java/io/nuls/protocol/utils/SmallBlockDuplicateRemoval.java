@@ -47,6 +47,14 @@ public class SmallBlockDuplicateRemoval {
         return processorOfSmallBlock.insertAndCheck(hash);
     }
 
+    /**
+     * 区块是否已经作为SmallBlock处理过（不做标记）
+     * Whether the block has already been processed as a SmallBlock, without marking it
+     */
+    public static boolean isProcessed(NulsDigestData hash) {
+        return !processorOfSmallBlock.check(hash);
+    }
+
     public static void removeForward(NulsDigestData hash) {
         processorOfForward.remove(hash);
     }
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.protocol.utils;
+
+import io.nuls.kernel.model.BlockHeader;
+import io.nuls.kernel.model.NulsDigestData;
+import io.nuls.kernel.model.Transaction;
+import io.nuls.kernel.utils.NulsByteBuffer;
+import io.nuls.network.constant.NetworkConstant;
+import io.nuls.network.model.Node;
+import io.nuls.protocol.cache.CacheTestTx;
+import io.nuls.protocol.model.CompactBlock;
+import io.nuls.protocol.model.SmallBlock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 紧凑区块转换测试：还原、交易缺失时的回退、序列化以及版本比较
+ * Compact block conversion test: rebuilding, the fallback on a missing transaction, serialization and version comparison.
+ */
+public class CompactBlockUtilTest {
+
+    private SmallBlock smallBlock;
+
+    private List<Transaction> poolTxList;
+
+    @Before
+    public void init() {
+        List<Transaction> txList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Transaction tx = new CacheTestTx();
+            tx.setTime(1000L + i);
+            txList.add(tx);
+        }
+        List<NulsDigestData> hashList = new ArrayList<>();
+        for (Transaction tx : txList) {
+            hashList.add(tx.getHash());
+        }
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(NulsDigestData.calcDigestData("pre".getBytes()));
+        header.setMerkleHash(NulsDigestData.calcMerkleDigestData(new ArrayList<>(hashList)));
+        header.setTime(1000L);
+        header.setHeight(10);
+        header.setTxCount(txList.size());
+        header.setExtend(new byte[]{1, 2, 3});
+
+        smallBlock = new SmallBlock();
+        smallBlock.setHeader(header);
+        smallBlock.setTxHashList(hashList);
+        smallBlock.addBaseTx(txList.get(0));
+        poolTxList = new ArrayList<>(txList.subList(1, txList.size()));
+    }
+
+    @Test
+    public void rebuild() {
+        CompactBlock compactBlock = CompactBlockUtil.toCompactBlock(smallBlock);
+        assertNotNull(compactBlock);
+        assertEquals(1, compactBlock.getPrefilledTxList().size());
+        assertEquals(Integer.valueOf(0), compactBlock.getPrefilledIndexList().get(0));
+        assertEquals(19, compactBlock.getShortIdList().size());
+
+        NulsDigestData blockHash = smallBlock.getHeader().getHash();
+        Map<Long, Transaction> index = CompactBlockUtil.buildShortIdIndex(blockHash, poolTxList);
+        SmallBlock rebuilt = CompactBlockUtil.toSmallBlock(compactBlock, index);
+        assertNotNull(rebuilt);
+        assertEquals(smallBlock.getTxHashList(), rebuilt.getTxHashList());
+        assertEquals(20, rebuilt.getSubTxList().size());
+    }
+
+    @Test
+    public void missingTxFallsBack() {
+        CompactBlock compactBlock = CompactBlockUtil.toCompactBlock(smallBlock);
+        NulsDigestData blockHash = smallBlock.getHeader().getHash();
+        poolTxList.remove(5);
+        Map<Long, Transaction> index = CompactBlockUtil.buildShortIdIndex(blockHash, poolTxList);
+        assertNull(CompactBlockUtil.toSmallBlock(compactBlock, index));
+
+        Map<Long, Transaction> otherSalt = CompactBlockUtil.buildShortIdIndex(NulsDigestData.calcDigestData("other".getBytes()), poolTxList);
+        assertNull(CompactBlockUtil.toSmallBlock(compactBlock, otherSalt));
+    }
+
+    @Test
+    public void serialize() throws Exception {
+        smallBlock.getSubTxList().clear();
+        CompactBlock compactBlock = CompactBlockUtil.toCompactBlock(smallBlock);
+        byte[] bytes = compactBlock.serialize();
+        assertEquals(compactBlock.size(), bytes.length);
+
+        CompactBlock parsed = new CompactBlock();
+        parsed.parse(new NulsByteBuffer(bytes));
+        assertEquals(smallBlock.getHeader().getHash(), parsed.getHeader().getHash());
+        assertEquals(compactBlock.getShortIdList(), parsed.getShortIdList());
+        assertTrue(parsed.getPrefilledTxList().isEmpty());
+    }
+
+    @Test
+    public void isSupported() {
+        Node node = new Node();
+        assertFalse(CompactBlockUtil.isSupported(node));
+        node.setRemoteVersion("1.10.0");
+        assertFalse(CompactBlockUtil.isSupported(node));
+        node.setServices(NetworkConstant.SERVICE_COMPACT_BLOCK);
+        assertTrue(CompactBlockUtil.isSupported(node));
+        assertFalse(CompactBlockUtil.isSupported(null));
+    }
+}
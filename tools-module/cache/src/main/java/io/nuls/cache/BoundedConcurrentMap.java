@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段加锁的有界并发缓存，每个分段内部按LRU淘汰，插入、删除、淘汰都是O(1)，写满后每次只淘汰最久未访问的条目
+ * 容量按权重计算，默认每个条目权重为1（即按条目数），也可以传入按字节计算的权重函数
+ * A segmented, lock-striped bounded concurrent map. Every segment evicts in LRU order, insert, remove and evict
+ * are all O(1), and a full map only evicts the least recently used entries instead of half of its content.
+ * The capacity is a total weight, 1 per entry by default (entry count), or any weigher such as the size in bytes.
+ */
+public class BoundedConcurrentMap<K, V> {
+
+    /**
+     * 条目权重计算函数
+     * Computes the weight of an entry.
+     */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_WEIGHT = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final long maxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public BoundedConcurrentMap(int maxSize) {
+        this(maxSize, MAX_SEGMENTS, (k, v) -> 1);
+    }
+
+    public BoundedConcurrentMap(long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this(maxWeight, MAX_SEGMENTS, weigher);
+    }
+
+    /**
+     * @param maxWeight        总权重上限 the total weight limit
+     * @param concurrencyLevel 分段数上限，单个分段容量不能大于其中最大的条目 upper bound of segments, a segment must hold the largest entry
+     * @param weigher          条目权重 the entry weigher
+     */
+    public BoundedConcurrentMap(long maxWeight, int concurrencyLevel, Weigher<? super K, ? super V> weigher) {
+        if (maxWeight <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("maxWeight and concurrencyLevel must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        int count = (int) Math.min(Math.min(concurrencyLevel, MAX_SEGMENTS), Math.max(1, maxWeight / MIN_SEGMENT_WEIGHT));
+        count = Integer.highestOneBit(count);
+        this.segmentMask = count - 1;
+        this.segments = new Segment[count];
+        long segmentWeight = maxWeight / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentWeight);
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * 放入缓存，key已存在时替换并返回false，新增时返回true
+     * Put an entry. Returns false when the key already existed (the value is replaced), true for a new entry.
+     */
+    public boolean put(K k, V v) {
+        int weight = weigher.weigh(k, v);
+        Segment<K, V> segment = segmentFor(k);
+        segment.lock();
+        try {
+            if (weight > segment.maxWeight) {
+                // 单个条目超过分段容量，不缓存 A single entry larger than a segment is never cached
+                Entry<V> old = segment.map.remove(k);
+                if (null != old) {
+                    segment.weight -= old.weight;
+                }
+                evictionCount.increment();
+                return false;
+            }
+            Entry<V> old = segment.map.put(k, new Entry<>(v, weight));
+            if (null != old) {
+                segment.weight -= old.weight;
+            }
+            segment.weight += weight;
+            evict(segment);
+            return null == old;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    private void evict(Segment<K, V> segment) {
+        if (segment.weight <= segment.maxWeight) {
+            return;
+        }
+        Iterator<Entry<V>> it = segment.map.values().iterator();
+        while (segment.weight > segment.maxWeight && it.hasNext()) {
+            Entry<V> eldest = it.next();
+            it.remove();
+            segment.weight -= eldest.weight;
+            evictionCount.increment();
+        }
+    }
+
+    public V get(K k) {
+        Segment<K, V> segment = segmentFor(k);
+        segment.lock();
+        try {
+            Entry<V> entry = segment.map.get(k);
+            if (null == entry) {
+                missCount.increment();
+                return null;
+            }
+            hitCount.increment();
+            return entry.value;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    public V remove(K k) {
+        Segment<K, V> segment = segmentFor(k);
+        segment.lock();
+        try {
+            Entry<V> entry = segment.map.remove(k);
+            if (null == entry) {
+                return null;
+            }
+            segment.weight -= entry.weight;
+            return entry.value;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 判断是否包含，不影响淘汰顺序，也不计入命中统计
+     * Whether the key is cached; neither touches the LRU order nor the hit statistics.
+     */
+    public boolean containsKey(K k) {
+        Segment<K, V> segment = segmentFor(k);
+        segment.lock();
+        try {
+            return segment.map.containsKey(k);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                segment.map.clear();
+                segment.weight = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 当前所有值的快照
+     * A snapshot of all values.
+     */
+    public Collection<V> values() {
+        List<V> list = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                for (Entry<V> entry : segment.map.values()) {
+                    list.add(entry.value);
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+        return list;
+    }
+
+    public long getWeightedSize() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                weight += segment.weight;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double getHitRate() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final int weight;
+
+        private Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment<K, V> extends ReentrantLock {
+        /**
+         * 访问顺序的LinkedHashMap，迭代起点即最久未访问的条目
+         * Access ordered, so iteration starts at the least recently used entry
+         */
+        private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxWeight;
+        private long weight;
+
+        private Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+    }
+}
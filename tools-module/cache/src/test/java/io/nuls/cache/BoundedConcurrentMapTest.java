@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class BoundedConcurrentMapTest {
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        BoundedConcurrentMap<Integer, String> map = new BoundedConcurrentMap<>(10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(map.put(i, "v" + i));
+        }
+        assertFalse(map.put(0, "v0"));
+        assertEquals("v0", map.get(0));
+        assertEquals(10, map.size());
+
+        assertTrue(map.put(10, "v10"));
+        assertEquals(10, map.size());
+        assertEquals(1, map.getEvictionCount());
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(1));
+
+        assertEquals("v5", map.remove(5));
+        assertNull(map.remove(5));
+        assertNull(map.get(5));
+        assertEquals(9, map.size());
+        assertEquals(1, map.getHitCount());
+        assertEquals(1, map.getMissCount());
+    }
+
+    @Test
+    public void weighted() {
+        BoundedConcurrentMap<String, byte[]> map = new BoundedConcurrentMap<>(1024, 1, (k, v) -> v.length);
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, new byte[100]);
+            assertTrue(map.getWeightedSize() <= 1024);
+        }
+        assertTrue(map.size() > 0);
+        assertTrue(map.getEvictionCount() > 0);
+        assertFalse(map.put("big", new byte[4096]));
+        assertFalse(map.containsKey("big"));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.getWeightedSize());
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        BoundedConcurrentMap<Integer, Integer> map = new BoundedConcurrentMap<>(5000);
+        int threads = 8;
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> list = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * 100000;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        map.put(base + i, i);
+                        Integer value = map.get(base + i / 2);
+                        if (null != value && value != i / 2) {
+                            failed.set(true);
+                        }
+                        if (i % 3 == 0) {
+                            map.remove(base + i);
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+        latch.await();
+        assertFalse(failed.get());
+        assertTrue(map.getWeightedSize() <= 5000);
+        assertEquals(map.size(), map.getWeightedSize());
+    }
+}
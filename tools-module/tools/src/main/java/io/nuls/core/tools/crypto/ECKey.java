@@ -243,6 +243,10 @@ public class ECKey {
         return CURVE.getCurve().createPoint(x, y, compressed);
     }
 
+    /**
+     * 参考实现，{@link Secp256k1Verifier}的结果必须与它一致
+     * Reference implementation, the results of {@link Secp256k1Verifier} must match it
+     */
     public static boolean verify(byte[] data, ECDSASignature signature, byte[] pub) {
         ECDSASigner signer = new ECDSASigner();
         ECPublicKeyParameters params = new ECPublicKeyParameters(CURVE.getCurve().decodePoint(pub), CURVE);
@@ -256,7 +260,7 @@ public class ECKey {
     }
 
     public static boolean verify(byte[] data, byte[] signature, byte[] pub) {
-        return verify(data, ECDSASignature.decodeFromDER(signature), pub);
+        return Secp256k1Verifier.verify(data, signature, pub);
     }
 
     public boolean verify(byte[] hash, byte[] signature) {
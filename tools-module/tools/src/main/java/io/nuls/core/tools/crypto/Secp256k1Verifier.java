@@ -0,0 +1,240 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.tools.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.GLVMultiplier;
+import org.spongycastle.math.ec.endo.GLVEndomorphism;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * secp256k1签名验证的快速实现，结果与{@link ECKey#verify(byte[], ECKey.ECDSASignature, byte[])}一致
+ * u1*G使用基点G预计算的comb表，u2*Q使用GLV自同态分解，解码后的公钥点会被缓存，连同它的预计算表一起复用
+ * <p>
+ * Fast secp256k1 signature verification, with the same results as
+ * {@link ECKey#verify(byte[], ECKey.ECDSASignature, byte[])}. u1*G uses the precomputed comb table of the base
+ * point, u2*Q uses the GLV endomorphism. Decoded public key points are cached and reused together with their
+ * precomputation tables.
+ */
+public final class Secp256k1Verifier {
+
+    private static final Logger log = LoggerFactory.getLogger(Secp256k1Verifier.class);
+
+    /**
+     * 缓存的公钥点数量
+     * Number of cached public key points
+     */
+    public static final int PUB_KEY_CACHE_SIZE = 10000;
+
+    private static final ECDomainParameters CURVE = ECKey.CURVE;
+    private static final BigInteger N = CURVE.getN();
+    private static final ECPoint G = CURVE.getG();
+
+    private static final FixedPointCombMultiplier COMB_MULTIPLIER = new FixedPointCombMultiplier();
+    private static final GLVMultiplier GLV_MULTIPLIER = new GLVMultiplier(CURVE.getCurve(), (GLVEndomorphism) CURVE.getCurve().getEndomorphism());
+
+    private static final Cache<ByteBuffer, ECPoint> PUB_KEY_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(PUB_KEY_CACHE_SIZE).build();
+
+    private Secp256k1Verifier() {
+    }
+
+    /**
+     * 验证DER编码的签名，签名或公钥编码错误时与参考实现一样抛出异常
+     * Verifies a DER encoded signature, throws like the reference implementation when the signature or the public
+     * key is malformed
+     */
+    public static boolean verify(byte[] data, byte[] signature, byte[] pub) {
+        return verify(data, decodeSignature(signature), pub);
+    }
+
+    public static boolean verify(byte[] data, ECKey.ECDSASignature signature, byte[] pub) {
+        ECPoint q = decodePubKey(pub);
+        try {
+            ECPoint point = multiply(data, signature, q);
+            if (point == null) {
+                return false;
+            }
+            point = point.normalize();
+            return point.getAffineXCoord().toBigInteger().mod(N).equals(signature.r);
+        } catch (NullPointerException e) {
+            log.error("Caught NPE inside bouncy castle", e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量验证，所有候选点共用一次模逆运算转换为仿射坐标，编码错误的签名或公钥验证结果为false
+     * ECDSA签名只包含R点的x坐标，无法把多个签名合并成一次多标量乘法，所以每个签名仍单独计算
+     * <p>
+     * Verifies a batch of signatures, the candidate points of all signatures are normalized with one shared
+     * inversion. Malformed signatures or public keys verify as false. An ECDSA signature only carries the x
+     * coordinate of R, so signatures cannot be merged into one multi-scalar multiplication and each is still
+     * computed on its own.
+     *
+     * @return 每个签名的验证结果/the result for every signature
+     */
+    public static boolean[] verifyBatch(byte[][] data, byte[][] signatures, byte[][] pubs) {
+        int size = data.length;
+        if (signatures.length != size || pubs.length != size) {
+            throw new IllegalArgumentException("batch sizes differ");
+        }
+        ECKey.ECDSASignature[] decoded = new ECKey.ECDSASignature[size];
+        ECPoint[] points = new ECPoint[size];
+        int count = 0;
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            try {
+                decoded[i] = decodeSignature(signatures[i]);
+                ECPoint point = multiply(data[i], decoded[i], decodePubKey(pubs[i]));
+                if (point != null) {
+                    points[count] = point;
+                    indexes[count++] = i;
+                }
+            } catch (RuntimeException e) {
+                // 编码错误，结果为false
+                // malformed input, the result stays false
+            }
+        }
+        boolean[] results = new boolean[size];
+        if (count == 0) {
+            return results;
+        }
+        ECPoint[] candidates = count == size ? points : Arrays.copyOf(points, count);
+        CURVE.getCurve().normalizeAll(candidates);
+        for (int j = 0; j < count; j++) {
+            int i = indexes[j];
+            results[i] = candidates[j].getAffineXCoord().toBigInteger().mod(N).equals(decoded[i].r);
+        }
+        return results;
+    }
+
+    /**
+     * 计算u1*G + u2*Q，签名的r、s不在[1, n-1]范围内或结果为无穷远点时返回null
+     * Computes u1*G + u2*Q, returns null when r or s is out of [1, n-1] or the result is the point at infinity
+     */
+    private static ECPoint multiply(byte[] data, ECKey.ECDSASignature signature, ECPoint q) {
+        BigInteger r = signature.r;
+        BigInteger s = signature.s;
+        if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+            return null;
+        }
+        BigInteger e = calculateE(data);
+        BigInteger c = s.modInverse(N);
+        BigInteger u1 = e.multiply(c).mod(N);
+        BigInteger u2 = r.multiply(c).mod(N);
+        ECPoint point = COMB_MULTIPLIER.multiply(G, u1).add(GLV_MULTIPLIER.multiply(q, u2));
+        return point.isInfinity() ? null : point;
+    }
+
+    /**
+     * 与ECDSASigner相同：摘要长于n的位数时只取高位
+     * Same as ECDSASigner: a digest longer than the bit length of n is truncated to its leftmost bits
+     */
+    private static BigInteger calculateE(byte[] message) {
+        int log2n = N.bitLength();
+        int messageBitLength = message.length * 8;
+        BigInteger e = new BigInteger(1, message);
+        if (log2n < messageBitLength) {
+            e = e.shiftRight(messageBitLength - log2n);
+        }
+        return e;
+    }
+
+    /**
+     * 解码公钥点，解码成功的公钥点会被缓存，解码失败时抛出与参考实现相同的异常
+     * Decodes a public key point, successfully decoded points are cached, a malformed key throws the same
+     * exception as the reference implementation
+     */
+    static ECPoint decodePubKey(byte[] pub) {
+        ByteBuffer key = ByteBuffer.wrap(pub);
+        ECPoint point = PUB_KEY_CACHE.getIfPresent(key);
+        if (point == null) {
+            point = new ECPublicKeyParameters(CURVE.getCurve().decodePoint(pub), CURVE).getQ();
+            PUB_KEY_CACHE.put(ByteBuffer.wrap(pub.clone()), point);
+        }
+        return point;
+    }
+
+    /**
+     * 解析严格DER编码的签名，其他形式交给参考实现{@link ECKey.ECDSASignature#decodeFromDER(byte[])}处理
+     * Parses a strictly DER encoded signature, anything else is left to the reference implementation
+     * {@link ECKey.ECDSASignature#decodeFromDER(byte[])}
+     */
+    static ECKey.ECDSASignature decodeSignature(byte[] bytes) {
+        if (bytes == null || bytes.length < 8 || bytes.length > 72 || bytes[0] != 0x30 || bytes[1] != bytes.length - 2) {
+            return ECKey.ECDSASignature.decodeFromDER(bytes);
+        }
+        int rLength = integerLength(bytes, 2);
+        if (rLength < 0) {
+            return ECKey.ECDSASignature.decodeFromDER(bytes);
+        }
+        int sOffset = 4 + rLength;
+        int sLength = integerLength(bytes, sOffset);
+        if (sLength < 0 || sOffset + 2 + sLength != bytes.length) {
+            return ECKey.ECDSASignature.decodeFromDER(bytes);
+        }
+        BigInteger r = new BigInteger(1, Arrays.copyOfRange(bytes, 4, 4 + rLength));
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(bytes, sOffset + 2, sOffset + 2 + sLength));
+        return new ECKey.ECDSASignature(r, s);
+    }
+
+    /**
+     * 检查offset处是否为最小编码的非负INTEGER，返回内容长度，否则返回-1
+     * Checks for a minimally encoded non-negative INTEGER at offset and returns its content length, -1 otherwise
+     */
+    private static int integerLength(byte[] bytes, int offset) {
+        if (offset + 2 > bytes.length || bytes[offset] != 0x02) {
+            return -1;
+        }
+        int length = bytes[offset + 1];
+        int start = offset + 2;
+        if (length < 1 || length > 33 || start + length > bytes.length) {
+            return -1;
+        }
+        if (bytes[start] < 0) {
+            return -1;
+        }
+        if (length > 1 && bytes[start] == 0 && bytes[start + 1] >= 0) {
+            return -1;
+        }
+        return length;
+    }
+
+    static void clearPubKeyCache() {
+        PUB_KEY_CACHE.invalidateAll();
+    }
+}
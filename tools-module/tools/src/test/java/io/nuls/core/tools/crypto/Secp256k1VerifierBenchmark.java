@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.tools.crypto;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单核每秒签名验证次数：参考实现、快速验证和批量验证
+ * Signature verifications per second on one core: reference implementation, fast path and batch verification.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class Secp256k1VerifierBenchmark {
+
+    private static final int SIGNATURES = 256;
+
+    private static final int KEYS = 32;
+
+    private byte[][] data;
+
+    private byte[][] signatures;
+
+    private byte[][] pubs;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1L);
+        ECKey[] keys = new ECKey[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = new ECKey();
+        }
+        data = new byte[SIGNATURES][32];
+        signatures = new byte[SIGNATURES][];
+        pubs = new byte[SIGNATURES][];
+        for (int i = 0; i < SIGNATURES; i++) {
+            random.nextBytes(data[i]);
+            ECKey key = keys[i % KEYS];
+            signatures[i] = key.sign(data[i]);
+            pubs[i] = key.getPubKey();
+        }
+    }
+
+    @Benchmark
+    public boolean reference() {
+        int i = index++ & (SIGNATURES - 1);
+        return ECKey.verify(data[i], ECKey.ECDSASignature.decodeFromDER(signatures[i]), pubs[i]);
+    }
+
+    @Benchmark
+    public boolean fast() {
+        int i = index++ & (SIGNATURES - 1);
+        return Secp256k1Verifier.verify(data[i], signatures[i], pubs[i]);
+    }
+
+    @Benchmark
+    public boolean fastUncachedPubKey() {
+        Secp256k1Verifier.clearPubKeyCache();
+        int i = index++ & (SIGNATURES - 1);
+        return Secp256k1Verifier.verify(data[i], signatures[i], pubs[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNATURES)
+    public boolean[] batch() {
+        return Secp256k1Verifier.verifyBatch(data, signatures, pubs);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(Secp256k1VerifierBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
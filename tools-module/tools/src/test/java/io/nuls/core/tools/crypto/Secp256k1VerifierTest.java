@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.tools.crypto;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 快速验证与参考实现{@link ECKey#verify(byte[], ECKey.ECDSASignature, byte[])}的差分测试
+ * Differential tests of the fast verifier against the reference implementation
+ */
+public class Secp256k1VerifierTest {
+
+    private static final int ROUNDS = 200;
+
+    private final Random random = new Random(20190101L);
+
+    private byte[] randomDigest() {
+        byte[] digest = new byte[32];
+        random.nextBytes(digest);
+        return digest;
+    }
+
+    private static boolean reference(byte[] data, byte[] signature, byte[] pub) {
+        return ECKey.verify(data, ECKey.ECDSASignature.decodeFromDER(signature), pub);
+    }
+
+    @Test
+    public void testMatchesReference() {
+        for (int i = 0; i < ROUNDS; i++) {
+            ECKey key = new ECKey();
+            ECKey other = new ECKey();
+            byte[] digest = randomDigest();
+            byte[] signature = key.sign(digest);
+            byte[] pub = i % 2 == 0 ? key.getPubKey() : ECKey.CURVE.getCurve().decodePoint(key.getPubKey()).getEncoded(false);
+
+            assertTrue(reference(digest, signature, pub));
+            assertTrue(Secp256k1Verifier.verify(digest, signature, pub));
+
+            assertFalse(reference(digest, signature, other.getPubKey()));
+            assertFalse(Secp256k1Verifier.verify(digest, signature, other.getPubKey()));
+
+            byte[] tampered = digest.clone();
+            tampered[random.nextInt(tampered.length)] ^= 1 << random.nextInt(8);
+            assertEquals(reference(tampered, signature, pub), Secp256k1Verifier.verify(tampered, signature, pub));
+        }
+    }
+
+    @Test
+    public void testSignatureValues() {
+        ECKey key = new ECKey();
+        byte[] digest = randomDigest();
+        ECKey.ECDSASignature signature = ECKey.ECDSASignature.decodeFromDER(key.sign(digest));
+        BigInteger n = ECKey.CURVE.getN();
+        ECKey.ECDSASignature[] signatures = {
+                // s和n-s都是有效签名
+                new ECKey.ECDSASignature(signature.r, n.subtract(signature.s)),
+                new ECKey.ECDSASignature(signature.r, signature.s.add(BigInteger.ONE)),
+                new ECKey.ECDSASignature(BigInteger.ZERO, signature.s),
+                new ECKey.ECDSASignature(signature.r, BigInteger.ZERO),
+                new ECKey.ECDSASignature(n, signature.s),
+                new ECKey.ECDSASignature(signature.r, n.add(signature.s)),
+        };
+        for (ECKey.ECDSASignature s : signatures) {
+            byte[] der = s.encodeToDER();
+            boolean expected = ECKey.verify(digest, s, key.getPubKey());
+            assertEquals(expected, Secp256k1Verifier.verify(digest, s, key.getPubKey()));
+            assertEquals(expected, Secp256k1Verifier.verify(digest, der, key.getPubKey()));
+        }
+        assertTrue(Secp256k1Verifier.verify(digest, signatures[0], key.getPubKey()));
+    }
+
+    @Test
+    public void testDecodeSignature() {
+        for (int i = 0; i < ROUNDS; i++) {
+            byte[] der = new ECKey().sign(randomDigest());
+            ECKey.ECDSASignature expected = ECKey.ECDSASignature.decodeFromDER(der);
+            ECKey.ECDSASignature actual = Secp256k1Verifier.decodeSignature(der);
+            assertEquals(expected.r, actual.r);
+            assertEquals(expected.s, actual.s);
+        }
+        // 负数和尾部多余数据交给参考实现处理
+        byte[] negative = Hex.decode("3006020180020181");
+        assertEquals(ECKey.ECDSASignature.decodeFromDER(negative).s, Secp256k1Verifier.decodeSignature(negative).s);
+        byte[] trailing = Hex.decode("30060201010201020000");
+        assertEquals(ECKey.ECDSASignature.decodeFromDER(trailing).s, Secp256k1Verifier.decodeSignature(trailing).s);
+    }
+
+    @Test
+    public void testNonMinimalIntegerRejected() {
+        byte[] padded = Hex.decode("30080203000001020101");
+        assertDecodeFails(padded);
+    }
+
+    private static void assertDecodeFails(byte[] der) {
+        boolean referenceFailed = false;
+        try {
+            ECKey.ECDSASignature.decodeFromDER(der);
+        } catch (RuntimeException e) {
+            referenceFailed = true;
+        }
+        assertTrue(referenceFailed);
+        try {
+            Secp256k1Verifier.decodeSignature(der);
+            fail();
+        } catch (RuntimeException e) {
+            // 与参考实现一样失败
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPubKey() {
+        ECKey key = new ECKey();
+        byte[] digest = randomDigest();
+        byte[] pub = key.getPubKey().clone();
+        pub[0] = 0x05;
+        Secp256k1Verifier.verify(digest, key.sign(digest), pub);
+    }
+
+    @Test
+    public void testBatch() {
+        int size = 20;
+        byte[][] data = new byte[size][];
+        byte[][] signatures = new byte[size][];
+        byte[][] pubs = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            ECKey key = new ECKey();
+            data[i] = randomDigest();
+            signatures[i] = key.sign(data[i]);
+            pubs[i] = key.getPubKey();
+        }
+        data[3] = randomDigest();
+        pubs[7] = new ECKey().getPubKey();
+        signatures[11] = new byte[]{0x30, 0x00};
+        pubs[15] = new byte[]{0x05};
+
+        boolean[] results = Secp256k1Verifier.verifyBatch(data, signatures, pubs);
+        for (int i = 0; i < size; i++) {
+            assertEquals(i != 3 && i != 7 && i != 11 && i != 15, results[i]);
+        }
+    }
+}